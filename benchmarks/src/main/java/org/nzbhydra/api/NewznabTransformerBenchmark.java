@@ -0,0 +1,91 @@
+package org.nzbhydra.api;
+
+import org.nzbhydra.benchmarks.BenchmarkData;
+import org.nzbhydra.downloading.FileHandler;
+import org.nzbhydra.mapping.newznab.json.NewznabJsonRoot;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlRoot;
+import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
+import org.nzbhydra.searching.dtoseventsenums.SearchResultItem.DownloadType;
+import org.nzbhydra.searching.dtoseventsenums.SearchType;
+import org.nzbhydra.searching.searchrequests.SearchRequest;
+import org.nzbhydra.searching.searchrequests.SearchRequest.SearchSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transforming search results to the newznab XML and JSON responses returned by the API
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NewznabTransformerBenchmark {
+
+    @Param({"100", "1000"})
+    private int results;
+
+    private NewznabXmlTransformer xmlTransformer;
+    private NewznabJsonTransformer jsonTransformer;
+    private List<SearchResultItem> items;
+    private SearchRequest searchRequest;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData data = new BenchmarkData(1);
+        FileHandler fileHandler = new BenchmarkFileHandler(data);
+        xmlTransformer = new NewznabXmlTransformer();
+        xmlTransformer.nzbHandler = fileHandler;
+        xmlTransformer.configProvider = data.getConfigProvider();
+        jsonTransformer = new NewznabJsonTransformer();
+        jsonTransformer.nzbHandler = fileHandler;
+        jsonTransformer.configProvider = data.getConfigProvider();
+        items = data.createSearchResultItems(results, false);
+        searchRequest = new SearchRequest(SearchSource.API, SearchType.SEARCH, 0, results);
+    }
+
+    @Benchmark
+    public NewznabXmlRoot transformToXml() {
+        return xmlTransformer.getRssRoot(items, 0, items.size(), searchRequest);
+    }
+
+    @Benchmark
+    public NewznabJsonRoot transformToJson() {
+        return jsonTransformer.transformToRoot(items, 0, items.size(), searchRequest);
+    }
+
+    /**
+     * Builds the download links without an HTTP request to take the base URL from
+     */
+    private static class BenchmarkFileHandler extends FileHandler {
+
+        private final String apiKey;
+
+        BenchmarkFileHandler(BenchmarkData data) {
+            apiKey = data.getBaseConfig().getMain().getApiKey();
+        }
+
+        @Override
+        public String getDownloadLink(Long searchResultId, boolean internal, DownloadType downloadType) {
+            return UriComponentsBuilder.fromHttpUrl("http://127.0.0.1:5076")
+                    .path("/" + (downloadType == DownloadType.NZB ? "getnzb" : "gettorrent") + "/api/" + searchResultId)
+                    .queryParam("apikey", apiKey)
+                    .toUriString();
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.nzbhydra.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares the JSON results of a JMH run with the ones of a previous run and fails if any benchmark got slower than
+ * allowed. Only benchmarks with the same name, parameters and unit are compared.
+ * <p>
+ * Usage: BenchmarkComparison &lt;baseline.json&gt; &lt;result.json&gt; &lt;threshold in percent&gt;
+ */
+public class BenchmarkComparison {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <result.json> <threshold in percent>");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[0]);
+        File resultFile = new File(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+        if (!baselineFile.exists()) {
+            System.err.println("No baseline found at " + baselineFile + ". Copy " + resultFile + " there to create one.");
+            System.exit(2);
+        }
+        if (!resultFile.exists()) {
+            System.err.println("No benchmark results found at " + resultFile + ". Run the benchmarks first.");
+            System.exit(2);
+        }
+
+        Map<String, JsonNode> baseline = readResults(baselineFile);
+        Map<String, JsonNode> results = readResults(resultFile);
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : results.entrySet()) {
+            JsonNode result = entry.getValue().get("primaryMetric");
+            String unit = result.get("scoreUnit").asText();
+            if (!baseline.containsKey(entry.getKey()) || !unit.equals(baseline.get(entry.getKey()).get("primaryMetric").get("scoreUnit").asText())) {
+                System.out.println(String.format("%-110s %12.3f %-8s (no baseline)", entry.getKey(), result.get("score").asDouble(), unit));
+                continue;
+            }
+            double baselineScore = baseline.get(entry.getKey()).get("primaryMetric").get("score").asDouble();
+            double score = result.get("score").asDouble();
+            double change = (score - baselineScore) / baselineScore * 100;
+            //For throughput higher is better, for all other modes (times) lower is better
+            double slowdown = "thrpt".equals(entry.getValue().get("mode").asText()) ? -change : change;
+            boolean regression = slowdown > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.println(String.format("%-110s %12.3f %-8s %+7.1f%%%s", entry.getKey(), score, unit, change, regression ? "  REGRESSION" : ""));
+        }
+
+        if (regressions > 0) {
+            System.err.println(regressions + " benchmark(s) are more than " + threshold + "% slower than the baseline");
+            System.exit(1);
+        }
+        System.out.println("No benchmark is more than " + threshold + "% slower than the baseline");
+    }
+
+    private static Map<String, JsonNode> readResults(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            results.put(getKey(result), result);
+        }
+        return results;
+    }
+
+    private static String getKey(JsonNode result) {
+        StringBuilder key = new StringBuilder(result.get("benchmark").asText().replace("org.nzbhydra.", ""));
+        JsonNode params = result.get("params");
+        if (params != null) {
+            Map<String, String> sortedParams = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                sortedParams.put(field.getKey(), field.getValue().asText());
+            }
+            key.append(sortedParams);
+        }
+        return key.toString();
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.nzbhydra.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import org.nzbhydra.NzbHydraException;
+import org.nzbhydra.config.BaseConfig;
+import org.nzbhydra.config.ConfigProvider;
+import org.nzbhydra.config.ConfigReaderWriter;
+import org.nzbhydra.config.IndexerConfig;
+import org.nzbhydra.indexers.IndexerEntity;
+import org.nzbhydra.indexers.Newznab;
+import org.nzbhydra.mapping.newznab.mock.NewznabMockBuilder;
+import org.nzbhydra.mapping.newznab.mock.NewznabMockRequest;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlItem;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlRoot;
+import org.nzbhydra.searching.CategoryProvider;
+import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates the config and the synthetic search results used by the benchmarks. Results are generated by the
+ * {@link NewznabMockBuilder} like the ones returned by the mock indexers and converted to search result items the same
+ * way as real indexer responses.
+ */
+public class BenchmarkData {
+
+    public static final List<String> TITLE_WORDS = Arrays.asList("720p", "1080p", "2160p", "WEB-DL", "x264", "HEVC", "German", "French", "Dubbed", "Sample");
+
+    private final BaseConfig baseConfig;
+    private final ConfigProvider configProvider;
+    private final CategoryProvider categoryProvider;
+    private final List<BenchmarkIndexer> indexers = new ArrayList<>();
+
+    public BenchmarkData(int numberOfIndexers) {
+        //Logging would dominate the measurements
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        try {
+            baseConfig = new ConfigReaderWriter().originalConfig();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read base config", e);
+        }
+        baseConfig.getSearching().setForbiddenWords(Arrays.asList("cam", "ts", "telesync", "hdcam", "dubbed", "sample"));
+        baseConfig.getSearching().setRequiredRegex("(720p|1080p|2160p|x264|hevc)");
+        //Not a mock because recording the invocations would be measured as well
+        configProvider = new ConfigProvider() {
+            @Override
+            public BaseConfig getBaseConfig() {
+                return BenchmarkData.this.baseConfig;
+            }
+        };
+        categoryProvider = new CategoryProvider() {
+            {
+                baseConfig = BenchmarkData.this.baseConfig;
+                initialize();
+            }
+        };
+        for (int i = 0; i < numberOfIndexers; i++) {
+            indexers.add(new BenchmarkIndexer("indexer" + i, i));
+        }
+    }
+
+    public BaseConfig getBaseConfig() {
+        return baseConfig;
+    }
+
+    public ConfigProvider getConfigProvider() {
+        return configProvider;
+    }
+
+    public IndexerConfig getIndexerConfig(int index) {
+        return indexers.get(index).getConfig();
+    }
+
+    /**
+     * @return A newznab response with the given number of items
+     */
+    public NewznabXmlRoot createResponse(int numberOfResults, boolean generateDuplicates) {
+        return NewznabMockBuilder.generateResponse(NewznabMockRequest.builder()
+                .numberOfResults(numberOfResults)
+                .total(numberOfResults)
+                .titleBase("Some.Show.S01E")
+                .generateDuplicates(generateDuplicates)
+                .titleWords(TITLE_WORDS)
+                .build());
+    }
+
+    /**
+     * @return The items of one response per indexer, converted like results from real indexers
+     */
+    public List<SearchResultItem> createSearchResultItems(int numberOfResultsPerIndexer, boolean generateDuplicates) {
+        List<SearchResultItem> items = new ArrayList<>();
+        for (BenchmarkIndexer indexer : indexers) {
+            for (NewznabXmlItem item : createResponse(numberOfResultsPerIndexer, generateDuplicates).getRssChannel().getItems()) {
+                items.add(indexer.convert(item));
+            }
+        }
+        return items;
+    }
+
+    private class BenchmarkIndexer extends Newznab {
+
+        BenchmarkIndexer(String name, int id) {
+            configProvider = BenchmarkData.this.configProvider;
+            categoryProvider = BenchmarkData.this.categoryProvider;
+            IndexerConfig indexerConfig = new IndexerConfig();
+            indexerConfig.setName(name);
+            indexerConfig.setHost("http://127.0.0.1:5080/" + name);
+            indexerConfig.setScore(id);
+            IndexerEntity indexerEntity = new IndexerEntity();
+            indexerEntity.setId(id);
+            indexerEntity.setName(name);
+            initialize(indexerConfig, indexerEntity);
+        }
+
+        SearchResultItem convert(NewznabXmlItem item) {
+            try {
+                SearchResultItem searchResultItem = createSearchResultItem(item);
+                searchResultItem.setSearchResultId(searchResultItem.getGuid());
+                return searchResultItem;
+            } catch (NzbHydraException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+}
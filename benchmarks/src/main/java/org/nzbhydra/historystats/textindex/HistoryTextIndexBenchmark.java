@@ -0,0 +1,127 @@
+package org.nzbhydra.historystats.textindex;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.flywaydb.core.Flyway;
+import org.nzbhydra.historystats.textindex.HistoryTextIndex.IndexedColumn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtering the search history by query like the history page does (first page and total count), once by comparing
+ * every entry and once using the entries found in the trigram index if its trigrams are rare enough. The history is generated in an H2 database
+ * created by the migrations. Generating the default number of entries takes about a quarter of an hour, the database
+ * is kept in the temp folder and reused by later runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class HistoryTextIndexBenchmark {
+
+    private static final String SELECT = "SELECT * FROM SEARCH WHERE LOWER(query) LIKE :query%s ORDER BY SEARCH.ID DESC LIMIT 100";
+    private static final String COUNT = "SELECT COUNT(*) FROM SEARCH WHERE LOWER(query) LIKE :query%s";
+
+    @Param({"2000000"})
+    private int entries;
+    /**
+     * A rare show, an episode contained in many queries and a text not contained in any
+     */
+    @Param({"show4242", "s05e", "xyz"})
+    private String filter;
+
+    private SingleConnectionDataSource dataSource;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        //Generating the history takes a while so the database is kept for all trials with the same number of entries
+        File databaseFile = new File(System.getProperty("java.io.tmpdir"), "nzbhydra-history-benchmark-" + entries);
+        boolean exists = new File(databaseFile.getAbsolutePath() + ".mv.db").exists();
+        //A single connection keeps the database open between the queries
+        dataSource = new SingleConnectionDataSource("jdbc:h2:file:" + databaseFile.getAbsolutePath() + ";CACHE_SIZE=262144", "sa", "", true);
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        if (exists && jdbcTemplate.getJdbcOperations().queryForObject("SELECT COUNT(*) FROM HISTORY_TEXT_INDEX_STATE", Integer.class) > 0) {
+            return;
+        }
+        jdbcTemplate.getJdbcOperations().execute("DROP ALL OBJECTS");
+        Flyway flyway = new Flyway();
+        flyway.setLocations("classpath:migration");
+        flyway.setDataSource(dataSource);
+        flyway.migrate();
+
+        jdbcTemplate.getJdbcOperations().update("INSERT INTO SEARCH (ID, TIME, SOURCE, SEARCH_TYPE, QUERY) " +
+                "SELECT X, DATEADD('MINUTE', X, TIMESTAMP '2015-01-01 00:00:00'), 'API', 'TVSEARCH', " +
+                "CONCAT('show', MOD(X * 7919, 50000), ' s', LPAD(MOD(X, 20) + 1, 2, '0'), 'e', LPAD(MOD(X, 24) + 1, 2, '0')) " +
+                "FROM SYSTEM_RANGE(1, " + entries + ")");
+        for (int from = 0; from < entries; from += 10_000) {
+            jdbcTemplate.getJdbcOperations().update(IndexedColumn.SEARCH_QUERY.insertTrigrams(from, Math.min(from + 10_000, entries)));
+            jdbcTemplate.getJdbcOperations().update(IndexedColumn.SEARCH_QUERY.updateTrigramCounts(from, Math.min(from + 10_000, entries)));
+        }
+        jdbcTemplate.getJdbcOperations().update("ANALYZE");
+        jdbcTemplate.getJdbcOperations().update("INSERT INTO HISTORY_TEXT_INDEX_STATE (NAME, INDEXED_UNTIL_ID, INDEXED_ENTRIES) VALUES ('" + IndexedColumn.SEARCH_QUERY.name() + "', " + entries + ", " + entries + ")");
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public long filterUsingLike() {
+        return filter("");
+    }
+
+    @Benchmark
+    public long filterUsingTextIndex() {
+        //Like HistoryTextIndex.getFilterCondition()
+        Map<String, Object> parameters = new HashMap<>();
+        Set<String> trigrams = HistoryTextIndex.getTrigrams(filter);
+        Map<String, Integer> trigramCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT TRIGRAM, ENTRIES FROM HISTORY_TRIGRAM_COUNT WHERE NAME = 'SEARCH_QUERY' AND TRIGRAM IN (:trigrams)",
+                Collections.singletonMap("trigrams", trigrams), (RowCallbackHandler) x -> trigramCounts.put(x.getString(1), x.getInt(2)));
+        HistoryTextIndexStateEntity state = new HistoryTextIndexStateEntity();
+        state.setIndexedUntilId(entries);
+        state.setIndexedEntries(entries);
+        Optional<String> condition = HistoryTextIndex.getFilterCondition(IndexedColumn.SEARCH_QUERY, trigrams, trigramCounts, state, "query_trigrams", parameters);
+        return filter(condition.map(x -> " AND " + x).orElse(""), parameters);
+    }
+
+    private long filter(String condition) {
+        return filter(condition, new HashMap<>());
+    }
+
+    private long filter(String condition, Map<String, Object> parameters) {
+        parameters.put("query", "%" + filter + "%");
+        List<Map<String, Object>> page = jdbcTemplate.queryForList(String.format(SELECT, condition), parameters);
+        Long count = jdbcTemplate.queryForObject(String.format(COUNT, condition), parameters, Long.class);
+        return page.size() + count;
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.nzbhydra.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Encoding one log event with the file log pattern, done for every event logged to the console or the log file. The
+ * masking of sensitive data is compared with the regex replacement it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SensitiveDataRemovingPatternLayoutEncoderBenchmark {
+
+    private static final Pattern SENSITIVE_DATA_PATTERN = Pattern.compile("(?i)(username|apikey|password)[=:]([^&\\s]+)");
+
+    /**
+     * A typical debug message without anything to remove and a called URL containing an API key
+     */
+    @Param({"Rejected 12 results from indexer Some Indexer because of wrong size and 3 because of forbidden words",
+            "Calling URL https://www.indexer.com/api?apikey=1234567890abcdef&t=tvsearch&q=some+show&cat=5000&limit=100&offset=0"})
+    private String message;
+
+    private SensitiveDataRemovingPatternLayoutEncoder encoder;
+    private LoggingEvent event;
+    private String formatted;
+
+    @Setup
+    public void setUp() {
+        LoggerContext context = new LoggerContext();
+        encoder = new SensitiveDataRemovingPatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %5p --- [%15.15t] %-40.40logger{39} : %m%n");
+        encoder.start();
+        Logger logger = context.getLogger("org.nzbhydra.searching.SearchResultAcceptor");
+        event = new LoggingEvent(Logger.class.getName(), logger, Level.DEBUG, message, null, null);
+        formatted = encoder.getLayout().doLayout(event);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return encoder.encode(event);
+    }
+
+    @Benchmark
+    public String removeSensitiveData() {
+        return encoder.removeSensitiveData(formatted);
+    }
+
+    @Benchmark
+    public String removeSensitiveDataUsingRegex() {
+        return SENSITIVE_DATA_PATTERN.matcher(formatted).replaceAll("$1=<$1>");
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.nzbhydra.mapping;
+
+import com.google.common.base.Charsets;
+import org.nzbhydra.benchmarks.BenchmarkData;
+import org.nzbhydra.indexers.NewznabXmlStreamParser;
+import org.nzbhydra.indexers.exceptions.IndexerParsingException;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlRoot;
+import org.nzbhydra.mapping.newznab.xml.Xml;
+import org.nzbhydra.web.WebConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading newznab responses using the JAXB mapping and the stream parser and writing them using the JAXB mapping
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NewznabXmlMappingBenchmark {
+
+    @Param({"100", "1000"})
+    private int results;
+
+    private Jaxb2Marshaller marshaller;
+    private NewznabXmlStreamParser streamParser;
+    private NewznabXmlRoot response;
+    private String responseXml;
+    private byte[] responseBytes;
+
+    @Setup
+    public void setUp() {
+        marshaller = new WebConfiguration().marshaller();
+        streamParser = new NewznabXmlStreamParser();
+        response = new BenchmarkData(1).createResponse(results, false);
+        responseXml = marshal();
+        responseBytes = responseXml.getBytes(Charsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object unmarshalUsingJaxb() {
+        return marshaller.unmarshal(new StreamSource(new StringReader(responseXml)));
+    }
+
+    @Benchmark
+    public Xml parseUsingStreamParser() throws IndexerParsingException {
+        return streamParser.parse(new ByteArrayInputStream(responseBytes), Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public String marshal() {
+        StringWriter writer = new StringWriter();
+        marshaller.marshal(response, new StreamResult(writer));
+        return writer.toString();
+    }
+
+}
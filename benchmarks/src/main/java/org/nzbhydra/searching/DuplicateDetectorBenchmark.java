@@ -0,0 +1,74 @@
+package org.nzbhydra.searching;
+
+import org.nzbhydra.benchmarks.BenchmarkData;
+import org.nzbhydra.searching.dtoseventsenums.DuplicateDetectionResult;
+import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duplicate detection of the results of three indexers, once for all results and once for the last page of a search
+ * when the previous pages were already integrated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DuplicateDetectorBenchmark {
+
+    @Param({"100", "1000"})
+    private int resultsPerIndexer;
+    @Param({"false", "true"})
+    private boolean generateDuplicates;
+
+    private DuplicateDetector duplicateDetector;
+    private List<SearchResultItem> items;
+    private List<SearchResultItem> previousPages;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData data = new BenchmarkData(3);
+        duplicateDetector = new DuplicateDetector();
+        duplicateDetector.configProvider = data.getConfigProvider();
+        items = data.createSearchResultItems(resultsPerIndexer, generateDuplicates);
+        previousPages = items.subList(0, items.size() - resultsPerIndexer / 10);
+    }
+
+    @Benchmark
+    public DuplicateDetectionResult detectAll() {
+        return duplicateDetector.detectDuplicates(items);
+    }
+
+    @Benchmark
+    public DuplicateDetectionResult detectIncrementally(PreviousPages previousPages) {
+        return duplicateDetector.detectDuplicates(previousPages.state, items);
+    }
+
+    @State(Scope.Thread)
+    public static class PreviousPages {
+
+        private DuplicateDetectionState state;
+
+        @Setup(Level.Invocation)
+        public void setUp(DuplicateDetectorBenchmark benchmark) {
+            state = new DuplicateDetectionState();
+            benchmark.duplicateDetector.detectDuplicates(state, benchmark.previousPages);
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.nzbhydra.searching;
+
+import org.nzbhydra.benchmarks.BenchmarkData;
+import org.nzbhydra.config.Category;
+import org.nzbhydra.config.IndexerConfig;
+import org.nzbhydra.config.SearchSourceRestriction;
+import org.nzbhydra.searching.SearchResultAcceptor.AcceptorResult;
+import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
+import org.nzbhydra.searching.dtoseventsenums.SearchType;
+import org.nzbhydra.searching.searchrequests.SearchRequest;
+import org.nzbhydra.searching.searchrequests.SearchRequest.SearchSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepting or rejecting one page of results from an indexer using the global rules (required and forbidden words and
+ * regexes, age, size, etc.)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SearchResultAcceptorBenchmark {
+
+    @Param({"100", "1000"})
+    private int results;
+
+    private SearchResultAcceptor acceptor;
+    private List<SearchResultItem> items;
+    private SearchRequest searchRequest;
+    private IndexerConfig indexerConfig;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData data = new BenchmarkData(1);
+        acceptor = new SearchResultAcceptor();
+        acceptor.configProvider = data.getConfigProvider();
+        items = data.createSearchResultItems(results, false);
+        indexerConfig = data.getIndexerConfig(0);
+
+        Category category = new Category("All");
+        category.setIgnoreResultsFrom(SearchSourceRestriction.NONE);
+        category.setApplyRestrictionsType(SearchSourceRestriction.NONE);
+        searchRequest = new SearchRequest(SearchSource.INTERNAL, SearchType.SEARCH, 0, 100);
+        searchRequest.setCategory(category);
+    }
+
+    @Benchmark
+    public AcceptorResult acceptResults() {
+        return acceptor.acceptResults(items, searchRequest, indexerConfig);
+    }
+
+}
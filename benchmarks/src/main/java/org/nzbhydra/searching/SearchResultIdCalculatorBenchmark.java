@@ -0,0 +1,45 @@
+package org.nzbhydra.searching;
+
+import org.nzbhydra.benchmarks.BenchmarkData;
+import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculating the IDs of 1000 search results, done for every result when it's parsed and saved
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SearchResultIdCalculatorBenchmark {
+
+    private List<SearchResultItem> items;
+
+    @Setup
+    public void setUp() {
+        items = new BenchmarkData(1).createSearchResultItems(1000, false);
+    }
+
+    @Benchmark
+    public void calculateSearchResultIds(Blackhole blackhole) {
+        for (SearchResultItem item : items) {
+            blackhole.consume(SearchResultIdCalculator.calculateSearchResultId(item));
+        }
+    }
+
+}
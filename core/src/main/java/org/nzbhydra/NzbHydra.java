@@ -1,6 +1,7 @@
 package org.nzbhydra;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.base.Strings;
 import joptsimple.OptionException;
 import joptsimple.OptionParser;
@@ -337,7 +338,10 @@ public class NzbHydra {
 
     @Bean
     public CacheManager getCacheManager() {
-        return new CaffeineCacheManager("infos", "titles", "updates", "dev");
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager("infos", "titles", "updates", "dev");
+        //Needed for the cache metrics
+        cacheManager.setCaffeine(Caffeine.newBuilder().recordStats());
+        return cacheManager;
     }
 
 
@@ -21,6 +21,8 @@ import org.nzbhydra.mapping.newznab.xml.NewznabXmlError;
 import org.nzbhydra.mediainfo.InfoProvider.IdType;
 import org.nzbhydra.searching.CategoryProvider;
 import org.nzbhydra.searching.SearchResult;
+import org.nzbhydra.searching.SearchTimings;
+import org.nzbhydra.searching.SearchTimings.SearchPhase;
 import org.nzbhydra.searching.Searcher;
 import org.nzbhydra.searching.dtoseventsenums.DownloadType;
 import org.nzbhydra.searching.dtoseventsenums.SearchType;
@@ -55,11 +57,17 @@ public class ExternalApi {
 
     private static final int MAX_CACHE_SIZE = 5;
     private static final int MAX_CACHE_AGE_HOURS = 24;
+    public static final String TIMINGS_HEADER = "X-NZBHydra-Timings";
 
     private static final Logger logger = LoggerFactory.getLogger(ExternalApi.class);
 
     @Value("${nzbhydra.dev.noApiKey:false}")
     private boolean noApiKeyNeeded = false;
+    /**
+     * If enabled search responses contain a header with a summary of where the time of the search went
+     */
+    @Value("${nzbhydra.api.timingsHeader:false}")
+    protected boolean timingsHeader = false;
 
     @Autowired
     protected Searcher searcher;
@@ -94,9 +102,13 @@ public class ExternalApi {
             if (params.getCachetime() != null) {
                 return handleCachingSearch(params);
             }
-            NewznabResponse searchResult = search(params);
+            SearchRequest searchRequest = createSearchRequest(params);
+            NewznabResponse searchResult = search(params, searchRequest);
             HttpHeaders httpHeaders = new HttpHeaders();
             httpHeaders.set(HttpHeaders.CONTENT_TYPE, searchResult.getContentHeader());
+            if (timingsHeader) {
+                httpHeaders.set(TIMINGS_HEADER, searchRequest.getInternalData().getTimings().toHeaderValue());
+            }
             if (params.getO() != OutputType.JSON) {
                 searchResult.setSearchType(isTorznabCall() ? "torznab" : "newznab");
             }
@@ -241,7 +253,7 @@ public class ExternalApi {
         DownloadResult downloadResult;
         try {
 
-            downloadResult = fileHandler.getFileByGuid(Long.valueOf(params.getId()), configProvider.getBaseConfig().getSearching().getNzbAccessType(), SearchSource.API);
+            downloadResult = fileHandler.getFileByGuid(Long.valueOf(params.getId()), configProvider.getBaseConfig().getSearching().getNzbAccessType(), SearchSource.API, true);
         } catch (InvalidSearchResultIdException e) {
             return ResponseEntity.ok().contentType(MediaType.APPLICATION_XML).body("<error code=\"300\" description=\"Invalid or outdated search result ID\"/>");
         }
@@ -253,18 +265,30 @@ public class ExternalApi {
     }
 
     protected NewznabResponse search(NewznabParameters params) {
+        return search(params, createSearchRequest(params));
+    }
+
+    protected NewznabResponse search(NewznabParameters params, SearchRequest searchRequest) {
         Stopwatch stopwatch = Stopwatch.createStarted();
+        SearchResult searchResult = searcher.search(searchRequest);
+
+        Stopwatch transformationStopwatch = Stopwatch.createStarted();
+        NewznabResponse transformedResults = transformResults(searchResult, params, searchRequest);
+        SearchTimings timings = searchRequest.getInternalData().getTimings();
+        timings.add(SearchPhase.TRANSFORMATION, transformationStopwatch.elapsed(TimeUnit.MILLISECONDS));
+        timings.finish();
+        logger.info("Search took {}ms. Returning {} results", stopwatch.elapsed(TimeUnit.MILLISECONDS), searchResult.getSearchResultItems().size());
+        return transformedResults;
+    }
+
+    private SearchRequest createSearchRequest(NewznabParameters params) {
         SearchRequest searchRequest = buildBaseSearchRequest(params);
         if (isTorznabCall()) {
             searchRequest.setDownloadType(DownloadType.TORRENT);
         } else {
             searchRequest.setDownloadType(DownloadType.NZB);
         }
-        SearchResult searchResult = searcher.search(searchRequest);
-
-        NewznabResponse transformedResults = transformResults(searchResult, params, searchRequest);
-        logger.info("Search took {}ms. Returning {} results", stopwatch.elapsed(TimeUnit.MILLISECONDS), searchResult.getSearchResultItems().size());
-        return transformedResults;
+        return searchRequest;
     }
 
     private boolean isTorznabCall() {
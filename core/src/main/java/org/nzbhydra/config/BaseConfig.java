@@ -4,10 +4,14 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.base.Joiner;
 import lombok.*;
 import org.nzbhydra.NzbHydra;
+import org.nzbhydra.ShutdownEvent;
+import org.nzbhydra.logging.LoggingMarkers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
@@ -18,16 +22,18 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import static org.nzbhydra.config.ConfigReaderWriter.buildConfigFileFile;
 
 @Component
 @Data
-@EqualsAndHashCode(exclude = {"applicationEventPublisher"}, callSuper = false)
+@EqualsAndHashCode(exclude = {"applicationEventPublisher", "saveRequested"}, callSuper = false)
 public class BaseConfig extends ValidatingConfig<BaseConfig> {
 
     private static final Logger logger = LoggerFactory.getLogger(BaseConfig.class);
+    private static final long DELAYED_SAVE_INTERVAL_MS = 5000;
 
     public static boolean isProductive = true;
 
@@ -40,6 +46,10 @@ public class BaseConfig extends ValidatingConfig<BaseConfig> {
     private boolean initialized = false;
     @JsonIgnore
     private ConfigReaderWriter configReaderWriter = new ConfigReaderWriter();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @JsonIgnore
+    private final AtomicBoolean saveRequested = new AtomicBoolean();
     private AuthConfig auth = new AuthConfig();
     private CategoriesConfig categoriesConfig = new CategoriesConfig();
     private DownloadingConfig downloading = new DownloadingConfig();
@@ -68,9 +78,32 @@ public class BaseConfig extends ValidatingConfig<BaseConfig> {
     }
 
     public void save() {
+        saveRequested.set(false);
         configReaderWriter.save(this);
     }
 
+    /**
+     * Marks the config to be saved in the background within the next few seconds. Meant for runtime state like indexer
+     * statuses which may change many times per minute, so that the calling thread doesn't have to wait for the file to be
+     * written and multiple changes result in only one write.
+     */
+    public void saveLater() {
+        saveRequested.set(true);
+    }
+
+    @Scheduled(fixedDelay = DELAYED_SAVE_INTERVAL_MS)
+    public void saveIfRequested() {
+        if (saveRequested.get()) {
+            logger.debug(LoggingMarkers.PERFORMANCE, "Saving config after delayed save was requested");
+            save();
+        }
+    }
+
+    @EventListener
+    public void onShutdown(ShutdownEvent event) {
+        saveIfRequested();
+    }
+
 
     @PostConstruct
     public void init() throws IOException {
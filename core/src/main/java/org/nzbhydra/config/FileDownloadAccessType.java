@@ -5,5 +5,9 @@ package org.nzbhydra.config;
  */
 public enum FileDownloadAccessType {
     REDIRECT,
-    PROXY
+    PROXY,
+    /**
+     * Not configurable. Used for downloads of proxied NZBs which were loaded from the NZB cache instead of the indexer
+     */
+    CACHE
 }
@@ -52,6 +52,7 @@ public class IndexerConfig extends ValidatingConfig<IndexerConfig> {
     private Long disabledUntil = null;
     private int disabledLevel;
     private Integer loadLimitOnRandom = null;
+    private Integer maxConcurrentSearches = null;
     private String name;
     @SensitiveData
     private String password = null;
@@ -84,6 +85,10 @@ public class IndexerConfig extends ValidatingConfig<IndexerConfig> {
         return Optional.ofNullable(loadLimitOnRandom);
     }
 
+    public Optional<Integer> getMaxConcurrentSearches() {
+        return Optional.ofNullable(maxConcurrentSearches);
+    }
+
     public Optional<Integer> getGeneralMinSize() {
         return Optional.ofNullable(generalMinSize);
     }
@@ -164,6 +169,9 @@ public class IndexerConfig extends ValidatingConfig<IndexerConfig> {
         if (getDownloadLimit().isPresent() && getDownloadLimit().get() <= 0) {
             validationResult.getErrorMessages().add("Indexer " + getName() + " has a download limit of 0 or lower which doesn't make sense: ");
         }
+        if (getMaxConcurrentSearches().isPresent() && getMaxConcurrentSearches().get() <= 0) {
+            validationResult.getErrorMessages().add("Indexer " + getName() + " has a maximum of 0 or fewer concurrent searches which doesn't make sense");
+        }
 
         return validationResult;
     }
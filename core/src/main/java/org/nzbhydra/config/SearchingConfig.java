@@ -37,11 +37,14 @@ public class SearchingConfig extends ValidatingConfig<SearchingConfig> {
     private String language = "en";
     private boolean loadAllCachedOnInternal;
     private Integer maxAge;
+    private int maxConcurrentIndexerSearches = 30;
+    private int maxConcurrentSearchesPerIndexer = 5;
     @JsonFormat(shape = Shape.STRING)
     private FileDownloadAccessType nzbAccessType = FileDownloadAccessType.REDIRECT;
     @JsonSetter()
     private List<String> removeTrailing = new ArrayList<>();
     private String requiredRegex;
+    private int searchCacheSizeInMb = 64;
     private List<String> requiredWords = new ArrayList<>();
     private boolean showQuickFilterButtons = true;
     private Integer timeout = 30;
@@ -81,6 +84,15 @@ public class SearchingConfig extends ValidatingConfig<SearchingConfig> {
         List<String> warnings = new ArrayList<>();
         checkRegex(errors, requiredRegex, "The required regex in \"Searching\" is invalid");
         checkRegex(errors, forbiddenRegex, "The forbidden in \"Searching\" is invalid");
+        if (searchCacheSizeInMb < 1) {
+            errors.add("The search cache size in \"Searching\" must be at least 1 MB");
+        }
+        if (maxConcurrentIndexerSearches < 1) {
+            errors.add("The number of concurrent indexer searches in \"Searching\" must be at least 1");
+        }
+        if (maxConcurrentSearchesPerIndexer < 1) {
+            errors.add("The number of concurrent searches per indexer in \"Searching\" must be at least 1");
+        }
 
         if (applyRestrictions == SearchSourceRestriction.NONE) {
             if (!getRequiredWords().isEmpty() || !getForbiddenWords().isEmpty()) {
@@ -1,9 +1,10 @@
 package org.nzbhydra.debuginfos;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.h2.tools.Csv;
 import org.nzbhydra.NzbHydra;
 import org.nzbhydra.config.ConfigProvider;
 import org.nzbhydra.config.sensitive.SensitiveDataModule;
@@ -16,10 +17,19 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -34,8 +44,16 @@ public class DebugInfosProvider {
     private ConfigProvider configProvider;
     @PersistenceContext
     private EntityManager entityManager;
-
-    public byte[] getDebugInfosAsZip() throws IOException {
+    @Autowired
+    protected DataSource dataSource;
+
+    /**
+     * Writes the zip with the anonymized log and config and other files useful for debugging. The entries are written
+     * one after another directly to the given stream, so no matter how big the log files are they're never kept in memory.
+     *
+     * @param outputStream The stream to write to. Is closed when the zip is finished.
+     */
+    public void writeDebugInfosAsZip(OutputStream outputStream) throws IOException {
         logger.info("Creating debug infos");
         logger.info("NZBHydra2 version: {}", NzbHydra.class.getPackage().getImplementationVersion());
         logger.info("Java command line: {}", System.getProperty("sun.java.command"));
@@ -49,46 +67,57 @@ public class DebugInfosProvider {
             logger.info("Apparently run in docker");
         }
 
-        String anonymizedConfig = getAnonymizedConfig();
-        String anonymizedLog = logAnonymizer.getAnonymizedLog();
-        File tempFile = File.createTempFile("nzbhydradebuginfos", "zip");
-        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-            try (ZipOutputStream zos = new ZipOutputStream(fos)) {
-                writeStringToZip(zos, "nzbhydra.log", anonymizedLog.getBytes("UTF-8"));
-                writeStringToZip(zos, "nzbhydra-config.yaml", anonymizedConfig.getBytes("UTF-8"));
-                File traceFile = new File(new File(NzbHydra.getDataFolder(), "database"), "nzbhydra.trace.db");
-                if (traceFile.exists()) {
-                    writeFileToZip(zos, "nzbhydra.trace.db", traceFile);
-                }
-                File logsFolder = new File(NzbHydra.getDataFolder(), "logs");
-                //Write all GC logs
-                File[] files = logsFolder.listFiles((dir, name) -> name.startsWith("gclog"));
-                if (files != null) {
-                    for (File file : files) {
-                        writeFileToZip(zos, file.getName(), file);
-                    }
-                }
-                //Write wrapper log
-                File wrapperLog = new File(logsFolder, "wrapper.log");
-                if (wrapperLog.exists()) {
-                    writeFileToZip(zos, "wrapper.log", wrapperLog);
+        try (ZipOutputStream zos = new ZipOutputStream(outputStream)) {
+            zos.putNextEntry(new ZipEntry("nzbhydra.log"));
+            //Not closed because that would close the zip stream
+            Writer logWriter = new OutputStreamWriter(zos, StandardCharsets.UTF_8);
+            logAnonymizer.writeAnonymizedLog(logWriter);
+            logWriter.flush();
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("nzbhydra-config.yaml"));
+            writeAnonymizedConfig(zos);
+            zos.closeEntry();
+            File traceFile = new File(new File(NzbHydra.getDataFolder(), "database"), "nzbhydra.trace.db");
+            if (traceFile.exists()) {
+                writeFileToZip(zos, "nzbhydra.trace.db", traceFile);
+            }
+            File logsFolder = new File(NzbHydra.getDataFolder(), "logs");
+            //Write all GC logs
+            File[] files = logsFolder.listFiles((dir, name) -> name.startsWith("gclog"));
+            if (files != null) {
+                for (File file : files) {
+                    writeFileToZip(zos, file.getName(), file);
                 }
             }
+            //Write wrapper log
+            File wrapperLog = new File(logsFolder, "wrapper.log");
+            if (wrapperLog.exists()) {
+                writeFileToZip(zos, "wrapper.log", wrapperLog);
+            }
         }
-        return Files.readAllBytes(tempFile.toPath());
     }
 
     public static boolean isRunInDocker() {
         return new File("/.dockerenv").exists();
     }
 
-    @Transactional
     public String executeSqlQuery(String sql) throws IOException {
+        StringWriter writer = new StringWriter();
+        executeSqlQuery(sql, writer);
+        return writer.toString();
+    }
+
+    /**
+     * Executes the query and writes the result as CSV while reading the rows
+     */
+    public void executeSqlQuery(String sql, Writer writer) throws IOException {
         logger.info("Executing SQL query \"{}\" and returning as CSV", sql);
-        File tempFile = File.createTempFile("nzbhydra", "csv");
-        String path = tempFile.getAbsolutePath().replace("\\", "/");
-        entityManager.createNativeQuery(String.format("CALL CSVWRITE('%s', '%s')", path, sql.replace("'", "''"))).executeUpdate();
-        return new String(Files.readAllBytes(tempFile.toPath()));
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            ResultSet resultSet = statement.executeQuery(sql);
+            new Csv().write(writer, resultSet);
+        } catch (SQLException e) {
+            throw new IOException("Error executing SQL query: " + e.getMessage(), e);
+        }
     }
 
     @Transactional
@@ -99,25 +128,19 @@ public class DebugInfosProvider {
         return String.valueOf(affectedRows);
     }
 
-    private void writeStringToZip(ZipOutputStream zos, String name, byte[] bytes) throws IOException {
-        ZipEntry zipEntry = new ZipEntry(name);
-        zipEntry.setSize(bytes.length);
-        zos.putNextEntry(zipEntry);
-        zos.write(bytes);
-        zos.closeEntry();
-    }
-
     private void writeFileToZip(ZipOutputStream zos, String name, File file) throws IOException {
-        byte[] bytes = Files.readAllBytes(file.toPath());
-        writeStringToZip(zos, name, bytes);
+        //No size set because the file may be written to while copying it
+        zos.putNextEntry(new ZipEntry(name));
+        Files.copy(file.toPath(), zos);
+        zos.closeEntry();
     }
 
-
-    private String getAnonymizedConfig() throws JsonProcessingException {
+    private void writeAnonymizedConfig(OutputStream outputStream) throws IOException {
         ObjectMapper objectMapper = new ObjectMapper(new YAMLFactory());
         objectMapper.registerModule(new Jdk8Module());
         objectMapper.registerModule(new SensitiveDataModule());
-        return objectMapper.writeValueAsString(configProvider.getBaseConfig());
+        //The YAML generator closes the stream when it's finished which would close the zip stream
+        objectMapper.writeValue(new CloseShieldOutputStream(outputStream), configProvider.getBaseConfig());
     }
 
 }
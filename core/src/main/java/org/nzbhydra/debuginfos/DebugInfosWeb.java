@@ -2,8 +2,12 @@ package org.nzbhydra.debuginfos;
 
 import org.nzbhydra.GenericResponse;
 import org.nzbhydra.NzbHydra;
+import org.nzbhydra.downloading.NzbCache;
+import org.nzbhydra.downloading.NzbCache.NzbCacheStats;
 import org.nzbhydra.logging.LogContentProvider;
 import org.nzbhydra.logging.LogContentProvider.JsonLogResponse;
+import org.nzbhydra.okhttp.HydraOkHttp3ClientHttpRequestFactory;
+import org.nzbhydra.okhttp.HydraOkHttp3ClientHttpRequestFactory.ConnectionStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +17,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
@@ -24,6 +29,10 @@ public class DebugInfosWeb {
     private LogContentProvider logContentProvider;
     @Autowired
     private org.nzbhydra.debuginfos.DebugInfosProvider debugInfos;
+    @Autowired
+    private HydraOkHttp3ClientHttpRequestFactory requestFactory;
+    @Autowired
+    private NzbCache nzbCache;
 
     private static final Logger logger = LoggerFactory.getLogger(DebugInfosWeb.class);
 
@@ -61,15 +70,30 @@ public class DebugInfosWeb {
 
     @Secured({"ROLE_ADMIN"})
     @RequestMapping(value = "/internalapi/debuginfos/logandconfig", produces = "application/zip", method = RequestMethod.GET)
-    public byte[] logAndInfosAsZip() throws IOException {
+    public void logAndInfosAsZip(HttpServletResponse response) throws IOException {
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition", "attachment; filename=nzbhydra-debuginfos.zip");
         try {
-            return debugInfos.getDebugInfosAsZip();
+            //Streamed to the client while it's created. If anything goes wrong the status can't be changed anymore, the client will get an incomplete zip
+            debugInfos.writeDebugInfosAsZip(response.getOutputStream());
         } catch (IOException e) {
             logger.error("Error while getting debug infos", e);
             throw e;
         }
     }
 
+    @Secured({"ROLE_ADMIN"})
+    @RequestMapping(value = "/internalapi/debuginfos/connectionstats", method = RequestMethod.GET)
+    public ConnectionStats getConnectionStats() {
+        return requestFactory.getConnectionStats();
+    }
+
+    @Secured({"ROLE_ADMIN"})
+    @RequestMapping(value = "/internalapi/debuginfos/nzbcachestats", method = RequestMethod.GET)
+    public NzbCacheStats getNzbCacheStats() {
+        return nzbCache.getStats();
+    }
+
     @Secured({"ROLE_ADMIN"})
     @RequestMapping(value = "/internalapi/debuginfos/executesqlquery", method = RequestMethod.POST)
     public GenericResponse executeSqlQuery(@RequestBody String sql) throws IOException {
@@ -18,10 +18,12 @@ package org.nzbhydra.downloading;
 
 import lombok.Data;
 import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.util.regex.Matcher;
@@ -30,6 +32,10 @@ import java.util.regex.Pattern;
 @Data
 public class DownloadResult {
     private byte[] content;
+    /**
+     * Set instead of the content if the content is streamed
+     */
+    private InputStream contentStream;
     private String url;
     private String title;
     private boolean successful;
@@ -78,7 +84,9 @@ public class DownloadResult {
         } else {
             HttpHeaders headers = new HttpHeaders();
             headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + getFileName());
-            response = new ResponseEntity<>(getContent(), headers, HttpStatus.OK);
+            //The stream is closed by the message converter after it was written
+            Object body = contentStream != null ? new InputStreamResource(contentStream) : getContent();
+            response = new ResponseEntity<>(body, headers, HttpStatus.OK);
         }
         return response;
     }
@@ -100,6 +108,12 @@ public class DownloadResult {
         return new DownloadResult(title, content, null, true, null, entity);
     }
 
+    public static DownloadResult createSuccessfulStreamingDownloadResult(String title, InputStream contentStream, FileDownloadEntity entity) {
+        DownloadResult result = new DownloadResult(title, null, null, true, null, entity);
+        result.setContentStream(contentStream);
+        return result;
+    }
+
     public static DownloadResult createSuccessfulRedirectResult(String title, String url, FileDownloadEntity entity) {
         return new DownloadResult(title, null, url, true, null, entity);
     }
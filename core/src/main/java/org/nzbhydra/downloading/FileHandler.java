@@ -1,6 +1,10 @@
 package org.nzbhydra.downloading;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Stopwatch;
+import com.google.common.io.ByteStreams;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
@@ -9,9 +13,12 @@ import org.nzbhydra.config.FileDownloadAccessType;
 import org.nzbhydra.config.MainConfig;
 import org.nzbhydra.indexers.Indexer;
 import org.nzbhydra.indexers.NfoResult;
+import org.nzbhydra.metrics.HydraMetrics;
 import org.nzbhydra.okhttp.HydraOkHttp3ClientHttpRequestFactory;
+import org.nzbhydra.searching.IndexerSearchExecutor;
 import org.nzbhydra.searching.SearchModuleProvider;
 import org.nzbhydra.searching.db.SearchResultEntity;
+import org.nzbhydra.searching.db.SearchResultPersister;
 import org.nzbhydra.searching.db.SearchResultRepository;
 import org.nzbhydra.searching.dtoseventsenums.SearchResultItem.DownloadType;
 import org.nzbhydra.searching.searchrequests.SearchRequest.SearchSource;
@@ -24,15 +31,22 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -47,6 +61,8 @@ public class FileHandler {
     @Autowired
     protected SearchResultRepository searchResultRepository;
     @Autowired
+    protected SearchResultPersister searchResultPersister;
+    @Autowired
     protected FileDownloadRepository downloadRepository;
     @Autowired
     protected SearchModuleProvider searchModuleProvider;
@@ -56,8 +72,21 @@ public class FileHandler {
     protected ApplicationEventPublisher eventPublisher;
     @Autowired
     protected UrlCalculator urlCalculator;
+    @Autowired
+    protected IndexerSearchExecutor indexerSearchExecutor;
+    @Autowired
+    protected NzbCache nzbCache;
 
     public DownloadResult getFileByGuid(long guid, FileDownloadAccessType fileDownloadAccessType, SearchSource accessSource) throws InvalidSearchResultIdException {
+        return getFileByGuid(guid, fileDownloadAccessType, accessSource, false);
+    }
+
+    /**
+     * @param streamContent If true the content of a proxied file is not loaded into memory but streamed from the indexer
+     *                      (or the NZB cache) when the response entity of the result is written
+     */
+    public DownloadResult getFileByGuid(long guid, FileDownloadAccessType fileDownloadAccessType, SearchSource accessSource, boolean streamContent) throws InvalidSearchResultIdException {
+        searchResultPersister.awaitPendingWrites();
         Optional<SearchResultEntity> optionalResult = searchResultRepository.findById(guid);
         if (!optionalResult.isPresent()) {
             logger.error("Download request with invalid/outdated GUID {}", guid);
@@ -70,38 +99,78 @@ public class FileHandler {
         if (fileDownloadAccessType == FileDownloadAccessType.REDIRECT) {
             return handleRedirect(accessSource, result);
         } else {
-            return handleContentDownload(accessSource, result, downloadType);
+            return handleContentDownload(accessSource, result, downloadType, streamContent);
         }
     }
 
     public DownloadResult handleContentDownload(SearchSource accessSource, SearchResultEntity result, String downloadType) {
+        return handleContentDownload(accessSource, result, downloadType, false);
+    }
+
+    public DownloadResult handleContentDownload(SearchSource accessSource, SearchResultEntity result, String downloadType, boolean streamContent) {
         if (result.getLink().contains("magnet:")) {
             logger.warn("Unable to download magnet link as file");
             return DownloadResult.createErrorResult("Unable to download magnet link as file");
         }
-        byte[] fileContent;
-        Stopwatch stopwatch = Stopwatch.createStarted();
+        //Saved with the final status when the content was completely read or the download failed
+        FileDownloadEntity downloadEntity = new FileDownloadEntity(result, FileDownloadAccessType.PROXY, accessSource, FileDownloadStatus.NONE, null);
+        InputStream contentStream;
         try {
-            fileContent = downloadFile(result);
+            contentStream = openContent(result, downloadType, downloadEntity);
         } catch (IOException e) {
             //LATER get status code and use that
             logger.error("Error while downloading NZB from URL {}: {}", result.getLink(), e.getMessage());
-            FileDownloadEntity downloadEntity = new FileDownloadEntity(result, FileDownloadAccessType.PROXY, accessSource, FileDownloadStatus.NZB_DOWNLOAD_ERROR, e.getMessage());
+            finishDownload(downloadEntity, FileDownloadStatus.NZB_DOWNLOAD_ERROR, e.getMessage());
+            return DownloadResult.createErrorResult("An error occurred while downloading " + result.getTitle() + " from indexer " + result.getIndexer().getName(), downloadEntity);
+        }
 
-            downloadRepository.save(downloadEntity);
-            eventPublisher.publishEvent(new FileDownloadEvent(downloadEntity));
+        if (streamContent) {
+            return DownloadResult.createSuccessfulStreamingDownloadResult(result.getTitle(), contentStream, downloadEntity);
+        }
+        try (InputStream inputStream = contentStream) {
+            return DownloadResult.createSuccessfulDownloadResult(result.getTitle(), ByteStreams.toByteArray(inputStream), downloadEntity);
+        } catch (IOException e) {
+            //The failed download was already logged and saved when the stream was closed
             return DownloadResult.createErrorResult("An error occurred while downloading " + result.getTitle() + " from indexer " + result.getIndexer().getName(), downloadEntity);
         }
+    }
 
-        long responseTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
-        //LATER CHeck content of file for errors, perhaps an indexer returns successful code but error in message for some reason
-        logger.info("{} download from indexer successfully completed in {}ms", downloadType, responseTime);
+    /**
+     * Opens the content of the result from the NZB cache or the indexer. NZBs loaded from the indexer are written to the
+     * cache while they're read. The download entity is saved when the returned stream is closed.
+     */
+    private InputStream openContent(SearchResultEntity result, String downloadType, FileDownloadEntity downloadEntity) throws IOException {
+        boolean cacheable = nzbCache.isEnabled() && result.getDownloadType() == DownloadType.NZB;
+        if (cacheable) {
+            Optional<InputStream> cachedContent = nzbCache.get(result.getId());
+            if (cachedContent.isPresent()) {
+                logger.info("{} for \"{}\" loaded from cache", downloadType, result.getTitle());
+                //The indexer is not accessed so this must not count towards its download limit or stats
+                downloadEntity.setNzbAccessType(FileDownloadAccessType.CACHE);
+                return new ProxiedDownloadInputStream(cachedContent.get(), null,
+                        bytes -> finishDownload(downloadEntity, FileDownloadStatus.NZB_DOWNLOAD_SUCCESSFUL, null),
+                        error -> finishDownload(downloadEntity, FileDownloadStatus.NZB_DOWNLOAD_ERROR, error));
+            }
+        }
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        InputStream inputStream = downloadFile(result);
+        return new ProxiedDownloadInputStream(inputStream, cacheable ? nzbCache.newWriter(result.getId()) : null, bytes -> {
+            long responseTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+            HydraMetrics.recordProxiedDownload(result.getIndexer().getName(), bytes, responseTime);
+            //LATER CHeck content of file for errors, perhaps an indexer returns successful code but error in message for some reason
+            logger.info("{} download from indexer successfully completed in {}ms", downloadType, responseTime);
+            finishDownload(downloadEntity, FileDownloadStatus.NZB_DOWNLOAD_SUCCESSFUL, null);
+        }, error -> {
+            logger.error("Error while downloading NZB from URL {}: {}", result.getLink(), error);
+            finishDownload(downloadEntity, FileDownloadStatus.NZB_DOWNLOAD_ERROR, error);
+        });
+    }
 
-        FileDownloadEntity downloadEntity = new FileDownloadEntity(result, FileDownloadAccessType.PROXY, accessSource, FileDownloadStatus.NZB_DOWNLOAD_SUCCESSFUL, null);
+    private void finishDownload(FileDownloadEntity downloadEntity, FileDownloadStatus status, String error) {
+        downloadEntity.setStatus(status);
+        downloadEntity.setError(error);
         downloadRepository.save(downloadEntity);
         eventPublisher.publishEvent(new FileDownloadEvent(downloadEntity));
-
-        return DownloadResult.createSuccessfulDownloadResult(result.getTitle(), fileContent, downloadEntity);
     }
 
     public DownloadResult handleRedirect(SearchSource accessSource, SearchResultEntity result) {
@@ -113,76 +182,109 @@ public class FileHandler {
     }
 
 
+    /**
+     * Downloads the files of the given search results and writes them to a temporary ZIP file
+     *
+     * @see #writeFilesAsZip(List, OutputStream)
+     */
     public FileZipResponse getFilesAsZip(List<Long> guids) throws Exception {
-        List<File> files = new ArrayList<>();
-        Path tempDirectory = null;
-        List<Long> successfulIds = new ArrayList<>();
-        List<Long> failedIds = new ArrayList<>();
-        for (Long guid : guids) {
-            DownloadResult result = getFileByGuid(guid, FileDownloadAccessType.PROXY, SearchSource.INTERNAL);
-            if (!result.isSuccessful()) {
+        File tempFile = File.createTempFile("nzbhydra", ".zip");
+        tempFile.deleteOnExit();
+        logger.debug("Using temp file {}", tempFile.getAbsolutePath());
+        FileZipResponse response = writeFilesAsZip(guids, new FileOutputStream(tempFile));
+        if (response.getAddedIds().isEmpty()) {
+            tempFile.delete();
+            return new FileZipResponse(false, null, "No files could be retrieved", Collections.emptyList(), guids);
+        }
+        response.setZipFilepath(tempFile.getAbsolutePath());
+        return response;
+    }
+
+    /**
+     * Downloads the files of the given search results in parallel and writes them to a ZIP as soon as they're finished.
+     * The downloads are executed in the shared pool for indexer calls, limited by the same per-indexer bulkheads as the
+     * searches. Files which could not be downloaded are listed with the error in an "errors.txt" at the end of the ZIP.
+     *
+     * @param outputStream The stream to write to. Is closed when the ZIP is finished.
+     * @return The response with the IDs of the added and missed search results
+     */
+    public FileZipResponse writeFilesAsZip(List<Long> guids, OutputStream outputStream) throws IOException {
+        logger.info("Creating ZIP with {} files", guids.size());
+        searchResultPersister.awaitPendingWrites();
+        Map<Long, SearchResultEntity> searchResults = new HashMap<>();
+        searchResultRepository.findAllById(guids).forEach(x -> searchResults.put(x.getId(), x));
+
+        BlockingQueue<ZipDownload> finishedDownloads = new LinkedBlockingQueue<>();
+        List<String> errors = new ArrayList<>();
+        List<Long> addedIds = new ArrayList<>();
+        List<Long> missedIds = new ArrayList<>();
+        int runningDownloads = 0;
+        for (Long guid : new LinkedHashSet<>(guids)) {
+            SearchResultEntity searchResult = searchResults.get(guid);
+            if (searchResult == null) {
+                logger.error("Download request with invalid/outdated GUID {}", guid);
+                errors.add(guid + ": Invalid or outdated search result ID");
+                missedIds.add(guid);
                 continue;
             }
+            String downloadType = searchResult.getDownloadType() == DownloadType.NZB ? "NZB" : "Torrent";
+            logger.info("{} download request for \"{}\" from indexer {}", downloadType, searchResult.getTitle(), searchResult.getIndexer().getName());
+            Indexer indexer;
             try {
-                tempDirectory = Files.createTempDirectory("nzbhydra");
-                String title = result.getFileName().replaceAll("[\\\\/:*?\"<>|]", "_");
-                File tempFile = new File(tempDirectory.toFile(), title); //TODO make usable with torrents
-                logger.debug("Writing content to temp file {}", tempFile.getAbsolutePath());
-                Files.write(tempFile.toPath(), result.getContent());
-                files.add(tempFile);
-                successfulIds.add(guid);
-            } catch (IOException e) {
-                logger.error("Unable to write file content to temporary file: " + e.getMessage());
-                failedIds.add(guid);
+                indexer = searchModuleProvider.getIndexerByName(searchResult.getIndexer().getName());
+            } catch (RuntimeException e) {
+                errors.add(guid + " (" + searchResult.getTitle() + "): " + e.getMessage());
+                missedIds.add(guid);
+                continue;
             }
-        }
-        if (files.isEmpty()) {
-            return new FileZipResponse(false, null, "No files could be retrieved", Collections.emptyList(), guids);
-        }
-        File zip = createZip(files);
-        logger.info("Successfully added {}/{} files to ZIP", files.size(), guids.size());
-        if (tempDirectory != null) {
-            tempDirectory.toFile().delete();
+            indexerSearchExecutor.submitIndexerCall(indexer, () -> handleContentDownload(SearchSource.INTERNAL, searchResult, downloadType))
+                    .whenComplete((result, throwable) -> finishedDownloads.add(new ZipDownload(searchResult, throwable == null ? result : DownloadResult.createErrorResult(throwable.getMessage()))));
+            runningDownloads++;
         }
 
-        String message = failedIds.isEmpty() ? "All files successfully retrieved" : failedIds.size() + " files could not be loaded";
-        return new FileZipResponse(true, zip.getAbsolutePath(), message, successfulIds, failedIds);
-    }
-
-    public File createZip(List<File> nzbFiles) throws Exception {
-        logger.info("Creating ZIP with files");
-
-        File tempFile = File.createTempFile("nzbhydra", ".zip");
-        tempFile.deleteOnExit();
-        logger.debug("Using temp file {}", tempFile.getAbsolutePath());
-        FileOutputStream fos = new FileOutputStream(tempFile);
-        ZipOutputStream zos = new ZipOutputStream(fos);
-
-        for (File file : nzbFiles) {
-            addToZipFile(file, zos);
-            file.delete();
+        Set<String> fileNames = new HashSet<>();
+        try (ZipOutputStream zos = new ZipOutputStream(outputStream)) {
+            for (int i = 0; i < runningDownloads; i++) {
+                ZipDownload download;
+                try {
+                    download = finishedDownloads.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for downloads", e);
+                }
+                SearchResultEntity searchResult = download.getSearchResult();
+                DownloadResult result = download.getResult();
+                if (!result.isSuccessful()) {
+                    errors.add(searchResult.getId() + " (" + searchResult.getTitle() + " from " + searchResult.getIndexer().getName() + "): " + result.getError());
+                    missedIds.add(searchResult.getId());
+                    continue;
+                }
+                logger.debug("Adding {} to ZIP", result.getFileName());
+                zos.putNextEntry(new ZipEntry(getUniqueFileName(result.getFileName(), fileNames)));
+                zos.write(result.getContent());
+                zos.closeEntry();
+                addedIds.add(searchResult.getId());
+            }
+            if (!errors.isEmpty()) {
+                zos.putNextEntry(new ZipEntry("errors.txt"));
+                zos.write(Joiner.on(System.lineSeparator()).join(errors).getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
         }
+        logger.info("Successfully added {}/{} files to ZIP", addedIds.size(), guids.size());
 
-        zos.close();
-        fos.close();
-
-        return tempFile;
+        String message = missedIds.isEmpty() ? "All files successfully retrieved" : missedIds.size() + " files could not be loaded";
+        return new FileZipResponse(!addedIds.isEmpty(), null, message, addedIds, missedIds);
     }
 
-    private static void addToZipFile(File file, ZipOutputStream zos) throws IOException {
-        logger.debug("Adding file {} to temporary ZIP file", file.getAbsolutePath());
-        FileInputStream fis = new FileInputStream(file);
-        ZipEntry zipEntry = new ZipEntry(file.getName());
-        zos.putNextEntry(zipEntry);
-
-        byte[] bytes = new byte[1024];
-        int length;
-        while ((length = fis.read(bytes)) >= 0) {
-            zos.write(bytes, 0, length);
+    private static String getUniqueFileName(String fileName, Set<String> usedFileNames) {
+        String cleanedFileName = fileName.replaceAll("[\\\\/:*?\"<>|]", "_");
+        String uniqueFileName = cleanedFileName;
+        int extensionIndex = cleanedFileName.lastIndexOf('.');
+        for (int i = 2; !usedFileNames.add(uniqueFileName.toLowerCase()); i++) {
+            uniqueFileName = cleanedFileName.substring(0, extensionIndex) + " (" + i + ")" + cleanedFileName.substring(extensionIndex);
         }
-
-        zos.closeEntry();
-        fis.close();
+        return uniqueFileName;
     }
 
 
@@ -202,6 +304,7 @@ public class FileHandler {
     }
 
     public NfoResult getNfo(Long searchResultId) {
+        searchResultPersister.awaitPendingWrites();
         Optional<SearchResultEntity> optionalResult = searchResultRepository.findById(searchResultId);
         if (!optionalResult.isPresent()) {
             logger.error("Download request with invalid/outdated search result ID " + searchResultId);
@@ -221,22 +324,31 @@ public class FileHandler {
     }
 
 
-    protected byte[] downloadFile(SearchResultEntity result) throws IOException {
+    /**
+     * @return The stream of the response body. Closing it closes the connection to the indexer
+     */
+    protected InputStream downloadFile(SearchResultEntity result) throws IOException {
         Request request = new Request.Builder().url(result.getLink()).build();
         Indexer indexerByName = searchModuleProvider.getIndexerByName(result.getIndexer().getName());
         Integer timeout = indexerByName.getConfig().getTimeout().orElse(configProvider.getBaseConfig().getSearching().getTimeout());
-        try (Response response = clientHttpRequestFactory.getOkHttpClientBuilder(request.url().uri()).readTimeout(timeout, TimeUnit.SECONDS).connectTimeout(timeout, TimeUnit.SECONDS).build().newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("Unsuccessful NZB download from URL " + result.getLink() + ". Code: " + response.code() + ". Message: " + response.message());
-            }
-            ResponseBody body = response.body();
-            if (body == null ) {
-                throw new IOException("NZB downloaded from " + result.getLink() + " is empty");
-            }
-            return body.bytes();
+        Response response = clientHttpRequestFactory.getOkHttpClientBuilder(request.url().uri()).readTimeout(timeout, TimeUnit.SECONDS).connectTimeout(timeout, TimeUnit.SECONDS).build().newCall(request).execute();
+        if (!response.isSuccessful()) {
+            response.close();
+            throw new IOException("Unsuccessful NZB download from URL " + result.getLink() + ". Code: " + response.code() + ". Message: " + response.message());
+        }
+        ResponseBody body = response.body();
+        if (body == null) {
+            response.close();
+            throw new IOException("NZB downloaded from " + result.getLink() + " is empty");
         }
+        return body.byteStream();
     }
 
-
+    @Data
+    @AllArgsConstructor
+    private static class ZipDownload {
+        private SearchResultEntity searchResult;
+        private DownloadResult result;
+    }
 
 }
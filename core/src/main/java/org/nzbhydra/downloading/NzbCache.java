@@ -0,0 +1,253 @@
+package org.nzbhydra.downloading;
+
+import com.google.common.io.BaseEncoding;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.nzbhydra.NzbHydra;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps proxied NZBs on disk so that repeated downloads of the same search result (e.g. retries by Sonarr or multiple
+ * instances grabbing the same release) don't hit the indexer again. The files are named by the SHA-256 of their content
+ * so that identical NZBs from different search results are only stored once. When the cache gets bigger than the
+ * configured size the least recently downloaded search results are removed.
+ * <p>
+ * Which search result belongs to which file is only kept in memory, so the files of a previous run are deleted on startup.
+ */
+@Component
+public class NzbCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(NzbCache.class);
+
+    /**
+     * Maximum size of all cached NZBs. 0 disables the cache
+     */
+    @Value("${nzbhydra.downloading.nzbCacheSizeMb:100}")
+    protected long maxSizeMb = 100;
+
+    protected File cacheFolder;
+
+    private final Map<Long, CachedFile> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CachedFile> files = new HashMap<>();
+    private long size;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (cacheFolder == null) {
+            cacheFolder = new File(new File(NzbHydra.getDataFolder(), "cache"), "nzbs");
+        }
+        if (!isEnabled()) {
+            return;
+        }
+        if (!cacheFolder.exists() && !cacheFolder.mkdirs()) {
+            logger.error("Unable to create NZB cache folder {}. Disabling cache", cacheFolder.getAbsolutePath());
+            maxSizeMb = 0;
+            return;
+        }
+        File[] oldFiles = cacheFolder.listFiles();
+        if (oldFiles != null && oldFiles.length > 0) {
+            logger.debug("Deleting {} NZBs cached by previous run", oldFiles.length);
+            for (File oldFile : oldFiles) {
+                oldFile.delete();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return maxSizeMb > 0;
+    }
+
+    /**
+     * @return A stream of the cached NZB of the search result or empty if it's not cached
+     */
+    public synchronized Optional<InputStream> get(long searchResultId) {
+        CachedFile cachedFile = entries.get(searchResultId);
+        if (cachedFile == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        try {
+            InputStream inputStream = new FileInputStream(cachedFile.getFile());
+            hits.incrementAndGet();
+            return Optional.of(inputStream);
+        } catch (FileNotFoundException e) {
+            logger.warn("Cached NZB {} was deleted", cachedFile.getFile().getAbsolutePath());
+            release(entries.remove(searchResultId));
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Creates a writer to which an NZB can be written while it's downloaded. It's only added to the cache when {@link Writer#commit()}
+     * is called. Any errors while writing only disable the writer, never the download.
+     */
+    public Writer newWriter(long searchResultId) {
+        return new Writer(searchResultId);
+    }
+
+    public NzbCacheStats getStats() {
+        synchronized (this) {
+            return new NzbCacheStats(entries.size(), files.size(), size, maxSizeMb * 1024 * 1024, hits.get(), misses.get(), evictions.get());
+        }
+    }
+
+    private synchronized void put(long searchResultId, String hash, File tempFile, long fileSize) throws IOException {
+        CachedFile cachedFile = files.get(hash);
+        if (cachedFile == null) {
+            File file = new File(cacheFolder, hash + ".nzb");
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            cachedFile = new CachedFile(hash, file, fileSize, 0);
+            files.put(hash, cachedFile);
+            size += fileSize;
+        } else {
+            tempFile.delete();
+        }
+        cachedFile.setReferences(cachedFile.getReferences() + 1);
+        release(entries.put(searchResultId, cachedFile));
+
+        long maxSize = maxSizeMb * 1024 * 1024;
+        Iterator<CachedFile> iterator = entries.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            CachedFile eldest = iterator.next();
+            iterator.remove();
+            release(eldest);
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void release(CachedFile cachedFile) {
+        if (cachedFile == null) {
+            return;
+        }
+        cachedFile.setReferences(cachedFile.getReferences() - 1);
+        if (cachedFile.getReferences() == 0) {
+            files.remove(cachedFile.getHash());
+            size -= cachedFile.getSize();
+            if (!cachedFile.getFile().delete()) {
+                //May happen on windows while the file is being read. It will be deleted on the next start
+                logger.debug("Unable to delete cached NZB {}", cachedFile.getFile().getAbsolutePath());
+            }
+        }
+    }
+
+    public class Writer {
+
+        private final long searchResultId;
+        private File tempFile;
+        private MessageDigest digest;
+        private OutputStream outputStream;
+        private long written;
+
+        private Writer(long searchResultId) {
+            this.searchResultId = searchResultId;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+                tempFile = File.createTempFile("nzb-" + searchResultId + "-", ".tmp", cacheFolder);
+                outputStream = new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)), digest);
+            } catch (IOException | NoSuchAlgorithmException e) {
+                logger.warn("Unable to cache NZB: {}", e.getMessage());
+                abort();
+            }
+        }
+
+        public void write(byte[] bytes, int offset, int length) {
+            if (outputStream == null) {
+                return;
+            }
+            written += length;
+            if (written > maxSizeMb * 1024 * 1024) {
+                logger.debug("Not caching NZB for search result {} because it's bigger than the cache", searchResultId);
+                abort();
+                return;
+            }
+            try {
+                outputStream.write(bytes, offset, length);
+            } catch (IOException e) {
+                logger.warn("Unable to cache NZB: {}", e.getMessage());
+                abort();
+            }
+        }
+
+        /**
+         * Adds the written NZB to the cache. Must only be called when it was completely written
+         */
+        public void commit() {
+            if (outputStream == null) {
+                return;
+            }
+            try {
+                outputStream.close();
+                outputStream = null;
+                put(searchResultId, BaseEncoding.base16().lowerCase().encode(digest.digest()), tempFile, written);
+            } catch (IOException e) {
+                logger.warn("Unable to cache NZB: {}", e.getMessage());
+                abort();
+            }
+        }
+
+        public void abort() {
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (IOException ignored) {
+                }
+                outputStream = null;
+            }
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class CachedFile {
+        private final String hash;
+        private final File file;
+        private final long size;
+        private int references;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class NzbCacheStats {
+        private int entries;
+        private int files;
+        private long sizeBytes;
+        private long maxSizeBytes;
+        private long hits;
+        private long misses;
+        private long evictions;
+    }
+
+}
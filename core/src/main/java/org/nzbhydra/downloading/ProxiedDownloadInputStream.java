@@ -0,0 +1,96 @@
+package org.nzbhydra.downloading;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Passes on the content of a file downloaded from an indexer (or loaded from the NZB cache) while writing it to the NZB
+ * cache. The content is only cached and the download only counted as completed if the stream was read to the end before
+ * it's closed. Otherwise it's counted as failed.
+ */
+class ProxiedDownloadInputStream extends FilterInputStream {
+
+    private final NzbCache.Writer cacheWriter;
+    private final LongConsumer onCompletion;
+    private final Consumer<String> onError;
+    private long bytesRead;
+    private String error;
+    private boolean completed;
+    private boolean closed;
+
+    /**
+     * @param cacheWriter  Writer to write the content to, may be null
+     * @param onCompletion Called with the number of bytes when the stream was completely read and closed
+     * @param onError      Called with the error when the stream was closed after reading failed or before it was completely read
+     */
+    ProxiedDownloadInputStream(InputStream inputStream, NzbCache.Writer cacheWriter, LongConsumer onCompletion, Consumer<String> onError) {
+        super(inputStream);
+        this.cacheWriter = cacheWriter;
+        this.onCompletion = onCompletion;
+        this.onError = onError;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int read = read(b, 0, 1);
+        return read == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read;
+        try {
+            read = super.read(b, off, len);
+        } catch (IOException e) {
+            error = e.getMessage();
+            throw e;
+        }
+        if (read == -1) {
+            completed = true;
+        } else if (read > 0) {
+            bytesRead += read;
+            if (cacheWriter != null) {
+                cacheWriter.write(b, off, read);
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        //Skipped bytes would be missing in the cache
+        throw new IOException("Skipping is not supported");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            super.close();
+        } finally {
+            if (completed) {
+                if (cacheWriter != null) {
+                    cacheWriter.commit();
+                }
+                onCompletion.accept(bytesRead);
+            } else {
+                if (cacheWriter != null) {
+                    cacheWriter.abort();
+                }
+                onError.accept(error != null ? error : "Download was aborted after " + bytesRead + " bytes");
+            }
+        }
+    }
+}
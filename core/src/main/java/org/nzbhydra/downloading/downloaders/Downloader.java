@@ -32,6 +32,7 @@ import org.nzbhydra.downloading.*;
 import org.nzbhydra.downloading.exceptions.DownloaderException;
 import org.nzbhydra.logging.LoggingMarkers;
 import org.nzbhydra.searching.db.SearchResultEntity;
+import org.nzbhydra.searching.db.SearchResultPersister;
 import org.nzbhydra.searching.db.SearchResultRepository;
 import org.nzbhydra.searching.dtoseventsenums.SearchResultItem.DownloadType;
 import org.nzbhydra.searching.searchrequests.SearchRequest.SearchSource;
@@ -62,6 +63,8 @@ public abstract class Downloader {
     protected FileHandler nzbHandler;
     @Autowired
     protected SearchResultRepository searchResultRepository;
+    @Autowired
+    protected SearchResultPersister searchResultPersister;
 
     protected DownloaderConfig downloaderConfig;
 
@@ -98,6 +101,7 @@ public abstract class Downloader {
                         missedNzbs.add(result.getDownloadEntity().getSearchResult());
                     }
                 } else {
+                    searchResultPersister.awaitPendingWrites();
                     SearchResultEntity searchResultEntity = searchResultRepository.getOne(guid);
                     addLink(nzbHandler.getDownloadLink(guid, false, DownloadType.NZB), searchResultEntity.getTitle(), categoryToSend);
                     addedNzbs.add(guid);
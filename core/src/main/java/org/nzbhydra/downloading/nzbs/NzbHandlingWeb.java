@@ -37,6 +37,8 @@ import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
@@ -62,7 +64,7 @@ public class NzbHandlingWeb {
     @RequestMapping(value = "/internalapi/nzb/{guid}", produces = "application/x-nzb")
     @Secured({"ROLE_USER"})
     public ResponseEntity<Object> downloadNzbInternal(@PathVariable("guid") long guid) throws InvalidSearchResultIdException {
-        return fileHandler.getFileByGuid(guid, configProvider.getBaseConfig().getSearching().getNzbAccessType(), SearchSource.INTERNAL).getAsResponseEntity();
+        return fileHandler.getFileByGuid(guid, configProvider.getBaseConfig().getSearching().getNzbAccessType(), SearchSource.INTERNAL, true).getAsResponseEntity();
     }
 
     /**
@@ -81,6 +83,18 @@ public class NzbHandlingWeb {
         }
     }
 
+    /**
+     * Provides an internal access to a ZIP file with NZBs via GUID. The NZBs are downloaded in parallel and the ZIP is
+     * streamed while they're finished. NZBs which could not be downloaded are listed in the contained errors.txt.
+     */
+    @RequestMapping(value = "/internalapi/nzbzipStream", produces = "application/zip", method = RequestMethod.POST)
+    @Secured({"ROLE_USER"})
+    public void streamNzbZip(@RequestBody List<Long> guids, HttpServletResponse response) throws IOException {
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition", "attachment; filename=nzbhydra-nzbs.zip");
+        fileHandler.writeFilesAsZip(guids, response.getOutputStream());
+    }
+
     @RequestMapping(value = "/internalapi/nzbzipDownload", produces = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST)
     @Secured({"ROLE_USER"})
     public FileSystemResource downloadNzbZip(@RequestBody String zipFilepath) {
@@ -127,7 +141,7 @@ public class NzbHandlingWeb {
     @RequestMapping(value = "/getnzb/user/{guid}", produces = "application/x-nzb")
     @Secured({"ROLE_USER"})
     public ResponseEntity<Object> downloadNzbForUsers(@PathVariable("guid") long guid) throws InvalidSearchResultIdException {
-        return fileHandler.getFileByGuid(guid, configProvider.getBaseConfig().getSearching().getNzbAccessType(), SearchSource.INTERNAL).getAsResponseEntity();
+        return fileHandler.getFileByGuid(guid, configProvider.getBaseConfig().getSearching().getNzbAccessType(), SearchSource.INTERNAL, true).getAsResponseEntity();
     }
 
     /**
@@ -144,7 +158,7 @@ public class NzbHandlingWeb {
         }
 
         try {
-            return fileHandler.getFileByGuid(guid, baseConfig.getSearching().getNzbAccessType(), SearchSource.API).getAsResponseEntity();
+            return fileHandler.getFileByGuid(guid, baseConfig.getSearching().getNzbAccessType(), SearchSource.API, true).getAsResponseEntity();
         } catch (InvalidSearchResultIdException e) {
             //Should be RssError but causes an exception in ServletInvocableHandlerMethod.invokeAndHandle()
             return ResponseEntity.ok().contentType(MediaType.APPLICATION_XML).body("<error code=\"300\" description=\"Invalid or outdated search result ID\"/>");
@@ -4,14 +4,16 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.nzbhydra.historystats.stats.HistoryRequestData;
+import org.nzbhydra.historystats.textindex.HistoryTextIndex;
 import org.nzbhydra.indexers.IndexerSearchEntity;
 import org.nzbhydra.indexers.IndexerSearchRepository;
 import org.nzbhydra.searching.db.SearchEntity;
 import org.nzbhydra.searching.db.SearchRepository;
 import org.nzbhydra.web.SessionStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
@@ -22,23 +24,33 @@ import javax.persistence.Query;
 import java.math.BigInteger;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 @Component
 public class History {
 
+    private static final Logger logger = LoggerFactory.getLogger(History.class);
+    private static final int MAX_COUNT_FOR_ESTIMATE = 10_000;
+
     @PersistenceContext
     private EntityManager entityManager;
     @Autowired
     private SearchRepository searchRepository;
     @Autowired
     private IndexerSearchRepository indexerSearchRepository;
-
-    public <T> Page<T> getHistory(HistoryRequestData requestData, String tableName, Class<T> resultClass) {
+    @Autowired
+    private HistoryTextIndex historyTextIndex;
+
+    /**
+     * Returns a page of history entries from the given table. If the request contains the ID of the last entry of the
+     * previous page the entries after that one are returned (keyset pagination), otherwise the page number is used
+     * to skip entries.
+     */
+    public <T> HistoryPage<T> getHistory(HistoryRequestData requestData, String tableName, String idColumn, Class<T> resultClass, ToIntFunction<T> idGetter) {
         Map<String, Object> parameters = new HashMap<>();
 
         List<String> wheres = new ArrayList<>();
-        String sort = "";
 
         for (Entry<String, FilterDefinition> columnAndFilterDefinition : requestData.getFilterModel().entrySet()) {
             Object filterValue = columnAndFilterDefinition.getValue().getFilterValue();
@@ -47,6 +59,7 @@ public class History {
             if (filterType.equals("freetext")) {
                 wheres.add(String.format("LOWER(%s) LIKE :%s", columnName, columnName));
                 parameters.put(columnName, "%" + filterValue.toString().toLowerCase() + "%");
+                historyTextIndex.getFilterCondition(idColumn, columnName, filterValue.toString().toLowerCase(), parameters).ifPresent(wheres::add);
             } else if (filterType.equals("text")) {
                 wheres.add(String.format("LOWER(%s) = :%s", columnName, columnName));
                 parameters.put(columnName, filterValue.toString().toLowerCase());
@@ -71,16 +84,21 @@ public class History {
         SortModel sortModel = requestData.getSortModel();
         boolean useNullsLast = true;
         boolean useLower = true;
+        boolean ascending = false;
+        String sortColumn = null;
+        String sort = " order by " + idColumn + " DESC ";
         if (sortModel != null) {
-            String column = sortModel.getColumn();
-            if ("time".equalsIgnoreCase(column)) {
+            sortColumn = sortModel.getColumn();
+            if ("time".equalsIgnoreCase(sortColumn)) {
                 useNullsLast = false;
                 useLower = false;
             }
             if (useLower) {
-                column = "lower(" + column + ")";
+                sortColumn = "lower(" + sortColumn + ")";
             }
-            sort = String.format(" order by %s %s %s ", column, sortModel.getSortMode() == 1 ? "ASC" : "DESC", useNullsLast ? "nulls last" : "");
+            ascending = sortModel.getSortMode() == 1;
+            //The ID makes the order unique which is needed for keyset pagination
+            sort = String.format(" order by %s %s %s, %s %s ", sortColumn, ascending ? "ASC" : "DESC", useNullsLast ? "nulls last" : "", idColumn, ascending ? "ASC" : "DESC");
         }
 
         String whereConditions = "";
@@ -89,23 +107,73 @@ public class History {
         }
 
         String paging = String.format(" LIMIT %d OFFSET %d", requestData.getLimit(), (requestData.getPage() - 1) * requestData.getLimit());
+        Map<String, Object> selectParameters = new HashMap<>(parameters);
+        String selectWhereConditions = whereConditions;
+        if (requestData.getLastId() != null) {
+            Optional<String> keysetCondition = getKeysetCondition(tableName, idColumn, sortColumn, ascending, useNullsLast, requestData.getLastId(), selectParameters);
+            if (keysetCondition.isPresent()) {
+                selectWhereConditions += (wheres.isEmpty() ? " WHERE " : " AND ") + keysetCondition.get();
+                paging = String.format(" LIMIT %d", requestData.getLimit());
+            } else {
+                logger.debug("Entry with ID {} not found in history, using page number instead", requestData.getLastId());
+            }
+        }
 
-
-        String selectQuerySql = "SELECT * FROM " + tableName + whereConditions + sort + paging;
-        String countQuerySql = "SELECT COUNT(*) FROM " + tableName + whereConditions;
-
+        String selectQuerySql = "SELECT * FROM " + tableName + selectWhereConditions + sort + paging;
         Query selectQuery = entityManager.createNativeQuery(selectQuerySql, resultClass);
-        Query countQuery = entityManager.createNativeQuery(countQuerySql);
-        for (Entry<String, Object> entry : parameters.entrySet()) {
+        for (Entry<String, Object> entry : selectParameters.entrySet()) {
             selectQuery.setParameter(entry.getKey(), entry.getValue());
-            countQuery.setParameter(entry.getKey(), entry.getValue());
         }
-
-        List resultList = selectQuery.getResultList();
+        List<T> resultList = selectQuery.getResultList();
         Pageable pageable = new PageRequest(requestData.getPage() - 1, requestData.getLimit());
+        Integer lastId = resultList.isEmpty() ? null : idGetter.applyAsInt(resultList.get(resultList.size() - 1));
+
+        boolean totalEstimated = false;
+        long count;
+        if (requestData.isEstimateTotal() && wheres.isEmpty()) {
+            //All tables are joined to the first one so they have as many rows as that
+            String mainTable = idColumn.substring(0, idColumn.indexOf('.'));
+            count = ((Number) entityManager.createNativeQuery("SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = '" + mainTable + "'").getSingleResult()).longValue();
+            totalEstimated = true;
+        } else {
+            String countQuerySql = requestData.isEstimateTotal() ?
+                    String.format("SELECT COUNT(*) FROM (SELECT 1 FROM %s%s LIMIT %d)", tableName, whereConditions, MAX_COUNT_FOR_ESTIMATE) :
+                    "SELECT COUNT(*) FROM " + tableName + whereConditions;
+            Query countQuery = entityManager.createNativeQuery(countQuerySql);
+            for (Entry<String, Object> entry : parameters.entrySet()) {
+                countQuery.setParameter(entry.getKey(), entry.getValue());
+            }
+            count = ((BigInteger) countQuery.getSingleResult()).longValue();
+            totalEstimated = requestData.isEstimateTotal() && count == MAX_COUNT_FOR_ESTIMATE;
+        }
+        return new HistoryPage<>(resultList, pageable, count, lastId, totalEstimated);
+    }
 
-        BigInteger count = (BigInteger) countQuery.getSingleResult();
-        return new PageImpl<>(resultList, pageable, count.longValue());
+    /**
+     * Returns the condition for entries following the entry with the given ID in the sort order. The conditions are
+     * written so that an index on the sort column and the ID can be used.
+     */
+    private Optional<String> getKeysetCondition(String tableName, String idColumn, String sortColumn, boolean ascending, boolean useNullsLast, int lastId, Map<String, Object> parameters) {
+        String comparison = ascending ? ">" : "<";
+        List lastSortValues = entityManager.createNativeQuery(String.format("SELECT %s FROM %s WHERE %s = :lastId", sortColumn == null ? idColumn : sortColumn, tableName, idColumn)).setParameter("lastId", lastId).getResultList();
+        if (lastSortValues.isEmpty()) {
+            return Optional.empty();
+        }
+        parameters.put("lastId", lastId);
+        if (sortColumn == null) {
+            return Optional.of(String.format("%s %s :lastId", idColumn, comparison));
+        }
+        Object lastSortValue = lastSortValues.get(0);
+        if (lastSortValue == null) {
+            //Entries without a value are sorted last
+            return Optional.of(String.format("(%s IS NULL AND %s %s :lastId)", sortColumn, idColumn, comparison));
+        }
+        parameters.put("lastSortValue", lastSortValue);
+        String condition = String.format("(%1$s %2$s= :lastSortValue AND (%1$s %2$s :lastSortValue OR %3$s %2$s :lastId))", sortColumn, comparison, idColumn);
+        if (useNullsLast) {
+            condition = String.format("(%s OR %s IS NULL)", condition, sortColumn);
+        }
+        return Optional.of(condition);
     }
 
     public List<SearchEntity> getHistoryForSearching() {
@@ -0,0 +1,29 @@
+package org.nzbhydra.historystats;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public class HistoryPage<T> extends PageImpl<T> {
+
+    private final Integer lastId;
+    private final boolean totalEstimated;
+
+    public HistoryPage(List<T> content, Pageable pageable, long total, Integer lastId, boolean totalEstimated) {
+        super(content, pageable, total);
+        this.lastId = lastId;
+        this.totalEstimated = totalEstimated;
+    }
+
+    /**
+     * @return the ID of the last entry of this page which may be used to request the next page
+     */
+    public Integer getLastId() {
+        return lastId;
+    }
+
+    public boolean isTotalEstimated() {
+        return totalEstimated;
+    }
+}
@@ -5,7 +5,6 @@ import org.nzbhydra.historystats.History.SearchDetails;
 import org.nzbhydra.historystats.stats.HistoryRequestData;
 import org.nzbhydra.searching.db.SearchEntity;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.*;
@@ -21,8 +20,8 @@ public class HistoryWeb {
 
     @Secured({"ROLE_STATS"})
     @RequestMapping(value = "/internalapi/history/searches", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
-    public Page<SearchEntity> searchHistory(@RequestBody HistoryRequestData requestData) {
-        return history.getHistory(requestData, "SEARCH", SearchEntity.class);
+    public HistoryPage<SearchEntity> searchHistory(@RequestBody HistoryRequestData requestData) {
+        return history.getHistory(requestData, "SEARCH", "SEARCH.ID", SearchEntity.class, SearchEntity::getId);
     }
 
     @Secured({"ROLE_STATS"})
@@ -40,8 +39,8 @@ public class HistoryWeb {
 
     @Secured({"ROLE_STATS"})
     @RequestMapping(value = "/internalapi/history/downloads", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
-    public Page<FileDownloadEntity> downloadHistory(@RequestBody HistoryRequestData requestData) {
-        return history.getHistory(requestData, "INDEXERNZBDOWNLOAD left join SEARCHRESULT on INDEXERNZBDOWNLOAD.SEARCH_RESULT_ID = SEARCHRESULT.ID LEFT JOIN INDEXER ON SEARCHRESULT.INDEXER_ID = INDEXER.ID", FileDownloadEntity.class);
+    public HistoryPage<FileDownloadEntity> downloadHistory(@RequestBody HistoryRequestData requestData) {
+        return history.getHistory(requestData, "INDEXERNZBDOWNLOAD left join SEARCHRESULT on INDEXERNZBDOWNLOAD.SEARCH_RESULT_ID = SEARCHRESULT.ID LEFT JOIN INDEXER ON SEARCHRESULT.INDEXER_ID = INDEXER.ID", "INDEXERNZBDOWNLOAD.ID", FileDownloadEntity.class, FileDownloadEntity::getId);
     }
 
 }
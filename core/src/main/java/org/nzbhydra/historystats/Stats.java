@@ -1,8 +1,14 @@
 package org.nzbhydra.historystats;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import org.nzbhydra.config.IndexerConfig;
 import org.nzbhydra.config.SearchModuleType;
+import org.nzbhydra.historystats.rollups.StatsRollups;
 import org.nzbhydra.historystats.stats.*;
 import org.nzbhydra.indexers.Indexer;
 import org.nzbhydra.indexers.IndexerAccessResult;
@@ -13,16 +19,23 @@ import org.nzbhydra.searching.SearchModuleProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 import java.math.BigInteger;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @RestController
@@ -31,15 +44,47 @@ public class Stats {
     private static final Logger logger = LoggerFactory.getLogger(Stats.class);
     private static final int TIMEOUT = 120;
 
+    @Value("${nzbhydra.stats.threads:4}")
+    private int numberOfThreads;
+    @Value("${nzbhydra.stats.cacheSeconds:300}")
+    private int cacheSeconds;
+
     @Autowired
     private SearchModuleProvider searchModuleProvider;
     @Autowired
     private IndexerRepository indexerRepository;
+    @Autowired
+    private StatsRollups statsRollups;
     @PersistenceContext
     private EntityManager entityManager;
 
+    private ExecutorService executor;
+    private Cache<CacheKey, Optional<Object>> cache;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactoryBuilder().setNameFormat("stats-%d").setDaemon(true).build());
+        cache = CacheBuilder.newBuilder().expireAfterWrite(cacheSeconds, TimeUnit.SECONDS).build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Removes all cached stats so that the next request calculates them from the database
+     */
+    public void invalidateCache() {
+        logger.debug("Invalidating cached stats");
+        cache.invalidateAll();
+    }
+
     @Transactional(readOnly = true)
     public StatsResponse getAllStats(StatsRequest statsRequest) throws InterruptedException {
+        //Requests made within the same minute can use the same cached stats
+        statsRequest.setAfter(statsRequest.getAfter() == null ? null : statsRequest.getAfter().truncatedTo(ChronoUnit.MINUTES));
+        statsRequest.setBefore(statsRequest.getBefore() == null ? null : statsRequest.getBefore().truncatedTo(ChronoUnit.MINUTES));
         logger.debug("Request for stats between {} and {}", statsRequest.getAfter(), statsRequest.getBefore());
         Stopwatch stopwatch = Stopwatch.createStarted();
 
@@ -47,98 +92,73 @@ public class Stats {
         statsResponse.setAfter(statsRequest.getAfter());
         statsResponse.setBefore(statsRequest.getBefore());
 
-        ExecutorService executor = Executors.newFixedThreadPool(1); //Multithreading doesn't improve performance but it allows us to stop calculation when the time is over
-
-        List<Future> futures = new ArrayList<>();
-
-
-        if (statsRequest.isAvgResponseTimes()) {
-            futures.add(executor.submit(() -> statsResponse.setAvgResponseTimes(averageResponseTimes(statsRequest))));
-        }
-        if (statsRequest.isIndexerApiAccessStats()) {
-            futures.add(executor.submit(() -> statsResponse.setIndexerApiAccessStats(indexerApiAccesses(statsRequest))));
-        }
-        if (statsRequest.isAvgIndexerSearchResultsShares()) {
-            statsResponse.setAvgIndexerSearchResultsShares(Collections.emptyList());
-            //futures.add(executor.submit(() -> statsResponse.setAvgIndexerSearchResultsShares(indexerSearchShares(statsRequest))));
-        }
-
-        if (statsRequest.isSearchesPerDayOfWeek()) {
-            futures.add(executor.submit(() -> statsResponse.setSearchesPerDayOfWeek(countPerDayOfWeek("SEARCH", statsRequest))));
-        }
-        if (statsRequest.isDownloadsPerDayOfWeek()) {
-            futures.add(executor.submit(() -> statsResponse.setDownloadsPerDayOfWeek(countPerDayOfWeek("INDEXERNZBDOWNLOAD", statsRequest))));
-        }
-
-        if (statsRequest.isSearchesPerHourOfDay()) {
-            futures.add(executor.submit(() -> statsResponse.setSearchesPerHourOfDay(countPerHourOfDay("SEARCH", statsRequest))));
-        }
-        if (statsRequest.isDownloadsPerHourOfDay()) {
-            futures.add(executor.submit(() -> statsResponse.setDownloadsPerHourOfDay(countPerHourOfDay("INDEXERNZBDOWNLOAD", statsRequest))));
-        }
-
-        if (statsRequest.isIndexerDownloadShares()) {
-            futures.add(executor.submit(() -> statsResponse.setIndexerDownloadShares(indexerDownloadShares(statsRequest))));
-        }
+        //Stats are read from the rollups which must not be deleted by a rebuild in the meantime
+        Lock rollupsLock = statsRollups.getReadLock();
+        rollupsLock.lock();
+        try {
+            List<StatsCalculation<?>> calculations = new ArrayList<>();
 
+            if (statsRequest.isAvgResponseTimes()) {
+                calculations.add(calculate("avgResponseTimes", statsRequest, () -> averageResponseTimes(statsRequest), statsResponse::setAvgResponseTimes));
+            }
+            if (statsRequest.isIndexerApiAccessStats()) {
+                calculations.add(calculate("indexerApiAccessStats", statsRequest, () -> indexerApiAccesses(statsRequest), statsResponse::setIndexerApiAccessStats));
+            }
+            if (statsRequest.isAvgIndexerSearchResultsShares()) {
+                statsResponse.setAvgIndexerSearchResultsShares(Collections.emptyList());
+                //calculations.add(calculate("avgIndexerSearchResultsShares", statsRequest, () -> indexerSearchShares(statsRequest), statsResponse::setAvgIndexerSearchResultsShares));
+            }
 
-        if (statsRequest.isDownloadsPerAgeStats()) {
-            futures.add(executor.submit(() -> statsResponse.setDownloadsPerAgeStats(downloadsPerAgeStats())));
-        }
+            if (statsRequest.isSearchesPerDayOfWeek()) {
+                calculations.add(calculate("searchesPerDayOfWeek", statsRequest, () -> countPerDayOfWeek("SEARCH", statsRequest), statsResponse::setSearchesPerDayOfWeek));
+            }
+            if (statsRequest.isDownloadsPerDayOfWeek()) {
+                calculations.add(calculate("downloadsPerDayOfWeek", statsRequest, () -> countPerDayOfWeek("INDEXERNZBDOWNLOAD", statsRequest), statsResponse::setDownloadsPerDayOfWeek));
+            }
 
-        if (statsRequest.isSuccessfulDownloadsPerIndexer()) {
-            futures.add(executor.submit(() -> statsResponse.setSuccessfulDownloadsPerIndexer(successfulDownloadsPerIndexer(statsRequest))));
-        }
+            if (statsRequest.isSearchesPerHourOfDay()) {
+                calculations.add(calculate("searchesPerHourOfDay", statsRequest, () -> countPerHourOfDay("SEARCH", statsRequest), statsResponse::setSearchesPerHourOfDay));
+            }
+            if (statsRequest.isDownloadsPerHourOfDay()) {
+                calculations.add(calculate("downloadsPerHourOfDay", statsRequest, () -> countPerHourOfDay("INDEXERNZBDOWNLOAD", statsRequest), statsResponse::setDownloadsPerHourOfDay));
+            }
 
-        if (statsRequest.isUserAgentSearchShares()) {
-            futures.add(executor.submit(() -> statsResponse.setUserAgentSearchShares(userAgentSearchShares(statsRequest))));
-        }
+            if (statsRequest.isIndexerDownloadShares()) {
+                calculations.add(calculate("indexerDownloadShares", statsRequest, () -> indexerDownloadShares(statsRequest), statsResponse::setIndexerDownloadShares));
+            }
 
-        if (statsRequest.isUserAgentDownloadShares()) {
-            futures.add(executor.submit(() -> statsResponse.setUserAgentDownloadShares(userAgentDownloadShares(statsRequest))));
-        }
+            if (statsRequest.isDownloadsPerAgeStats()) {
+                calculations.add(calculate("downloadsPerAgeStats", statsRequest, this::downloadsPerAgeStats, statsResponse::setDownloadsPerAgeStats));
+            }
 
+            if (statsRequest.isSuccessfulDownloadsPerIndexer()) {
+                calculations.add(calculate("successfulDownloadsPerIndexer", statsRequest, () -> successfulDownloadsPerIndexer(statsRequest), statsResponse::setSuccessfulDownloadsPerIndexer));
+            }
 
-        if (statsRequest.isSearchSharesPerUser()) {
-            BigInteger countSearchesWithData = (BigInteger) entityManager.createNativeQuery("SELECT count(*) FROM SEARCH t WHERE t.USERNAME IS NOT NULL").getSingleResult();
-            if (countSearchesWithData.intValue() > 0) {
-                futures.add(executor.submit(() -> statsResponse.setSearchSharesPerUser(downloadsOrSearchesPerUserOrIp(statsRequest, "SEARCH", "USERNAME"))));
+            if (statsRequest.isUserAgentSearchShares()) {
+                calculations.add(calculate("userAgentSearchShares", statsRequest, () -> userAgentSearchShares(statsRequest), statsResponse::setUserAgentSearchShares));
             }
-        }
-        if (statsRequest.isDownloadSharesPerUser()) {
-            BigInteger countDownloadsWithData = (BigInteger) entityManager.createNativeQuery("SELECT count(*) FROM INDEXERNZBDOWNLOAD t WHERE t.USERNAME IS NOT NULL").getSingleResult();
-            if (countDownloadsWithData.intValue() > 0) {
-                futures.add(executor.submit(() -> statsResponse.setDownloadSharesPerUser(downloadsOrSearchesPerUserOrIp(statsRequest, "INDEXERNZBDOWNLOAD", "USERNAME"))));
+            if (statsRequest.isUserAgentDownloadShares()) {
+                calculations.add(calculate("userAgentDownloadShares", statsRequest, () -> userAgentDownloadShares(statsRequest), statsResponse::setUserAgentDownloadShares));
             }
-        }
-        if (statsRequest.isSearchSharesPerIp()) {
-            BigInteger countSearchesWithData = (BigInteger) entityManager.createNativeQuery("SELECT count(*) FROM SEARCH t WHERE t.IP IS NOT NULL").getSingleResult();
-            if (countSearchesWithData.intValue() > 0) {
-                futures.add(executor.submit(() -> statsResponse.setSearchSharesPerIp(downloadsOrSearchesPerUserOrIp(statsRequest, "SEARCH", "IP"))));
+
+            //Shares per user or IP are only returned if any user or IP was ever saved
+            if (statsRequest.isSearchSharesPerUser()) {
+                calculations.add(calculate("searchSharesPerUser", statsRequest, () -> hasEntriesWithValue("SEARCH", "USERNAME") ? downloadsOrSearchesPerUserOrIp(statsRequest, "SEARCH", "USERNAME") : null, statsResponse::setSearchSharesPerUser));
             }
-        }
-        if (statsRequest.isDownloadSharesPerIp()) {
-            BigInteger countDownloadsWithData = (BigInteger) entityManager.createNativeQuery("SELECT count(*) FROM INDEXERNZBDOWNLOAD t WHERE t.IP IS NOT NULL").getSingleResult();
-            if (countDownloadsWithData.intValue() > 0) {
-                futures.add(executor.submit(() -> statsResponse.setDownloadSharesPerIp(downloadsOrSearchesPerUserOrIp(statsRequest, "INDEXERNZBDOWNLOAD", "IP"))));
+            if (statsRequest.isDownloadSharesPerUser()) {
+                calculations.add(calculate("downloadSharesPerUser", statsRequest, () -> hasEntriesWithValue("INDEXERNZBDOWNLOAD", "USERNAME") ? downloadsOrSearchesPerUserOrIp(statsRequest, "INDEXERNZBDOWNLOAD", "USERNAME") : null, statsResponse::setDownloadSharesPerUser));
             }
-        }
-
-
-        executor.shutdown();
-        boolean wasCompleted = executor.awaitTermination(TIMEOUT, TimeUnit.SECONDS);
-        if (!wasCompleted) {
-            executor.shutdownNow();
-            logger.error("Aborted stats generation because it took longer than {} seconds. Please restart", TIMEOUT);
-        } else {
-            for (Future future : futures) {
-                try {
-                    future.get();
-                } catch (ExecutionException e) {
-                    logger.error("Error during calculation of stats", e.getCause());
-                }
+            if (statsRequest.isSearchSharesPerIp()) {
+                calculations.add(calculate("searchSharesPerIp", statsRequest, () -> hasEntriesWithValue("SEARCH", "IP") ? downloadsOrSearchesPerUserOrIp(statsRequest, "SEARCH", "IP") : null, statsResponse::setSearchSharesPerIp));
+            }
+            if (statsRequest.isDownloadSharesPerIp()) {
+                calculations.add(calculate("downloadSharesPerIp", statsRequest, () -> hasEntriesWithValue("INDEXERNZBDOWNLOAD", "IP") ? downloadsOrSearchesPerUserOrIp(statsRequest, "INDEXERNZBDOWNLOAD", "IP") : null, statsResponse::setDownloadSharesPerIp));
             }
 
+            statsResponse.setCalculationTimes(waitForCalculations(calculations));
+        } finally {
+            rollupsLock.unlock();
         }
 
         statsResponse.setNumberOfConfiguredIndexers(searchModuleProvider.getIndexers().size());
@@ -148,6 +168,52 @@ public class Stats {
         return statsResponse;
     }
 
+    private <T> StatsCalculation<T> calculate(String stat, StatsRequest statsRequest, Callable<T> callable, Consumer<T> setter) {
+        CacheKey cacheKey = new CacheKey(stat, statsRequest.getAfter(), statsRequest.getBefore(), statsRequest.isIncludeDisabled());
+        StatsCalculation<T> calculation = new StatsCalculation<>(stat, setter);
+        Optional<Object> cached = cache.getIfPresent(cacheKey);
+        if (cached != null) {
+            calculation.cached = true;
+            calculation.future = CompletableFuture.completedFuture(cached);
+            return calculation;
+        }
+        calculation.future = executor.submit(() -> {
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            //Another request may be calculating the same stat already, in that case its result is used
+            calculation.cached = true;
+            Optional<Object> result = cache.get(cacheKey, () -> {
+                calculation.cached = false;
+                return Optional.ofNullable(callable.call());
+            });
+            calculation.millis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+            return result;
+        });
+        return calculation;
+    }
+
+    private List<StatsCalculationTime> waitForCalculations(List<StatsCalculation<?>> calculations) throws InterruptedException {
+        List<StatsCalculationTime> calculationTimes = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+        boolean timedOut = false;
+        for (StatsCalculation<?> calculation : calculations) {
+            if (timedOut) {
+                calculation.future.cancel(true);
+                continue;
+            }
+            try {
+                calculation.setResult(calculation.future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+                calculationTimes.add(new StatsCalculationTime(calculation.stat, calculation.millis, calculation.cached));
+                logger.debug(LoggingMarkers.PERFORMANCE, "Calculation of stat {} took {}ms{}", calculation.stat, calculation.millis, calculation.cached ? " (cached)" : "");
+            } catch (TimeoutException e) {
+                logger.error("Aborted stats generation because it took longer than {} seconds. Stat {} wasn't finished in time", TIMEOUT, calculation.stat);
+                calculation.future.cancel(true);
+                timedOut = true;
+            } catch (ExecutionException e) {
+                logger.error("Error during calculation of stat " + calculation.stat, e.getCause());
+            }
+        }
+        return calculationTimes;
+    }
 
     List<IndexerDownloadShare> indexerDownloadShares(final StatsRequest statsRequest) {
         Stopwatch stopwatch = Stopwatch.createStarted();
@@ -159,22 +225,19 @@ public class Stats {
 
         List<IndexerDownloadShare> indexerDownloadShares = new ArrayList<>();
 
+        String downloads = statsRollups.from("INDEXERNZBDOWNLOAD", statsRequest);
         String sqlQueryByIndexer =
                 "SELECT\n" +
                         "  indexer.name,\n" +
-                        "  count(*) AS total,\n" +
+                        "  sum(dl.ENTRIES) AS total,\n" +
                         "  countall.countall\n" +
                         "FROM\n" +
-                        "  indexernzbdownload dl LEFT JOIN SEARCHRESULT ON dl.SEARCH_RESULT_ID = SEARCHRESULT.ID\n" +
-                        "  LEFT JOIN indexer ON SEARCHRESULT.INDEXER_ID = INDEXER.ID\n" +
+                        "  " + downloads + " dl\n" +
+                        "  LEFT JOIN indexer ON dl.INDEXER_ID = INDEXER.ID\n" +
                         "  ,\n" +
-                        "  (SELECT count(*) AS countall\n" +
-                        "   FROM\n" +
-                        "     indexernzbdownload dl LEFT JOIN SEARCHRESULT ON dl.SEARCH_RESULT_ID = SEARCHRESULT.ID\n" +
-                        buildWhereFromStatsRequest(false, statsRequest) +
-                        ")\n" +
+                        "  (SELECT sum(ENTRIES) AS countall\n" +
+                        "   FROM " + downloads + ")\n" +
                         "  countall\n" +
-                        buildWhereFromStatsRequest(false, statsRequest) +
                         "GROUP BY\n" +
                         "  INDEXER.NAME";
 
@@ -187,8 +250,8 @@ public class Stats {
             if (!indexerNamesToInclude.contains(indexerName)) {
                 continue;
             }
-            long total = ((BigInteger) resultSet[1]).longValue();
-            long countAll = ((BigInteger) resultSet[2]).longValue();
+            long total = ((Number) resultSet[1]).longValue();
+            long countAll = ((Number) resultSet[2]).longValue();
             float share = total > 0 ? (100F / ((float) countAll / total)) : 0F;
             indexerDownloadShares.add(new IndexerDownloadShare(indexerName, total, share));
         }
@@ -203,28 +266,33 @@ public class Stats {
         List<AverageResponseTime> averageResponseTimes = new ArrayList<>();
         String sql = "SELECT\n" +
                 "  NAME,\n" +
-                "  avg(RESPONSE_TIME) AS avg\n" +
-                "FROM INDEXERAPIACCESS\n" +
-                "  LEFT JOIN indexer i ON INDEXERAPIACCESS.INDEXER_ID = i.ID\n" +
-                buildWhereFromStatsRequest(false, statsRequest) +
-                "GROUP BY INDEXER_ID\n" +
-                "ORDER BY avg ASC";
+                "  sum(RESPONSE_TIME_SUM),\n" +
+                "  sum(RESPONSE_TIMES)\n" +
+                "FROM " + statsRollups.from("INDEXERAPIACCESS", statsRequest) + " a\n" +
+                "  LEFT JOIN indexer i ON a.INDEXER_ID = i.ID\n" +
+                "GROUP BY INDEXER_ID, NAME";
 
         Query query = entityManager.createNativeQuery(sql);
-        List resultList = query.getResultList();
-        Set<String> indexerNamesToInclude = searchModuleProvider.getIndexers().stream().filter(x -> x.getConfig().getState() == IndexerConfig.State.ENABLED || statsRequest.isIncludeDisabled()).map(Indexer::getName).collect(Collectors.toSet());
-        OptionalDouble overallAverage = resultList.stream().filter(x -> ((Object[]) x)[1] != null).mapToLong(x -> ((BigInteger) ((Object[]) x)[1]).longValue()).average();
-
+        List<Object> resultList = query.getResultList();
+        Map<String, Long> averagesByIndexerName = new HashMap<>();
         for (Object result : resultList) {
             Object[] resultSet = (Object[]) result;
-            String indexerName = (String) resultSet[0];
+            long responseTimes = ((Number) resultSet[2]).longValue();
+            //Same as avg(RESPONSE_TIME) which ignores accesses without response time and rounds down
+            averagesByIndexerName.put((String) resultSet[0], responseTimes == 0 ? null : ((Number) resultSet[1]).longValue() / responseTimes);
+        }
+        Set<String> indexerNamesToInclude = searchModuleProvider.getIndexers().stream().filter(x -> x.getConfig().getState() == IndexerConfig.State.ENABLED || statsRequest.isIncludeDisabled()).map(Indexer::getName).collect(Collectors.toSet());
+        OptionalDouble overallAverage = averagesByIndexerName.values().stream().filter(Objects::nonNull).mapToLong(x -> x).average();
 
-            if (resultSet[0] == null || resultSet[1] == null || !indexerNamesToInclude.contains(indexerName)) {
+        for (Entry<String, Long> entry : averagesByIndexerName.entrySet()) {
+            String indexerName = entry.getKey();
+            if (indexerName == null || entry.getValue() == null || !indexerNamesToInclude.contains(indexerName)) {
                 continue;
             }
-            Long averageResponseTime = ((BigInteger) resultSet[1]).longValue();
+            Long averageResponseTime = entry.getValue();
             averageResponseTimes.add(new AverageResponseTime(indexerName, averageResponseTime, averageResponseTime - overallAverage.orElse(0D)));
         }
+        averageResponseTimes.sort(Comparator.comparingDouble(AverageResponseTime::getAvgResponseTime));
         logger.debug(LoggingMarkers.PERFORMANCE, "Calculated average response times for indexers. Took {}ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
         return averageResponseTimes;
     }
@@ -343,9 +411,9 @@ public class Stats {
                 "FROM (\n" +
                 "  (SELECT\n" +
                 "     INDEXER_ID,\n" +
-                "     cast(count(INDEXER_ID) AS FLOAT) AS count" +
-                "   FROM INDEXERAPIACCESS\n" +
-                buildWhereFromStatsRequest(false, statsRequest) +
+                "     cast(sum(ENTRIES) AS FLOAT) AS count" +
+                "   FROM " + statsRollups.from("INDEXERAPIACCESS", statsRequest) + "\n" +
+                "   WHERE INDEXER_ID IS NOT NULL\n" +
                 "   GROUP BY INDEXER_ID,\n" +
                 "     truncate(time)))\n" +
                 "GROUP BY INDEXER_ID";
@@ -370,9 +438,9 @@ public class Stats {
         String countByResultSql = "SELECT\n" +
                 "     INDEXER_ID,\n" +
                 "     RESULT,\n" +
-                "     count(result) AS count\n" +
-                "   FROM INDEXERAPIACCESS\n" +
-                buildWhereFromStatsRequest(false, statsRequest) +
+                "     sum(ENTRIES) AS count\n" +
+                "   FROM " + statsRollups.from("INDEXERAPIACCESS", statsRequest) + "\n" +
+                "   WHERE RESULT IS NOT NULL\n" +
                 "   GROUP BY INDEXER_ID, RESULT\n" +
                 "   ORDER BY INDEXER_ID, RESULT";
 
@@ -389,7 +457,7 @@ public class Stats {
                 continue;
             }
             String result = (String) array[1];
-            int count = ((BigInteger) array[2]).intValue();
+            int count = ((Number) array[2]).intValue();
             if (result.equals(IndexerAccessResult.SUCCESSFUL.name())) {
                 successCountMap.put(indexerId, count);
             } else if (result.equals(IndexerAccessResult.CONNECTION_ERROR.name())) {
@@ -435,9 +503,8 @@ public class Stats {
         logger.debug("Calculating count for day of week for table {}", table);
         String sql = "SELECT \n" +
                 "  DAYOFWEEK(time) AS dayofweek, \n" +
-                "  count(*)        AS counter \n" +
-                "FROM " + table + " \n" +
-                buildWhereFromStatsRequest(false, statsRequest) +
+                "  sum(ENTRIES)    AS counter \n" +
+                "FROM " + statsRollups.from(table, statsRequest) + " \n" +
                 "GROUP BY DAYOFWEEK(time)";
 
         List<CountPerDayOfWeek> dayOfWeekCounts = new ArrayList<>();
@@ -456,7 +523,7 @@ public class Stats {
 
             //want      6   0   1   2   3   4   5
             //          S   M   T   W   T   F   S
-            BigInteger counter = (BigInteger) resultSet[1];
+            Number counter = (Number) resultSet[1];
             int indexInList = (index + 5) % 7;
             dayOfWeekCounts.get(indexInList).setCount(counter.intValue());
         }
@@ -470,9 +537,8 @@ public class Stats {
         logger.debug("Calculating count for hour of day for table {}", table);
         String sql = "SELECT \n" +
                 "  HOUR(time) AS hourofday, \n" +
-                "  count(*)        AS counter \n" +
-                "FROM " + table + " \n" +
-                buildWhereFromStatsRequest(false, statsRequest) +
+                "  sum(ENTRIES)    AS counter \n" +
+                "FROM " + statsRollups.from(table, statsRequest) + " \n" +
                 "GROUP BY HOUR(time)";
 
         List<CountPerHourOfDay> hourOfDayCounts = new ArrayList<>();
@@ -484,7 +550,7 @@ public class Stats {
         for (Object o : resultList) {
             Object[] o2 = (Object[]) o;
             Integer index = (Integer) o2[0];
-            BigInteger counter = (BigInteger) o2[1];
+            Number counter = (Number) o2[1];
             hourOfDayCounts.get(index).setCount(counter.intValue());
         }
 
@@ -494,42 +560,16 @@ public class Stats {
 
     List<SuccessfulDownloadsPerIndexer> successfulDownloadsPerIndexer(final StatsRequest statsRequest) {
         Stopwatch stopwatch = Stopwatch.createStarted();
+        //Only indexers with at least one successful download are included
         String sql = "SELECT\n" +
-                "  name1,\n" +
-                "  count_all,\n" +
-                "  count_success,\n" +
-                "  count_error\n" +
-                "FROM\n" +
-                "  (SELECT\n" +
-                "     indexer.NAME AS name1,\n" +
-                "     count(*)   AS count_success\n" +
-                "   FROM INDEXERNZBDOWNLOAD\n" +
-                "     LEFT JOIN SEARCHRESULT ON INDEXERNZBDOWNLOAD.SEARCH_RESULT_ID = SEARCHRESULT.ID\n" +
-                "     LEFT JOIN indexer ON SEARCHRESULT.INDEXER_ID = INDEXER.ID\n" +
-                "   WHERE\n" +
-                "     status = 'CONTENT_DOWNLOAD_SUCCESSFUL'\n" +
-                buildWhereFromStatsRequest(true, statsRequest) +
-                "   GROUP BY name1)\n" +
-                "  LEFT JOIN\n" +
-                "  (SELECT\n" +
-                "     indexer.NAME AS name2,\n" +
-                "     count(*)   AS count_error\n" +
-                "   FROM INDEXERNZBDOWNLOAD\n" +
-                "     LEFT JOIN SEARCHRESULT ON INDEXERNZBDOWNLOAD.SEARCH_RESULT_ID = SEARCHRESULT.ID\n" +
-                "     LEFT JOIN indexer ON SEARCHRESULT.INDEXER_ID = INDEXER.ID\n" +
-                "   WHERE\n" +
-                "     status IN ('CONTENT_DOWNLOAD_ERROR', 'CONTENT_DOWNLOAD_WARNING')\n" +
-                buildWhereFromStatsRequest(true, statsRequest) +
-                "   GROUP BY name2) ON name1 = name2\n" +
-                "  LEFT JOIN\n" +
-                "  (SELECT\n" +
-                "     indexer.NAME AS name3,\n" +
-                "     count(*)   AS count_all\n" +
-                "   FROM INDEXERNZBDOWNLOAD\n" +
-                "     LEFT JOIN SEARCHRESULT ON INDEXERNZBDOWNLOAD.SEARCH_RESULT_ID = SEARCHRESULT.ID\n" +
-                "     LEFT JOIN indexer ON SEARCHRESULT.INDEXER_ID = INDEXER.ID\n" +
-                buildWhereFromStatsRequest(false, statsRequest) +
-                "   GROUP BY name3) ON name1 = name3;";
+                "  indexer.NAME,\n" +
+                "  sum(dl.ENTRIES) AS count_all,\n" +
+                "  sum(CASE WHEN dl.STATUS = 'CONTENT_DOWNLOAD_SUCCESSFUL' THEN dl.ENTRIES ELSE 0 END) AS count_success,\n" +
+                "  sum(CASE WHEN dl.STATUS IN ('CONTENT_DOWNLOAD_ERROR', 'CONTENT_DOWNLOAD_WARNING') THEN dl.ENTRIES ELSE 0 END) AS count_error\n" +
+                "FROM " + statsRollups.from("INDEXERNZBDOWNLOAD", statsRequest) + " dl\n" +
+                "  LEFT JOIN indexer ON dl.INDEXER_ID = INDEXER.ID\n" +
+                "GROUP BY indexer.NAME\n" +
+                "HAVING count_success > 0";
         Query query = entityManager.createNativeQuery(sql);
         Set<String> indexerNamesToInclude = searchModuleProvider.getIndexers().stream().filter(x -> x.getConfig().getState() == IndexerConfig.State.ENABLED || statsRequest.isIncludeDisabled()).map(Indexer::getName).collect(Collectors.toSet());
         List<Object> resultList = query.getResultList();
@@ -540,18 +580,9 @@ public class Stats {
             if (!indexerNamesToInclude.contains(indexerName)) {
                 continue;
             }
-            BigInteger countAll = (BigInteger) o2[1];
-            BigInteger countSuccess = (BigInteger) o2[2];
-            BigInteger countError = (BigInteger) o2[3];
-            if (countAll == null) {
-                countAll = BigInteger.ZERO;
-            }
-            if (countSuccess == null) {
-                countSuccess = BigInteger.ZERO;
-            }
-            if (countError == null) {
-                countError = BigInteger.ZERO;
-            }
+            Number countAll = (Number) o2[1];
+            Number countSuccess = (Number) o2[2];
+            Number countError = (Number) o2[3];
 
             Float percentSuccessful;
             if (countSuccess.intValue() > 0) {
@@ -571,18 +602,17 @@ public class Stats {
     List<DownloadOrSearchSharePerUserOrIp> downloadsOrSearchesPerUserOrIp(final StatsRequest statsRequest, String tablename, final String column) {
         Stopwatch stopwatch = Stopwatch.createStarted();
         logger.debug("Calculating download or search shares for table {} and column {}", tablename, column);
+        String entries = statsRollups.from(tablename, statsRequest);
         String sql = "" +
                 "SELECT\n" +
                 "  " + column + ",\n" +
-                "  count(*) AS peruser,\n" +
-                "  (SELECT count(*)\n" +
-                "   FROM " + tablename + "\n" +
+                "  sum(ENTRIES) AS peruser,\n" +
+                "  (SELECT sum(ENTRIES)\n" +
+                "   FROM " + entries + "\n" +
                 "   WHERE " + column + " IS NOT NULL AND " + column + " != ''" +
-                buildWhereFromStatsRequest(true, statsRequest) +
                 ") AS countall\n" +
-                "FROM " + tablename + "\n" +
+                "FROM " + entries + "\n" +
                 " WHERE " + column + " IS NOT NULL AND " + column + " != ''\n" +
-                buildWhereFromStatsRequest(true, statsRequest) +
                 "GROUP BY " + column;
         Query query = entityManager.createNativeQuery(sql);
         List<Object> resultList = query.getResultList();
@@ -590,8 +620,8 @@ public class Stats {
         for (Object o : resultList) {
             Object[] o2 = (Object[]) o;
             String usernameOrIp = (String) o2[0];
-            int countForUser = ((BigInteger) o2[1]).intValue();
-            float percentSuccessful = 100F / (((BigInteger) o2[2]).floatValue() / ((BigInteger) o2[1]).floatValue());
+            int countForUser = ((Number) o2[1]).intValue();
+            float percentSuccessful = 100F / (((Number) o2[2]).floatValue() / ((Number) o2[1]).floatValue());
             result.add(new DownloadOrSearchSharePerUserOrIp(usernameOrIp, countForUser, percentSuccessful));
         }
         result.sort(Comparator.comparingDouble(DownloadOrSearchSharePerUserOrIp::getPercentage).reversed());
@@ -604,11 +634,10 @@ public class Stats {
         logger.debug("Calculating user agent search shares");
         String sql = "SELECT\n" +
                 "  user_agent,\n" +
-                "  count(*)\n" +
-                "FROM SEARCH\n" +
+                "  sum(ENTRIES)\n" +
+                "FROM " + statsRollups.from("SEARCH", statsRequest) + "\n" +
                 "WHERE user_agent IS NOT NULL\n" +
-                "AND SOURCE = 'API'" +
-                buildWhereFromStatsRequest(true, statsRequest) +
+                "AND SOURCE = 'API'\n" +
                 "GROUP BY user_agent";
         Query query = entityManager.createNativeQuery(sql);
         List<Object> resultList = query.getResultList();
@@ -617,7 +646,7 @@ public class Stats {
         for (Object o : resultList) {
             Object[] o2 = (Object[]) o;
             String userAgent = (String) o2[0];
-            int countForUserAgent = ((BigInteger) o2[1]).intValue();
+            int countForUserAgent = ((Number) o2[1]).intValue();
             countAll += countForUserAgent;
             result.add(new UserAgentShare(userAgent, countForUserAgent));
         }
@@ -635,11 +664,10 @@ public class Stats {
         logger.debug("Calculating user agent download shares");
         String sql = "SELECT\n" +
                 "  user_agent,\n" +
-                "  count(*)\n" +
-                "FROM INDEXERNZBDOWNLOAD\n" +
+                "  sum(ENTRIES)\n" +
+                "FROM " + statsRollups.from("INDEXERNZBDOWNLOAD", statsRequest) + "\n" +
                 "WHERE user_agent IS NOT NULL\n" +
                 "and ACCESS_SOURCE = 'API' \n" +
-                buildWhereFromStatsRequest(true, statsRequest) +
                 "GROUP BY user_agent";
         Query query = entityManager.createNativeQuery(sql);
         List<Object> resultList = query.getResultList();
@@ -648,7 +676,7 @@ public class Stats {
         for (Object o : resultList) {
             Object[] o2 = (Object[]) o;
             String userAgent = (String) o2[0];
-            int countForUserAgent = ((BigInteger) o2[1]).intValue();
+            int countForUserAgent = ((Number) o2[1]).intValue();
             countAll += countForUserAgent;
             result.add(new UserAgentShare(userAgent, countForUserAgent));
         }
@@ -666,10 +694,10 @@ public class Stats {
         logger.debug("Calculating downloads per age");
         String sql = "SELECT\n" +
                 "  steps,\n" +
-                "  count(*)\n" +
+                "  sum(ENTRIES)\n" +
                 "FROM\n" +
-                "  (SELECT age / 100 AS steps\n" +
-                "   FROM INDEXERNZBDOWNLOAD\n" +
+                "  (SELECT age / 100 AS steps, ENTRIES\n" +
+                "   FROM " + statsRollups.from("INDEXERNZBDOWNLOAD", new StatsRequest(null, null, true)) + "\n" +
                 "   WHERE age IS NOT NULL)\n" +
                 "GROUP BY steps\n" +
                 "ORDER BY steps ASC";
@@ -680,7 +708,7 @@ public class Stats {
         for (Object o : resultList) {
             Object[] o2 = (Object[]) o;
             int ageStep = (Integer) o2[0];
-            int count = ((BigInteger) o2[1]).intValue();
+            int count = ((Number) o2[1]).intValue();
             agesAndCountsMap.put(ageStep, count);
         }
         for (int i = 0; i <= 34; i += 1) {
@@ -701,20 +729,22 @@ public class Stats {
         Stopwatch stopwatch = Stopwatch.createStarted();
         logger.debug("Calculating downloads per age percentages");
         DownloadPerAgeStats result = new DownloadPerAgeStats();
-        String percentage = "SELECT CASE\n" +
-                "       WHEN (SELECT CAST(COUNT(*) AS FLOAT) AS COUNT\n" +
-                "             FROM INDEXERNZBDOWNLOAD\n" +
-                "             WHERE AGE > %d) > 0\n" +
-                "         THEN SELECT CAST(100 AS FLOAT) / (CAST(COUNT(i.*) AS FLOAT)/ x.COUNT)\n" +
-                "FROM INDEXERNZBDOWNLOAD i,\n" +
-                "( SELECT COUNT(*) AS COUNT\n" +
-                "FROM INDEXERNZBDOWNLOAD\n" +
-                "WHERE AGE > %d) AS x\n" +
-                "ELSE 0 END";
-        result.setPercentOlder1000(((Double) entityManager.createNativeQuery(String.format(percentage, 1000, 1000)).getResultList().get(0)).intValue());
-        result.setPercentOlder2000(((Double) entityManager.createNativeQuery(String.format(percentage, 2000, 2000)).getResultList().get(0)).intValue());
-        result.setPercentOlder3000(((Double) entityManager.createNativeQuery(String.format(percentage, 3000, 3000)).getResultList().get(0)).intValue());
-        result.setAverageAge((Integer) entityManager.createNativeQuery("SELECT AVG(AGE) FROM INDEXERNZBDOWNLOAD").getResultList().get(0));
+        String sql = "SELECT\n" +
+                "  sum(ENTRIES),\n" +
+                "  sum(CASE WHEN AGE > 1000 THEN ENTRIES ELSE 0 END),\n" +
+                "  sum(CASE WHEN AGE > 2000 THEN ENTRIES ELSE 0 END),\n" +
+                "  sum(CASE WHEN AGE > 3000 THEN ENTRIES ELSE 0 END),\n" +
+                "  sum(CAST(AGE AS BIGINT) * ENTRIES),\n" +
+                "  sum(CASE WHEN AGE IS NOT NULL THEN ENTRIES ELSE 0 END)\n" +
+                "FROM " + statsRollups.from("INDEXERNZBDOWNLOAD", new StatsRequest(null, null, true));
+        Object[] counts = (Object[]) entityManager.createNativeQuery(sql).getSingleResult();
+        double countAll = counts[0] == null ? 0 : ((Number) counts[0]).doubleValue();
+        result.setPercentOlder1000(getPercentage(countAll, (Number) counts[1]));
+        result.setPercentOlder2000(getPercentage(countAll, (Number) counts[2]));
+        result.setPercentOlder3000(getPercentage(countAll, (Number) counts[3]));
+        //Same as AVG(AGE) which ignores downloads without age and rounds down
+        long ages = counts[5] == null ? 0 : ((Number) counts[5]).longValue();
+        result.setAverageAge(ages == 0 ? null : (int) (((Number) counts[4]).longValue() / ages));
         logger.debug(LoggingMarkers.PERFORMANCE, "Calculated downloads per age percentages . Took {}ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
 
         result.setDownloadsPerAge(downloadsPerAge());
@@ -722,6 +752,17 @@ public class Stats {
     }
 
 
+    private int getPercentage(double countAll, Number count) {
+        if (count == null || count.doubleValue() == 0) {
+            return 0;
+        }
+        return (int) (100D / (countAll / count.doubleValue()));
+    }
+
+    private boolean hasEntriesWithValue(String table, String column) {
+        return !entityManager.createNativeQuery("SELECT TOP 1 " + column + " FROM " + statsRollups.from(table, new StatsRequest(null, null, true)) + " WHERE " + column + " IS NOT NULL").getResultList().isEmpty();
+    }
+
     private String buildWhereFromStatsRequest(boolean useAnd, StatsRequest statsRequest) {
         if (statsRequest.getAfter() == null && statsRequest.getBefore() == null) {
             return " ";
@@ -732,5 +773,31 @@ public class Stats {
                 (statsRequest.getBefore() != null ? " TIME < DATEADD('SECOND', " + statsRequest.getBefore().getEpochSecond() + ", DATE '1970-01-01') " : "");
     }
 
+    @Data
+    @AllArgsConstructor
+    private static class CacheKey {
+        private String stat;
+        private Instant after;
+        private Instant before;
+        private boolean includeDisabled;
+    }
+
+    private static class StatsCalculation<T> {
+        private final String stat;
+        private final Consumer<T> setter;
+        private Future<Optional<Object>> future;
+        private volatile boolean cached;
+        private volatile long millis;
+
+        StatsCalculation(String stat, Consumer<T> setter) {
+            this.stat = stat;
+            this.setter = setter;
+        }
+
+        @SuppressWarnings("unchecked")
+        void setResult(Optional<Object> result) {
+            setter.accept((T) result.orElse(null));
+        }
+    }
 
 }
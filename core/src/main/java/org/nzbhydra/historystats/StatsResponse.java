@@ -9,6 +9,7 @@ import org.nzbhydra.historystats.stats.DownloadPerAgeStats;
 import org.nzbhydra.historystats.stats.IndexerApiAccessStatsEntry;
 import org.nzbhydra.historystats.stats.IndexerDownloadShare;
 import org.nzbhydra.historystats.stats.IndexerSearchResultsShare;
+import org.nzbhydra.historystats.stats.StatsCalculationTime;
 import org.nzbhydra.historystats.stats.SuccessfulDownloadsPerIndexer;
 import org.nzbhydra.historystats.stats.UserAgentShare;
 
@@ -48,4 +49,6 @@ public class StatsResponse {
     private int numberOfConfiguredIndexers;
     private int numberOfEnabledIndexers;
 
+    private List<StatsCalculationTime> calculationTimes;
+
 }
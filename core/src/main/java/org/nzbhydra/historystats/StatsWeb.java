@@ -1,10 +1,12 @@
 package org.nzbhydra.historystats;
 
+import org.nzbhydra.historystats.rollups.StatsRollups;
 import org.nzbhydra.historystats.stats.StatsRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -12,6 +14,8 @@ public class StatsWeb {
 
     @Autowired
     private org.nzbhydra.historystats.Stats stats;
+    @Autowired
+    private StatsRollups statsRollups;
 
     @RequestMapping(value = "/internalapi/stats")
     @Secured({"ROLE_STATS"})
@@ -24,4 +28,17 @@ public class StatsWeb {
         }
     }
 
+    @RequestMapping(value = "/internalapi/stats/rebuildrollups", method = RequestMethod.PUT)
+    @Secured({"ROLE_ADMIN"})
+    public void rebuildRollups() {
+        statsRollups.rebuild();
+        stats.invalidateCache();
+    }
+
+    @RequestMapping(value = "/internalapi/stats/invalidatecache", method = RequestMethod.PUT)
+    @Secured({"ROLE_STATS"})
+    public void invalidateCache() {
+        stats.invalidateCache();
+    }
+
 }
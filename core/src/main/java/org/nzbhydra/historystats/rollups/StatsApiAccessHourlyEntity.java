@@ -0,0 +1,28 @@
+package org.nzbhydra.historystats.rollups;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Indexer API accesses aggregated per hour, indexer and result. Only written by {@link StatsRollups}.
+ */
+@Data
+@Entity
+@Table(name = "stats_api_access_hourly")
+public class StatsApiAccessHourlyEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Convert(converter = org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters.InstantConverter.class)
+    private Instant time;
+    private Integer indexerId;
+    private String result;
+    private int entries;
+    private long responseTimeSum;
+    private int responseTimes;
+
+}
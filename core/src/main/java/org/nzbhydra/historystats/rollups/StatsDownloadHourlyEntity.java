@@ -0,0 +1,32 @@
+package org.nzbhydra.historystats.rollups;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * NZB downloads aggregated per hour, indexer, status, access source, user, IP, user agent and age. Only written by {@link StatsRollups}.
+ */
+@Data
+@Entity
+@Table(name = "stats_download_hourly")
+public class StatsDownloadHourlyEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Convert(converter = org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters.InstantConverter.class)
+    private Instant time;
+    private Integer indexerId;
+    private String status;
+    private String accessSource;
+    private String username;
+    private String ip;
+    @Column(length = 4000)
+    private String userAgent;
+    private Integer age;
+    private int entries;
+
+}
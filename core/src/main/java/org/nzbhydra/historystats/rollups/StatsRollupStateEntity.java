@@ -0,0 +1,25 @@
+package org.nzbhydra.historystats.rollups;
+
+import lombok.Data;
+
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Stores until which hour (exclusive) the entries of a history table have been rolled up.
+ */
+@Data
+@Entity
+@Table(name = "stats_rollup_state")
+public class StatsRollupStateEntity {
+
+    @Id
+    private String name;
+
+    @Convert(converter = org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters.InstantConverter.class)
+    private Instant rolledUpUntil;
+
+}
@@ -0,0 +1,273 @@
+package org.nzbhydra.historystats.rollups;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Stopwatch;
+import org.nzbhydra.historystats.stats.StatsRequest;
+import org.nzbhydra.logging.LoggingMarkers;
+import org.nzbhydra.maintenance.MaintenanceEngine;
+import org.nzbhydra.maintenance.MaintenanceRun;
+import org.nzbhydra.tasks.HydraTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Maintains hourly rollups of the history tables the stats are calculated from. An hour is only rolled up when its
+ * entries can't change anymore, everything after that is read from the history tables. {@link #from(String, StatsRequest)}
+ * returns a subquery combining both so that the stats are the same as when calculated from the history tables alone.
+ */
+@Component
+public class StatsRollups {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatsRollups.class);
+
+    private static final long HOUR = 1000 * 60 * 60;
+    private static final int DAYS_PER_TRANSACTION = 7;
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    enum Rollup {
+        //API accesses are saved when the indexer has responded which may be a couple of minutes after their time
+        API_ACCESSES("INDEXERAPIACCESS", "STATS_API_ACCESS_HOURLY", Duration.ofHours(1),
+                "INDEXERAPIACCESS", null, "TIME",
+                "TIME, INDEXER_ID, RESULT, 1 AS ENTRIES, RESPONSE_TIME AS RESPONSE_TIME_SUM, CASE WHEN RESPONSE_TIME IS NULL THEN 0 ELSE 1 END AS RESPONSE_TIMES",
+                "INDEXER_ID, RESULT", "ENTRIES, RESPONSE_TIME_SUM, RESPONSE_TIMES"),
+        SEARCHES("SEARCH", "STATS_SEARCH_HOURLY", Duration.ofHours(1),
+                "SEARCH", null, "TIME",
+                "TIME, SOURCE, USERNAME, IP, USER_AGENT, 1 AS ENTRIES",
+                "SOURCE, USERNAME, IP, USER_AGENT", "ENTRIES"),
+        //The status of a download is updated by the download history check for one day after the download. NZBs loaded
+        //from the NZB cache were not downloaded from the indexer and are only shown in the history
+        DOWNLOADS("INDEXERNZBDOWNLOAD", "STATS_DOWNLOAD_HOURLY", Duration.ofDays(2),
+                "INDEXERNZBDOWNLOAD d LEFT JOIN SEARCHRESULT r ON d.SEARCH_RESULT_ID = r.ID", "(d.NZB_ACCESS_TYPE IS NULL OR d.NZB_ACCESS_TYPE <> 'CACHE')", "d.TIME",
+                "d.TIME AS TIME, r.INDEXER_ID AS INDEXER_ID, d.STATUS AS STATUS, d.ACCESS_SOURCE AS ACCESS_SOURCE, d.USERNAME AS USERNAME, d.IP AS IP, d.USER_AGENT AS USER_AGENT, d.AGE AS AGE, 1 AS ENTRIES",
+                "INDEXER_ID, STATUS, ACCESS_SOURCE, USERNAME, IP, USER_AGENT, AGE", "ENTRIES");
+
+        private final String table;
+        private final String rollupTable;
+        private final Duration delay;
+        private final String rawFrom;
+        private final String rawCondition;
+        private final String rawTime;
+        private final String rawColumns;
+        private final String dimensions;
+        private final List<String> measures;
+
+        Rollup(String table, String rollupTable, Duration delay, String rawFrom, String rawCondition, String rawTime, String rawColumns, String dimensions, String measures) {
+            this.table = table;
+            this.rollupTable = rollupTable;
+            this.delay = delay;
+            this.rawFrom = rawFrom;
+            this.rawCondition = rawCondition;
+            this.rawTime = rawTime;
+            this.rawColumns = rawColumns;
+            this.dimensions = dimensions;
+            this.measures = Arrays.asList(measures.split(", "));
+        }
+
+        static Rollup forTable(String table) {
+            return Arrays.stream(values()).filter(x -> x.table.equalsIgnoreCase(table)).findFirst().orElseThrow(() -> new IllegalArgumentException("No rollup for table " + table));
+        }
+
+        String selectRaw(LocalDateTime from, boolean fromInclusive, LocalDateTime to) {
+            List<String> conditions = new ArrayList<>();
+            if (rawCondition != null) {
+                conditions.add(rawCondition);
+            }
+            if (from != null) {
+                conditions.add(rawTime + (fromInclusive ? " >= " : " > ") + toSql(from));
+            }
+            if (to != null) {
+                conditions.add(rawTime + " < " + toSql(to));
+            }
+            return "SELECT " + rawColumns + " FROM " + rawFrom + (conditions.isEmpty() ? "" : " WHERE " + Joiner.on(" AND ").join(conditions));
+        }
+
+        String selectRolledUp(LocalDateTime from, LocalDateTime to) {
+            return "SELECT TIME, " + dimensions + ", " + Joiner.on(", ").join(measures) + " FROM " + rollupTable + " WHERE " + (from != null ? "TIME >= " + toSql(from) + " AND " : "") + "TIME < " + toSql(to);
+        }
+
+        String insertRolledUp(LocalDateTime from, LocalDateTime to) {
+            String hour = "DATEADD('HOUR', DATEDIFF('HOUR', DATE '1970-01-01', TIME), DATE '1970-01-01')";
+            List<String> sums = new ArrayList<>();
+            for (String measure : measures) {
+                sums.add("COALESCE(SUM(" + measure + "), 0)");
+            }
+            return "INSERT INTO " + rollupTable + " (TIME, " + dimensions + ", " + Joiner.on(", ").join(measures) + ") " +
+                    "SELECT " + hour + ", " + dimensions + ", " + Joiner.on(", ").join(sums) +
+                    " FROM (" + selectRaw(from, true, to) + ")" +
+                    " GROUP BY " + hour + ", " + dimensions;
+        }
+    }
+
+    @Autowired
+    protected EntityManager entityManager;
+    @Autowired
+    protected PlatformTransactionManager transactionManager;
+    @Autowired
+    protected MaintenanceEngine maintenanceEngine;
+
+    private TransactionTemplate transactionTemplate;
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Returns a subquery with all entries of the given history table between the request's times, one row per hour
+     * and combination of the rolled up columns. The number of entries in a row is contained in the column ENTRIES.
+     */
+    public String from(String table, StatsRequest statsRequest) {
+        Rollup rollup = Rollup.forTable(table);
+        LocalDateTime after = statsRequest.getAfter() == null ? null : toDatabaseTime(statsRequest.getAfter());
+        LocalDateTime before = statsRequest.getBefore() == null ? null : toDatabaseTime(statsRequest.getBefore());
+
+        //Hours only partially contained in the requested time range are read from the history table
+        LocalDateTime rollupFrom = after == null ? null : after.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        LocalDateTime rollupTo = getRolledUpUntil(rollup).orElse(null);
+        if (rollupTo != null && before != null && before.truncatedTo(ChronoUnit.HOURS).isBefore(rollupTo)) {
+            rollupTo = before.truncatedTo(ChronoUnit.HOURS);
+        }
+        if (rollupTo == null || (rollupFrom != null && !rollupFrom.isBefore(rollupTo))) {
+            return "(" + rollup.selectRaw(after, false, before) + ")";
+        }
+
+        List<String> selects = new ArrayList<>();
+        selects.add(rollup.selectRolledUp(rollupFrom, rollupTo));
+        if (after != null) {
+            selects.add(rollup.selectRaw(after, false, rollupFrom));
+        }
+        selects.add(rollup.selectRaw(rollupTo, true, before));
+        return "(" + Joiner.on(" UNION ALL ").join(selects) + ")";
+    }
+
+    /**
+     * Must be held while the subqueries returned by {@link #from(String, StatsRequest)} are executed.
+     */
+    public Lock getReadLock() {
+        return rebuildLock.readLock();
+    }
+
+    @HydraTask(configId = "rollUpStats", name = "Roll up stats", interval = HOUR)
+    public synchronized void rollUp() {
+        try (MaintenanceRun run = maintenanceEngine.start("rollUpStats")) {
+            for (Rollup rollup : Rollup.values()) {
+                run.setStep(rollup.table);
+                rollUp(rollup, run);
+            }
+        }
+    }
+
+    private void rollUp(Rollup rollup, MaintenanceRun run) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        LocalDateTime until = LocalDateTime.now().minus(rollup.delay).truncatedTo(ChronoUnit.HOURS);
+        Optional<LocalDateTime> rolledUpUntil = getRolledUpUntil(rollup);
+        if (!rolledUpUntil.isPresent()) {
+            logger.info("Rolling up all entries of table {} for the stats. This may take a while", rollup.table);
+        }
+        LocalDateTime from = rolledUpUntil.orElseGet(() -> getOldestEntry(rollup).map(x -> x.truncatedTo(ChronoUnit.HOURS)).orElse(until));
+        if (!from.isBefore(until)) {
+            if (!rolledUpUntil.isPresent()) {
+                transactionTemplate.execute(status -> setRolledUpUntil(rollup, until));
+            }
+            return;
+        }
+
+        int rows = 0;
+        while (from.isBefore(until)) {
+            LocalDateTime chunkFrom = from;
+            LocalDateTime chunkTo = from.plusDays(DAYS_PER_TRANSACTION).isBefore(until) ? from.plusDays(DAYS_PER_TRANSACTION) : until;
+            Stopwatch chunkStopwatch = Stopwatch.createStarted();
+            int chunkRows = transactionTemplate.execute(status -> {
+                int inserted = entityManager.createNativeQuery(rollup.insertRolledUp(chunkFrom, chunkTo)).executeUpdate();
+                setRolledUpUntil(rollup, chunkTo);
+                return inserted;
+            });
+            rows += chunkRows;
+            run.batchDone(chunkRows, chunkStopwatch.elapsed(TimeUnit.MILLISECONDS));
+            from = chunkTo;
+        }
+        logger.debug(LoggingMarkers.PERFORMANCE, "Rolled up entries of table {} until {} into {} rows. Took {}ms", rollup.table, until, rows, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Deletes all rollups and rolls up all history entries again.
+     */
+    public synchronized void rebuild() {
+        logger.info("Rebuilding stats rollups");
+        rebuildLock.writeLock().lock();
+        try {
+            transactionTemplate.execute(status -> {
+                for (Rollup rollup : Rollup.values()) {
+                    entityManager.createNativeQuery("DELETE FROM " + rollup.rollupTable).executeUpdate();
+                }
+                return entityManager.createNativeQuery("DELETE FROM STATS_ROLLUP_STATE").executeUpdate();
+            });
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+        rollUp();
+        logger.info("Finished rebuilding stats rollups");
+    }
+
+    /**
+     * Deletes the rollups of searches and API accesses older than the given time, called when the history entries they
+     * were created from are deleted. Downloads are never deleted from the history.
+     */
+    public void deleteOldRollups(Instant deleteOlderThan) {
+        LocalDateTime hour = LocalDateTime.ofInstant(deleteOlderThan, ZoneId.systemDefault()).truncatedTo(ChronoUnit.HOURS);
+        int deleted = transactionTemplate.execute(status ->
+                entityManager.createNativeQuery("DELETE FROM " + Rollup.API_ACCESSES.rollupTable + " WHERE TIME < " + toSql(hour)).executeUpdate() +
+                        entityManager.createNativeQuery("DELETE FROM " + Rollup.SEARCHES.rollupTable + " WHERE TIME < " + toSql(hour)).executeUpdate());
+        logger.debug("Deleted {} stats rollups older than {}", deleted, hour);
+    }
+
+    private Optional<LocalDateTime> getRolledUpUntil(Rollup rollup) {
+        List<?> result = entityManager.createNativeQuery("SELECT ROLLED_UP_UNTIL FROM STATS_ROLLUP_STATE WHERE NAME = '" + rollup.name() + "'").getResultList();
+        return result.isEmpty() ? Optional.empty() : Optional.of(((Timestamp) result.get(0)).toLocalDateTime());
+    }
+
+    private int setRolledUpUntil(Rollup rollup, LocalDateTime rolledUpUntil) {
+        return entityManager.createNativeQuery("MERGE INTO STATS_ROLLUP_STATE (NAME, ROLLED_UP_UNTIL) KEY (NAME) VALUES ('" + rollup.name() + "', " + toSql(rolledUpUntil) + ")").executeUpdate();
+    }
+
+    private Optional<LocalDateTime> getOldestEntry(Rollup rollup) {
+        Timestamp oldest = (Timestamp) entityManager.createNativeQuery("SELECT MIN(TIME) FROM " + rollup.table).getSingleResult();
+        return Optional.ofNullable(oldest).map(Timestamp::toLocalDateTime);
+    }
+
+    /**
+     * The stats compare the times in the database with the epoch seconds of the requested times, see Stats.
+     */
+    private static LocalDateTime toDatabaseTime(Instant instant) {
+        return LocalDateTime.ofEpochSecond(instant.getEpochSecond(), 0, ZoneOffset.UTC);
+    }
+
+    private static String toSql(LocalDateTime time) {
+        return "TIMESTAMP '" + TIMESTAMP_FORMATTER.format(time) + "'";
+    }
+
+}
@@ -0,0 +1,29 @@
+package org.nzbhydra.historystats.rollups;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Searches aggregated per hour, source, user, IP and user agent. Only written by {@link StatsRollups}.
+ */
+@Data
+@Entity
+@Table(name = "stats_search_hourly")
+public class StatsSearchHourlyEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Convert(converter = org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters.InstantConverter.class)
+    private Instant time;
+    private String source;
+    private String username;
+    private String ip;
+    @Column(length = 4000)
+    private String userAgent;
+    private int entries;
+
+}
@@ -14,6 +14,15 @@ public class HistoryRequestData {
     private int limit = 100;
     private FilterModel filterModel = new FilterModel();
     private SortModel sortModel;
+    /**
+     * ID of the last entry of the previous page. If set the page is determined by the entries following this one
+     * instead of by the page number which is much faster for later pages.
+     */
+    private Integer lastId;
+    /**
+     * Return an estimate of the total number of entries instead of counting them
+     */
+    private boolean estimateTotal;
 
     public HistoryRequestData() {
     }
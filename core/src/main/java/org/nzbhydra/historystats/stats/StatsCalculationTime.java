@@ -0,0 +1,14 @@
+package org.nzbhydra.historystats.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StatsCalculationTime {
+    private String stat;
+    private long millis;
+    private boolean cached;
+}
@@ -0,0 +1,311 @@
+package org.nzbhydra.historystats.textindex;
+
+import com.google.common.base.Stopwatch;
+import org.nzbhydra.logging.LoggingMarkers;
+import org.nzbhydra.maintenance.MaintenanceEngine;
+import org.nzbhydra.maintenance.MaintenanceRun;
+import org.nzbhydra.tasks.HydraTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains an index of all sequences of three characters (trigrams) contained in the texts the history can be filtered
+ * by. A filter for a text can only match entries containing all trigrams of that text, so only those entries have to be
+ * compared with the filter instead of the whole table. Entries not indexed yet are always compared. Entries are only
+ * indexed one run after they were first seen so that entries of transactions committed late are not skipped.
+ * <p>
+ * Looking up a trigram contained in many entries is slower than comparing all entries, so only the trigrams of a filter
+ * contained in the fewest entries are looked up and the index is not used at all if all of them are too common.
+ */
+@Component
+public class HistoryTextIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryTextIndex.class);
+
+    private static final long MINUTE = 1000 * 60;
+    private static final int IDS_PER_TRANSACTION = 10_000;
+    //Deleting is slower than inserting so fewer entries are removed in one transaction
+    private static final int DELETED_IDS_PER_TRANSACTION = 1000;
+    private static final int MAX_TEXT_LENGTH = 4000;
+    private static final int MAX_LOOKED_UP_TRIGRAMS = 2;
+    //Looking up an entry in the index takes a couple of times as long as comparing it so only rare trigrams are worth it
+    private static final double MAX_SHARE_OF_ENTRIES = 0.02;
+
+    enum IndexedColumn {
+        SEARCH_QUERY("SEARCH.ID", "query", "SEARCH", "SEARCH_QUERY_TRIGRAM",
+                "SEARCH s", "s.ID", "s.QUERY"),
+        DOWNLOAD_TITLE("INDEXERNZBDOWNLOAD.ID", "title", "INDEXERNZBDOWNLOAD", "DOWNLOAD_TITLE_TRIGRAM",
+                "INDEXERNZBDOWNLOAD d JOIN SEARCHRESULT r ON d.SEARCH_RESULT_ID = r.ID", "d.ID", "r.TITLE");
+
+        private final String idColumn;
+        private final String column;
+        private final String table;
+        private final String trigramTable;
+        private final String textFrom;
+        private final String textId;
+        private final String text;
+
+        IndexedColumn(String idColumn, String column, String table, String trigramTable, String textFrom, String textId, String text) {
+            this.idColumn = idColumn;
+            this.column = column;
+            this.table = table;
+            this.trigramTable = trigramTable;
+            this.textFrom = textFrom;
+            this.textId = textId;
+            this.text = text;
+        }
+
+        static Optional<IndexedColumn> find(String idColumn, String column) {
+            return Arrays.stream(values()).filter(x -> x.idColumn.equalsIgnoreCase(idColumn) && x.column.equalsIgnoreCase(column)).findFirst();
+        }
+
+        String insertTrigrams(int fromIdExclusive, int toIdInclusive) {
+            //Joining with a range of positions returns one row per position in the text. Inserting the rows in the order
+            //of the primary key is much faster than in the order of the entries
+            String trigram = "SUBSTRING(LOWER(" + text + "), p.X, 3)";
+            return "INSERT INTO " + trigramTable + " (TRIGRAM, ENTRY_ID) " +
+                    "SELECT " + trigram + ", " + textId +
+                    " FROM " + textFrom + " JOIN SYSTEM_RANGE(1, " + MAX_TEXT_LENGTH + ") p ON p.X <= LENGTH(" + text + ") - 2" +
+                    " WHERE " + textId + " > " + fromIdExclusive + " AND " + textId + " <= " + toIdInclusive +
+                    " GROUP BY " + trigram + ", " + textId +
+                    " ORDER BY " + trigram + ", " + textId;
+        }
+
+        String updateTrigramCounts(int fromIdExclusive, int toIdInclusive) {
+            return "MERGE INTO HISTORY_TRIGRAM_COUNT c USING (" +
+                    "SELECT '" + name() + "' AS NAME, TRIGRAM, COUNT(*) AS ENTRIES FROM " + trigramTable +
+                    " WHERE ENTRY_ID > " + fromIdExclusive + " AND ENTRY_ID <= " + toIdInclusive + " GROUP BY TRIGRAM) n" +
+                    " ON (c.NAME = n.NAME AND c.TRIGRAM = n.TRIGRAM)" +
+                    " WHEN MATCHED THEN UPDATE SET ENTRIES = c.ENTRIES + n.ENTRIES" +
+                    " WHEN NOT MATCHED THEN INSERT (NAME, TRIGRAM, ENTRIES) VALUES (n.NAME, n.TRIGRAM, n.ENTRIES)";
+        }
+
+        String decreaseTrigramCounts(int fromIdInclusive, int toIdExclusive) {
+            return "MERGE INTO HISTORY_TRIGRAM_COUNT c USING (" +
+                    "SELECT '" + name() + "' AS NAME, TRIGRAM, COUNT(*) AS ENTRIES FROM " + trigramTable +
+                    " WHERE ENTRY_ID >= " + fromIdInclusive + " AND ENTRY_ID < " + toIdExclusive + " GROUP BY TRIGRAM) n" +
+                    " ON (c.NAME = n.NAME AND c.TRIGRAM = n.TRIGRAM)" +
+                    " WHEN MATCHED THEN UPDATE SET ENTRIES = c.ENTRIES - n.ENTRIES";
+        }
+
+        String deleteTrigrams(int fromIdInclusive, int toIdExclusive) {
+            return "DELETE FROM " + trigramTable + " WHERE ENTRY_ID >= " + fromIdInclusive + " AND ENTRY_ID < " + toIdExclusive;
+        }
+
+        String selectCandidates(String trigramsParameter, int trigramCount, int indexedUntilId) {
+            return idColumn + " IN (" +
+                    "SELECT ENTRY_ID FROM " + trigramTable + " WHERE TRIGRAM IN (:" + trigramsParameter + ") GROUP BY ENTRY_ID HAVING COUNT(*) = " + trigramCount +
+                    " UNION ALL SELECT t.ID FROM " + table + " t WHERE t.ID > " + indexedUntilId + ")";
+        }
+
+        String selectNotIndexed(int indexedUntilId) {
+            return idColumn + " > " + indexedUntilId;
+        }
+    }
+
+    @Autowired
+    protected EntityManager entityManager;
+    @Autowired
+    protected PlatformTransactionManager transactionManager;
+    @Autowired
+    protected MaintenanceEngine maintenanceEngine;
+
+    private TransactionTemplate transactionTemplate;
+    private final Map<IndexedColumn, Integer> highestIdsOfLastRun = new EnumMap<>(IndexedColumn.class);
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Returns a condition restricting the given table to the entries which may contain the (lower case) filter value
+     * in the given column. The entries still need to be compared with the filter value. Returns an empty optional if
+     * the column is not indexed or the filter value is too short to be looked up.
+     */
+    public Optional<String> getFilterCondition(String idColumn, String column, String filterValue, Map<String, Object> parameters) {
+        Optional<IndexedColumn> indexedColumn = IndexedColumn.find(idColumn, column);
+        if (!indexedColumn.isPresent()) {
+            return Optional.empty();
+        }
+        Set<String> trigrams = getTrigrams(filterValue);
+        if (trigrams.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<HistoryTextIndexStateEntity> state = getState(indexedColumn.get());
+        if (!state.isPresent()) {
+            return Optional.empty();
+        }
+        Map<String, Integer> trigramCounts = getTrigramCounts(indexedColumn.get(), trigrams);
+        return getFilterCondition(indexedColumn.get(), trigrams, trigramCounts, state.get(), column + "_trigrams", parameters);
+    }
+
+    static Optional<String> getFilterCondition(IndexedColumn indexedColumn, Set<String> trigrams, Map<String, Integer> trigramCounts, HistoryTextIndexStateEntity state, String trigramsParameter, Map<String, Object> parameters) {
+        if (trigramCounts.size() < trigrams.size()) {
+            //At least one trigram is not contained in any indexed entry
+            return Optional.of(indexedColumn.selectNotIndexed(state.getIndexedUntilId()));
+        }
+        List<String> rareTrigrams = trigramCounts.entrySet().stream()
+                .filter(x -> x.getValue() <= state.getIndexedEntries() * MAX_SHARE_OF_ENTRIES)
+                .sorted(Comparator.comparing(Entry::getValue))
+                .limit(MAX_LOOKED_UP_TRIGRAMS)
+                .map(Entry::getKey)
+                .collect(Collectors.toList());
+        if (rareTrigrams.isEmpty()) {
+            logger.debug(LoggingMarkers.PERFORMANCE, "Not using index to filter by {} because all of them are too common", trigrams);
+            return Optional.empty();
+        }
+        parameters.put(trigramsParameter, rareTrigrams);
+        return Optional.of(indexedColumn.selectCandidates(trigramsParameter, rareTrigrams.size(), state.getIndexedUntilId()));
+    }
+
+    @HydraTask(configId = "indexHistoryText", name = "Index history for filtering", interval = MINUTE * 5)
+    public synchronized void index() {
+        try (MaintenanceRun run = maintenanceEngine.start("indexHistoryText")) {
+            for (IndexedColumn indexedColumn : IndexedColumn.values()) {
+                run.setStep(indexedColumn.table);
+                index(indexedColumn, run);
+            }
+        }
+    }
+
+    private void index(IndexedColumn indexedColumn, MaintenanceRun run) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        Optional<HistoryTextIndexStateEntity> state = getState(indexedColumn);
+        Number highestId = (Number) entityManager.createNativeQuery("SELECT MAX(ID) FROM " + indexedColumn.table).getSingleResult();
+        //Entries with lower IDs may still be added by transactions which are not committed yet and would never be indexed.
+        //So only the entries up to the highest ID seen by the previous run are indexed, those had a whole interval to be committed
+        Integer highestIdOfLastRun = highestIdsOfLastRun.put(indexedColumn, highestId == null ? 0 : highestId.intValue());
+        int until = highestIdOfLastRun == null ? 0 : highestIdOfLastRun;
+        int from = state.map(HistoryTextIndexStateEntity::getIndexedUntilId).orElse(0);
+        int entries = state.map(HistoryTextIndexStateEntity::getIndexedEntries).orElse(0);
+        if (from == 0 && until > 0) {
+            logger.info("Indexing all entries of table {} for filtering. This may take a while", indexedColumn.table);
+        }
+        if (from >= until) {
+            if (!state.isPresent()) {
+                transactionTemplate.execute(status -> setState(indexedColumn, until, 0));
+            }
+            return;
+        }
+
+        while (from < until) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(from + IDS_PER_TRANSACTION, until);
+            int entriesBefore = entries;
+            Stopwatch chunkStopwatch = Stopwatch.createStarted();
+            int indexedEntries = transactionTemplate.execute(status -> {
+                int chunkEntries = ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM " + indexedColumn.table + " WHERE ID > " + chunkFrom + " AND ID <= " + chunkTo).getSingleResult()).intValue();
+                entityManager.createNativeQuery(indexedColumn.insertTrigrams(chunkFrom, chunkTo)).executeUpdate();
+                entityManager.createNativeQuery(indexedColumn.updateTrigramCounts(chunkFrom, chunkTo)).executeUpdate();
+                setState(indexedColumn, chunkTo, entriesBefore + chunkEntries);
+                return chunkEntries;
+            });
+            entries += indexedEntries;
+            run.batchDone(indexedEntries, chunkStopwatch.elapsed(TimeUnit.MILLISECONDS));
+            from = chunkTo;
+        }
+        logger.debug(LoggingMarkers.PERFORMANCE, "Indexed entries of table {} until ID {}. Took {}ms", indexedColumn.table, until, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Removes the searches with IDs lower than the given one from the index and decreases the trigram counts accordingly.
+     * Must be called before the searches are deleted.
+     */
+    public synchronized void deleteSearchQueriesBefore(int searchId, MaintenanceRun run) {
+        deleteEntriesBefore(IndexedColumn.SEARCH_QUERY, searchId, run);
+    }
+
+    private void deleteEntriesBefore(IndexedColumn indexedColumn, int lowerThan, MaintenanceRun run) {
+        Optional<HistoryTextIndexStateEntity> state = getState(indexedColumn);
+        if (!state.isPresent()) {
+            return;
+        }
+        int indexedUntilId = state.get().getIndexedUntilId();
+        Optional<Integer> from = getLowestIndexedId(indexedColumn);
+        while (from.isPresent() && from.get() < lowerThan) {
+            int chunkFrom = from.get();
+            int chunkTo = Math.min(chunkFrom + DELETED_IDS_PER_TRANSACTION, lowerThan);
+            Stopwatch chunkStopwatch = Stopwatch.createStarted();
+            int deletedTrigrams = transactionTemplate.execute(status -> {
+                entityManager.createNativeQuery(indexedColumn.decreaseTrigramCounts(chunkFrom, chunkTo)).executeUpdate();
+                return entityManager.createNativeQuery(indexedColumn.deleteTrigrams(chunkFrom, chunkTo)).executeUpdate();
+            });
+            run.batchDone(deletedTrigrams, chunkStopwatch.elapsed(TimeUnit.MILLISECONDS));
+            from = getLowestIndexedId(indexedColumn);
+        }
+        transactionTemplate.execute(status -> {
+            entityManager.createNativeQuery("DELETE FROM HISTORY_TRIGRAM_COUNT WHERE NAME = '" + indexedColumn.name() + "' AND ENTRIES <= 0").executeUpdate();
+            //Counted instead of decreased because entries without text have no trigrams and the entries are deleted later
+            int remainingEntries = ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM " + indexedColumn.table + " WHERE ID >= " + lowerThan + " AND ID <= " + indexedUntilId).getSingleResult()).intValue();
+            return setState(indexedColumn, indexedUntilId, remainingEntries);
+        });
+    }
+
+    private Optional<Integer> getLowestIndexedId(IndexedColumn indexedColumn) {
+        Number lowestId = (Number) entityManager.createNativeQuery("SELECT MIN(ENTRY_ID) FROM " + indexedColumn.trigramTable).getSingleResult();
+        return Optional.ofNullable(lowestId).map(Number::intValue);
+    }
+
+    /**
+     * Returns the trigrams contained in every text matching the given filter value. Wildcards of LIKE expressions
+     * may match any character so trigrams containing them are skipped.
+     */
+    static Set<String> getTrigrams(String filterValue) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (String part : filterValue.split("[%_]")) {
+            for (int i = 0; i + 3 <= part.length(); i++) {
+                trigrams.add(part.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+
+    private Optional<HistoryTextIndexStateEntity> getState(IndexedColumn indexedColumn) {
+        List<?> result = entityManager.createNativeQuery("SELECT INDEXED_UNTIL_ID, INDEXED_ENTRIES FROM HISTORY_TEXT_INDEX_STATE WHERE NAME = '" + indexedColumn.name() + "'").getResultList();
+        if (result.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = (Object[]) result.get(0);
+        HistoryTextIndexStateEntity state = new HistoryTextIndexStateEntity();
+        state.setName(indexedColumn.name());
+        state.setIndexedUntilId(((Number) row[0]).intValue());
+        state.setIndexedEntries(((Number) row[1]).intValue());
+        return Optional.of(state);
+    }
+
+    private int setState(IndexedColumn indexedColumn, int indexedUntilId, int indexedEntries) {
+        return entityManager.createNativeQuery("MERGE INTO HISTORY_TEXT_INDEX_STATE (NAME, INDEXED_UNTIL_ID, INDEXED_ENTRIES) KEY (NAME) VALUES ('" + indexedColumn.name() + "', " + indexedUntilId + ", " + indexedEntries + ")").executeUpdate();
+    }
+
+    private Map<String, Integer> getTrigramCounts(IndexedColumn indexedColumn, Set<String> trigrams) {
+        List<?> result = entityManager.createNativeQuery("SELECT TRIGRAM, ENTRIES FROM HISTORY_TRIGRAM_COUNT WHERE NAME = '" + indexedColumn.name() + "' AND TRIGRAM IN (:trigrams)")
+                .setParameter("trigrams", trigrams)
+                .getResultList();
+        Map<String, Integer> trigramCounts = new HashMap<>();
+        for (Object row : result) {
+            trigramCounts.put((String) ((Object[]) row)[0], ((Number) ((Object[]) row)[1]).intValue());
+        }
+        return trigramCounts;
+    }
+
+}
@@ -0,0 +1,23 @@
+package org.nzbhydra.historystats.textindex;
+
+import lombok.Data;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Stores up to which ID (inclusive) the entries of a history table have been indexed and how many entries that were.
+ */
+@Data
+@Entity
+@Table(name = "history_text_index_state")
+public class HistoryTextIndexStateEntity {
+
+    @Id
+    private String name;
+
+    private int indexedUntilId;
+    private int indexedEntries;
+
+}
@@ -0,0 +1,29 @@
+package org.nzbhydra.historystats.textindex;
+
+import lombok.Data;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+/**
+ * Stores in how many of the indexed entries a trigram was contained. Entries deleted from the history are not
+ * subtracted, the counts are only used to estimate how many entries a lookup in the index will return.
+ */
+@Data
+@Entity
+@Table(name = "history_trigram_count")
+@IdClass(TrigramCountId.class)
+public class HistoryTrigramCountEntity {
+
+    @Id
+    private String name;
+    @Id
+    @Column(length = 3)
+    private String trigram;
+
+    private int entries;
+
+}
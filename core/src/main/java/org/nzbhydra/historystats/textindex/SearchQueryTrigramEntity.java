@@ -0,0 +1,26 @@
+package org.nzbhydra.historystats.textindex;
+
+import lombok.Data;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+/**
+ * A sequence of three characters contained in the query of a search, see {@link HistoryTextIndex}.
+ */
+@Data
+@Entity
+@Table(name = "search_query_trigram")
+@IdClass(TrigramId.class)
+public class SearchQueryTrigramEntity {
+
+    @Id
+    @Column(length = 3)
+    private String trigram;
+    @Id
+    private int entryId;
+
+}
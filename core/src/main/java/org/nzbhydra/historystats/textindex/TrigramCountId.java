@@ -0,0 +1,17 @@
+package org.nzbhydra.historystats.textindex;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrigramCountId implements Serializable {
+
+    private String name;
+    private String trigram;
+
+}
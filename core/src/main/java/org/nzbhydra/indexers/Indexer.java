@@ -12,12 +12,13 @@ import org.nzbhydra.mediainfo.InfoProvider;
 import org.nzbhydra.mediainfo.InfoProvider.IdType;
 import org.nzbhydra.mediainfo.InfoProviderException;
 import org.nzbhydra.mediainfo.MediaInfo;
+import org.nzbhydra.metrics.HydraMetrics;
 import org.nzbhydra.searching.CategoryProvider;
 import org.nzbhydra.searching.SearchResultAcceptor;
 import org.nzbhydra.searching.SearchResultAcceptor.AcceptorResult;
-import org.nzbhydra.searching.SearchResultIdCalculator;
-import org.nzbhydra.searching.db.SearchResultEntity;
-import org.nzbhydra.searching.db.SearchResultRepository;
+import org.nzbhydra.searching.SearchTimings;
+import org.nzbhydra.searching.SearchTimings.SearchPhase;
+import org.nzbhydra.searching.db.SearchResultPersister;
 import org.nzbhydra.searching.dtoseventsenums.*;
 import org.nzbhydra.searching.searchrequests.InternalData.FallbackState;
 import org.nzbhydra.searching.searchrequests.SearchRequest;
@@ -27,10 +28,8 @@ import org.slf4j.Marker;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.persistence.EntityExistsException;
 import java.net.URI;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
@@ -55,8 +54,6 @@ public abstract class Indexer<T> {
 
     List<DateTimeFormatter> DATE_FORMATs = Arrays.asList(DateTimeFormatter.RFC_1123_DATE_TIME, DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.ENGLISH));
 
-    private final Object lock = "";
-
     protected IndexerEntity indexer;
     protected IndexerConfig config;
 
@@ -65,12 +62,14 @@ public abstract class Indexer<T> {
     @Autowired
     protected IndexerRepository indexerRepository;
     @Autowired
-    protected SearchResultRepository searchResultRepository;
+    protected SearchResultPersister searchResultPersister;
     @Autowired
     protected IndexerApiAccessRepository indexerApiAccessRepository;
     @Autowired
     protected IndexerApiAccessEntityShortRepository indexerApiAccessShortRepository;
     @Autowired
+    protected IndexerLimitCounter indexerLimitCounter;
+    @Autowired
     protected IndexerWebAccess indexerWebAccess;
     @Autowired
     protected SearchResultAcceptor resultAcceptor;
@@ -138,26 +137,36 @@ public abstract class Indexer<T> {
     }
 
     protected IndexerSearchResult searchInternal(SearchRequest searchRequest, int offset, Integer limit) throws IndexerSearchAbortedException, IndexerAccessException {
+        SearchTimings timings = searchRequest.getInternalData().getTimings();
+        Stopwatch stopwatch = Stopwatch.createStarted();
         UriComponentsBuilder builder = buildSearchUrl(searchRequest, offset, limit);
         URI url = builder.build().toUri();
+        timings.add(getName(), SearchPhase.ID_CONVERSION, stopwatch.elapsed(TimeUnit.MILLISECONDS));
 
         T response;
-        Stopwatch stopwatch = Stopwatch.createStarted();
+        stopwatch.reset().start();
         info("Calling {}", url.toString());
 
         response = getAndStoreResultToDatabase(url, IndexerApiAccessType.SEARCH);
         long responseTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+        timings.add(getName(), SearchPhase.HTTP, responseTime);
 
         stopwatch.reset();
         stopwatch.start();
         IndexerSearchResult indexerSearchResult = new IndexerSearchResult(this, true);
         List<SearchResultItem> searchResultItems = getSearchResultItems(response);
+        timings.add(getName(), SearchPhase.PARSING, stopwatch.elapsed(TimeUnit.MILLISECONDS));
         info("Successfully executed search call in {}ms with {} results", responseTime, searchResultItems.size());
+        HydraMetrics.recordIndexerResults(getName(), searchResultItems.size());
+        stopwatch.reset().start();
         AcceptorResult acceptorResult = resultAcceptor.acceptResults(searchResultItems, searchRequest, config);
+        timings.add(getName(), SearchPhase.ACCEPTANCE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
         searchResultItems = acceptorResult.getAcceptedResults();
         indexerSearchResult.setReasonsForRejection(acceptorResult.getReasonsForRejection());
 
+        stopwatch.reset().start();
         searchResultItems = persistSearchResults(searchResultItems);
+        timings.add(getName(), SearchPhase.PERSISTENCE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
         indexerSearchResult.setSearchResultItems(searchResultItems);
         indexerSearchResult.setResponseTime(responseTime);
 
@@ -199,39 +208,9 @@ public abstract class Indexer<T> {
         return query;
     }
 
-    @Transactional
     protected List<SearchResultItem> persistSearchResults(List<SearchResultItem> searchResultItems) {
         Stopwatch stopwatch = Stopwatch.createStarted();
-        synchronized (lock) { //Locking per indexer prevents multiple threads trying to save the same "new" results to the database
-            ArrayList<SearchResultEntity> searchResultEntities = new ArrayList<>();
-            Set<Long> alreadySavedIds = searchResultRepository.findAllIdsByIdIn(searchResultItems.stream().map(SearchResultIdCalculator::calculateSearchResultId).collect(Collectors.toList()));
-            for (SearchResultItem item : searchResultItems) {
-                long guid = SearchResultIdCalculator.calculateSearchResultId(item);
-                if (!alreadySavedIds.contains(guid)) {
-                    SearchResultEntity searchResultEntity = new SearchResultEntity();
-
-                    //Set all entity relevant data
-                    searchResultEntity.setIndexer(indexer);
-                    searchResultEntity.setTitle(item.getTitle());
-                    searchResultEntity.setLink(item.getLink());
-                    searchResultEntity.setDetails(item.getDetails());
-                    searchResultEntity.setIndexerGuid(item.getIndexerGuid());
-                    searchResultEntity.setFirstFound(Instant.now());
-                    searchResultEntity.setDownloadType(item.getDownloadType());
-                    searchResultEntity.setPubDate(item.getPubDate());
-                    searchResultEntities.add(searchResultEntity);
-                }
-                //LATER Unify guid and searchResultId which are the same
-                item.setGuid(guid);
-                item.setSearchResultId(guid);
-            }
-            try {
-                searchResultRepository.saveAll(searchResultEntities);
-            } catch (EntityExistsException e) {
-                logger.error("Unable to save the search results to the database", e);
-            }
-        }
-
+        searchResultPersister.persist(indexer, searchResultItems);
         getLogger().debug(LoggingMarkers.PERFORMANCE, "Handling of {} search results took {}ms", searchResultItems.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
         return searchResultItems;
     }
@@ -241,11 +220,14 @@ public abstract class Indexer<T> {
         if (getConfig().getDisabledLevel() > 0) {
             debug("Indexer was successfully called after {} failed attempts in a row", getConfig().getDisabledLevel());
         }
-        getConfig().setState(IndexerConfig.State.ENABLED);
-        getConfig().setLastError(null);
-        getConfig().setDisabledUntil(null);
-        getConfig().setDisabledLevel(0);
-        configProvider.getBaseConfig().save();
+        //Only the status changes are saved, most calls are successful calls of an already enabled indexer
+        if (getConfig().getState() != IndexerConfig.State.ENABLED || getConfig().getLastError() != null || getConfig().getDisabledUntil() != null || getConfig().getDisabledLevel() != 0) {
+            getConfig().setState(IndexerConfig.State.ENABLED);
+            getConfig().setLastError(null);
+            getConfig().setDisabledUntil(null);
+            getConfig().setDisabledLevel(0);
+            configProvider.getBaseConfig().saveLater();
+        }
         saveApiAccess(accessType, responseTime, IndexerAccessResult.SUCCESSFUL, true);
     }
 
@@ -262,7 +244,7 @@ public abstract class Indexer<T> {
             getLogger().warn("Because an error occurred {} will be temporarily disabled until {}. This is error number {} in a row", indexer.getName(), disabledUntil, getConfig().getDisabledLevel());
         }
         getConfig().setLastError(reason);
-        configProvider.getBaseConfig().save();
+        configProvider.getBaseConfig().saveLater();
 
         saveApiAccess(accessType, responseTime, accessResult, false);
     }
@@ -275,7 +257,9 @@ public abstract class Indexer<T> {
         apiAccess.setTime(Instant.now());
         indexerApiAccessRepository.save(apiAccess);
 
-        indexerApiAccessShortRepository.save(new IndexerApiAccessEntityShort(indexer, successful));
+        IndexerApiAccessEntityShort shortApiAccess = new IndexerApiAccessEntityShort(indexer, successful);
+        indexerApiAccessShortRepository.save(shortApiAccess);
+        indexerLimitCounter.recordApiAccess(indexer.getId(), shortApiAccess.getId(), shortApiAccess.getTime());
     }
 
     protected void handleIndexerAccessException(IndexerAccessException e, IndexerApiAccessType accessType) {
@@ -328,9 +312,11 @@ public abstract class Indexer<T> {
         try {
             result = callInderWebAccess(uri, responseType);
         } catch (IndexerAccessException e) {
+            HydraMetrics.recordIndexerRequest(getName(), apiAccessType.name(), false, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             throw e;
         }
         long responseTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+        HydraMetrics.recordIndexerRequest(getName(), apiAccessType.name(), true, responseTime);
         handleSuccess(apiAccessType, responseTime);
         return result;
     }
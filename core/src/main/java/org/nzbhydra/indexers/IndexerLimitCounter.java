@@ -0,0 +1,254 @@
+package org.nzbhydra.indexers;
+
+import com.google.common.base.Stopwatch;
+import org.nzbhydra.config.FileDownloadAccessType;
+import org.nzbhydra.downloading.FileDownloadEntity;
+import org.nzbhydra.downloading.FileDownloadEvent;
+import org.nzbhydra.logging.LoggingMarkers;
+import org.nzbhydra.tasks.HydraTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the times of the API accesses and downloads of the last two days for every indexer in memory so that hit and
+ * download limits can be checked without querying the database for every search. The times are loaded from the
+ * database when first needed and then updated with every API access and download. A task regularly reloads them from
+ * the database and logs if they had drifted apart.
+ * <p>
+ * An access may be saved to the database before a load and only be recorded after it. The IDs of the loaded entries
+ * are kept so that such an access is not counted twice.
+ */
+@Component
+public class IndexerLimitCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexerLimitCounter.class);
+
+    //Same as the short term storage of API accesses, more than enough for any hit limit reset time
+    private static final Duration RETENTION = Duration.ofDays(2);
+    private static final long ONE_HOUR = 1000 * 60 * 60;
+
+    private static final String API_ACCESSES_SQL = "SELECT x.INDEXER_ID, x.TIME, x.ID FROM INDEXERAPIACCESS_SHORT x WHERE x.TIME > ? ORDER BY x.TIME";
+    private static final String DOWNLOADS_SQL = "SELECT r.INDEXER_ID, d.TIME, d.ID FROM INDEXERNZBDOWNLOAD d JOIN SEARCHRESULT r ON d.SEARCH_RESULT_ID = r.ID WHERE d.TIME > ? AND (d.NZB_ACCESS_TYPE IS NULL OR d.NZB_ACCESS_TYPE <> 'CACHE') ORDER BY d.TIME";
+
+    @Autowired
+    protected DataSource dataSource;
+    protected Clock clock = Clock.systemUTC();
+
+    private Map<Integer, TimeWindow> apiAccesses = new HashMap<>();
+    private Map<Integer, TimeWindow> downloads = new HashMap<>();
+    private Set<Integer> loadedApiAccessIds = new HashSet<>();
+    private Set<Integer> loadedDownloadIds = new HashSet<>();
+    private boolean loaded = false;
+
+    public synchronized void recordApiAccess(int indexerId, int apiAccessId, Instant time) {
+        if (loaded) {
+            record(apiAccesses, loadedApiAccessIds, indexerId, apiAccessId, time);
+        }
+    }
+
+    @EventListener
+    public synchronized void onFileDownload(FileDownloadEvent event) {
+        FileDownloadEntity downloadEntity = event.getDownloadEntity();
+        //NZBs loaded from the cache were not downloaded from the indexer
+        if (loaded && downloadEntity.getNzbAccessType() != FileDownloadAccessType.CACHE && downloadEntity.getSearchResult() != null && downloadEntity.getSearchResult().getIndexer() != null) {
+            record(downloads, loadedDownloadIds, downloadEntity.getSearchResult().getIndexer().getId(), downloadEntity.getId(), downloadEntity.getTime());
+        }
+    }
+
+    /**
+     * @return The time of the n-th newest API access of the indexer or empty if it has less than n API accesses in the last two days
+     */
+    public synchronized Optional<Instant> getNthNewestApiAccess(int indexerId, int n) {
+        ensureLoaded();
+        return getNthNewest(apiAccesses, indexerId, n);
+    }
+
+    /**
+     * @return The time of the n-th newest download from the indexer or empty if it has less than n downloads in the last two days
+     */
+    public synchronized Optional<Instant> getNthNewestDownload(int indexerId, int n) {
+        ensureLoaded();
+        return getNthNewest(downloads, indexerId, n);
+    }
+
+    @HydraTask(configId = "reconcileIndexerLimitCounter", name = "Reconcile indexer hit and download counters", interval = ONE_HOUR)
+    public synchronized void reconcile() {
+        if (!loaded) {
+            //Nothing to compare yet, will be loaded when needed
+            return;
+        }
+        Map<Integer, TimeWindow> oldApiAccesses = apiAccesses;
+        Map<Integer, TimeWindow> oldDownloads = downloads;
+        if (!load()) {
+            return;
+        }
+        Instant cutoff = clock.instant().minus(RETENTION);
+        logDifferences("API accesses", oldApiAccesses, apiAccesses, cutoff);
+        logDifferences("downloads", oldDownloads, downloads, cutoff);
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            load();
+        }
+    }
+
+    private boolean load() {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        Instant cutoff = clock.instant().minus(RETENTION);
+        try (Connection connection = dataSource.getConnection()) {
+            Set<Integer> newApiAccessIds = new HashSet<>();
+            Set<Integer> newDownloadIds = new HashSet<>();
+            Map<Integer, TimeWindow> newApiAccesses = query(connection, API_ACCESSES_SQL, cutoff, newApiAccessIds);
+            Map<Integer, TimeWindow> newDownloads = query(connection, DOWNLOADS_SQL, cutoff, newDownloadIds);
+            apiAccesses = newApiAccesses;
+            downloads = newDownloads;
+            loadedApiAccessIds = newApiAccessIds;
+            loadedDownloadIds = newDownloadIds;
+            loaded = true;
+            logger.debug(LoggingMarkers.PERFORMANCE, "Loading indexer API accesses and downloads for limit checks took {}ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            return true;
+        } catch (SQLException e) {
+            //Will be retried with the next check
+            logger.error("Unable to load indexer API accesses and downloads from the database", e);
+            return false;
+        }
+    }
+
+    private Map<Integer, TimeWindow> query(Connection connection, String sql, Instant cutoff, Set<Integer> loadedIds) throws SQLException {
+        Map<Integer, TimeWindow> windows = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setTimestamp(1, Timestamp.from(cutoff));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    windows.computeIfAbsent(resultSet.getInt(1), x -> new TimeWindow()).add(resultSet.getTimestamp(2).toInstant().toEpochMilli());
+                    loadedIds.add(resultSet.getInt(3));
+                }
+            }
+        }
+        return windows;
+    }
+
+    private void record(Map<Integer, TimeWindow> windows, Set<Integer> loadedIds, int indexerId, int id, Instant time) {
+        if (loadedIds.remove(id)) {
+            //Was saved before the last load and is already contained
+            return;
+        }
+        TimeWindow window = windows.computeIfAbsent(indexerId, x -> new TimeWindow());
+        window.removeBefore(clock.instant().minus(RETENTION).toEpochMilli());
+        window.add(time.toEpochMilli());
+    }
+
+    private Optional<Instant> getNthNewest(Map<Integer, TimeWindow> windows, int indexerId, int n) {
+        TimeWindow window = windows.get(indexerId);
+        if (window == null) {
+            return Optional.empty();
+        }
+        window.removeBefore(clock.instant().minus(RETENTION).toEpochMilli());
+        if (n < 1 || window.size() < n) {
+            return Optional.empty();
+        }
+        return Optional.of(Instant.ofEpochMilli(window.get(window.size() - n)));
+    }
+
+    private void logDifferences(String type, Map<Integer, TimeWindow> inMemory, Map<Integer, TimeWindow> inDatabase, Instant cutoff) {
+        for (Integer indexerId : inDatabase.keySet()) {
+            int countInMemory = inMemory.containsKey(indexerId) ? inMemory.get(indexerId).countFrom(cutoff.toEpochMilli()) : 0;
+            int countInDatabase = inDatabase.get(indexerId).countFrom(cutoff.toEpochMilli());
+            if (countInMemory != countInDatabase) {
+                logger.warn("Counted {} {} for indexer with ID {} but found {} in the database. Using the numbers from the database", countInMemory, type, indexerId, countInDatabase);
+            }
+        }
+        for (Integer indexerId : inMemory.keySet()) {
+            int countInMemory = inMemory.get(indexerId).countFrom(cutoff.toEpochMilli());
+            if (!inDatabase.containsKey(indexerId) && countInMemory > 0) {
+                logger.warn("Counted {} {} for indexer with ID {} but found none in the database. Using the numbers from the database", countInMemory, type, indexerId);
+            }
+        }
+    }
+
+    /**
+     * Sorted epoch millis. New times are almost always the newest and are appended, old ones are removed from the start.
+     * Equal times are all kept because multiple accesses may happen in the same millisecond.
+     */
+    static class TimeWindow {
+
+        private long[] times = new long[16];
+        private int start = 0;
+        private int end = 0;
+
+        void add(long time) {
+            int index = indexAfter(time);
+            if (end == times.length) {
+                if (start > times.length / 2) {
+                    System.arraycopy(times, start, times, 0, end - start);
+                } else {
+                    long[] newTimes = new long[times.length * 2];
+                    System.arraycopy(times, start, newTimes, 0, end - start);
+                    times = newTimes;
+                }
+                index -= start;
+                end -= start;
+                start = 0;
+            }
+            System.arraycopy(times, index, times, index + 1, end - index);
+            times[index] = time;
+            end++;
+        }
+
+        void removeBefore(long time) {
+            while (start < end && times[start] < time) {
+                start++;
+            }
+        }
+
+        int countFrom(long time) {
+            return end - indexAfter(time - 1);
+        }
+
+        int size() {
+            return end - start;
+        }
+
+        long get(int index) {
+            return times[start + index];
+        }
+
+        /**
+         * @return The index of the first time greater than the given one
+         */
+        private int indexAfter(long time) {
+            int low = start;
+            int high = end;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (times[middle] <= time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+}
@@ -17,7 +17,6 @@
 package org.nzbhydra.indexers;
 
 import org.nzbhydra.config.ConfigProvider;
-import org.nzbhydra.config.ConfigReaderWriter;
 import org.nzbhydra.config.IndexerConfig;
 import org.nzbhydra.tasks.HydraTask;
 import org.slf4j.Logger;
@@ -34,7 +33,6 @@ public class IndexerStatusesCleanupTask {
     private static final long MINUTE = 1000 * 60;
 
     private ConfigProvider configProvider;
-    ConfigReaderWriter configReaderWriter = new ConfigReaderWriter();
 
     @Autowired
     public IndexerStatusesCleanupTask(ConfigProvider configProvider) {
@@ -43,6 +41,7 @@ public class IndexerStatusesCleanupTask {
 
     @HydraTask(configId = "cleanUpIndexerStatuses", name = "Clean up indexer statuses", interval = MINUTE)
     public void cleanup() {
+        boolean anyChanged = false;
         for (IndexerConfig config : configProvider.getBaseConfig().getIndexers()) {
             if (config.getState() == IndexerConfig.State.DISABLED_SYSTEM_TEMPORARY && config.getDisabledUntil() != null && Instant.ofEpochMilli(config.getDisabledUntil()).isBefore(Instant.now())) {
                 //Do not reset the level. When the indexer is called the next time (when disabledUntil is in the past)
@@ -51,8 +50,11 @@ public class IndexerStatusesCleanupTask {
                 config.setState(IndexerConfig.State.ENABLED);
                 config.setDisabledUntil(null);
                 config.setLastError(null);
+                anyChanged = true;
             }
         }
-        configReaderWriter.save(configProvider.getBaseConfig());
+        if (anyChanged) {
+            configProvider.getBaseConfig().saveLater();
+        }
     }
 }
@@ -1,16 +1,22 @@
 package org.nzbhydra.indexers;
 
 import com.google.common.io.BaseEncoding;
+import org.nzbhydra.ShutdownEvent;
 import org.nzbhydra.config.ConfigProvider;
 import org.nzbhydra.config.IndexerConfig;
 import org.nzbhydra.indexers.exceptions.IndexerAccessException;
+import org.nzbhydra.indexers.exceptions.IndexerParsingException;
 import org.nzbhydra.indexers.exceptions.IndexerProgramErrorException;
 import org.nzbhydra.indexers.exceptions.IndexerUnreachableException;
+import org.nzbhydra.logging.MdcThreadPoolExecutor;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlRoot;
+import org.nzbhydra.mapping.newznab.xml.Xml;
 import org.nzbhydra.okhttp.WebAccess;
 import org.nzbhydra.web.WebConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.oxm.Unmarshaller;
 import org.springframework.stereotype.Component;
 
@@ -26,12 +32,23 @@ import java.util.concurrent.*;
 public class IndexerWebAccess {
 
     private static final Logger logger = LoggerFactory.getLogger(IndexerWebAccess.class);
+    //Far more than any indexer returns for one page. Protects against broken or malicious responses eating up the heap
+    static final long MAX_RESPONSE_BYTES = 100 * 1024 * 1024;
+    static final int MAX_RESPONSE_ITEMS = 20_000;
 
     @Autowired
     protected ConfigProvider configProvider;
     @Autowired
     protected WebAccess webAccess;
     protected Unmarshaller unmarshaller = new WebConfiguration().marshaller();
+    protected NewznabXmlStreamParser newznabXmlStreamParser = new NewznabXmlStreamParser();
+    //Only used to enforce the timeout. Threads are reused, the number of concurrent calls is limited by the callers
+    private final ExecutorService executorService = MdcThreadPoolExecutor.newWithInheritedMdc(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>());
+
+    @EventListener
+    public void onShutdown(ShutdownEvent event) {
+        executorService.shutdown();
+    }
 
 
     @SuppressWarnings("unchecked")
@@ -51,9 +68,17 @@ public class IndexerWebAccess {
         }
 
         Future<T> future;
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
         try {
             future = executorService.submit(() -> {
+                if (responseType == Xml.class || responseType == NewznabXmlRoot.class) {
+                    //Search results are parsed directly from the response stream
+                    return (T) webAccess.callUrl(uri.toString(), headers, timeout, body -> {
+                        if (body.contentLength() > MAX_RESPONSE_BYTES) {
+                            throw new IndexerParsingException("Indexer response with " + body.contentLength() + " bytes exceeds the maximum size of " + MAX_RESPONSE_BYTES + " bytes");
+                        }
+                        return newznabXmlStreamParser.parse(body.byteStream(), MAX_RESPONSE_BYTES, MAX_RESPONSE_ITEMS);
+                    });
+                }
                 String response = webAccess.callUrl(uri.toString(), headers, timeout);
                 if (responseType == String.class) {
                     return (T) response;
@@ -63,17 +88,19 @@ public class IndexerWebAccess {
         } catch (RejectedExecutionException e) {
             logger.error("Unexpected execution exception while executing call for indexer " + indexerConfig.getName() + ". This will hopefully be fixed soon", e);
             throw new IndexerProgramErrorException("Unexpected error in hydra code. Sorry...");
-        } finally {
-            executorService.shutdown();
         }
         try {
             return future.get(timeout + 1, TimeUnit.SECONDS); //Give it one second more than the actual timeout
         } catch (ExecutionException e) {
+            if (e.getCause() instanceof IndexerAccessException) {
+                throw (IndexerAccessException) e.getCause();
+            }
             if (e.getCause() instanceof SocketTimeoutException) {
                 throw new IndexerUnreachableException("Connection with indexer timed out with a time out of " + timeout + " seconds: " + e.getCause().getMessage());
             }
             throw new IndexerUnreachableException("Error while communicating with indexer " + indexerConfig.getName() + ". Server returned: " + e.getMessage(), e.getCause());
         } catch (TimeoutException e) {
+            future.cancel(true);
             throw new IndexerAccessException("Indexer did not complete request within " + timeout + " seconds");
         } catch (Exception e) {
             throw new RuntimeException("Unexpected error while accessing indexer", e);
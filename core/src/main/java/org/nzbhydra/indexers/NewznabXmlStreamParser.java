@@ -0,0 +1,296 @@
+package org.nzbhydra.indexers;
+
+import com.google.common.io.CountingInputStream;
+import org.nzbhydra.indexers.exceptions.IndexerParsingException;
+import org.nzbhydra.mapping.newznab.xml.JaxbPubdateAdapter;
+import org.nzbhydra.mapping.newznab.xml.NewznabAttribute;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlChannel;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlEnclosure;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlError;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlGuid;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlItem;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlResponse;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlRoot;
+import org.nzbhydra.mapping.newznab.xml.Xml;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+
+/**
+ * Pull parser for newznab and torznab RSS responses. Reads the items directly from the response stream into the same
+ * objects JAXB would create, without having to hold the complete response as a string first. Responses with more bytes
+ * or items than allowed are aborted as soon as the limit is reached.
+ */
+public class NewznabXmlStreamParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(NewznabXmlStreamParser.class);
+
+    private static final String NEWZNAB_NAMESPACE = "http://www.newznab.com/DTD/2010/feeds/attributes/";
+    private static final String TORZNAB_NAMESPACE = "http://torznab.com/schemas/2015/feed";
+
+    private final XMLInputFactory inputFactory;
+    private final JaxbPubdateAdapter pubdateAdapter = new JaxbPubdateAdapter();
+
+    public NewznabXmlStreamParser() {
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    /**
+     * @param inputStream The response body. Not closed.
+     * @param maxBytes    Maximum number of bytes to read
+     * @param maxItems    Maximum number of items to parse
+     * @return Either a {@link NewznabXmlRoot} or a {@link NewznabXmlError}
+     * @throws IndexerParsingException If the response is not valid XML or exceeds one of the limits
+     */
+    public Xml parse(InputStream inputStream, long maxBytes, int maxItems) throws IndexerParsingException {
+        LimitedInputStream limitedInputStream = new LimitedInputStream(inputStream, maxBytes);
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(limitedInputStream);
+            if (nextElement(reader) != XMLStreamConstants.START_ELEMENT) {
+                throw new IndexerParsingException("Indexer returned empty response");
+            }
+            switch (reader.getLocalName()) {
+                case "rss":
+                    return parseRoot(reader, maxItems);
+                case "error":
+                    return new NewznabXmlError(reader.getAttributeValue(null, "code"), reader.getAttributeValue(null, "description"));
+                default:
+                    throw new IndexerParsingException("Indexer returned unknown response with root element " + reader.getLocalName());
+            }
+        } catch (XMLStreamException e) {
+            if (limitedInputStream.isLimitExceeded()) {
+                throw new IndexerParsingException("Indexer response exceeded the maximum size of " + maxBytes + " bytes");
+            }
+            throw new IndexerParsingException("Unable to parse indexer response: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    logger.debug("Unable to close XML reader", e);
+                }
+            }
+        }
+    }
+
+    private NewznabXmlRoot parseRoot(XMLStreamReader reader, int maxItems) throws XMLStreamException, IndexerParsingException {
+        NewznabXmlRoot root = new NewznabXmlRoot();
+        if (reader.getAttributeValue(null, "version") != null) {
+            root.setVersion(reader.getAttributeValue(null, "version"));
+        }
+        while (nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+            if (isElement(reader, "channel")) {
+                root.setRssChannel(parseChannel(reader, maxItems));
+            } else if (isElement(reader, "error")) {
+                root.setError(new NewznabXmlError(reader.getAttributeValue(null, "code"), reader.getAttributeValue(null, "description")));
+                skipElement(reader);
+            } else {
+                skipElement(reader);
+            }
+        }
+        return root;
+    }
+
+    private NewznabXmlChannel parseChannel(XMLStreamReader reader, int maxItems) throws XMLStreamException, IndexerParsingException {
+        NewznabXmlChannel channel = new NewznabXmlChannel();
+        while (nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+            if (isElement(reader, "item")) {
+                if (channel.getItems().size() >= maxItems) {
+                    throw new IndexerParsingException("Indexer response contained more than the maximum of " + maxItems + " items");
+                }
+                channel.getItems().add(parseItem(reader));
+            } else if (isElement(reader, "title")) {
+                channel.setTitle(readText(reader));
+            } else if (isElement(reader, "description")) {
+                channel.setDescription(readText(reader));
+            } else if (isElement(reader, "link")) {
+                channel.setLink(readText(reader));
+            } else if (isElement(reader, "language")) {
+                channel.setLanguage(readText(reader));
+            } else if (isElement(reader, "webMaster")) {
+                channel.setWebMaster(readText(reader));
+            } else if (isElement(reader, "generator")) {
+                channel.setGenerator(readText(reader));
+            } else if (NEWZNAB_NAMESPACE.equals(reader.getNamespaceURI()) && "response".equals(reader.getLocalName())) {
+                NewznabXmlResponse response = new NewznabXmlResponse();
+                response.setOffset(parseInteger(reader.getAttributeValue(null, "offset")));
+                response.setTotal(parseInteger(reader.getAttributeValue(null, "total")));
+                channel.setNewznabResponse(response);
+                skipElement(reader);
+            } else {
+                skipElement(reader);
+            }
+        }
+        return channel;
+    }
+
+    private NewznabXmlItem parseItem(XMLStreamReader reader) throws XMLStreamException {
+        NewznabXmlItem item = new NewznabXmlItem();
+        while (nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+            String namespace = reader.getNamespaceURI();
+            if ("attr".equals(reader.getLocalName()) && (NEWZNAB_NAMESPACE.equals(namespace) || TORZNAB_NAMESPACE.equals(namespace))) {
+                NewznabAttribute attribute = new NewznabAttribute(reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "value"));
+                if (NEWZNAB_NAMESPACE.equals(namespace)) {
+                    item.getNewznabAttributes().add(attribute);
+                } else {
+                    item.getTorznabAttributes().add(attribute);
+                }
+                skipElement(reader);
+            } else if (isElement(reader, "title")) {
+                item.setTitle(readText(reader));
+            } else if (isElement(reader, "link")) {
+                item.setLink(readText(reader));
+            } else if (isElement(reader, "enclosure")) {
+                if (item.getEnclosures() == null) {
+                    item.setEnclosures(new ArrayList<>());
+                }
+                item.getEnclosures().add(new NewznabXmlEnclosure(reader.getAttributeValue(null, "url"), parseLong(reader.getAttributeValue(null, "length")), reader.getAttributeValue(null, "type")));
+                skipElement(reader);
+            } else if (isElement(reader, "pubDate")) {
+                item.setPubDate(parsePubDate(readText(reader)));
+            } else if (isElement(reader, "guid")) {
+                String isPermaLink = reader.getAttributeValue(null, "isPermaLink");
+                item.setRssGuid(new NewznabXmlGuid(readText(reader), isPermaLink != null && ("true".equals(isPermaLink.trim()) || "1".equals(isPermaLink.trim()))));
+            } else if (isElement(reader, "description")) {
+                item.setDescription(readText(reader));
+            } else if (isElement(reader, "comments")) {
+                item.setComments(readText(reader));
+            } else if (isElement(reader, "category")) {
+                item.setCategory(readText(reader));
+            } else if (isElement(reader, "grabs")) {
+                item.setGrabs(parseInteger(readText(reader)));
+            } else {
+                skipElement(reader);
+            }
+        }
+        return item;
+    }
+
+    private boolean isElement(XMLStreamReader reader, String localName) {
+        //Like JAXB only unqualified elements are mapped, e.g. atom:link is ignored
+        return localName.equals(reader.getLocalName()) && (reader.getNamespaceURI() == null || reader.getNamespaceURI().isEmpty());
+    }
+
+    /**
+     * Moves to the next start or end element, ignoring text, comments, etc. in between
+     */
+    private int nextElement(XMLStreamReader reader) throws XMLStreamException {
+        int event = reader.next();
+        while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT && event != XMLStreamConstants.END_DOCUMENT) {
+            event = reader.next();
+        }
+        return event;
+    }
+
+    /**
+     * Reads the text content of the current element, ignoring any nested elements, and moves to its end
+     */
+    private String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (depth == 1 && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE)) {
+                text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+        }
+        return text.toString();
+    }
+
+    private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private Instant parsePubDate(String value) {
+        try {
+            return pubdateAdapter.unmarshal(value.trim());
+        } catch (Exception e) {
+            logger.debug("Unable to parse pub date {}", value);
+            return null;
+        }
+    }
+
+    private Integer parseInteger(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private final long maxBytes;
+        private boolean limitExceeded;
+
+        LimitedInputStream(InputStream in, long maxBytes) {
+            super(new CountingInputStream(in));
+            this.maxBytes = maxBytes;
+        }
+
+        boolean isLimitExceeded() {
+            return limitExceeded;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            checkLimit();
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            checkLimit();
+            return read;
+        }
+
+        private void checkLimit() throws IOException {
+            if (((CountingInputStream) in).getCount() > maxBytes) {
+                limitExceeded = true;
+                throw new IOException("Maximum response size of " + maxBytes + " bytes exceeded");
+            }
+        }
+    }
+
+}
@@ -9,6 +9,12 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Removes all sensitive data from the log that was not already filtered out by the log encoder
@@ -18,6 +24,10 @@ public class LogAnonymizer {
 
     private static final Logger logger = LoggerFactory.getLogger(LogAnonymizer.class);
 
+    private static final Pattern IPV4_PATTERN = Pattern.compile("\\b\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\b");
+    private static final Pattern IPV6_PATTERN = Pattern.compile("(([0-9a-fA-F]{1,4}:){7,7}[0-9a-fA-F]{1,4}|([0-9a-fA-F]{1,4}:){1,7}:|([0-9a-fA-F]{1,4}:){1,6}:[0-9a-fA-F]{1,4}|([0-9a-fA-F]{1,4}:){1,5}(:[0-9a-fA-F]{1,4}){1,2}|([0-9a-fA-F]{1,4}:){1,4}(:[0-9a-fA-F]{1,4}){1,3}|([0-9a-fA-F]{1,4}:){1,3}(:[0-9a-fA-F]{1,4}){1,4}|([0-9a-fA-F]{1,4}:){1,2}(:[0-9a-fA-F]{1,4}){1,5}|[0-9a-fA-F]{1,4}:((:[0-9a-fA-F]{1,4}){1,6})|:((:[0-9a-fA-F]{1,4}){1,7}|:)|fe80:(:[0-9a-fA-F]{0,4}){0,4}%[0-9a-zA-Z]{1,}|::(ffff(:0{1,4}){0,1}:){0,1}((25[0-5]|(2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3,3}(25[0-5]|(2[0-4]|1{0,1}[0-9]){0,1}[0-9])|([0-9a-fA-F]{1,4}:){1,4}:((25[0-5]|(2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3,3}(25[0-5]|(2[0-4]|1{0,1}[0-9]){0,1}[0-9]))");
+    private static final Pattern URL_CREDENTIALS_PATTERN = Pattern.compile("(https?):\\/\\/((.+?)(:(.+?)|)@)");
+
     @Autowired
     private LogContentProvider logContentProvider;
     @Autowired
@@ -30,23 +40,63 @@ public class LogAnonymizer {
      * @throws IOException Unable to read log file
      */
     public String getAnonymizedLog() throws IOException {
-        //LATER chunk up so it can handle big files
-        String log = logContentProvider.getLog();
+        StringWriter writer = new StringWriter();
+        writeAnonymizedLog(writer);
+        return writer.toString();
+    }
+
+    /**
+     * Writes the anonymized log line by line so that big log files don't have to be kept in memory. None of the
+     * replaced patterns can span multiple lines.
+     *
+     * @param writer The writer to write to. Is not closed.
+     * @throws IOException Unable to read log file
+     */
+    public void writeAnonymizedLog(Writer writer) throws IOException {
+        List<Pattern> usernamePatterns = new ArrayList<>();
         for (UserAuthConfig userAuthConfig : configProvider.getBaseConfig().getAuth().getUsers()) {
-            logger.debug("Removing username from log");
-            log = log.replaceAll("(?i)(user|username)([=:])" + userAuthConfig.getUsername(), "$1$2<USERNAME>");
+            usernamePatterns.add(Pattern.compile("(?i)(user|username)([=:])" + userAuthConfig.getUsername()));
         }
-        logger.debug("Removing IPs from log");
-        log = log.replaceAll("\\b\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\b", "<IP>");
-        log = log.replaceAll("(([0-9a-fA-F]{1,4}:){7,7}[0-9a-fA-F]{1,4}|([0-9a-fA-F]{1,4}:){1,7}:|([0-9a-fA-F]{1,4}:){1,6}:[0-9a-fA-F]{1,4}|([0-9a-fA-F]{1,4}:){1,5}(:[0-9a-fA-F]{1,4}){1,2}|([0-9a-fA-F]{1,4}:){1,4}(:[0-9a-fA-F]{1,4}){1,3}|([0-9a-fA-F]{1,4}:){1,3}(:[0-9a-fA-F]{1,4}){1,4}|([0-9a-fA-F]{1,4}:){1,2}(:[0-9a-fA-F]{1,4}){1,5}|[0-9a-fA-F]{1,4}:((:[0-9a-fA-F]{1,4}){1,6})|:((:[0-9a-fA-F]{1,4}){1,7}|:)|fe80:(:[0-9a-fA-F]{0,4}){0,4}%[0-9a-zA-Z]{1,}|::(ffff(:0{1,4}){0,1}:){0,1}((25[0-5]|(2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3,3}(25[0-5]|(2[0-4]|1{0,1}[0-9]){0,1}[0-9])|([0-9a-fA-F]{1,4}:){1,4}:((25[0-5]|(2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3,3}(25[0-5]|(2[0-4]|1{0,1}[0-9]){0,1}[0-9]))", "<IP>");
-        logger.debug("Removing URL username/password from log");
-        log = log.replaceAll("(https?):\\/\\/((.+?)(:(.+?)|)@)", "$1://<USERNAME>:<PASSWORD>@");
+        String basePath = new File("").getAbsolutePath();
+        logger.debug("Removing usernames, IPs, URL usernames/passwords and base path from log");
 
+        try (Reader reader = logContentProvider.openLog()) {
+            char[] buffer = new char[8192];
+            StringBuilder line = new StringBuilder();
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        line.append(buffer, lineStart, i + 1 - lineStart);
+                        writer.write(anonymizeLine(line.toString(), usernamePatterns, basePath));
+                        line.setLength(0);
+                        lineStart = i + 1;
+                    }
+                }
+                line.append(buffer, lineStart, read - lineStart);
+            }
+            if (line.length() > 0) {
+                writer.write(anonymizeLine(line.toString(), usernamePatterns, basePath));
+            }
+        }
+    }
 
-        logger.debug("Removing base path from log");
-        log = log.replace(new File("").getAbsolutePath(), "<BASEPATH>");
-
-        return log;
+    private String anonymizeLine(String line, List<Pattern> usernamePatterns, String basePath) {
+        for (Pattern usernamePattern : usernamePatterns) {
+            line = usernamePattern.matcher(line).replaceAll("$1$2<USERNAME>");
+        }
+        //Only run the expensive patterns on lines which may contain a match
+        if (line.indexOf('.') > -1) {
+            line = IPV4_PATTERN.matcher(line).replaceAll("<IP>");
+        }
+        if (line.indexOf(':') > -1) {
+            line = IPV6_PATTERN.matcher(line).replaceAll("<IP>");
+        }
+        if (line.indexOf('@') > -1 && line.contains("://")) {
+            line = URL_CREDENTIALS_PATTERN.matcher(line).replaceAll("$1://<USERNAME>:<PASSWORD>@");
+        }
+        return line.replace(basePath, "<BASEPATH>");
     }
 
 }
@@ -4,6 +4,7 @@ import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AsyncAppenderBase;
 import ch.qos.logback.core.FileAppender;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -16,6 +17,7 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.util.*;
@@ -25,6 +27,11 @@ import java.util.stream.Stream;
 @Component
 public class LogContentProvider {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<HashMap<String, Object>> JSON_LINE_TYPE = new TypeReference<HashMap<String, Object>>() {
+    };
+
+    private LogLineIndex jsonLogIndex;
 
     public long getLogFileSize() throws IOException {
         File logfile = getCurrentLogfile(false);
@@ -37,7 +44,10 @@ public class LogContentProvider {
         return logfile.length();
     }
 
-    public String getLog() throws IOException {
+    /**
+     * @return A reader for the current log file. Must be closed by the caller
+     */
+    public Reader openLog() throws IOException {
         File logfile = getCurrentLogfile(false);
         if (logfile == null) {
             throw new IOException("Unable to determine log file");
@@ -45,7 +55,7 @@ public class LogContentProvider {
         if (!logfile.exists()) {
             throw new IOException("Determined log file does not exist");
         }
-        return new String(Files.readAllBytes(logfile.toPath()));
+        return Files.newBufferedReader(logfile.toPath(), Charset.defaultCharset());
     }
 
     public List<String> getLogFileNames() {
@@ -64,29 +74,30 @@ public class LogContentProvider {
         if (!logfile.exists()) {
             throw new IOException("Determined log file does not exist");
         }
-        List<HashMap<String, Object>> objects = new ArrayList<>();
-        int count = 0;
-        ReversedLinesFileReader reversedLinesFileReader = new ReversedLinesFileReader(logfile, Charset.defaultCharset());
-        String line = reversedLinesFileReader.readLine();
-        while (offset > 0 && count++ < offset && line != null) {
-            line = reversedLinesFileReader.readLine();
-        }
-        if (count > 0 && line == null) {
-            return new JsonLogResponse(Collections.emptyList(), false, offset, 0);
+        LogLineIndex index = getJsonLogIndex(logfile);
+        //The newest lines come first. The offset is counted from the end of the file
+        List<byte[]> lines;
+        int lineCount;
+        synchronized (index) {
+            lineCount = index.update();
+            if (offset >= lineCount) {
+                return new JsonLogResponse(Collections.emptyList(), false, offset, 0);
+            }
+            lines = index.readLines(lineCount - offset - limit, lineCount - offset);
         }
-        count = 1;
-        ObjectMapper objectMapper = new ObjectMapper();
-        while (line != null && count++ <= limit) {
-            TypeReference<HashMap<String, Object>> typeRef
-                    = new TypeReference<HashMap<String, Object>>() {
-            };
-
-            HashMap<String, Object> o = objectMapper.readValue(line, typeRef);
-            objects.add(o);
-            line = reversedLinesFileReader.readLine();
+        List<HashMap<String, Object>> objects = new ArrayList<>(lines.size());
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            objects.add(OBJECT_MAPPER.readValue(lines.get(i), JSON_LINE_TYPE));
         }
 
-        return new JsonLogResponse(objects, line != null, offset, objects.size());
+        return new JsonLogResponse(objects, offset + objects.size() < lineCount, offset, objects.size());
+    }
+
+    private synchronized LogLineIndex getJsonLogIndex(File logfile) {
+        if (jsonLogIndex == null || !jsonLogIndex.getFile().equals(logfile)) {
+            jsonLogIndex = new LogLineIndex(logfile);
+        }
+        return jsonLogIndex;
     }
 
     public File getCurrentLogfile(boolean getJsonFile) {
@@ -99,7 +110,15 @@ public class LogContentProvider {
         for (Logger logger : context.getLoggerList()) {
             for (Iterator<Appender<ILoggingEvent>> index = logger.iteratorForAppenders();
                  index.hasNext(); ) {
-                Object enumElement = index.next();
+                Appender<ILoggingEvent> appender = index.next();
+                if (appender instanceof AsyncAppenderBase) {
+                    //The file appenders are wrapped by the async appenders
+                    Iterator<Appender<ILoggingEvent>> wrapped = ((AsyncAppenderBase<ILoggingEvent>) appender).iteratorForAppenders();
+                    if (wrapped.hasNext()) {
+                        appender = wrapped.next();
+                    }
+                }
+                Object enumElement = appender;
                 if (enumElement instanceof FileAppender) {
                     FileAppender<?> temp = (FileAppender<?>) enumElement;
                     if (getJsonFile) {
@@ -0,0 +1,137 @@
+package org.nzbhydra.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps the start positions of the lines of a log file which is only appended to so that any line can be read without
+ * reading the lines before it. Only lines added since the last access are scanned. The index is rebuilt when the file
+ * was rolled over. Because the file key is not available on all platforms (e.g. Windows) the start of the file is also
+ * compared with the one seen when indexing.
+ */
+class LogLineIndex {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int HEAD_SIZE = 256;
+
+    private final File file;
+    private Object fileKey;
+    private byte[] head = new byte[0];
+    private long[] lineStarts = new long[1024];
+    private int lineCount;
+    /**
+     * Position after the last complete line. An incomplete line at the end (currently being written) is not indexed
+     */
+    private long indexedLength;
+
+    LogLineIndex(File file) {
+        this.file = file;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Indexes the lines added since the last call
+     *
+     * @return The number of complete lines in the file
+     */
+    synchronized int update() throws IOException {
+        Object currentFileKey = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            long length = randomAccessFile.length();
+            if (length < indexedLength || !Objects.equals(fileKey, currentFileKey) || !endsWithLineBreak(randomAccessFile) || !startsWithHead(randomAccessFile)) {
+                lineCount = 0;
+                indexedLength = 0;
+                fileKey = currentFileKey;
+                head = new byte[0];
+            }
+            randomAccessFile.seek(indexedLength);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long position = indexedLength;
+            long lineStart = indexedLength;
+            int read;
+            while (position < length && (read = randomAccessFile.read(buffer, 0, (int) Math.min(buffer.length, length - position))) > 0) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        addLine(lineStart);
+                        lineStart = position + i + 1;
+                    }
+                }
+                position += read;
+            }
+            indexedLength = lineStart;
+            if (head.length < HEAD_SIZE && indexedLength > head.length) {
+                head = new byte[(int) Math.min(HEAD_SIZE, indexedLength)];
+                randomAccessFile.seek(0);
+                randomAccessFile.readFully(head);
+            }
+        }
+        return lineCount;
+    }
+
+    /**
+     * @param from First line to read (inclusive)
+     * @param to   Last line to read (exclusive)
+     * @return The lines without line breaks
+     */
+    synchronized List<byte[]> readLines(int from, int to) throws IOException {
+        from = Math.max(0, from);
+        to = Math.min(to, lineCount);
+        List<byte[]> lines = new ArrayList<>(Math.max(0, to - from));
+        if (from >= to) {
+            return lines;
+        }
+        long blockStart = lineStarts[from];
+        long blockEnd = getLineEnd(to - 1);
+        byte[] block = new byte[(int) (blockEnd - blockStart)];
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            randomAccessFile.seek(blockStart);
+            randomAccessFile.readFully(block);
+        }
+        for (int i = from; i < to; i++) {
+            int start = (int) (lineStarts[i] - blockStart);
+            int end = (int) (getLineEnd(i) - blockStart) - 1; //Without \n
+            if (end > start && block[end - 1] == '\r') {
+                end--;
+            }
+            lines.add(Arrays.copyOfRange(block, start, end));
+        }
+        return lines;
+    }
+
+    private long getLineEnd(int line) {
+        return line + 1 < lineCount ? lineStarts[line + 1] : indexedLength;
+    }
+
+    private boolean endsWithLineBreak(RandomAccessFile randomAccessFile) throws IOException {
+        if (indexedLength == 0) {
+            return true;
+        }
+        randomAccessFile.seek(indexedLength - 1);
+        return randomAccessFile.read() == '\n';
+    }
+
+    private boolean startsWithHead(RandomAccessFile randomAccessFile) throws IOException {
+        byte[] currentHead = new byte[head.length];
+        randomAccessFile.seek(0);
+        randomAccessFile.readFully(currentHead);
+        return Arrays.equals(head, currentHead);
+    }
+
+    private void addLine(long start) {
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+        }
+        lineStarts[lineCount++] = start;
+    }
+
+}
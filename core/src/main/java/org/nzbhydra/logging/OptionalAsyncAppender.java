@@ -0,0 +1,37 @@
+package org.nzbhydra.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+
+import java.util.Iterator;
+
+/**
+ * Passes the events to the attached appenders in a background thread so that the logging threads (e.g. the indexer
+ * searches) don't have to wait for the layout, the removal of sensitive data and the file I/O. If async is disabled
+ * the events are passed on directly in the calling thread.
+ */
+public class OptionalAsyncAppender extends AsyncAppender {
+
+    private boolean async = true;
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    @Override
+    protected void append(ILoggingEvent eventObject) {
+        if (async) {
+            super.append(eventObject);
+            return;
+        }
+        for (Iterator<Appender<ILoggingEvent>> iterator = iteratorForAppenders(); iterator.hasNext(); ) {
+            iterator.next().doAppend(eventObject);
+        }
+    }
+
+}
@@ -7,6 +7,10 @@ import java.nio.charset.Charset;
 
 public class SensitiveDataRemovingPatternLayoutEncoder extends PatternLayoutEncoder {
 
+    private static final String USERNAME = "username";
+    private static final String APIKEY = "apikey";
+    private static final String PASSWORD = "password";
+
     private Charset charset;
 
     public Charset getCharset() {
@@ -31,9 +35,71 @@ public class SensitiveDataRemovingPatternLayoutEncoder extends PatternLayoutEnco
         return convertToBytes(txt);
     }
 
+    /**
+     * Replaces the values of "username", "apikey" and "password" (case insensitive, followed by "=" or ":") up to the
+     * next "&amp;" or whitespace. Does the same as a replacement of <tt>(?i)(username|apikey|password)[=:]([^&amp;\s]+)</tt>
+     * with <tt>$1=&lt;$1&gt;</tt> but is called for every log line, so instead of a regex the text is scanned once and
+     * only checked where one of the keys starts. Texts without any match are returned as they are.
+     */
     protected String removeSensitiveData(String txt) {
-        return txt.replaceAll("(?i)(username|apikey|password)[=:]([^&\\s]+)", "$1=<$1>");
+        StringBuilder result = null;
+        int copiedUntil = 0;
+        int length = txt.length();
+        for (int i = 0; i < length; i++) {
+            String key;
+            switch (txt.charAt(i) | 0x20) { //ASCII lower case
+                case 'u':
+                    key = USERNAME;
+                    break;
+                case 'a':
+                    key = APIKEY;
+                    break;
+                case 'p':
+                    key = PASSWORD;
+                    break;
+                default:
+                    continue;
+            }
+            int keyEnd = i + key.length();
+            if (keyEnd >= length || !startsWithIgnoreCase(txt, i, key)) {
+                continue;
+            }
+            char separator = txt.charAt(keyEnd);
+            if (separator != '=' && separator != ':') {
+                continue;
+            }
+            int valueEnd = keyEnd + 1;
+            while (valueEnd < length && txt.charAt(valueEnd) != '&' && !isWhitespace(txt.charAt(valueEnd))) {
+                valueEnd++;
+            }
+            if (valueEnd == keyEnd + 1) {
+                continue;
+            }
+            if (result == null) {
+                result = new StringBuilder(length);
+            }
+            result.append(txt, copiedUntil, keyEnd).append("=<").append(txt, i, keyEnd).append('>');
+            copiedUntil = valueEnd;
+            i = valueEnd - 1;
+        }
+        if (result == null) {
+            return txt;
+        }
+        return result.append(txt, copiedUntil, length).toString();
     }
 
+    private static boolean startsWithIgnoreCase(String txt, int offset, String lowerCaseKey) {
+        for (int i = 0; i < lowerCaseKey.length(); i++) {
+            if ((txt.charAt(offset + i) | 0x20) != lowerCaseKey.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(char c) {
+        //Same as \s in a regex
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
 
 }
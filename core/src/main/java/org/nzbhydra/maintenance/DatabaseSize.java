@@ -0,0 +1,44 @@
+package org.nzbhydra.maintenance;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class DatabaseSize {
+
+    private long fileSizeBytes;
+    /**
+     * Percentage of the file used by current data. The rest is freed by a compaction
+     */
+    private int fillRate;
+    private List<TableSize> tables = new ArrayList<>();
+    private CompactionResult lastCompaction;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class TableSize {
+        private String name;
+        private long rows;
+        /**
+         * Estimated share of the used file size taken by the table and its indexes
+         */
+        private long estimatedBytes;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class CompactionResult {
+        private Instant time;
+        private long sizeBeforeBytes;
+        private long sizeAfterBytes;
+        private long durationMs;
+    }
+
+}
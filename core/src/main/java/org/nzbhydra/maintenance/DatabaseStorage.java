@@ -0,0 +1,194 @@
+package org.nzbhydra.maintenance;
+
+import com.google.common.base.Stopwatch;
+import org.h2.engine.Session;
+import org.h2.index.Index;
+import org.h2.jdbc.JdbcConnection;
+import org.h2.mvstore.FileStore;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.Page;
+import org.h2.mvstore.db.MVPrimaryIndex;
+import org.h2.mvstore.db.MVSecondaryIndex;
+import org.h2.mvstore.db.MVTable;
+import org.h2.mvstore.db.MVTableEngine;
+import org.nzbhydra.logging.LoggingMarkers;
+import org.nzbhydra.maintenance.DatabaseSize.CompactionResult;
+import org.nzbhydra.maintenance.DatabaseSize.TableSize;
+import org.nzbhydra.tasks.HydraTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the size of the database and its tables and compacts the database file while the program is running.
+ * <p>
+ * H2 doesn't report the disk space used by a table of an MVStore database so it's estimated by sampling a few pages of
+ * every table and index. Compaction rewrites sparsely filled chunks so that their space can be reused once the old
+ * chunks are no longer needed by readers (after the store's retention time). It's done in steps writing up to 16MB each
+ * under the maintenance throttle and runs at the configured hour (nzbhydra.maintenance.compactionHour, -1 to disable).
+ * <p>
+ * Moving chunks to shrink the file is not safe while the database is in use, so the file is only truncated when the
+ * database is closed (DEFRAG_ALWAYS in the datasource URL).
+ */
+@Component
+public class DatabaseStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseStorage.class);
+
+    private static final long HOUR = 1000 * 60 * 60;
+    private static final int TARGET_FILL_RATE = 90;
+    private static final int WRITE_LIMIT = 16 * 1024 * 1024;
+    private static final int SAMPLED_PAGES = 20;
+    //Limits the compaction to about 16GB of writes
+    private static final int MAX_STEPS = 1000;
+
+    @Autowired
+    protected DataSource dataSource;
+    @Autowired
+    protected MaintenanceEngine maintenanceEngine;
+    @Value("${nzbhydra.maintenance.compactionHour:4}")
+    protected int compactionHour = 4;
+
+    private volatile CompactionResult lastCompaction;
+
+    public DatabaseSize getDatabaseSize() throws SQLException {
+        DatabaseSize databaseSize = new DatabaseSize();
+        databaseSize.setLastCompaction(lastCompaction);
+        try (Connection connection = dataSource.getConnection()) {
+            MVTableEngine.Store store = getStore(connection);
+            if (store == null) {
+                return databaseSize;
+            }
+            MVStore mvStore = store.getStore();
+            FileStore fileStore = mvStore.getFileStore();
+            databaseSize.setFileSizeBytes(fileStore == null ? 0 : fileStore.size());
+            databaseSize.setFillRate(fileStore == null ? 100 : fileStore.getFillRate());
+
+            Map<MVTable, Long> estimatedMemoryByTable = new HashMap<>();
+            Set<String> existingMapNames = mvStore.getMapNames();
+            for (MVTable table : new ArrayList<>(store.getTables().values())) {
+                long tableMemory = 0;
+                for (String mapName : getMapNames(table)) {
+                    if (existingMapNames.contains(mapName)) {
+                        tableMemory += estimateMemory(mvStore.openMap(mapName));
+                    }
+                }
+                estimatedMemoryByTable.put(table, tableMemory);
+            }
+            //Other data (e.g. open transactions) is usually small so the used space is split between the tables
+            long totalEstimatedMemory = Math.max(1, estimatedMemoryByTable.values().stream().mapToLong(x -> x).sum());
+            long usedBytes = databaseSize.getFileSizeBytes() * databaseSize.getFillRate() / 100;
+            estimatedMemoryByTable.forEach((table, tableMemory) ->
+                    databaseSize.getTables().add(new TableSize(table.getName(), table.getRowCountApproximation(), usedBytes * tableMemory / totalEstimatedMemory)));
+        }
+        databaseSize.getTables().sort(Comparator.comparingLong(TableSize::getEstimatedBytes).reversed());
+        return databaseSize;
+    }
+
+    @HydraTask(configId = "compactDatabase", name = "Compact database", interval = HOUR)
+    public void compactAtConfiguredHour() {
+        if (LocalTime.now().getHour() != compactionHour) {
+            return;
+        }
+        try {
+            compact();
+        } catch (SQLException e) {
+            logger.error("Error while compacting database", e);
+        }
+    }
+
+    public synchronized CompactionResult compact() throws SQLException {
+        try (MaintenanceRun run = maintenanceEngine.start("compactDatabase"); Connection connection = dataSource.getConnection()) {
+            MVTableEngine.Store store = getStore(connection);
+            if (store == null || store.getStore().getFileStore() == null) {
+                logger.info("Database is not stored in a file that could be compacted");
+                return null;
+            }
+            MVStore mvStore = store.getStore();
+            FileStore fileStore = mvStore.getFileStore();
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            //Write pending changes first so they're included in the compaction
+            mvStore.commit();
+            long sizeBefore = fileStore.size();
+            logger.info("Compacting database of {}MB of which {}% are used", sizeBefore / (1024 * 1024), fileStore.getFillRate());
+            run.setStep("Rewriting chunks");
+            for (int step = 0; step < MAX_STEPS; step++) {
+                Stopwatch batchStopwatch = Stopwatch.createStarted();
+                long writtenBefore = fileStore.getWriteBytes();
+                //Respects the retention time so readers of older versions are not affected
+                boolean rewritten = mvStore.compact(TARGET_FILL_RATE, WRITE_LIMIT);
+                mvStore.commit();
+                run.batchDone(0, batchStopwatch.elapsed(TimeUnit.MILLISECONDS));
+                //Rewritten chunks are only freed after the retention time and would be selected again, so stop when a step
+                //didn't reach the write limit, i.e. all remaining chunks were rewritten
+                if (!rewritten || fileStore.getWriteBytes() - writtenBefore < WRITE_LIMIT) {
+                    break;
+                }
+            }
+            mvStore.sync();
+            lastCompaction = new CompactionResult(Instant.now(), sizeBefore, fileStore.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            logger.info("Compacted database from {}MB to {}MB", sizeBefore / (1024 * 1024), fileStore.size() / (1024 * 1024));
+            logger.debug(LoggingMarkers.PERFORMANCE, "Compacting database took {}ms", lastCompaction.getDurationMs());
+            return lastCompaction;
+        }
+    }
+
+    private MVTableEngine.Store getStore(Connection connection) throws SQLException {
+        Session session = (Session) connection.unwrap(JdbcConnection.class).getSession();
+        return session.getDatabase().getMvStore();
+    }
+
+    private Set<String> getMapNames(MVTable table) {
+        Set<String> mapNames = new LinkedHashSet<>();
+        mapNames.add(table.getMapName());
+        for (Index index : table.getIndexes()) {
+            if (index instanceof MVPrimaryIndex) {
+                mapNames.add(((MVPrimaryIndex) index).getMapName());
+            } else if (index instanceof MVSecondaryIndex) {
+                //Like MVSecondaryIndex names its map
+                mapNames.add("index." + index.getId());
+            }
+        }
+        return mapNames;
+    }
+
+    /**
+     * Estimates the memory used by all entries of the map from the entries per page and memory of random leaf pages
+     */
+    private long estimateMemory(MVMap<Object, Object> map) {
+        Page root = map.getRoot();
+        if (root.getTotalCount() == 0) {
+            return 0;
+        }
+        Random random = new Random(root.getTotalCount());
+        long sampledMemory = 0;
+        long sampledKeys = 0;
+        for (int i = 0; i < SAMPLED_PAGES; i++) {
+            Page page = root;
+            while (!page.isLeaf()) {
+                page = page.getChildPage(random.nextInt(page.getRawChildPageCount()));
+            }
+            sampledMemory += page.getMemory();
+            sampledKeys += page.getKeyCount();
+        }
+        return sampledKeys == 0 ? 0 : sampledMemory * root.getTotalCount() / sampledKeys;
+    }
+
+}
@@ -0,0 +1,39 @@
+package org.nzbhydra.maintenance;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Database housekeeping (deleting old entries, indexing, rolling up the stats) is done by maintenance jobs which run
+ * under a common {@link MaintenanceThrottle} and report their progress here.
+ * <pre>
+ * try (MaintenanceRun run = maintenanceEngine.start("deleteOldThings")) {
+ *     run.executeInBatches(connection, "delete from THING where ID &lt; ? and rownum() &lt; 10000", id);
+ * }
+ * </pre>
+ */
+@Component
+public class MaintenanceEngine {
+
+    @Autowired
+    private MaintenanceThrottle throttle;
+
+    private final Map<String, MaintenanceJobStatus> jobStatuses = new ConcurrentHashMap<>();
+
+    public MaintenanceRun start(String jobName) {
+        return new MaintenanceRun(jobStatuses.computeIfAbsent(jobName, MaintenanceJobStatus::new), throttle);
+    }
+
+    public List<MaintenanceJobStatus> getJobStatuses() {
+        List<MaintenanceJobStatus> statuses = new ArrayList<>(jobStatuses.values());
+        statuses.sort(Comparator.comparing(MaintenanceJobStatus::getName));
+        return statuses;
+    }
+
+}
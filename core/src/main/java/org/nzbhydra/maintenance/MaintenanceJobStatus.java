@@ -0,0 +1,27 @@
+package org.nzbhydra.maintenance;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Progress of the current or the result of the last run of a maintenance job
+ */
+@Data
+public class MaintenanceJobStatus {
+
+    private final String name;
+    private volatile boolean running;
+    private volatile String step;
+    private volatile Instant lastStart;
+    private volatile Instant lastFinish;
+    private volatile Long lastDurationMs;
+    private volatile long rowsAffected;
+    private volatile int batches;
+    /**
+     * Time spent waiting between batches to leave the database to searches
+     */
+    private volatile long pausedMs;
+    private volatile String error;
+
+}
@@ -0,0 +1,92 @@
+package org.nzbhydra.maintenance;
+
+import com.google.common.base.Stopwatch;
+import org.nzbhydra.logging.LoggingMarkers;
+import org.nzbhydra.misc.Sleep;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single run of a maintenance job. Jobs do their work in batches and call {@link #batchDone(int, long)} after each
+ * one which records the progress and waits as long as determined by the {@link MaintenanceThrottle}.
+ */
+public class MaintenanceRun implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MaintenanceRun.class);
+
+    private final MaintenanceJobStatus status;
+    private final MaintenanceThrottle throttle;
+    private final Stopwatch stopwatch = Stopwatch.createStarted();
+
+    public MaintenanceRun(MaintenanceJobStatus status, MaintenanceThrottle throttle) {
+        this.status = status;
+        this.throttle = throttle;
+        status.setRunning(true);
+        status.setStep(null);
+        status.setLastStart(Instant.now());
+        status.setRowsAffected(0);
+        status.setBatches(0);
+        status.setPausedMs(0);
+        status.setError(null);
+    }
+
+    public void setStep(String step) {
+        status.setStep(step);
+    }
+
+    /**
+     * Records a finished batch and waits before the next one may be executed
+     */
+    public void batchDone(int rows, long batchMillis) {
+        status.setRowsAffected(status.getRowsAffected() + rows);
+        status.setBatches(status.getBatches() + 1);
+        long pause = throttle.getPause(batchMillis);
+        Sleep.sleep(pause);
+        status.setPausedMs(status.getPausedMs() + pause);
+    }
+
+    /**
+     * Executes the given statement with the given parameter until no more rows are affected, committing after every
+     * execution. The statement must limit the number of rows it affects (e.g. using "rownum() < 10000" or, if it
+     * contains a subquery, "limit 10000").
+     *
+     * @return the number of affected rows
+     */
+    public int executeInBatches(Connection connection, String sql, int parameter) throws SQLException {
+        int affectedRows = 0;
+        int lastAffectedRows;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            do {
+                Stopwatch batchStopwatch = Stopwatch.createStarted();
+                statement.setInt(1, parameter);
+                lastAffectedRows = statement.executeUpdate();
+                connection.commit();
+                affectedRows += lastAffectedRows;
+                if (lastAffectedRows > 0) {
+                    batchDone(lastAffectedRows, batchStopwatch.elapsed(TimeUnit.MILLISECONDS));
+                }
+            } while (lastAffectedRows > 0);
+        }
+        return affectedRows;
+    }
+
+    public void failed(Exception e) {
+        status.setError(e.getMessage());
+    }
+
+    @Override
+    public void close() {
+        status.setLastDurationMs(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        status.setLastFinish(Instant.now());
+        status.setStep(null);
+        status.setRunning(false);
+        logger.debug(LoggingMarkers.PERFORMANCE, "Maintenance job {} affected {} rows in {} batches. Took {}ms of which {}ms were pauses", status.getName(), status.getRowsAffected(), status.getBatches(), status.getLastDurationMs(), status.getPausedMs());
+    }
+
+}
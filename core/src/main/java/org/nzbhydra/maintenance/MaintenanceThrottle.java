@@ -0,0 +1,39 @@
+package org.nzbhydra.maintenance;
+
+import org.nzbhydra.searching.Searcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Determines how long maintenance jobs wait after every batch. The pause is at least as long as the batch took so
+ * maintenance never uses more than half of the database's time. It's longer while searches are running and when the
+ * database is slow (i.e. a batch took long) so that searches and their results being saved are not held up.
+ */
+@Component
+public class MaintenanceThrottle {
+
+    private static final int SEARCH_BACKOFF_FACTOR = 4;
+    private static final int SLOW_DATABASE_BACKOFF_FACTOR = 4;
+
+    @Autowired
+    protected Searcher searcher;
+    @Value("${nzbhydra.maintenance.minPauseMs:100}")
+    protected long minPauseMs = 100;
+    @Value("${nzbhydra.maintenance.maxPauseMs:10000}")
+    protected long maxPauseMs = 10000;
+    @Value("${nzbhydra.maintenance.slowBatchMs:1000}")
+    protected long slowBatchMs = 1000;
+
+    public long getPause(long batchMillis) {
+        long pause = Math.max(minPauseMs, batchMillis);
+        if (searcher.getCoalescingStats().getRunningSearches() > 0) {
+            pause *= SEARCH_BACKOFF_FACTOR;
+        }
+        if (batchMillis > slowBatchMs) {
+            pause *= SLOW_DATABASE_BACKOFF_FACTOR;
+        }
+        return Math.min(pause, maxPauseMs);
+    }
+
+}
@@ -0,0 +1,40 @@
+package org.nzbhydra.maintenance;
+
+import org.nzbhydra.maintenance.DatabaseSize.CompactionResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.sql.SQLException;
+import java.util.List;
+
+@RestController
+public class MaintenanceWeb {
+
+    @Autowired
+    private MaintenanceEngine maintenanceEngine;
+    @Autowired
+    private DatabaseStorage databaseStorage;
+
+    @RequestMapping(value = "/internalapi/maintenance", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Secured({"ROLE_ADMIN"})
+    public List<MaintenanceJobStatus> getJobStatuses() {
+        return maintenanceEngine.getJobStatuses();
+    }
+
+    @RequestMapping(value = "/internalapi/maintenance/databasesize", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Secured({"ROLE_ADMIN"})
+    public DatabaseSize getDatabaseSize() throws SQLException {
+        return databaseStorage.getDatabaseSize();
+    }
+
+    @RequestMapping(value = "/internalapi/maintenance/compact", method = RequestMethod.PUT, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Secured({"ROLE_ADMIN"})
+    public CompactionResult compactDatabase() throws SQLException {
+        return databaseStorage.compact();
+    }
+
+}
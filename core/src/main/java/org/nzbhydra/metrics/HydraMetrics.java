@@ -0,0 +1,78 @@
+package org.nzbhydra.metrics;
+
+import com.google.common.collect.Multiset;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the meters of the search and download pipeline. The meters are registered in the global registry so that
+ * classes which are created without spring (or with mocks in tests) can record values without having to be wired. The
+ * registry exposed by {@link MetricsWeb} is added to the global one by {@link MetricsConfiguration}.
+ */
+public final class HydraMetrics {
+
+    public static final String INDEXER_REQUESTS = "nzbhydra.indexer.requests";
+    public static final String INDEXER_RESULTS = "nzbhydra.indexer.results";
+    public static final String RESULTS_REJECTED = "nzbhydra.results.rejected";
+    public static final String RESULTS_PERSISTED = "nzbhydra.results.persisted";
+    public static final String DOWNLOADS_PROXIED = "nzbhydra.downloads.proxied";
+    public static final String DOWNLOADS_PROXIED_BYTES = "nzbhydra.downloads.proxied.bytes";
+
+    private HydraMetrics() {
+    }
+
+    public static void recordIndexerRequest(String indexer, String accessType, boolean successful, long millis) {
+        Timer.builder(INDEXER_REQUESTS)
+                .description("Duration of the calls to the indexers")
+                .tag("indexer", tagValue(indexer))
+                .tag("type", tagValue(accessType))
+                .tag("outcome", successful ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry)
+                .record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    public static void recordIndexerResults(String indexer, int results) {
+        DistributionSummary.builder(INDEXER_RESULTS)
+                .description("Number of results returned by a search call to an indexer")
+                .tag("indexer", tagValue(indexer))
+                .register(Metrics.globalRegistry)
+                .record(results);
+    }
+
+    public static void countRejectedResults(Multiset<String> reasonsForRejection) {
+        for (Multiset.Entry<String> entry : reasonsForRejection.entrySet()) {
+            Metrics.counter(RESULTS_REJECTED, "reason", tagValue(entry.getElement())).increment(entry.getCount());
+        }
+    }
+
+    public static void recordPersistedResults(long millis) {
+        Timer.builder(RESULTS_PERSISTED)
+                .description("Duration of saving the results of a search call to the database")
+                .register(Metrics.globalRegistry)
+                .record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    public static void recordProxiedDownload(String indexer, long bytes, long millis) {
+        Timer.builder(DOWNLOADS_PROXIED)
+                .description("Duration of downloading NZBs and torrents from the indexers to pass them on")
+                .tag("indexer", tagValue(indexer))
+                .register(Metrics.globalRegistry)
+                .record(millis, TimeUnit.MILLISECONDS);
+        DistributionSummary.builder(DOWNLOADS_PROXIED_BYTES)
+                .description("Size of NZBs and torrents downloaded from the indexers to pass them on")
+                .baseUnit("bytes")
+                .tag("indexer", tagValue(indexer))
+                .register(Metrics.globalRegistry)
+                .record(bytes);
+    }
+
+    private static String tagValue(String value) {
+        //Tag values must not be null
+        return value == null ? "unknown" : value;
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.nzbhydra.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ClassLoaderMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.micrometer.core.instrument.binder.system.UptimeMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.nzbhydra.downloading.NzbCache;
+import org.nzbhydra.searching.IndexerSearchExecutor;
+import org.nzbhydra.searching.Searcher;
+import org.nzbhydra.searching.db.SearchResultPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+@Configuration
+public class MetricsConfiguration {
+
+    @Autowired
+    private Searcher searcher;
+    @Autowired
+    private IndexerSearchExecutor indexerSearchExecutor;
+    @Autowired
+    private SearchResultPersister searchResultPersister;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private NzbCache nzbCache;
+
+    private final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+    @Bean
+    public PrometheusMeterRegistry getPrometheusMeterRegistry() {
+        return registry;
+    }
+
+    @PostConstruct
+    public void init() {
+        Metrics.addRegistry(registry);
+
+        new ClassLoaderMetrics().bindTo(registry);
+        new JvmMemoryMetrics().bindTo(registry);
+        new JvmGcMetrics().bindTo(registry);
+        new JvmThreadMetrics().bindTo(registry);
+        new ProcessorMetrics().bindTo(registry);
+        new UptimeMetrics().bindTo(registry);
+
+        FunctionCounter.builder("nzbhydra.searchcache.requests", searcher, x -> x.getCacheStats().getHits()).tag("result", "hit").register(registry);
+        FunctionCounter.builder("nzbhydra.searchcache.requests", searcher, x -> x.getCacheStats().getMisses()).tag("result", "miss").register(registry);
+        FunctionCounter.builder("nzbhydra.searchcache.evictions", searcher, x -> x.getCacheStats().getSizeEvictions()).register(registry);
+        Gauge.builder("nzbhydra.searchcache.entries", searcher, x -> x.getCacheStats().getEntries()).register(registry);
+        Gauge.builder("nzbhydra.searchcache.size", searcher, x -> x.getCacheStats().getEstimatedBytes()).baseUnit("bytes").register(registry);
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache instanceof CaffeineCache) {
+                CaffeineCacheMetrics.monitor(registry, ((CaffeineCache) cache).getNativeCache(), cacheName);
+            }
+        }
+
+        FunctionCounter.builder("nzbhydra.nzbcache.requests", nzbCache, x -> x.getStats().getHits()).tag("result", "hit").register(registry);
+        FunctionCounter.builder("nzbhydra.nzbcache.requests", nzbCache, x -> x.getStats().getMisses()).tag("result", "miss").register(registry);
+        FunctionCounter.builder("nzbhydra.nzbcache.evictions", nzbCache, x -> x.getStats().getEvictions()).register(registry);
+        Gauge.builder("nzbhydra.nzbcache.entries", nzbCache, x -> x.getStats().getEntries()).register(registry);
+        Gauge.builder("nzbhydra.nzbcache.size", nzbCache, x -> x.getStats().getSizeBytes()).baseUnit("bytes").register(registry);
+
+        Gauge.builder("nzbhydra.executor.searches.active", indexerSearchExecutor, x -> x.getStats().getActiveSearches()).register(registry);
+        Gauge.builder("nzbhydra.executor.searches.queued", indexerSearchExecutor, x -> x.getStats().getQueuedSearches()).register(registry);
+        FunctionCounter.builder("nzbhydra.executor.searches.rejected", indexerSearchExecutor, x -> x.getStats().getRejectedSearches()).register(registry);
+        Gauge.builder("nzbhydra.executor.writebehind.queued", searchResultPersister, SearchResultPersister::getPendingWrites).register(registry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        //Tests may create multiple contexts in the same VM
+        Metrics.removeRegistry(registry);
+        registry.close();
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.nzbhydra.metrics;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.nzbhydra.api.WrongApiKeyException;
+import org.nzbhydra.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class MetricsWeb {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsWeb.class);
+
+    @Autowired
+    private ConfigProvider configProvider;
+    @Autowired
+    private PrometheusMeterRegistry registry;
+
+    /**
+     * Provides the metrics in the Prometheus text format. Like the API it's authenticated using the API key so that it
+     * can be scraped without a user session
+     */
+    @RequestMapping(value = "/metrics/prometheus", method = RequestMethod.GET, produces = TextFormat.CONTENT_TYPE_004)
+    public String getPrometheusMetrics(@RequestParam(required = false) String apikey) throws WrongApiKeyException {
+        if (apikey == null || !apikey.equals(configProvider.getBaseConfig().getMain().getApiKey())) {
+            logger.error("Received metrics call with wrong API key");
+            throw new WrongApiKeyException("Wrong api key");
+        }
+        return registry.scrape();
+    }
+
+    @ExceptionHandler(WrongApiKeyException.class)
+    @ResponseStatus(HttpStatus.UNAUTHORIZED)
+    public String handleWrongApiKey(WrongApiKeyException e) {
+        return e.getMessage();
+    }
+
+}
@@ -16,13 +16,23 @@
 
 package org.nzbhydra.okhttp;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.net.InetAddresses;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import joptsimple.internal.Strings;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import okhttp3.*;
 import okhttp3.OkHttpClient.Builder;
+import org.nzbhydra.config.ConfigChangedEvent;
 import org.nzbhydra.config.ConfigProvider;
+import org.nzbhydra.config.IndexerConfig;
 import org.nzbhydra.config.MainConfig;
 import org.nzbhydra.config.ProxyType;
+import org.nzbhydra.logging.LoggingMarkers;
 import org.nzbhydra.misc.DelegatingSSLSocketFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +40,7 @@ import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.client.AsyncClientHttpRequest;
@@ -54,11 +65,17 @@ import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Component
 @Primary
@@ -71,10 +88,21 @@ public class HydraOkHttp3ClientHttpRequestFactory
     private static final Logger logger = LoggerFactory.getLogger(HydraOkHttp3ClientHttpRequestFactory.class);
     private static Pattern HOST_PATTERN = Pattern.compile("(\\w+\\.)?(\\S+\\.\\S+)", Pattern.CASE_INSENSITIVE);
 
-    private OkHttpClient client;
+    //Clients are cached per host because the proxy and the connection pool may depend on it
+    private static final int MAX_CACHED_CLIENTS = 200;
+    private static final int KEEP_ALIVE_MINUTES = 5;
+
     @Autowired
     private ConfigProvider configProvider;
-    private final ConnectionPool connectionPool = new ConnectionPool(10, 5, TimeUnit.MINUTES);
+    private final ConnectionPool connectionPool = new ConnectionPool(10, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES);
+    private final Dispatcher dispatcher = new Dispatcher();
+    private final ConnectionStatsListener connectionStatsListener = new ConnectionStatsListener();
+    private final Cache<ClientProfile, OkHttpClient> clients = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_CLIENTS).build();
+    private final Map<String, ConnectionPool> indexerConnectionPools = new ConcurrentHashMap<>();
+    private volatile Map<String, Integer> indexerConnectionPoolSizes;
+    private volatile SSLSocketFactory verifyingSslSocketFactory;
+    private volatile SSLSocketFactory trustAllSslSocketFactory;
+    private volatile X509TrustManager defaultX509TrustManager;
 
     @Override
     public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
@@ -89,15 +117,34 @@ public class HydraOkHttp3ClientHttpRequestFactory
 
     @Override
     public void destroy() throws IOException {
-        // Clean up the client if we created it in the constructor
-        try {
-            if (this.client.cache() != null) {
-                this.client.cache().close();
-            }
-            this.client.dispatcher().executorService().shutdown();
-        } catch (NullPointerException e) {
-            //Ignore
-        }
+        dispatcher.executorService().shutdown();
+        connectionPool.evictAll();
+        indexerConnectionPools.values().forEach(ConnectionPool::evictAll);
+    }
+
+    @EventListener
+    public void handleNewConfig(ConfigChangedEvent configChangedEvent) {
+        logger.debug("Clearing cached HTTP clients because config was changed");
+        clients.invalidateAll();
+        indexerConnectionPoolSizes = null;
+        //Pools with the old size are removed. Their idle connections are closed, ones in use are closed when released
+        indexerConnectionPools.values().forEach(ConnectionPool::evictAll);
+        indexerConnectionPools.clear();
+    }
+
+    /**
+     * @return The number of requests and new connections per host since startup
+     */
+    public ConnectionStats getConnectionStats() {
+        List<HostConnectionStats> hostStats = connectionStatsListener.perHost.entrySet().stream()
+                .map(x -> {
+                    long requests = x.getValue()[0].get();
+                    long newConnections = x.getValue()[1].get();
+                    return new HostConnectionStats(x.getKey(), requests, newConnections, requests == 0 ? 0 : Math.max(0, requests - newConnections) / (double) requests);
+                })
+                .sorted(Comparator.comparing(HostConnectionStats::getHost))
+                .collect(Collectors.toList());
+        return new ConnectionStats(clients.size(), connectionPool.connectionCount(), connectionPool.idleConnectionCount(), indexerConnectionPools.size(), hostStats);
     }
 
 
@@ -124,35 +171,49 @@ public class HydraOkHttp3ClientHttpRequestFactory
         return (StringUtils.hasText(rawContentType) ? okhttp3.MediaType.parse(rawContentType) : null);
     }
 
+    /**
+     * Returns a builder based on a cached client for the host and the current SSL and proxy settings. Clients created by
+     * the builder share the SSL socket factory, connection pool and dispatcher with the cached client, so changing timeouts
+     * and building it is cheap and connections can be reused across calls.
+     */
     public Builder getOkHttpClientBuilder(URI requestUri) {
-        Builder builder = getBaseBuilder();
-        if (!configProvider.getBaseConfig().getMain().isVerifySsl()) {
+        MainConfig main = configProvider.getBaseConfig().getMain();
+        String host = requestUri.getHost() == null ? "" : requestUri.getHost().toLowerCase();
+        ClientProfile profile = new ClientProfile(host, main.isVerifySsl(), main.getProxyType(), main.getProxyHost(), main.getProxyPort(), main.getProxyUsername(), main.getProxyPassword());
+        try {
+            return clients.get(profile, () -> buildClient(host, main)).newBuilder();
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private OkHttpClient buildClient(String host, MainConfig main) {
+        logger.debug(LoggingMarkers.PERFORMANCE, "Creating HTTP client for host {}", host);
+        Builder builder = getBaseBuilder().connectionPool(getConnectionPool(host));
+        if (!main.isVerifySsl()) {
             builder = getUnsafeOkHttpClientBuilder(builder);
         } else {
             try {
-                SSLSocketFactory sslSocketFactory = getSslSocketFactory(new TrustManager[]{
-                        getDefaultX509TrustManager()
-                });
-                builder = builder.sslSocketFactory(new SniWhitelistingSocketFactory(sslSocketFactory), getDefaultX509TrustManager());
+                builder = builder.sslSocketFactory(getVerifyingSslSocketFactory(), getDefaultX509TrustManager());
             } catch (NoSuchAlgorithmException | KeyManagementException e) {
                 throw new RuntimeException("Unable to create SSLSocketFactory", e);
             }
         }
 
-        MainConfig main = configProvider.getBaseConfig().getMain();
         if (main.getProxyType() == ProxyType.NONE) {
-            return builder;
+            return builder.build();
         }
 
-        if (isUriToBeIgnoredByProxy(requestUri.getHost())) {
-            logger.debug("Not using proxy for request to {}", requestUri.getHost());
-            return builder;
+        if (isUriToBeIgnoredByProxy(host)) {
+            logger.debug("Not using proxy for requests to {}", host);
+            return builder.build();
         }
 
 
         if (main.getProxyType() == ProxyType.SOCKS) {
             SockProxySocketFactory sockProxySocketFactory = new SockProxySocketFactory(main.getProxyHost(), main.getProxyPort(), main.getProxyUsername(), main.getProxyPassword());
-            return builder.socketFactory(sockProxySocketFactory);
+            return builder.socketFactory(sockProxySocketFactory).build();
         } else if (main.getProxyType() == ProxyType.HTTP) {
             builder = builder.proxy(new Proxy(Type.HTTP, new InetSocketAddress(main.getProxyHost(), main.getProxyPort()))).proxyAuthenticator((Route route, Response response) -> {
                 if (response.request().header("Proxy-Authorization") != null) {
@@ -165,11 +226,42 @@ public class HydraOkHttp3ClientHttpRequestFactory
                         .header("Proxy-Authorization", credential).build();
             });
         }
-        return builder;
+        return builder.build();
+    }
+
+    /**
+     * Indexers get their own connection pool which keeps as many idle connections as searches may run concurrently for
+     * them (summed up if multiple indexers use the same host). All other hosts share one pool.
+     */
+    private ConnectionPool getConnectionPool(String host) {
+        Map<String, Integer> poolSizes = indexerConnectionPoolSizes;
+        if (poolSizes == null) {
+            poolSizes = new HashMap<>();
+            int defaultSize = configProvider.getBaseConfig().getSearching().getMaxConcurrentSearchesPerIndexer();
+            for (IndexerConfig indexerConfig : configProvider.getBaseConfig().getIndexers()) {
+                if (indexerConfig.getHost() == null) {
+                    continue;
+                }
+                try {
+                    String indexerHost = URI.create(indexerConfig.getHost()).getHost();
+                    if (indexerHost != null) {
+                        poolSizes.merge(indexerHost.toLowerCase(), Math.max(1, indexerConfig.getMaxConcurrentSearches().orElse(defaultSize)), Integer::sum);
+                    }
+                } catch (IllegalArgumentException e) {
+                    logger.debug("Unable to parse host of indexer {}", indexerConfig.getName());
+                }
+            }
+            indexerConnectionPoolSizes = poolSizes;
+        }
+        Integer poolSize = poolSizes.get(host);
+        if (poolSize == null) {
+            return connectionPool;
+        }
+        return indexerConnectionPools.computeIfAbsent(host, x -> new ConnectionPool(poolSize, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES));
     }
 
     protected Builder getBaseBuilder() {
-        return new OkHttpClient().newBuilder().connectionPool(connectionPool).readTimeout(timeout, TimeUnit.SECONDS);
+        return new OkHttpClient.Builder().dispatcher(dispatcher).connectionPool(connectionPool).eventListener(connectionStatsListener).readTimeout(timeout, TimeUnit.SECONDS);
     }
 
     protected boolean isUriToBeIgnoredByProxy(String host) {
@@ -221,11 +313,12 @@ public class HydraOkHttp3ClientHttpRequestFactory
             final TrustManager[] trustAllCerts = new TrustManager[]{
                     getAllTrustingX509TrustManager()
             };
-
-            final SSLSocketFactory sslSocketFactory = new SniWhitelistingSocketFactory(getSslSocketFactory(trustAllCerts));
+            if (trustAllSslSocketFactory == null) {
+                trustAllSslSocketFactory = new SniWhitelistingSocketFactory(getSslSocketFactory(trustAllCerts));
+            }
 
             return builder
-                    .sslSocketFactory(sslSocketFactory, (X509TrustManager) trustAllCerts[0])
+                    .sslSocketFactory(trustAllSslSocketFactory, (X509TrustManager) trustAllCerts[0])
                     .hostnameVerifier(new HostnameVerifier() {
                         @Override
                         public boolean verify(String hostname, SSLSession session) {
@@ -238,6 +331,15 @@ public class HydraOkHttp3ClientHttpRequestFactory
         }
     }
 
+    private SSLSocketFactory getVerifyingSslSocketFactory() throws NoSuchAlgorithmException, KeyManagementException {
+        if (verifyingSslSocketFactory == null) {
+            verifyingSslSocketFactory = new SniWhitelistingSocketFactory(getSslSocketFactory(new TrustManager[]{
+                    getDefaultX509TrustManager()
+            }));
+        }
+        return verifyingSslSocketFactory;
+    }
+
     private SSLSocketFactory getSslSocketFactory(TrustManager[] trustAllCerts) throws NoSuchAlgorithmException, KeyManagementException {
         final SSLContext sslContext = SSLContext.getInstance("SSL");
         sslContext.init(null, trustAllCerts, new java.security.SecureRandom());
@@ -245,6 +347,9 @@ public class HydraOkHttp3ClientHttpRequestFactory
     }
 
     private X509TrustManager getDefaultX509TrustManager() {
+        if (defaultX509TrustManager != null) {
+            return defaultX509TrustManager;
+        }
         try {
             TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(
                     TrustManagerFactory.getDefaultAlgorithm());
@@ -254,7 +359,8 @@ public class HydraOkHttp3ClientHttpRequestFactory
                 throw new IllegalStateException("Unexpected default trust managers:"
                         + Arrays.toString(trustManagers));
             }
-            return (X509TrustManager) trustManagers[0];
+            defaultX509TrustManager = (X509TrustManager) trustManagers[0];
+            return defaultX509TrustManager;
         } catch (GeneralSecurityException e) {
             throw new AssertionError(); // The system has no TLS. Just give up.
         }
@@ -355,4 +461,58 @@ public class HydraOkHttp3ClientHttpRequestFactory
         }
     }
 
+    /**
+     * Counts per host how many requests were made and how many of them needed a new connection
+     */
+    private static class ConnectionStatsListener extends okhttp3.EventListener {
+
+        private final Map<String, AtomicLong[]> perHost = new ConcurrentHashMap<>();
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            getCounters(call)[0].incrementAndGet();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            getCounters(call)[1].incrementAndGet();
+        }
+
+        private AtomicLong[] getCounters(Call call) {
+            return perHost.computeIfAbsent(call.request().url().host(), x -> new AtomicLong[]{new AtomicLong(), new AtomicLong()});
+        }
+    }
+
+    @Data
+    private static class ClientProfile {
+        private final String host;
+        private final boolean verifySsl;
+        private final ProxyType proxyType;
+        private final String proxyHost;
+        private final int proxyPort;
+        private final String proxyUsername;
+        private final String proxyPassword;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ConnectionStats {
+        private long cachedClients;
+        private int sharedPoolConnections;
+        private int sharedPoolIdleConnections;
+        private int indexerPools;
+        private List<HostConnectionStats> hosts;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class HostConnectionStats {
+        private String host;
+        private long requests;
+        private long newConnections;
+        private double reuseRate;
+    }
+
 }
@@ -7,6 +7,7 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Request.Builder;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 import okio.BufferedSink;
 import okio.Okio;
 import org.nzbhydra.logging.LoggingMarkers;
@@ -45,6 +46,18 @@ public class WebAccess {
     }
 
     public String callUrl(String url, Map<String, String> headers, int timeout) throws IOException {
+        return callUrl(url, headers, timeout, body -> {
+            String content = body.string();
+            logger.debug(LoggingMarkers.HTTP, "Read content with length {} from {}", content.length(), url);
+            return content;
+        });
+    }
+
+    /**
+     * Calls the URL and lets the given reader consume the response body while the connection is still open, e.g. to parse
+     * it from the stream without loading it into memory completely. The body is closed afterwards.
+     */
+    public <T, E extends Exception> T callUrl(String url, Map<String, String> headers, int timeout, ResponseBodyReader<T, E> reader) throws IOException, E {
         Builder builder = new Builder().url(url);
         for (Entry<String, String> entry : headers.entrySet()) {
             builder.addHeader(entry.getKey(), entry.getValue());
@@ -60,10 +73,8 @@ public class WebAccess {
                 logger.error(error);
                 throw new IOException(error);
             }
-            String body = response.body().string();
-            logger.debug(LoggingMarkers.HTTP, "Call to {} successful with content length {} and headers {}", url, body.length(), response.headers());
-            response.body().close();
-            return body;
+            logger.debug(LoggingMarkers.HTTP, "Call to {} successful with content length {} and headers {}", url, response.body().contentLength(), response.headers());
+            return reader.read(response.body());
         }
     }
 
@@ -97,4 +108,9 @@ public class WebAccess {
         }
     }
 
+    @FunctionalInterface
+    public interface ResponseBodyReader<T, E extends Exception> {
+        T read(ResponseBody body) throws IOException, E;
+    }
+
 }
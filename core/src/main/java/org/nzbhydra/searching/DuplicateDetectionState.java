@@ -0,0 +1,76 @@
+package org.nzbhydra.searching;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.nzbhydra.indexers.Indexer;
+import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Duplicate groups found so far for one search. Kept in the {@link SearchCacheEntry} so that when more results are
+ * loaded only the new ones need to be integrated into the existing groups. Only to be used by the
+ * {@link DuplicateDetector}.
+ */
+public class DuplicateDetectionState {
+
+    final Set<SearchResultItem> knownItems = Collections.newSetFromMap(new IdentityHashMap<>());
+    final Map<String, TitleGroup> titleGroups = new HashMap<>();
+    boolean initialized;
+    float duplicateAgeThreshold;
+    float duplicateSizeThreshold;
+    double sizeBlockWidth;
+    long ageBlockWidth;
+
+    public int getNumberOfKnownItems() {
+        return knownItems.size();
+    }
+
+    /**
+     * @return A rough estimate of the heap memory used for the groups and blocks, not counting the items themselves
+     */
+    public long estimateRetainedBytes() {
+        return 128L * knownItems.size();
+    }
+
+    /**
+     * All results with the same title. Each result belongs to exactly one bucket. Results which could be duplicates
+     * because of their size and age are in the same or neighboring blocks, so only those have to be compared.
+     */
+    static class TitleGroup {
+        final List<Bucket> buckets = new ArrayList<>();
+        final Map<BlockKey, List<Member>> blocks = new HashMap<>();
+    }
+
+    static class Bucket {
+        final int index;
+        final LinkedHashSet<SearchResultItem> items = new LinkedHashSet<>();
+        final Set<Indexer> indexers = new HashSet<>();
+
+        Bucket(int index) {
+            this.index = index;
+        }
+    }
+
+    @AllArgsConstructor
+    static class Member {
+        final SearchResultItem item;
+        final Bucket bucket;
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    static class BlockKey {
+        final long sizeBlock;
+        final long ageBlock;
+    }
+
+}
@@ -7,6 +7,10 @@ import com.google.common.collect.Multiset;
 import org.nzbhydra.config.ConfigProvider;
 import org.nzbhydra.indexers.Indexer;
 import org.nzbhydra.logging.LoggingMarkers;
+import org.nzbhydra.searching.DuplicateDetectionState.BlockKey;
+import org.nzbhydra.searching.DuplicateDetectionState.Bucket;
+import org.nzbhydra.searching.DuplicateDetectionState.Member;
+import org.nzbhydra.searching.DuplicateDetectionState.TitleGroup;
 import org.nzbhydra.searching.dtoseventsenums.DuplicateDetectionResult;
 import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
 import org.slf4j.Logger;
@@ -18,8 +22,7 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-
-import static com.google.common.collect.Lists.newArrayList;
+import java.util.stream.Stream;
 
 @Component
 public class DuplicateDetector {
@@ -29,55 +32,139 @@ public class DuplicateDetector {
     @Autowired
     protected ConfigProvider configProvider;
 
+    /**
+     * Results with more new items than this are integrated in parallel, one task per title
+     */
+    private static final int PARALLEL_THRESHOLD = 2000;
+
     public DuplicateDetectionResult detectDuplicates(List<SearchResultItem> results) {
+        return detectDuplicates(new DuplicateDetectionState(), results);
+    }
+
+    /**
+     * Integrates all results not yet known to the given state into its duplicate groups. Results already known are
+     * not compared again, so when called repeatedly with a growing list of results only the new ones cost time.
+     *
+     * @param state   The state of the previous detection for the same search
+     * @param results All results of the search, i.e. also the ones from previous calls
+     * @return The duplicate groups of all results
+     */
+    public DuplicateDetectionResult detectDuplicates(DuplicateDetectionState state, List<SearchResultItem> results) {
         Stopwatch stopwatch = Stopwatch.createStarted();
-        Map<String, List<SearchResultItem>> groupedByTitle = results.stream().collect(Collectors.groupingBy(x -> x.getTitle().replaceFirst("[ .\\-_]", "")));
-        Multiset<Indexer> countUniqueResultsPerIndexer = HashMultiset.create();
-        List<LinkedHashSet<SearchResultItem>> duplicateGroups = new ArrayList<>();
+        synchronized (state) {
+            if (!state.initialized) {
+                initialize(state);
+            }
+            List<SearchResultItem> newResults = results.stream().filter(state.knownItems::add).collect(Collectors.toList());
+            Map<String, List<SearchResultItem>> newResultsGroupedByTitle = newResults.stream().collect(Collectors.groupingBy(x -> x.getTitle().replaceFirst("[ .\\-_]", "")));
+            List<Map.Entry<TitleGroup, List<SearchResultItem>>> titleGroupsToUpdate = new ArrayList<>();
+            for (Map.Entry<String, List<SearchResultItem>> entry : newResultsGroupedByTitle.entrySet()) {
+                titleGroupsToUpdate.add(new AbstractMap.SimpleEntry<>(state.titleGroups.computeIfAbsent(entry.getKey(), x -> new TitleGroup()), entry.getValue()));
+            }
+
+            //In each list of searchResults with the same title we want to find the duplicates
+            Stream<Map.Entry<TitleGroup, List<SearchResultItem>>> stream = newResults.size() >= PARALLEL_THRESHOLD ? titleGroupsToUpdate.parallelStream() : titleGroupsToUpdate.stream();
+            int countDetectedDuplicates = stream.mapToInt(x -> integrateIntoTitleGroup(state, x.getKey(), x.getValue())).sum();
 
-        //In each list of searchResults with the same title we want to find the duplicates
+            DuplicateDetectionResult result = buildResult(state);
+            logger.debug(LoggingMarkers.PERFORMANCE, "Duplicate detection for {} new of {} search results took {}ms. Found {} duplicates", newResults.size(), results.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS), countDetectedDuplicates);
+            return result;
+        }
+    }
+
+    private void initialize(DuplicateDetectionState state) {
+        //Read once instead of for every comparison
+        state.duplicateAgeThreshold = configProvider.getBaseConfig().getSearching().getDuplicateAgeThreshold();
+        state.duplicateSizeThreshold = configProvider.getBaseConfig().getSearching().getDuplicateSizeThresholdInPercent();
+
+        //Two results are only compared if they're in the same or neighboring blocks. The blocks are sized so that results
+        //within the (maximum, i.e. doubled) thresholds can never be further apart
+        double maxSizeDifference = 2 * state.duplicateSizeThreshold / 100D;
+        if (maxSizeDifference > 0 && maxSizeDifference < 2) {
+            //Relative difference to the average below d means the ratio of the sizes is below (2 + d) / (2 - d)
+            state.sizeBlockWidth = Math.log((2 + maxSizeDifference) / (2 - maxSizeDifference)) * 1.001;
+        } else {
+            state.sizeBlockWidth = 0;
+        }
+        long maxHours = Math.max(0, (long) Math.floor(2 * state.duplicateAgeThreshold));
+        state.ageBlockWidth = (maxHours + 1) * 60 * 60;
+        state.initialized = true;
+    }
+
+    private int integrateIntoTitleGroup(DuplicateDetectionState state, TitleGroup titleGroup, List<SearchResultItem> newResults) {
         int countDetectedDuplicates = 0;
-        for (List<SearchResultItem> titleGroup : groupedByTitle.values()) {
-            titleGroup = titleGroup.stream().sorted(Comparator.comparing(SearchResultItem::getBestDate).reversed()).collect(Collectors.toList());
-            //So we start with a bucket with the first (later we have a list of buckets where all searchResults in a bucket are duplicates)
-            List<LinkedHashSet<SearchResultItem>> listOfBuckets = new ArrayList<>();
-            listOfBuckets.add(new LinkedHashSet<>(newArrayList(titleGroup.get(0))));
-            //And iterate over every other item in the list
-            for (int i = 1; i < titleGroup.size(); i++) {
-                SearchResultItem searchResultItem = titleGroup.get(i);
-                boolean foundBucket = false;
-                //Iterate over already existing buckets
-                for (LinkedHashSet<SearchResultItem> bucket : listOfBuckets) {
-                    if (bucket.stream().map(SearchResultItem::getIndexer).collect(Collectors.toList()).contains(searchResultItem.getIndexer())) {
-                        continue;
-                    }
-                    //And all searchResults in those buckets
-                    for (SearchResultItem other : bucket) {
-                        //Now we can check if the two searchResults are duplicates
-                        boolean same = testForSameness(searchResultItem, other);
-                        if (same) {
-                            //If they are the same we found a bucket for the result. We add it and continue
-                            foundBucket = true;
-                            bucket.add(searchResultItem);
-                            countDetectedDuplicates++;
-                            break;
+        List<SearchResultItem> sortedResults = newResults.stream().sorted(Comparator.comparing(SearchResultItem::getBestDate).reversed()).collect(Collectors.toList());
+        for (SearchResultItem searchResultItem : sortedResults) {
+            BlockKey blockKey = getBlockKey(state, searchResultItem);
+            //Find the first bucket with a duplicate from another indexer
+            Bucket foundBucket = null;
+            if (blockKey != null) {
+                for (long sizeBlock = blockKey.sizeBlock - 1; sizeBlock <= blockKey.sizeBlock + 1; sizeBlock++) {
+                    for (long ageBlock = blockKey.ageBlock - 1; ageBlock <= blockKey.ageBlock + 1; ageBlock++) {
+                        List<Member> members = titleGroup.blocks.get(new BlockKey(sizeBlock, ageBlock));
+                        if (members == null) {
+                            continue;
+                        }
+                        for (Member member : members) {
+                            if (foundBucket != null && member.bucket.index >= foundBucket.index) {
+                                continue;
+                            }
+                            if (member.bucket.indexers.contains(searchResultItem.getIndexer())) {
+                                continue;
+                            }
+                            if (testForSameness(state, searchResultItem, member.item)) {
+                                foundBucket = member.bucket;
+                            }
                         }
-                    }
-                    //If we already found a bucket for the result we can go on with the next
-                    if (foundBucket) {
-                        break;
                     }
                 }
+            }
+            if (foundBucket != null) {
+                countDetectedDuplicates++;
+            } else {
                 //If we didn't find a bucket for the result we start a new one
-                if (!foundBucket) {
-                    listOfBuckets.add(new LinkedHashSet<>(newArrayList(searchResultItem)));
-                }
+                foundBucket = new Bucket(titleGroup.buckets.size());
+                titleGroup.buckets.add(foundBucket);
+            }
+            foundBucket.items.add(searchResultItem);
+            foundBucket.indexers.add(searchResultItem.getIndexer());
+            if (blockKey != null) {
+                titleGroup.blocks.computeIfAbsent(blockKey, x -> new ArrayList<>()).add(new Member(searchResultItem, foundBucket));
+            }
+        }
+        return countDetectedDuplicates;
+    }
+
+    /**
+     * @return The block of the result or null if it can never be a duplicate of another result
+     */
+    private BlockKey getBlockKey(DuplicateDetectionState state, SearchResultItem item) {
+        if (item.getSize() == null || item.getBestDate() == null) {
+            return null;
+        }
+        long sizeBlock = 0;
+        if (state.sizeBlockWidth > 0) {
+            if (item.getSize() <= 0) {
+                return null;
             }
-            LinkedHashSet<SearchResultItem> lastBucket = Iterables.getLast(listOfBuckets);
+            sizeBlock = (long) Math.floor(Math.log(item.getSize()) / state.sizeBlockWidth);
+        }
+        long ageBlock = Math.floorDiv(item.getBestDate().getEpochSecond(), state.ageBlockWidth);
+        return new BlockKey(sizeBlock, ageBlock);
+    }
+
+    private DuplicateDetectionResult buildResult(DuplicateDetectionState state) {
+        Multiset<Indexer> countUniqueResultsPerIndexer = HashMultiset.create();
+        List<LinkedHashSet<SearchResultItem>> duplicateGroups = new ArrayList<>();
+        for (TitleGroup titleGroup : state.titleGroups.values()) {
+            LinkedHashSet<SearchResultItem> lastBucket = Iterables.getLast(titleGroup.buckets).items;
             if (lastBucket.size() == 1) {
                 countUniqueResultsPerIndexer.add(lastBucket.iterator().next().getIndexer());
             }
-            duplicateGroups.addAll(listOfBuckets);
+            for (Bucket bucket : titleGroup.buckets) {
+                //The buckets are changed by later detections using the same state
+                duplicateGroups.add(new LinkedHashSet<>(bucket.items));
+            }
         }
         int duplicateIdentifier = 0;
         for (LinkedHashSet<SearchResultItem> group : duplicateGroups) {
@@ -86,13 +173,10 @@ public class DuplicateDetector {
             }
             duplicateIdentifier++;
         }
-
-        logger.debug(LoggingMarkers.PERFORMANCE, "Duplicate detection for {} search results took {}ms. Found {} duplicates", results.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS), countDetectedDuplicates);
-
         return new DuplicateDetectionResult(duplicateGroups, countUniqueResultsPerIndexer);
     }
 
-    private boolean testForSameness(SearchResultItem result1, SearchResultItem result2) {
+    private boolean testForSameness(DuplicateDetectionState state, SearchResultItem result1, SearchResultItem result2) {
         logger.debug(LoggingMarkers.DUPLICATES, "Comparing {} and {}", result1, result2);
         if (result1.getIndexer().equals(result2.getIndexer())) {
             logger.debug(LoggingMarkers.DUPLICATES, "Same indexer");
@@ -104,8 +188,8 @@ public class DuplicateDetector {
         boolean posterKnown = result1.getPoster().isPresent() && result2.getPoster().isPresent();
         boolean samePoster = posterKnown && Objects.equals(result1.getPoster().get(), result2.getPoster().get());
 
-        float duplicateAgeThreshold = configProvider.getBaseConfig().getSearching().getDuplicateAgeThreshold();
-        float duplicateSizeThreshold = configProvider.getBaseConfig().getSearching().getDuplicateSizeThresholdInPercent();
+        float duplicateAgeThreshold = state.duplicateAgeThreshold;
+        float duplicateSizeThreshold = state.duplicateSizeThreshold;
 
         if (groupKnown && !sameGroup) {
             logger.debug(LoggingMarkers.DUPLICATES, "Not the same group: {} and {}", result1.getGroup().orElse(null), result2.getGroup().orElse(null));
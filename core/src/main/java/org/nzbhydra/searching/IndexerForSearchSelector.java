@@ -2,7 +2,6 @@ package org.nzbhydra.searching;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Stopwatch;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,9 +11,8 @@ import org.nzbhydra.config.ConfigProvider;
 import org.nzbhydra.config.IndexerConfig;
 import org.nzbhydra.config.SearchModuleType;
 import org.nzbhydra.config.SearchSourceRestriction;
-import org.nzbhydra.downloading.FileDownloadEntity;
-import org.nzbhydra.downloading.FileDownloadRepository;
 import org.nzbhydra.indexers.Indexer;
+import org.nzbhydra.indexers.IndexerLimitCounter;
 import org.nzbhydra.logging.LoggingMarkers;
 import org.nzbhydra.mediainfo.InfoProvider;
 import org.nzbhydra.searching.dtoseventsenums.DownloadType;
@@ -26,15 +24,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.annotation.RequestScope;
 
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
-import javax.persistence.Query;
-import java.sql.Timestamp;
 import java.time.*;
 import java.time.format.TextStyle;
 import java.time.temporal.ChronoField;
@@ -58,13 +50,11 @@ public class IndexerForSearchSelector {
     @Autowired
     private SearchModuleProvider searchModuleProvider;
     @Autowired
-    private FileDownloadRepository nzbDownloadRepository;
+    private IndexerLimitCounter indexerLimitCounter;
     @Autowired
     private ConfigProvider configProvider;
     @Autowired
     private ApplicationEventPublisher eventPublisher;
-    @PersistenceContext
-    private EntityManager entityManager;
 
     protected Clock clock = Clock.systemDefaultZone();
 
@@ -240,26 +230,20 @@ public class IndexerForSearchSelector {
             comparisonTime = now.minus(1, ChronoUnit.DAYS);
         }
         if (indexerConfig.getHitLimit().isPresent()) {
-            Query query = entityManager.createNativeQuery("SELECT x.TIME FROM INDEXERAPIACCESS_SHORT x WHERE x.INDEXER_ID = (:indexerId) ORDER BY TIME DESC LIMIT (:hitLimit)");
-            query.setParameter("indexerId", indexer.getIndexerEntity().getId());
-            query.setParameter("hitLimit", indexerConfig.getHitLimit().get());
-            List resultList = query.getResultList();
-
-            if (resultList.size() == indexerConfig.getHitLimit().get()) { //Found as many as we want, so now we must check if they're all in the time window
-                Instant earliestAccess = ((Timestamp) Iterables.getLast(resultList)).toInstant();
-                if (earliestAccess.isAfter(comparisonTime.toInstant(ZoneOffset.UTC))) {
-                    LocalDateTime nextPossibleHit = calculateNextPossibleHit(indexerConfig, earliestAccess);
-
-                    String message = String.format("Not using %s because all %d allowed API hits were already made. The next API hit should be possible at %s", indexerConfig.getName(), indexerConfig.getHitLimit().get(), nextPossibleHit);
-                    logger.debug(LoggingMarkers.PERFORMANCE, "Detection of API limit reached took {}ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
-                    return handleIndexerNotSelected(indexer, message, "API hit limit reached");
-                }
+            Optional<Instant> earliestAccess = indexerLimitCounter.getNthNewestApiAccess(indexer.getIndexerEntity().getId(), indexerConfig.getHitLimit().get());
+            //If as many as allowed were found we must check if they're all in the time window
+            if (earliestAccess.isPresent() && earliestAccess.get().isAfter(comparisonTime.toInstant(ZoneOffset.UTC))) {
+                LocalDateTime nextPossibleHit = calculateNextPossibleHit(indexerConfig, earliestAccess.get());
+
+                String message = String.format("Not using %s because all %d allowed API hits were already made. The next API hit should be possible at %s", indexerConfig.getName(), indexerConfig.getHitLimit().get(), nextPossibleHit);
+                logger.debug(LoggingMarkers.PERFORMANCE, "Detection of API limit reached took {}ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+                return handleIndexerNotSelected(indexer, message, "API hit limit reached");
             }
         }
         if (indexerConfig.getDownloadLimit().isPresent()) {
-            Page<FileDownloadEntity> page = nzbDownloadRepository.findBySearchResultIndexerOrderByTimeDesc(indexer.getIndexerEntity(), new PageRequest(0, indexerConfig.getDownloadLimit().get()));
-            if (page.getContent().size() == indexerConfig.getDownloadLimit().get() && Iterables.getLast(page.getContent()).getTime().isAfter(comparisonTime.toInstant(ZoneOffset.UTC))) {
-                LocalDateTime nextPossibleHit = calculateNextPossibleHit(indexerConfig, page.getContent().get(page.getContent().size() - 1).getTime());
+            Optional<Instant> earliestDownload = indexerLimitCounter.getNthNewestDownload(indexer.getIndexerEntity().getId(), indexerConfig.getDownloadLimit().get());
+            if (earliestDownload.isPresent() && earliestDownload.get().isAfter(comparisonTime.toInstant(ZoneOffset.UTC))) {
+                LocalDateTime nextPossibleHit = calculateNextPossibleHit(indexerConfig, earliestDownload.get());
 
                 String message = String.format("Not using %s because all %d allowed download were already made. The next download should be possible at %s", indexerConfig.getName(), indexerConfig.getDownloadLimit().get(), nextPossibleHit);
                 logger.debug(LoggingMarkers.PERFORMANCE, "Detection of download limit reached took {}ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
@@ -0,0 +1,326 @@
+package org.nzbhydra.searching;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.nzbhydra.ShutdownEvent;
+import org.nzbhydra.config.ConfigChangedEvent;
+import org.nzbhydra.config.ConfigProvider;
+import org.nzbhydra.config.SearchingConfig;
+import org.nzbhydra.indexers.Indexer;
+import org.nzbhydra.logging.MdcThreadPoolExecutor;
+import org.nzbhydra.searching.dtoseventsenums.IndexerSearchFinishedEvent;
+import org.nzbhydra.searching.dtoseventsenums.IndexerSearchResult;
+import org.nzbhydra.searching.dtoseventsenums.SearchMessageEvent;
+import org.nzbhydra.searching.searchrequests.SearchRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Application wide executor for indexer searches. All searches share one bounded thread pool so that overlapping searches
+ * don't create new threads for every call. Additionally every indexer has a bulkhead which limits the number of
+ * searches running against it at the same time.
+ */
+@Component
+public class IndexerSearchExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexerSearchExecutor.class);
+
+    private static final int DEFAULT_THREADS = 30;
+    private static final int DEFAULT_MAX_CONCURRENT_SEARCHES_PER_INDEXER = 5;
+    private static final int DEFAULT_BULKHEAD_WAIT_SECONDS = 30;
+    private static final int QUEUE_CAPACITY = 1000;
+
+    @Autowired
+    private ConfigProvider configProvider;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final MdcThreadPoolExecutor executor = MdcThreadPoolExecutor.newWithInheritedMdc(DEFAULT_THREADS, DEFAULT_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(QUEUE_CAPACITY));
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor timeoutScheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder().setNameFormat("bulkhead-timeout").setDaemon(true).build());
+    private final AtomicLong rejectedSearches = new AtomicLong();
+    private volatile int defaultMaxConcurrentSearchesPerIndexer = DEFAULT_MAX_CONCURRENT_SEARCHES_PER_INDEXER;
+    private volatile int bulkheadWaitSeconds = DEFAULT_BULKHEAD_WAIT_SECONDS;
+
+    public IndexerSearchExecutor() {
+        executor.allowCoreThreadTimeOut(true);
+        timeoutScheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @PostConstruct
+    public void init() {
+        configure(configProvider.getBaseConfig().getSearching());
+    }
+
+    @EventListener
+    public void handleNewConfig(ConfigChangedEvent configChangedEvent) {
+        configure(configChangedEvent.getNewConfig().getSearching());
+    }
+
+    @EventListener
+    public void onShutdown(ShutdownEvent event) {
+        if (executor.getActiveCount() > 0) {
+            logger.debug("Waiting up to 10 seconds for {} indexer searches to finish", executor.getActiveCount());
+        }
+        timeoutScheduler.shutdownNow();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Waited too long for termination of indexer searches, interrupting");
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    protected void configure(SearchingConfig searchingConfig) {
+        int threads = Math.max(1, searchingConfig.getMaxConcurrentIndexerSearches());
+        if (threads != executor.getMaximumPoolSize()) {
+            logger.debug("Setting number of threads for indexer searches to {}", threads);
+            //Order matters: the core pool size may never be larger than the maximum pool size
+            if (threads > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(threads);
+                executor.setCorePoolSize(threads);
+            } else {
+                executor.setCorePoolSize(threads);
+                executor.setMaximumPoolSize(threads);
+            }
+        }
+        defaultMaxConcurrentSearchesPerIndexer = Math.max(1, searchingConfig.getMaxConcurrentSearchesPerIndexer());
+        if (searchingConfig.getTimeout() != null) {
+            bulkheadWaitSeconds = searchingConfig.getTimeout();
+        }
+    }
+
+    /**
+     * Submits the search of the given indexer to the shared pool. The returned future never fails because of a full
+     * queue or bulkhead - in that case it will contain an unsuccessful search result for the indexer.
+     */
+    public Future<IndexerSearchResult> submit(Indexer indexer, SearchRequest searchRequest, Callable<IndexerSearchResult> callable) {
+        return submitToBulkhead(indexer, callable,
+                (future, bulkhead) -> {
+                    logger.warn("Not searching {} because {} searches are already running for it", indexer.getName(), bulkhead.getMaxConcurrent());
+                    future.complete(handleRejection(indexer, searchRequest, "Too many searches running for indexer " + indexer.getName()));
+                },
+                future -> {
+                    logger.warn("Unable to search {} because too many indexer searches are queued", indexer.getName());
+                    future.complete(handleRejection(indexer, searchRequest, "Hydra is busy with too many searches"));
+                });
+    }
+
+    /**
+     * Submits another call to the given indexer (e.g. an NZB download) to the shared pool. It's limited by the same
+     * bulkhead as the indexer's searches. Unlike searches the returned future fails with a {@link RejectedExecutionException}
+     * if the queue or the bulkhead is full.
+     */
+    public <T> CompletableFuture<T> submitIndexerCall(Indexer indexer, Callable<T> callable) {
+        return submitToBulkhead(indexer, callable,
+                (future, bulkhead) -> future.completeExceptionally(new RejectedExecutionException("Too many calls running for indexer " + indexer.getName())),
+                future -> {
+                    logger.warn("Unable to call {} because too many indexer calls are queued", indexer.getName());
+                    future.completeExceptionally(new RejectedExecutionException("Too many indexer calls queued"));
+                });
+    }
+
+    /**
+     * Calls waiting for their indexer's bulkhead don't occupy a thread of the pool. They're queued in the bulkhead and
+     * submitted to the pool by the call releasing the permit so that a slow indexer can't block the calls of other ones.
+     */
+    private <T> CompletableFuture<T> submitToBulkhead(Indexer indexer, Callable<T> callable, BiConsumer<CompletableFuture<T>, Bulkhead> onBulkheadFull, Consumer<CompletableFuture<T>> onQueueFull) {
+        BulkheadCall<T> call = new BulkheadCall<>(getBulkhead(indexer), callable, MDC.getCopyOfContextMap(), onBulkheadFull, onQueueFull);
+        Bulkhead bulkhead = call.getBulkhead();
+        boolean permitAcquired;
+        synchronized (bulkhead) {
+            permitAcquired = bulkhead.getRunning() < bulkhead.getMaxConcurrent();
+            if (permitAcquired) {
+                bulkhead.setRunning(bulkhead.getRunning() + 1);
+            } else if (bulkheadWaitSeconds > 0) {
+                bulkhead.getWaiting().add(call);
+                call.setTimeout(timeoutScheduler.schedule(() -> expire(call), bulkheadWaitSeconds, TimeUnit.SECONDS));
+                return call.getFuture();
+            }
+        }
+        if (permitAcquired) {
+            start(call);
+        } else {
+            //Not done while holding the bulkhead's monitor because rejected searches publish events
+            call.rejectBecauseBulkheadIsFull();
+        }
+        return call.getFuture();
+    }
+
+    /**
+     * Submits a call which holds a permit of its bulkhead to the pool
+     */
+    private void start(BulkheadCall<?> call) {
+        try {
+            Future<?> running = executor.submit(MdcThreadPoolExecutor.wrap(call::run, call.getMdcContext()));
+            call.getFuture().whenComplete((result, throwable) -> {
+                if (call.getFuture().isCancelled()) {
+                    running.cancel(true);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedSearches.incrementAndGet();
+            call.rejectBecauseQueueIsFull();
+            release(call.getBulkhead());
+        }
+    }
+
+    /**
+     * Passes the permit on to the next waiting call or returns it to the bulkhead
+     */
+    private void release(Bulkhead bulkhead) {
+        BulkheadCall<?> next;
+        synchronized (bulkhead) {
+            do {
+                next = bulkhead.getWaiting().poll();
+            } while (next != null && next.getFuture().isDone());
+            if (next == null) {
+                bulkhead.setRunning(bulkhead.getRunning() - 1);
+                return;
+            }
+        }
+        next.getTimeout().cancel(false);
+        start(next);
+    }
+
+    private void expire(BulkheadCall<?> call) {
+        synchronized (call.getBulkhead()) {
+            if (!call.getBulkhead().getWaiting().remove(call)) {
+                //Already started
+                return;
+            }
+        }
+        call.rejectBecauseBulkheadIsFull();
+    }
+
+    private IndexerSearchResult handleRejection(Indexer indexer, SearchRequest searchRequest, String message) {
+        //The search is not counted as an indexer failure but the UI needs to know it's done
+        eventPublisher.publishEvent(new SearchMessageEvent(searchRequest, message));
+        eventPublisher.publishEvent(new IndexerSearchFinishedEvent(searchRequest));
+        IndexerSearchResult indexerSearchResult = new IndexerSearchResult(indexer, message);
+        indexerSearchResult.setHasMoreResults(false);
+        return indexerSearchResult;
+    }
+
+    private Bulkhead getBulkhead(Indexer indexer) {
+        int maxConcurrent = Math.max(1, indexer.getConfig().getMaxConcurrentSearches().orElse(defaultMaxConcurrentSearchesPerIndexer));
+        //Replace the bulkhead when the limit was changed. Running searches release their permit to the old one
+        return bulkheads.compute(indexer.getName(), (name, existing) -> existing != null && existing.getMaxConcurrent() == maxConcurrent ? existing : new Bulkhead(maxConcurrent, existing == null ? new AtomicLong() : existing.getRejected()));
+    }
+
+    public ExecutorStats getStats() {
+        List<BulkheadStats> bulkheadStats = bulkheads.entrySet().stream()
+                .map(x -> {
+                    synchronized (x.getValue()) {
+                        return new BulkheadStats(x.getKey(), x.getValue().getMaxConcurrent(), x.getValue().getRunning(), x.getValue().getWaiting().size(), x.getValue().getRejected().get());
+                    }
+                })
+                .sorted(Comparator.comparing(x -> x.getIndexer().toLowerCase()))
+                .collect(Collectors.toList());
+        return new ExecutorStats(executor.getMaximumPoolSize(), executor.getPoolSize(), executor.getActiveCount(), executor.getQueue().size(), executor.getCompletedTaskCount(), rejectedSearches.get(), bulkheadStats);
+    }
+
+    @Getter
+    @Setter
+    @RequiredArgsConstructor
+    private static class Bulkhead {
+        private final int maxConcurrent;
+        private final AtomicLong rejected;
+        //Guarded by the bulkhead's monitor
+        private int running;
+        private final Queue<BulkheadCall<?>> waiting = new ArrayDeque<>();
+    }
+
+    @Getter
+    @Setter
+    @RequiredArgsConstructor
+    private class BulkheadCall<T> {
+        private final Bulkhead bulkhead;
+        private final Callable<T> callable;
+        private final Map<String, String> mdcContext;
+        private final BiConsumer<CompletableFuture<T>, Bulkhead> onBulkheadFull;
+        private final Consumer<CompletableFuture<T>> onQueueFull;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private ScheduledFuture<?> timeout;
+
+        private void run() {
+            T result = null;
+            Exception error = null;
+            try {
+                if (!future.isDone()) {
+                    result = callable.call();
+                }
+            } catch (Exception e) {
+                error = e;
+            } finally {
+                //Released before completing the future so that the bulkhead is free when the caller gets the result
+                release(bulkhead);
+            }
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+
+        private void rejectBecauseBulkheadIsFull() {
+            bulkhead.getRejected().incrementAndGet();
+            onBulkheadFull.accept(future, bulkhead);
+        }
+
+        private void rejectBecauseQueueIsFull() {
+            onQueueFull.accept(future);
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ExecutorStats {
+        private int maxThreads;
+        private int threads;
+        private int activeSearches;
+        private int queuedSearches;
+        private long completedSearches;
+        private long rejectedSearches;
+        private List<BulkheadStats> bulkheads;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class BulkheadStats {
+        private String indexer;
+        private int maxConcurrent;
+        private int running;
+        private int waiting;
+        private long rejected;
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.nzbhydra.searching;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.primitives.Ints;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.nzbhydra.searching.searchrequests.SearchRequestKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the results of searches so that further pages can be loaded without calling the indexers again. The cache is
+ * bounded by the estimated memory retained by its entries instead of their number because a single "load all" search
+ * may easily be a thousand times bigger than a regular one.
+ */
+public class SearchCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchCache.class);
+
+    private volatile Cache<SearchRequestKey, SearchCacheEntry> cache;
+    private volatile long maxBytes;
+    private final AtomicLong sizeEvictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public SearchCache(long maxBytes) {
+        cache = buildCache(maxBytes);
+        this.maxBytes = maxBytes;
+    }
+
+    public SearchCacheEntry get(SearchRequestKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Adds or replaces the entry. Must be called again whenever an entry was changed so that its weight is updated
+     */
+    public void put(SearchRequestKey key, SearchCacheEntry entry) {
+        cache.put(key, entry);
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes == this.maxBytes) {
+            return;
+        }
+        logger.debug("Setting size of search cache to {} bytes", maxBytes);
+        Cache<SearchRequestKey, SearchCacheEntry> oldCache = cache;
+        Cache<SearchRequestKey, SearchCacheEntry> newCache = buildCache(maxBytes);
+        //Publish first so that entries put while copying are not lost. Those are newer and must not be overwritten
+        cache = newCache;
+        this.maxBytes = maxBytes;
+        for (Map.Entry<SearchRequestKey, SearchCacheEntry> entry : oldCache.asMap().entrySet()) {
+            newCache.asMap().putIfAbsent(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public SearchCacheStats getStats() {
+        CacheStats stats = cache.stats();
+        long weight = 0;
+        for (SearchCacheEntry entry : cache.asMap().values()) {
+            weight += entry.estimateRetainedBytes();
+        }
+        return new SearchCacheStats(cache.size(), weight, maxBytes, stats.hitCount(), stats.missCount(), sizeEvictions.get(), expirations.get());
+    }
+
+    private Cache<SearchRequestKey, SearchCacheEntry> buildCache(long maxBytes) {
+        return CacheBuilder.newBuilder()
+                .concurrencyLevel(1) //Otherwise the weight is split between segments and big entries would be evicted right away
+                .maximumWeight(maxBytes)
+                .weigher((SearchRequestKey key, SearchCacheEntry value) -> Ints.saturatedCast(value.estimateRetainedBytes()))
+                .expireAfterAccess(5, TimeUnit.MINUTES)
+                .recordStats()
+                .removalListener(notification -> {
+                    if (notification.getCause() == RemovalCause.SIZE) {
+                        sizeEvictions.incrementAndGet();
+                        logger.debug("Removing search cache entry {} because the cache is full", notification.getValue().getSearchRequest());
+                    } else if (notification.getCause() == RemovalCause.EXPIRED) {
+                        expirations.incrementAndGet();
+                        logger.debug("Removing expired search cache entry {}", notification.getValue().getSearchRequest());
+                    }
+                })
+                .build();
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class SearchCacheStats {
+        private long entries;
+        private long estimatedBytes;
+        private long maxBytes;
+        private long hits;
+        private long misses;
+        private long sizeEvictions;
+        private long expirations;
+    }
+
+}
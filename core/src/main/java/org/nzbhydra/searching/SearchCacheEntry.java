@@ -15,10 +15,7 @@ import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
 import org.nzbhydra.searching.searchrequests.SearchRequest;
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 @Data
 public class SearchCacheEntry {
@@ -32,6 +29,7 @@ public class SearchCacheEntry {
     private SearchEntity searchEntity;
     private Multiset<String> reasonsForRejection = HashMultiset.create();
     private Integer numberOfAvailableResults = null;
+    private DuplicateDetectionState duplicateDetectionState = new DuplicateDetectionState();
 
     public SearchCacheEntry(SearchRequest searchRequest, IndexerForSearchSelection pickingResult, SearchEntity searchEntity) {
         this.searchRequest = searchRequest;
@@ -52,6 +50,20 @@ public class SearchCacheEntry {
         return numberOfAvailableResults;
     }
 
+    /**
+     * @return A rough estimate of the heap memory retained by this entry, dominated by the search result items
+     */
+    public long estimateRetainedBytes() {
+        Set<SearchResultItem> items = Collections.newSetFromMap(new IdentityHashMap<>());
+        indexerSearchResultsByIndexer.values().forEach(x -> x.forEach(y -> items.addAll(y.getSearchResultItems())));
+        items.addAll(searchResultItems);
+        long bytes = 1024 + duplicateDetectionState.estimateRetainedBytes(); //The entry itself, the search request, entities, etc.
+        for (SearchResultItem item : items) {
+            bytes += item.estimateRetainedBytes();
+        }
+        return bytes;
+    }
+
     public int getNumberOfFoundResults() {
         return indexerSearchResultsByIndexer.values().stream().mapToInt(x -> x.stream().mapToInt(y -> y.getSearchResultItems().size()).sum()).sum();
     }
@@ -22,6 +22,7 @@ public class SearchResponse {
     private int numberOfProcessedResults;
     private int offset;
     private int limit;
+    private SearchTimings timings;
 
 
 }
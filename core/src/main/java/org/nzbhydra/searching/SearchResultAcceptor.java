@@ -9,16 +9,22 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.nzbhydra.config.BaseConfig;
+import org.nzbhydra.config.Category;
+import org.nzbhydra.config.ConfigChangedEvent;
 import org.nzbhydra.config.ConfigProvider;
 import org.nzbhydra.config.IndexerConfig;
 import org.nzbhydra.config.SearchSourceRestriction;
+import org.nzbhydra.config.SearchingConfig;
 import org.nzbhydra.logging.LoggingMarkers;
+import org.nzbhydra.metrics.HydraMetrics;
+import org.nzbhydra.searching.WordMatcher.Title;
 import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
 import org.nzbhydra.searching.searchrequests.SearchRequest;
 import org.nzbhydra.searching.searchrequests.SearchRequest.SearchSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import javax.validation.ConstraintViolation;
@@ -27,7 +33,6 @@ import javax.validation.Validator;
 import javax.validation.ValidatorFactory;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -36,20 +41,31 @@ public class SearchResultAcceptor {
 
     private static final Logger logger = LoggerFactory.getLogger(SearchResultAcceptor.class);
 
-    private static final Pattern TITLE_PATTERN = Pattern.compile("(\\w[\\w']*\\w|\\w)");
-
-    private Map<String, List<String>> titleWordCache = new ConcurrentHashMap<>();
-
     private ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
     private Validator validator = factory.getValidator();
 
+    //Compiled from the config on first use and dropped when it changes
+    private volatile CompiledRules globalRules;
+    private final Map<String, CompiledRules> categoryRules = new ConcurrentHashMap<>();
+    private final Map<String, Pattern> patternCache = new ConcurrentHashMap<>();
 
     @Autowired
-    private ConfigProvider configProvider;
+    protected ConfigProvider configProvider;
+
+    @EventListener
+    public void handleNewConfig(ConfigChangedEvent configChangedEvent) {
+        globalRules = null;
+        categoryRules.clear();
+        patternCache.clear();
+    }
 
     public AcceptorResult acceptResults(List<SearchResultItem> items, SearchRequest searchRequest, IndexerConfig indexerConfig) {
         BaseConfig baseConfig = configProvider.getBaseConfig();
-        titleWordCache = new HashMap<>();
+        CompiledRules globalRules = getGlobalRules(baseConfig.getSearching());
+        WordMatcher queryForbiddenWords = WordMatcher.compile(searchRequest.getInternalData().getForbiddenWords());
+        WordMatcher queryRequiredWords = WordMatcher.compile(searchRequest.getInternalData().getRequiredWords());
+        boolean forbiddenWordsAsSubstrings = isMatchForbiddenWordsAsSubstrings(indexerConfig);
+        boolean applyGlobalRestrictions = appliesTo(baseConfig.getSearching().getApplyRestrictions(), searchRequest);
         List<SearchResultItem> acceptedResults = new ArrayList<>();
         Multiset<String> reasonsForRejection = HashMultiset.create();
         HashSet<SearchResultItem> itemsWithoutActualDuplicates = new HashSet<>(items);
@@ -84,41 +100,25 @@ public class SearchResultAcceptor {
                 continue;
             }
 
+            Title title = new Title(item.getTitle());
+
             //Forbidden words from query
-            if (!checkForForbiddenWords(indexerConfig, reasonsForRejection, searchRequest.getInternalData().getForbiddenWords(), item)) {
+            if (!checkForForbiddenWords(forbiddenWordsAsSubstrings, reasonsForRejection, queryForbiddenWords, item, title)) {
                 continue;
             }
 
-            if (!checkRequiredWords(reasonsForRejection, searchRequest.getInternalData().getRequiredWords(), item)) {
+            if (!checkRequiredWords(reasonsForRejection, queryRequiredWords, item, title)) {
                 continue;
             }
 
             //Globally configured
-            boolean applyWordAndRegexRestrictions = baseConfig.getSearching().getApplyRestrictions() == SearchSourceRestriction.BOTH || Objects.equals(searchRequest.getSource().name(), baseConfig.getSearching().getApplyRestrictions().name());
-            if (applyWordAndRegexRestrictions) {
-                if (!checkRegexes(item, reasonsForRejection, baseConfig.getSearching().getRequiredRegex().orElse(null), baseConfig.getSearching().getForbiddenRegex().orElse(null))) {
-                    continue;
-                }
-                if (!checkRequiredWords(reasonsForRejection, baseConfig.getSearching().getRequiredWords(), item)) {
-                    continue;
-                }
-                if (!checkForForbiddenWords(indexerConfig, reasonsForRejection, baseConfig.getSearching().getForbiddenWords(), item)) {
-                    continue;
-                }
+            if (applyGlobalRestrictions && !checkRules(globalRules, forbiddenWordsAsSubstrings, reasonsForRejection, item, title)) {
+                continue;
             }
 
             //Per category
-            applyWordAndRegexRestrictions = item.getCategory().getApplyRestrictionsType() == SearchSourceRestriction.BOTH || Objects.equals(searchRequest.getSource().name(), item.getCategory().getApplyRestrictionsType().name());
-            if (applyWordAndRegexRestrictions) {
-                if (!checkRegexes(item, reasonsForRejection, item.getCategory().getRequiredRegex().orElse(null), item.getCategory().getForbiddenRegex().orElse(null))) {
-                    continue;
-                }
-                if (!checkRequiredWords(reasonsForRejection, item.getCategory().getRequiredWords(), item)) {
-                    continue;
-                }
-                if (!checkForForbiddenWords(indexerConfig, reasonsForRejection, item.getCategory().getForbiddenWords(), item)) {
-                    continue;
-                }
+            if (appliesTo(item.getCategory().getApplyRestrictionsType(), searchRequest) && !checkRules(getCategoryRules(item.getCategory()), forbiddenWordsAsSubstrings, reasonsForRejection, item, title)) {
+                continue;
             }
 
             acceptedResults.add(item);
@@ -130,14 +130,60 @@ public class SearchResultAcceptor {
             }
         }
 
+        HydraMetrics.countRejectedResults(reasonsForRejection);
+
         return new AcceptorResult(acceptedResults, reasonsForRejection);
     }
 
+    private CompiledRules getGlobalRules(SearchingConfig searchingConfig) {
+        CompiledRules rules = globalRules;
+        if (rules == null) {
+            rules = new CompiledRules(
+                    getPattern(searchingConfig.getRequiredRegex().orElse(null)),
+                    getPattern(searchingConfig.getForbiddenRegex().orElse(null)),
+                    WordMatcher.compile(searchingConfig.getRequiredWords()),
+                    WordMatcher.compile(searchingConfig.getForbiddenWords()));
+            globalRules = rules;
+        }
+        return rules;
+    }
+
+    private CompiledRules getCategoryRules(Category category) {
+        return categoryRules.computeIfAbsent(category.getName(), x -> new CompiledRules(
+                getPattern(category.getRequiredRegex().orElse(null)),
+                getPattern(category.getForbiddenRegex().orElse(null)),
+                WordMatcher.compile(category.getRequiredWords()),
+                WordMatcher.compile(category.getForbiddenWords())));
+    }
+
+    private Pattern getPattern(String regex) {
+        if (Strings.isNullOrEmpty(regex)) {
+            return null;
+        }
+        return patternCache.computeIfAbsent(regex, x -> Pattern.compile(x, Pattern.CASE_INSENSITIVE | Pattern.DOTALL));
+    }
+
+    private boolean appliesTo(SearchSourceRestriction restriction, SearchRequest searchRequest) {
+        return restriction == SearchSourceRestriction.BOTH || Objects.equals(searchRequest.getSource().name(), restriction.name());
+    }
+
+    private boolean isMatchForbiddenWordsAsSubstrings(IndexerConfig indexerConfig) {
+        //nzbgeek shortens titles so forbidden words are not necessarily complete title words
+        return indexerConfig.getHost().toLowerCase().contains("nzbgeek");
+    }
+
+    private boolean checkRules(CompiledRules rules, boolean forbiddenWordsAsSubstrings, Multiset<String> reasonsForRejection, SearchResultItem item, Title title) {
+        return checkRegexes(item, reasonsForRejection, rules.getRequiredRegex(), rules.getForbiddenRegex())
+                && checkRequiredWords(reasonsForRejection, rules.getRequiredWords(), item, title)
+                && checkForForbiddenWords(forbiddenWordsAsSubstrings, reasonsForRejection, rules.getForbiddenWords(), item, title);
+    }
+
     protected boolean checkForNeededAttributesSuccessfullyMapped(Multiset<String> reasonsForRejection, SearchResultItem item) {
         boolean accepted = true;
-        Set<ConstraintViolation<SearchResultItem>> constraintViolations = validator.validate(item);
-        if (!constraintViolations.isEmpty()) {
-
+        //Checking the @NotNull fields directly is much cheaper than a full validation which is only run to create the error message
+        boolean allMapped = item.getIndexer() != null && item.getIndexerGuid() != null && item.getIndexerScore() != null && item.getLink() != null && item.getTitle() != null;
+        if (!allMapped) {
+            Set<ConstraintViolation<SearchResultItem>> constraintViolations = validator.validate(item);
             Set<String> messages = new HashSet<>(constraintViolations.size());
             messages.addAll(constraintViolations.stream()
                     .map(constraintViolation -> String.format("%s value '%s' %s", constraintViolation.getPropertyPath(),
@@ -244,16 +290,18 @@ public class SearchResultAcceptor {
     }
 
     protected boolean checkRegexes(SearchResultItem item, Multiset<String> reasonsForRejection, String requiredRegex, String forbiddenRegex) {
-        if (!Strings.isNullOrEmpty(requiredRegex)) {
-            Pattern requiredPattern = Pattern.compile(requiredRegex, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+        return checkRegexes(item, reasonsForRejection, getPattern(requiredRegex), getPattern(forbiddenRegex));
+    }
+
+    private boolean checkRegexes(SearchResultItem item, Multiset<String> reasonsForRejection, Pattern requiredPattern, Pattern forbiddenPattern) {
+        if (requiredPattern != null) {
             if (!requiredPattern.matcher(item.getTitle()).find()) {
                 logger.debug(LoggingMarkers.RESULT_ACCEPTOR, "Did not find required regex in {}", item.getTitle());
                 reasonsForRejection.add("Required regex doesn't match");
                 return false;
             }
         }
-        if (!Strings.isNullOrEmpty(forbiddenRegex)) {
-            Pattern forbiddenPattern = Pattern.compile(forbiddenRegex, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+        if (forbiddenPattern != null) {
             if (forbiddenPattern.matcher(item.getTitle()).find()) {
                 logger.debug(LoggingMarkers.RESULT_ACCEPTOR, "Found forbidden regex in {}", item.getTitle());
                 reasonsForRejection.add("Forbidden regex matches");
@@ -265,25 +313,14 @@ public class SearchResultAcceptor {
     }
 
     protected boolean checkRequiredWords(Multiset<String> reasonsForRejection, List<String> requiredWords, SearchResultItem item) {
+        return checkRequiredWords(reasonsForRejection, WordMatcher.compile(requiredWords), item, new Title(item.getTitle()));
+    }
+
+    private boolean checkRequiredWords(Multiset<String> reasonsForRejection, WordMatcher requiredWords, SearchResultItem item, Title title) {
         if (!requiredWords.isEmpty()) {
-            List<String> titleWords = getTitleWords(item);
-            boolean allPresent = true;
-            for (String requiredWord : requiredWords) {
-                if (requiredWord.contains(".") || requiredWord.contains("-")) {
-                    if (!item.getTitle().toLowerCase().contains(requiredWord.toLowerCase())) {
-                        logger.debug(LoggingMarkers.RESULT_ACCEPTOR, "Did not found required word {} in the title {}", requiredWord, item.getTitle());
-                        allPresent = false;
-                        break;
-                    }
-                } else {
-                    if (!titleWords.contains(requiredWord.toLowerCase())) { //Words must match
-                        logger.debug(LoggingMarkers.RESULT_ACCEPTOR, "Did not found required word {} in the title {}", requiredWord, item.getTitle());
-                        allPresent = false;
-                        break;
-                    }
-                }
-            }
-            if (!allPresent) {
+            String missingWord = requiredWords.findMissing(title);
+            if (missingWord != null) {
+                logger.debug(LoggingMarkers.RESULT_ACCEPTOR, "Did not found required word {} in the title {}", missingWord, item.getTitle());
                 reasonsForRejection.add("No required word found");
                 return false;
             }
@@ -291,35 +328,17 @@ public class SearchResultAcceptor {
         return true;
     }
 
-    private synchronized List<String> getTitleWords(SearchResultItem item) {
-        return titleWordCache.computeIfAbsent(item.getTitle(), s -> {
-            List<String> titleWords = new ArrayList<>();
-            Matcher matcher = TITLE_PATTERN.matcher(item.getTitle().toLowerCase());
-            while (matcher.find()) {
-                titleWords.add(matcher.group().toLowerCase());
-            }
-            return titleWords;
-        });
-
+    protected boolean checkForForbiddenWords(IndexerConfig indexerConfig, Multiset<String> reasonsForRejection, List<String> forbiddenWords, SearchResultItem item) {
+        return checkForForbiddenWords(isMatchForbiddenWordsAsSubstrings(indexerConfig), reasonsForRejection, WordMatcher.compile(forbiddenWords), item, new Title(item.getTitle()));
     }
 
-    protected boolean checkForForbiddenWords(IndexerConfig indexerConfig, Multiset<String> reasonsForRejection, List<String> forbiddenWords, SearchResultItem item) {
-        for (String forbiddenWord : forbiddenWords) {
-            if (forbiddenWord.contains("-") || forbiddenWord.contains(".") || indexerConfig.getHost().toLowerCase().contains("nzbgeek")) {
-                if (item.getTitle().toLowerCase().contains(forbiddenWord.toLowerCase())) {
-                    reasonsForRejection.add("Forbidden word");
-                    logger.debug(LoggingMarkers.RESULT_ACCEPTOR, "Found forbidden word {} in title {]", forbiddenWord, item.getTitle());
-                    return false;
-                }
-            } else {
-                List<String> titleWords = getTitleWords(item);
-                Optional<String> found = titleWords.stream().filter(x -> x.toLowerCase().equals(forbiddenWord.toLowerCase())).findFirst(); //Title word must match excluded word to reject result, not just be contained
-                if (found.isPresent()) {
-                    logger.debug(LoggingMarkers.RESULT_ACCEPTOR, "Found forbidden word in title word {}", found.get());
-                    reasonsForRejection.add("Forbidden word");
-                    return false;
-                }
-            }
+    private boolean checkForForbiddenWords(boolean forbiddenWordsAsSubstrings, Multiset<String> reasonsForRejection, WordMatcher forbiddenWords, SearchResultItem item, Title title) {
+        //Words without "." or "-" must match a title word to reject the result, not just be contained
+        String foundWord = forbiddenWords.findContained(title, forbiddenWordsAsSubstrings);
+        if (foundWord != null) {
+            logger.debug(LoggingMarkers.RESULT_ACCEPTOR, "Found forbidden word {} in title {}", foundWord, item.getTitle());
+            reasonsForRejection.add("Forbidden word");
+            return false;
         }
         return true;
     }
@@ -332,6 +351,15 @@ public class SearchResultAcceptor {
         return true;
     }
 
+    @Data
+    @AllArgsConstructor
+    private static class CompiledRules {
+        private final Pattern requiredRegex;
+        private final Pattern forbiddenRegex;
+        private final WordMatcher requiredWords;
+        private final WordMatcher forbiddenWords;
+    }
+
     @Data
     @AllArgsConstructor
     @NoArgsConstructor
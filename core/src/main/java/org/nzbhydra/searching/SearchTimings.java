@@ -0,0 +1,109 @@
+package org.nzbhydra.searching;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Joiner;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Records where the time of a search went, once for the whole search and once per indexer. Phases recorded multiple
+ * times (e.g. for every round of "load more" or a fallback search) are summed up. Indexers are searched in parallel so
+ * the phases are written from multiple threads.
+ */
+public class SearchTimings {
+
+    public enum SearchPhase {
+        //Whole search
+        WAITING_FOR_IDENTICAL_SEARCH("waitingForIdenticalSearch"),
+        INDEXER_SELECTION("indexerSelection"),
+        INDEXER_SEARCHES("indexerSearches"),
+        DUPLICATE_DETECTION("duplicateDetection"),
+        DATABASE("database"),
+        TRANSFORMATION("transformation"),
+        //Per indexer. The ID conversion happens while building the query URL
+        ID_CONVERSION("idConversion"),
+        HTTP("http"),
+        PARSING("parsing"),
+        ACCEPTANCE("acceptance"),
+        PERSISTENCE("persistence");
+
+        private final String key;
+
+        SearchPhase(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final long startNanos = System.nanoTime();
+    private volatile long finishNanos;
+    private final Map<SearchPhase, Long> phases = new EnumMap<>(SearchPhase.class);
+    private final Map<String, Map<SearchPhase, Long>> indexerPhases = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    public synchronized void add(SearchPhase phase, long millis) {
+        phases.merge(phase, millis, Long::sum);
+    }
+
+    public synchronized void add(String indexer, SearchPhase phase, long millis) {
+        indexerPhases.computeIfAbsent(indexer == null ? "unknown" : indexer, x -> new EnumMap<>(SearchPhase.class)).merge(phase, millis, Long::sum);
+    }
+
+    /**
+     * Stops the clock for the total time. Until then the total is the time elapsed so far
+     */
+    public void finish() {
+        finishNanos = System.nanoTime();
+    }
+
+    public long getTotalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis((finishNanos == 0 ? System.nanoTime() : finishNanos) - startNanos);
+    }
+
+    public synchronized Map<String, Long> getPhases() {
+        return toKeys(phases);
+    }
+
+    public synchronized Map<String, Map<String, Long>> getIndexerPhases() {
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        indexerPhases.forEach((indexer, timings) -> result.put(indexer, toKeys(timings)));
+        return result;
+    }
+
+    /**
+     * @return A short single line representation, e.g. "total=2510 indexerSelection=3 indexerSearches=2480 binsearch[http=2410 parsing=50]"
+     */
+    public synchronized String toSummary() {
+        StringBuilder summary = new StringBuilder("total=").append(getTotalMillis());
+        if (!phases.isEmpty()) {
+            summary.append(" ").append(Joiner.on(" ").withKeyValueSeparator("=").join(toKeys(phases)));
+        }
+        for (Map.Entry<String, Map<SearchPhase, Long>> entry : indexerPhases.entrySet()) {
+            summary.append(" ").append(entry.getKey().replace(' ', '_')).append("[").append(Joiner.on(" ").withKeyValueSeparator("=").join(toKeys(entry.getValue()))).append("]");
+        }
+        return summary.toString();
+    }
+
+    /**
+     * @return The summary with all characters which are not printable ASCII (e.g. in indexer names) replaced so that it can be used as an HTTP header value
+     */
+    public String toHeaderValue() {
+        return CharMatcher.inRange(' ', '~').negate().replaceFrom(toSummary(), '_');
+    }
+
+    private static Map<String, Long> toKeys(Map<SearchPhase, Long> timings) {
+        return timings.entrySet().stream().collect(Collectors.toMap(x -> x.getKey().getKey(), Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    @Override
+    public String toString() {
+        return toSummary();
+    }
+}
@@ -41,6 +41,8 @@ public class SearchWeb {
     private SearchRequestFactory searchRequestFactory;
     @Autowired
     private InternalSearchResultProcessor searchResultProcessor;
+    @Autowired
+    private IndexerSearchExecutor indexerSearchExecutor;
 
     private Lock lock = new ReentrantLock();
 
@@ -59,7 +61,12 @@ public class SearchWeb {
         logger.info("New search request: " + searchRequest);
         org.nzbhydra.searching.SearchResult searchResult = searcher.search(searchRequest);
 
+        Stopwatch transformationStopwatch = Stopwatch.createStarted();
         SearchResponse searchResponse = searchResultProcessor.createSearchResponse(searchResult);
+        SearchTimings timings = searchRequest.getInternalData().getTimings();
+        timings.add(SearchTimings.SearchPhase.TRANSFORMATION, transformationStopwatch.elapsed(TimeUnit.MILLISECONDS));
+        timings.finish();
+        searchResponse.setTimings(timings);
 
         lock.lock();
         SearchState searchState = searchStates.get(searchRequest.getSearchRequestId());
@@ -76,6 +83,24 @@ public class SearchWeb {
         return searchStates.getOrDefault(searchRequestId, new SearchState());
     }
 
+    @Secured({"ROLE_ADMIN"})
+    @RequestMapping(value = "/internalapi/search/executorstats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public IndexerSearchExecutor.ExecutorStats getExecutorStats() {
+        return indexerSearchExecutor.getStats();
+    }
+
+    @Secured({"ROLE_ADMIN"})
+    @RequestMapping(value = "/internalapi/search/coalescingstats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Searcher.CoalescingStats getCoalescingStats() {
+        return searcher.getCoalescingStats();
+    }
+
+    @Secured({"ROLE_ADMIN"})
+    @RequestMapping(value = "/internalapi/search/cachestats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public SearchCache.SearchCacheStats getCacheStats() {
+        return searcher.getCacheStats();
+    }
+
     private SearchRequest createSearchRequest(@RequestBody SearchRequestParameters parameters) {
         Category category = categoryProvider.getByInternalName(parameters.getCategory());
         SearchType searchType = category.getSearchType() == null ? SearchType.SEARCH : category.getSearchType();
@@ -3,36 +3,44 @@ package org.nzbhydra.searching;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.Getter;
-import net.jodah.expiringmap.ExpirationPolicy;
-import net.jodah.expiringmap.ExpiringMap;
+import lombok.NoArgsConstructor;
 import org.nzbhydra.ShutdownEvent;
+import org.nzbhydra.config.ConfigChangedEvent;
 import org.nzbhydra.config.ConfigProvider;
+import org.nzbhydra.config.SearchingConfig;
 import org.nzbhydra.indexers.Indexer;
 import org.nzbhydra.indexers.IndexerSearchEntity;
 import org.nzbhydra.indexers.IndexerSearchRepository;
 import org.nzbhydra.logging.LoggingMarkers;
-import org.nzbhydra.logging.MdcThreadPoolExecutor;
 import org.nzbhydra.searching.IndexerForSearchSelector.IndexerForSearchSelection;
+import org.nzbhydra.searching.SearchTimings.SearchPhase;
 import org.nzbhydra.searching.db.IdentifierKeyValuePair;
 import org.nzbhydra.searching.db.SearchEntity;
 import org.nzbhydra.searching.db.SearchRepository;
 import org.nzbhydra.searching.dtoseventsenums.DuplicateDetectionResult;
 import org.nzbhydra.searching.dtoseventsenums.IndexerSearchResult;
+import org.nzbhydra.searching.dtoseventsenums.SearchMessageEvent;
 import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
 import org.nzbhydra.searching.searchrequests.SearchRequest;
 import org.nzbhydra.searching.searchrequests.SearchRequest.SearchSource;
+import org.nzbhydra.searching.searchrequests.SearchRequestKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import java.time.Instant;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Component
@@ -40,6 +48,8 @@ public class Searcher {
 
     private static final Logger logger = LoggerFactory.getLogger(Searcher.class);
 
+    private static final int MAX_TIMINGS_LENGTH = 2000;
+
     @Autowired
     protected DuplicateDetector duplicateDetector;
     @Autowired
@@ -52,44 +62,97 @@ public class Searcher {
     private ApplicationEventPublisher eventPublisher;
     @Autowired
     private ConfigProvider configProvider;
-    private final Set<ExecutorService> executors = Collections.synchronizedSet(new HashSet<>());
+    @Autowired
+    private IndexerSearchExecutor indexerSearchExecutor;
+    /**
+     * Searches taking at least this long are saved with a summary of their timings
+     */
+    @Value("${nzbhydra.searching.slowSearchMillis:5000}")
+    protected long slowSearchMillis = 5000;
     private boolean shutdownRequested = false;
 
     @EventListener
     public void onShutdown(ShutdownEvent event) {
         shutdownRequested = true;
-        synchronized (executors) {
-            if (executors.size() > 0) {
-                logger.debug("Waiting up to 10 seconds for {} background tasks to finish", executors.size());
-            }
-            Iterator<ExecutorService> iterator = executors.iterator();
-            while (iterator.hasNext()) {
-                ExecutorService executorService = iterator.next();
-                executorService.shutdown();
-                try {
-                    executorService.awaitTermination(10, TimeUnit.SECONDS);
-                } catch (InterruptedException e) {
-                    logger.warn("Waited too long for termination of task, interrupting");
-                    Thread.currentThread().interrupt();
-                }
-            }
-        }
     }
 
     /**
-     * Maps a search request's hash to its cache entry
+     * Maps a search request (without paging) to its cache entry
      */
-    private final Map<Integer, SearchCacheEntry> searchRequestCache = ExpiringMap.builder()
-            .maxSize(20)
-            .expirationPolicy(ExpirationPolicy.ACCESSED)
-            .expiration(5, TimeUnit.MINUTES)
-            .expirationListener((k, v) -> logger.debug("Removing expired search cache entry {}", ((SearchCacheEntry) v).getSearchRequest()))
-            .build();
+    private final SearchCache searchRequestCache = new SearchCache(new SearchingConfig().getSearchCacheSizeInMb() * 1024L * 1024L);
+
+    @PostConstruct
+    public void init() {
+        searchRequestCache.setMaxBytes(configProvider.getBaseConfig().getSearching().getSearchCacheSizeInMb() * 1024L * 1024L);
+    }
+
+    @EventListener
+    public void handleNewConfig(ConfigChangedEvent configChangedEvent) {
+        searchRequestCache.setMaxBytes(configChangedEvent.getNewConfig().getSearching().getSearchCacheSizeInMb() * 1024L * 1024L);
+    }
+
+    /**
+     * Maps the keys of currently running searches to their (future) results. Identical searches started while one is
+     * running will wait for and use its result instead of calling the indexers again
+     */
+    private final ConcurrentMap<SearchRequestKey, CompletableFuture<SearchResult>> runningSearches = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedSearches = new AtomicLong();
 
     public SearchResult search(SearchRequest searchRequest) {
+        SearchRequestKey searchRequestKey = new SearchRequestKey(searchRequest);
+        CompletableFuture<SearchResult> ownSearch = new CompletableFuture<>();
+        CompletableFuture<SearchResult> runningSearch = runningSearches.putIfAbsent(searchRequestKey, ownSearch);
+        if (runningSearch != null) {
+            return waitForRunningSearch(searchRequest, runningSearch);
+        }
+        try {
+            SearchResult searchResult = executeSearch(searchRequest);
+            ownSearch.complete(searchResult);
+            return searchResult;
+        } catch (RuntimeException e) {
+            ownSearch.completeExceptionally(e);
+            throw e;
+        } finally {
+            runningSearches.remove(searchRequestKey, ownSearch);
+        }
+    }
+
+    private SearchResult waitForRunningSearch(SearchRequest searchRequest, CompletableFuture<SearchResult> runningSearch) {
+        coalescedSearches.incrementAndGet();
+        logger.info("An identical search is already running. Will wait for it to finish and use its results");
+        eventPublisher.publishEvent(new SearchMessageEvent(searchRequest, "An identical search is already running. Waiting for its results"));
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        try {
+            //Search results are not modified after a search has finished so they can be shared
+            SearchResult searchResult = runningSearch.get();
+            searchRequest.getInternalData().getTimings().add(SearchPhase.WAITING_FOR_IDENTICAL_SEARCH, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            return searchResult;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Unexpected error while waiting for identical search", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for identical search", e);
+        }
+    }
+
+    public CoalescingStats getCoalescingStats() {
+        return new CoalescingStats(runningSearches.size(), coalescedSearches.get());
+    }
+
+    public SearchCache.SearchCacheStats getCacheStats() {
+        return searchRequestCache.getStats();
+    }
+
+    private SearchResult executeSearch(SearchRequest searchRequest) {
         Stopwatch stopwatch = Stopwatch.createStarted();
+        SearchTimings timings = searchRequest.getInternalData().getTimings();
         eventPublisher.publishEvent(new SearchEvent(searchRequest));
-        SearchCacheEntry searchCacheEntry = getSearchCacheEntry(searchRequest);
+        //Must be computed before the search request is modified (e.g. by extracting forbidden words)
+        SearchRequestKey cacheKey = SearchRequestKey.withoutPaging(searchRequest);
+        SearchCacheEntry searchCacheEntry = getSearchCacheEntry(searchRequest, cacheKey);
 
         SearchResult searchResult = new SearchResult();
         int numberOfWantedResults = searchRequest.getOffset().orElse(0) + searchRequest.getLimit().orElse(100); //LATER default for limit
@@ -113,19 +176,26 @@ public class Searcher {
             }
 
             //Do the actual search
+            Stopwatch phaseStopwatch = Stopwatch.createStarted();
             indexersToSearchAndTheirResults = callSearchModules(searchRequest, indexersToSearchAndTheirResults);
+            timings.add(SearchPhase.INDEXER_SEARCHES, phaseStopwatch.elapsed(TimeUnit.MILLISECONDS));
 
             //Update cache
             searchCacheEntry.getIndexerSearchResultsByIndexer().putAll(indexersToSearchAndTheirResults);
-            searchRequestCache.put(searchRequest.hashCode(), searchCacheEntry);
+            searchRequestCache.put(cacheKey, searchCacheEntry);
 
 
             //Use search result items from the cache which contains *all* search searchResults, not just the latest. That allows finding duplicates over multiple searches
             searchResultItems = searchCacheEntry.getIndexerSearchResultsByIndexer().values().stream().flatMap(Collection::stream).filter(IndexerSearchResult::isWasSuccessful).flatMap(x -> x.getSearchResultItems().stream()).distinct().collect(Collectors.toList());
-            DuplicateDetectionResult duplicateDetectionResult = duplicateDetector.detectDuplicates(searchResultItems);
+            //Only the results which are new since the last round are compared
+            phaseStopwatch.reset().start();
+            DuplicateDetectionResult duplicateDetectionResult = duplicateDetector.detectDuplicates(searchCacheEntry.getDuplicateDetectionState(), searchResultItems);
+            timings.add(SearchPhase.DUPLICATE_DETECTION, phaseStopwatch.elapsed(TimeUnit.MILLISECONDS));
 
             //Save to database
+            phaseStopwatch.reset().start();
             createOrUpdateIndexerSearchEntity(searchCacheEntry, indexersToSearchAndTheirResults, duplicateDetectionResult);
+            timings.add(SearchPhase.DATABASE, phaseStopwatch.elapsed(TimeUnit.MILLISECONDS));
 
             //Remove duplicates for external searches
             if (searchRequest.getSource() == SearchSource.API) {
@@ -151,10 +221,24 @@ public class Searcher {
 
         spliceSearchResultItemsAccordingToOffsetAndLimit(searchRequest, searchResult, searchResultItems);
 
-        logger.debug(LoggingMarkers.PERFORMANCE, "Internal search took {}ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        saveTimingsIfSlow(searchCacheEntry.getSearchEntity(), timings, searchRequest.getOffset().orElse(0));
+        logger.debug(LoggingMarkers.PERFORMANCE, "Internal search took {}ms: {}", stopwatch.elapsed(TimeUnit.MILLISECONDS), timings.toSummary());
         return searchResult;
     }
 
+    private void saveTimingsIfSlow(SearchEntity searchEntity, SearchTimings timings, int offset) {
+        if (searchEntity == null || timings.getTotalMillis() < slowSearchMillis) {
+            return;
+        }
+        //Every round of "load more" has its own timings which are appended to the ones of the previous rounds
+        String summary = offset > 0 ? "offset=" + offset + " " + timings.toSummary() : timings.toSummary();
+        if (searchEntity.getTimings() != null) {
+            summary = searchEntity.getTimings() + " | " + summary;
+        }
+        searchEntity.setTimings(summary.length() > MAX_TIMINGS_LENGTH ? summary.substring(0, MAX_TIMINGS_LENGTH) : summary);
+        searchRepository.save(searchEntity);
+    }
+
     private void spliceSearchResultItemsAccordingToOffsetAndLimit(SearchRequest searchRequest, SearchResult searchResult, List<SearchResultItem> searchResultItems) {
         int offset = searchRequest.getOffset().orElse(0);
         int limit = searchRequest.getLimit().orElse(100); //LATER configurable
@@ -229,10 +313,10 @@ public class Searcher {
         logger.debug(LoggingMarkers.PERFORMANCE, "Saving {} indexer search entities took {}ms", countEntities, stopwatch.elapsed(TimeUnit.MILLISECONDS));
     }
 
-    protected SearchCacheEntry getSearchCacheEntry(SearchRequest searchRequest) {
-        SearchCacheEntry searchCacheEntry;
+    protected SearchCacheEntry getSearchCacheEntry(SearchRequest searchRequest, SearchRequestKey cacheKey) {
+        SearchCacheEntry searchCacheEntry = searchRequest.getOffset().orElse(0) == 0 ? null : searchRequestCache.get(cacheKey);
 
-        if (searchRequest.getOffset().orElse(0) == 0 || !searchRequestCache.containsKey(searchRequest.hashCode())) {
+        if (searchCacheEntry == null) {
             //New search
             SearchEntity searchEntity = new SearchEntity();
             searchEntity.setSource(searchRequest.getSource());
@@ -248,12 +332,15 @@ public class Searcher {
             //Extend search request
             searchRequest.extractForbiddenWords();
 
+            Stopwatch stopwatch = Stopwatch.createStarted();
             searchRepository.save(searchEntity);
+            searchRequest.getInternalData().getTimings().add(SearchPhase.DATABASE, stopwatch.elapsed(TimeUnit.MILLISECONDS));
 
+            stopwatch.reset().start();
             IndexerForSearchSelection pickingResult = indexerPicker.pickIndexers(searchRequest);
+            searchRequest.getInternalData().getTimings().add(SearchPhase.INDEXER_SELECTION, stopwatch.elapsed(TimeUnit.MILLISECONDS));
             searchCacheEntry = new SearchCacheEntry(searchRequest, pickingResult, searchEntity);
         } else {
-            searchCacheEntry = searchRequestCache.get(searchRequest.hashCode());
             searchCacheEntry.setLastAccessed(Instant.now());
             searchCacheEntry.setSearchRequest(searchRequest); //Update to latest to keep offset and limit updated
         }
@@ -274,29 +361,26 @@ public class Searcher {
     protected Map<Indexer, List<IndexerSearchResult>> callSearchModules(SearchRequest searchRequest, Map<Indexer, List<IndexerSearchResult>> indexersToSearch) {
         Map<Indexer, List<IndexerSearchResult>> indexerSearchResults = new HashMap<>(indexersToSearch);
 
-        ExecutorService executor = MdcThreadPoolExecutor.newWithInheritedMdc(indexersToSearch.size());
-        executors.add(executor);
-
-        List<Callable<IndexerSearchResult>> callables = getCallables(searchRequest, indexersToSearch);
+        List<Future<IndexerSearchResult>> futures = new ArrayList<>();
+        for (Entry<Indexer, List<IndexerSearchResult>> entry : indexersToSearch.entrySet()) {
+            futures.add(indexerSearchExecutor.submit(entry.getKey(), searchRequest, getIndexerCallable(searchRequest, entry)));
+        }
 
         try {
-            List<Future<IndexerSearchResult>> futures = executor.invokeAll(callables);
             for (Future<IndexerSearchResult> future : futures) {
                 try {
                     IndexerSearchResult indexerSearchResult = future.get();
                     List<IndexerSearchResult> previousIndexerSearchResults = indexerSearchResults.get(indexerSearchResult.getIndexer());
                     previousIndexerSearchResults.add(indexerSearchResult);
                     indexerSearchResults.put(indexerSearchResult.getIndexer(), previousIndexerSearchResults);
-                } catch (ExecutionException e) {
+                } catch (ExecutionException | CancellationException e) {
                     logger.error("Unexpected error while searching", e);
                 }
             }
         } catch (InterruptedException e) {
             logger.error("Unexpected error while searching", e);
-        } finally {
-            executor.shutdownNow(); //Need to explicitly shutdown executor for threads to be closed
+            futures.forEach(x -> x.cancel(true));
         }
-        executors.remove(executor);
         indexerSearchResults = handleIndexersWithFailedFutureExecutions(indexersToSearch, indexerSearchResults);
         return indexerSearchResults;
     }
@@ -317,16 +401,6 @@ public class Searcher {
         return indexerSearchResults;
     }
 
-    private List<Callable<IndexerSearchResult>> getCallables(SearchRequest searchRequest, Map<Indexer, List<IndexerSearchResult>> indexersToSearch) {
-        List<Callable<IndexerSearchResult>> callables = new ArrayList<>();
-
-        for (Entry<Indexer, List<IndexerSearchResult>> entry : indexersToSearch.entrySet()) {
-            Callable<IndexerSearchResult> callable = getIndexerCallable(searchRequest, entry);
-            callables.add(callable);
-        }
-        return callables;
-    }
-
     private Callable<IndexerSearchResult> getIndexerCallable(SearchRequest searchRequest, Entry<Indexer, List<IndexerSearchResult>> entry) {
         int offset;
         int limit;
@@ -341,6 +415,14 @@ public class Searcher {
         return () -> entry.getKey().search(searchRequest, offset, limit);
     }
 
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class CoalescingStats {
+        private int runningSearches;
+        private long coalescedSearches;
+    }
+
     @Getter
     public static class SearchEvent {
         private SearchRequest searchRequest;
@@ -0,0 +1,160 @@
+package org.nzbhydra.searching;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable matcher for a list of required or forbidden words. Words containing a "." or "-" are searched as substrings
+ * of the title, all others must be equal to one of the title's words. The words are lowercased and split up only once
+ * so that checking a title needs one hash lookup per title word instead of comparing every word with every title word.
+ */
+public class WordMatcher {
+
+    public static final WordMatcher EMPTY = new WordMatcher(ImmutableList.of());
+
+    private final List<String> words;
+    private final Set<String> exactWords;
+    private final List<String> substringWords;
+
+    private WordMatcher(Collection<String> words) {
+        ImmutableList.Builder<String> allBuilder = ImmutableList.builder();
+        ImmutableSet.Builder<String> exactBuilder = ImmutableSet.builder();
+        ImmutableList.Builder<String> substringBuilder = ImmutableList.builder();
+        for (String word : words) {
+            String lowerCaseWord = word.toLowerCase();
+            allBuilder.add(lowerCaseWord);
+            if (lowerCaseWord.contains(".") || lowerCaseWord.contains("-")) {
+                substringBuilder.add(lowerCaseWord);
+            } else {
+                exactBuilder.add(lowerCaseWord);
+            }
+        }
+        this.words = allBuilder.build();
+        this.exactWords = exactBuilder.build();
+        this.substringWords = substringBuilder.build();
+    }
+
+    public static WordMatcher compile(Collection<String> words) {
+        if (words == null || words.isEmpty()) {
+            return EMPTY;
+        }
+        return new WordMatcher(words);
+    }
+
+    public boolean isEmpty() {
+        return words.isEmpty();
+    }
+
+    /**
+     * @param title         The title to check
+     * @param substringOnly If true all words are searched as substrings, regardless of their content
+     * @return The first word contained in the title or null if none was found
+     */
+    public String findContained(Title title, boolean substringOnly) {
+        if (words.isEmpty()) {
+            return null;
+        }
+        if (substringOnly) {
+            for (String word : words) {
+                if (title.getLowerCase().contains(word)) {
+                    return word;
+                }
+            }
+            return null;
+        }
+        for (String word : substringWords) {
+            if (title.getLowerCase().contains(word)) {
+                return word;
+            }
+        }
+        if (!exactWords.isEmpty()) {
+            for (String titleWord : title.getWords()) {
+                if (exactWords.contains(titleWord)) {
+                    return titleWord;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The first word not contained in the title or null if all were found
+     */
+    public String findMissing(Title title) {
+        for (String word : substringWords) {
+            if (!title.getLowerCase().contains(word)) {
+                return word;
+            }
+        }
+        if (!exactWords.isEmpty()) {
+            Set<String> titleWords = title.getWords();
+            for (String word : exactWords) {
+                if (!titleWords.contains(word)) {
+                    return word;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Title which is lowercased and split up into words on first use. Meant to be created per checked item so no
+     * synchronization is needed.
+     */
+    public static class Title {
+
+        private final String title;
+        private String lowerCase;
+        private Set<String> words;
+
+        public Title(String title) {
+            this.title = title;
+        }
+
+        public String getLowerCase() {
+            if (lowerCase == null) {
+                lowerCase = title.toLowerCase();
+            }
+            return lowerCase;
+        }
+
+        /**
+         * @return All sequences of word characters (a-z, 0-9 and _) in the title, allowing apostrophes inside a word
+         */
+        public Set<String> getWords() {
+            if (words == null) {
+                words = new HashSet<>();
+                String lowerCase = getLowerCase();
+                int length = lowerCase.length();
+                int i = 0;
+                while (i < length) {
+                    if (!isWordCharacter(lowerCase.charAt(i))) {
+                        i++;
+                        continue;
+                    }
+                    int start = i;
+                    int end = i + 1;
+                    while (i < length && (isWordCharacter(lowerCase.charAt(i)) || lowerCase.charAt(i) == '\'')) {
+                        if (lowerCase.charAt(i) != '\'') {
+                            end = i + 1;
+                        }
+                        i++;
+                    }
+                    words.add(lowerCase.substring(start, end));
+                    i = end;
+                }
+            }
+            return words;
+        }
+
+        private static boolean isWordCharacter(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+        }
+    }
+
+}
@@ -17,8 +17,12 @@
 package org.nzbhydra.searching.cleanup;
 
 import org.nzbhydra.config.ConfigProvider;
+import org.nzbhydra.historystats.Stats;
+import org.nzbhydra.historystats.textindex.HistoryTextIndex;
+import org.nzbhydra.historystats.rollups.StatsRollups;
 import org.nzbhydra.logging.LoggingMarkers;
-import org.nzbhydra.misc.Sleep;
+import org.nzbhydra.maintenance.MaintenanceEngine;
+import org.nzbhydra.maintenance.MaintenanceRun;
 import org.nzbhydra.tasks.HydraTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +47,14 @@ public class HistoryCleanup {
     private ConfigProvider configProvider;
     @Autowired
     private DataSource dataSource;
+    @Autowired
+    private StatsRollups statsRollups;
+    @Autowired
+    private Stats stats;
+    @Autowired
+    private MaintenanceEngine maintenanceEngine;
+    @Autowired
+    private HistoryTextIndex historyTextIndex;
 
     private static final Logger logger = LoggerFactory.getLogger(HistoryCleanup.class);
 
@@ -57,36 +69,50 @@ public class HistoryCleanup {
         }
         logger.info("Starting deletion of old history entries");
 
-        try (Connection connection = dataSource.getConnection()) {
+        try (MaintenanceRun run = maintenanceEngine.start("deleteOldHistory"); Connection connection = dataSource.getConnection()) {
             Instant deleteOlderThan = Instant.now().minus(keepSearchResultsForWeeks * 7, ChronoUnit.DAYS);
             Optional<Integer> optionalHighestId = getIdBefore(deleteOlderThan, "SEARCH", ASC_DESC.DESC, connection);
             if (optionalHighestId.isPresent()) {
                 int highestId = optionalHighestId.get();
                 logger.debug(LoggingMarkers.HISTORY_CLEANUP, "Will delete all entries for search IDs lower than {}", highestId);
-                deleteOldIdentifiers(highestId, connection);
+                deleteOldIdentifiers(highestId, connection, run);
 
-                deleteOldIndexerSearches(highestId, connection);
+                deleteOldIndexerSearches(highestId, connection, run);
+
+                deleteOldSearchQueryTrigrams(highestId, run);
             }
 
-            deleteOldIndexerApiAccesses(deleteOlderThan, connection);
+            deleteOldIndexerApiAccesses(deleteOlderThan, connection, run);
+            run.setStep("Stats rollups");
+            statsRollups.deleteOldRollups(deleteOlderThan);
 
             if (optionalHighestId.isPresent()) {
-                deleteOldSearches(optionalHighestId.get(), connection);
+                deleteOldSearches(optionalHighestId.get(), connection, run);
             }
         } catch (SQLException e) {
             logger.error("Error while executing SQL", e);
         }
+        stats.invalidateCache();
         logger.info("Deletion of old history entries finished");
     }
 
-    public void deleteOldIndexerSearches(Integer searchId, Connection connection) {
+    public void deleteOldIndexerSearches(Integer searchId, Connection connection, MaintenanceRun run) {
         logger.debug(LoggingMarkers.HISTORY_CLEANUP, "Deleting old indexer searches");
-        deleteOldEntries(searchId, "delete from INDEXERSEARCH where SEARCH_ENTITY_ID < ? and rownum() < 10000", "Deleted {} indexer searches from database", connection);
+        run.setStep("Indexer searches");
+        deleteOldEntries(searchId, "delete from INDEXERSEARCH where SEARCH_ENTITY_ID < ? and rownum() < 10000", "Deleted {} indexer searches from database", connection, run);
+    }
+
+    public void deleteOldSearchQueryTrigrams(Integer searchId, MaintenanceRun run) {
+        logger.debug(LoggingMarkers.HISTORY_CLEANUP, "Deleting old search query trigrams");
+        run.setStep("Search query trigrams");
+        //The trigram counts used to decide if the index is used must be updated as well
+        historyTextIndex.deleteSearchQueriesBefore(searchId, run);
     }
 
-    public void deleteOldIdentifiers(Integer searchId, Connection connection) {
+    public void deleteOldIdentifiers(Integer searchId, Connection connection, MaintenanceRun run) {
         logger.debug(LoggingMarkers.HISTORY_CLEANUP, "Deleting old identifiers");
-        deleteOldEntries(searchId, "delete from SEARCH_IDENTIFIERS where SEARCH_ENTITY_ID < ? and rownum() < 10000", "Deleted {} search identifiers from database", connection);
+        run.setStep("Identifiers");
+        deleteOldEntries(searchId, "delete from SEARCH_IDENTIFIERS where SEARCH_ENTITY_ID < ? and rownum() < 10000", "Deleted {} search identifiers from database", connection, run);
         //Find the lowest searchIdentifierKey. All value pairs referencing a lower ID than that can be deleted
         int identifierId;
         try (PreparedStatement statement = connection.prepareStatement("select IDENTIFIERS_ID from SEARCH_IDENTIFIERS order by IDENTIFIERS_ID asc limit 1;")) {
@@ -103,23 +129,26 @@ public class HistoryCleanup {
         }
 
         logger.debug(LoggingMarkers.HISTORY_CLEANUP, "Deleting old identifier key value pairs");
-        deleteOldEntries(identifierId, "delete from IDENTIFIER_KEY_VALUE_PAIR where ID < ? and rownum() < 10000", "Deleted {} identifier key value pairs from database", connection);
+        run.setStep("Identifier key value pairs");
+        deleteOldEntries(identifierId, "delete from IDENTIFIER_KEY_VALUE_PAIR where ID < ? and rownum() < 10000", "Deleted {} identifier key value pairs from database", connection, run);
     }
 
-    public void deleteOldIndexerApiAccesses(Instant deleteOlderThan, Connection connection) {
+    public void deleteOldIndexerApiAccesses(Instant deleteOlderThan, Connection connection, MaintenanceRun run) {
         logger.debug(LoggingMarkers.HISTORY_CLEANUP, "Deleting old indexer API accesses");
+        run.setStep("Indexer API accesses");
         Optional<Integer> optionalId = getIdBefore(deleteOlderThan, "INDEXERAPIACCESS", ASC_DESC.DESC, connection);
         if (!optionalId.isPresent()) {
             logger.debug(LoggingMarkers.HISTORY_CLEANUP, "No older indexer API accesses to delete");
             return;
         }
 
-        deleteOldEntries(optionalId.get(), "delete from INDEXERAPIACCESS where ID < ? and rownum() < 10000", "Deleted {} indexer API accesses from database", connection);
+        deleteOldEntries(optionalId.get(), "delete from INDEXERAPIACCESS where ID < ? and rownum() < 10000", "Deleted {} indexer API accesses from database", connection, run);
     }
 
-    public void deleteOldSearches(Integer searchId, Connection connection) {
+    public void deleteOldSearches(Integer searchId, Connection connection, MaintenanceRun run) {
         logger.debug(LoggingMarkers.HISTORY_CLEANUP, "Deleting old searches");
-        deleteOldEntries(searchId, "delete from SEARCH where ID < ? and rownum() < 10000", "Deleted {} searches from database", connection);
+        run.setStep("Searches");
+        deleteOldEntries(searchId, "delete from SEARCH where ID < ? and rownum() < 10000", "Deleted {} searches from database", connection, run);
     }
 
     private Optional<Integer> getIdBefore(Instant deleteOlderThan, final String tableName, ASC_DESC ascDesc, Connection connection) {
@@ -137,23 +166,13 @@ public class HistoryCleanup {
         }
     }
 
-    public void deleteOldEntries(int lowerThan, String sql, String loggerMessage, Connection connection) {
+    public void deleteOldEntries(int lowerThan, String sql, String loggerMessage, Connection connection, MaintenanceRun run) {
         try {
-            int deletedEntities = 0;
-            int lastDeletedEntities;
-            try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                do {
-                    statement.setInt(1, lowerThan);
-                    lastDeletedEntities = statement.executeUpdate();
-                    deletedEntities += lastDeletedEntities;
-                    //Commit and sleep a bit to release locks and give the rest of the program time to read or write from or to db
-                    connection.commit();
-                    Sleep.sleep(100);
-                } while (lastDeletedEntities > 0);
-            }
+            int deletedEntities = run.executeInBatches(connection, sql, lowerThan);
             logger.debug(LoggingMarkers.HISTORY_CLEANUP, loggerMessage, deletedEntities);
         } catch (SQLException e) {
             logger.error("Error while executing SQL", e);
+            run.failed(e);
         }
     }
 
@@ -17,43 +17,83 @@
 package org.nzbhydra.searching.cleanup;
 
 import org.nzbhydra.config.ConfigProvider;
+import org.nzbhydra.logging.LoggingMarkers;
+import org.nzbhydra.maintenance.MaintenanceEngine;
+import org.nzbhydra.maintenance.MaintenanceRun;
+import org.nzbhydra.searching.db.SearchResultEntity;
 import org.nzbhydra.tasks.HydraTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Optional;
 
+/**
+ * Deletes search results not referenced by any download. Results are stored with the day they were first found (bucket)
+ * so old results can be found using an index. Every bucket is deleted in small throttled batches so that the table is
+ * never locked for long and search results can still be saved while the cleanup is running.
+ */
 @Component
 public class OldResultsCleanup {
 
     @Autowired
     private ConfigProvider configProvider;
     @Autowired
-    private EntityManager entityManager;
+    protected DataSource dataSource;
+    @Autowired
+    private MaintenanceEngine maintenanceEngine;
 
     private static final Logger logger = LoggerFactory.getLogger(OldResultsCleanup.class);
 
     private static final long HOUR = 1000 * 60 * 60;
+    static final int BATCH_SIZE = 10000;
+    //H2 ignores rownum() in a delete with a subquery so limit must be used to keep the batches small
+    private static final String DELETE_SQL = "delete from SEARCHRESULT where BUCKET = ? " +
+            "and not exists (select 1 from INDEXERNZBDOWNLOAD where SEARCH_RESULT_ID = SEARCHRESULT.ID) limit " + BATCH_SIZE;
 
-    //@Scheduled(initialDelay = HOUR, fixedRate = HOUR)
     @HydraTask(configId = "deleteOldSearchResults", name = "Delete old search results", interval = HOUR)
-    @Transactional
     public void deleteOldResults() {
         int keepSearchResultsForDays = configProvider.getBaseConfig().getSearching().getKeepSearchResultsForDays();
-        int deletedResults = entityManager.createNativeQuery(
-                "delete from SEARCHRESULT where FIRST_FOUND "
-                        + " < DATEADD('SECOND', :epochSecond, DATE '1970-01-01') " +
-                        "AND ID not in (select SEARCH_RESULT_ID from INDEXERNZBDOWNLOAD  where SEARCH_RESULT_ID is not null)")
-                .setParameter("epochSecond", Instant.now().minus(keepSearchResultsForDays, ChronoUnit.DAYS).getEpochSecond())
-                .executeUpdate();
+        //Only whole days are deleted, results from the day of the cutoff are kept until the next day
+        int firstBucketToKeep = SearchResultEntity.calculateBucket(Instant.now().minus(keepSearchResultsForDays, ChronoUnit.DAYS));
+        int deletedResults = 0;
+        try (MaintenanceRun run = maintenanceEngine.start("deleteOldSearchResults"); Connection connection = dataSource.getConnection()) {
+            Optional<Integer> bucket = getNextBucket(Integer.MIN_VALUE, firstBucketToKeep, connection);
+            while (bucket.isPresent()) {
+                run.setStep("Bucket " + bucket.get());
+                int deletedFromBucket = run.executeInBatches(connection, DELETE_SQL, bucket.get());
+                logger.debug(LoggingMarkers.HISTORY_CLEANUP, "Deleted {} search results from bucket {}", deletedFromBucket, bucket.get());
+                deletedResults += deletedFromBucket;
+                //Results referenced by downloads are kept so the bucket may not be empty now
+                bucket = getNextBucket(bucket.get(), firstBucketToKeep, connection);
+            }
+        } catch (SQLException e) {
+            logger.error("Error while deleting old search results", e);
+        }
         if (deletedResults > 0) {
             logger.debug("Deleted {} unused search results from database that were older than {} days", deletedResults, keepSearchResultsForDays);
         }
     }
 
+    private Optional<Integer> getNextBucket(int afterBucket, int beforeBucket, Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select min(BUCKET) from SEARCHRESULT where BUCKET > ? and BUCKET < ?")) {
+            statement.setInt(1, afterBucket);
+            statement.setInt(2, beforeBucket);
+            ResultSet resultSet = statement.executeQuery();
+            if (!resultSet.next()) {
+                return Optional.empty();
+            }
+            int bucket = resultSet.getInt(1);
+            return resultSet.wasNull() ? Optional.empty() : Optional.of(bucket);
+        }
+    }
+
 }
@@ -60,6 +60,11 @@ public class SearchEntity {
     private String username;
     private String ip;
     private String userAgent;
+    /**
+     * Summary of where the time went, only saved for slow searches
+     */
+    @Column(length = 2000)
+    private String timings;
 
     public SearchEntity() {
         time = Instant.now();
@@ -30,13 +30,15 @@ import org.nzbhydra.searching.dtoseventsenums.SearchResultItem.DownloadType;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
+import java.time.ZoneOffset;
 
 
 @Entity
 @Getter
 @Table(name = "searchresult"
         , indexes = {
-        @Index(columnList = "indexer_id,indexerguid", unique = true)}
+        @Index(columnList = "indexer_id,indexerguid", unique = true),
+        @Index(columnList = "bucket")}
 )
 public class SearchResultEntity {
 
@@ -61,6 +63,10 @@ public class SearchResultEntity {
 
     @Convert(converter = org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters.InstantConverter.class)
     protected Instant firstFound;
+    /**
+     * The day (since epoch) on which the result was first found. Used by the cleanup to delete old results day by day
+     */
+    protected Integer bucket;
 
     @NotNull
     @Column(length = 4000)
@@ -83,7 +89,7 @@ public class SearchResultEntity {
 
     public SearchResultEntity(IndexerEntity indexer, Instant firstFound, String title, String indexerGuid, String link, String details, DownloadType downloadType, Instant pubDate) {
         this.indexer = indexer;
-        this.firstFound = firstFound;
+        setFirstFound(firstFound);
         this.title = title;
         this.indexerGuid = indexerGuid;
         this.link = link;
@@ -102,6 +108,11 @@ public class SearchResultEntity {
 
     public void setFirstFound(Instant firstFound) {
         this.firstFound = firstFound;
+        this.bucket = firstFound == null ? null : calculateBucket(firstFound);
+    }
+
+    public static int calculateBucket(Instant firstFound) {
+        return (int) firstFound.atZone(ZoneOffset.UTC).toLocalDate().toEpochDay();
     }
 
     public void setTitle(String title) {
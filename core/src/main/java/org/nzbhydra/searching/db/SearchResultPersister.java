@@ -0,0 +1,177 @@
+package org.nzbhydra.searching.db;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import org.nzbhydra.ShutdownEvent;
+import org.nzbhydra.indexers.IndexerEntity;
+import org.nzbhydra.logging.LoggingMarkers;
+import org.nzbhydra.logging.MdcThreadPoolExecutor;
+import org.nzbhydra.metrics.HydraMetrics;
+import org.nzbhydra.searching.SearchResultIdCalculator;
+import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Saves search results using batched JDBC inserts which skip results already in the database. Because the check is part
+ * of the insert statement no query is needed before and indexers don't need to be locked against each other. A
+ * conflicting concurrent insert of the same result is resolved by retrying the batch once.
+ * <p>
+ * With nzbhydra.searchResults.writeBehind=true the results are written in the background so that the search doesn't have
+ * to wait for it. Code loading search results from the database must then call {@link #awaitPendingWrites()} first.
+ */
+@Component
+public class SearchResultPersister {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultPersister.class);
+
+    private static final int BATCH_SIZE = 500;
+    private static final int AWAIT_WRITES_SECONDS = 30;
+    //The result is only inserted if its ID doesn't exist. The GUID is not checked because indexers may reuse it for different releases
+    private static final String INSERT_SQL = "INSERT INTO SEARCHRESULT (ID, INDEXER_ID, INDEXERGUID, TITLE, LINK, DETAILS, DOWNLOAD_TYPE, FIRST_FOUND, PUB_DATE, BUCKET) " +
+            "SELECT ?1, ?2, ?3, ?4, ?5, ?6, ?7, ?8, ?9, ?10 FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM SEARCHRESULT WHERE ID = ?1)";
+
+    @Autowired
+    protected DataSource dataSource;
+    @Value("${nzbhydra.searchResults.writeBehind:false}")
+    protected boolean writeBehind;
+    //Single thread so writes are executed in order and awaiting a no-op task means all earlier writes are done
+    private final MdcThreadPoolExecutor writeBehindExecutor = MdcThreadPoolExecutor.newWithInheritedMdc(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+
+    /**
+     * Sets the search result ID of the items and saves the ones not yet in the database
+     */
+    public void persist(IndexerEntity indexer, List<SearchResultItem> searchResultItems) {
+        Instant firstFound = Instant.now();
+        List<SearchResultEntity> entities = new ArrayList<>(searchResultItems.size());
+        for (SearchResultItem item : searchResultItems) {
+            long guid = SearchResultIdCalculator.calculateSearchResultId(item);
+            //LATER Unify guid and searchResultId which are the same
+            item.setGuid(guid);
+            item.setSearchResultId(guid);
+            SearchResultEntity entity = new SearchResultEntity(indexer, firstFound, item.getTitle(), item.getIndexerGuid(), item.getLink(), item.getDetails(), item.getDownloadType(), item.getPubDate());
+            entity.setId(guid);
+            entities.add(entity);
+        }
+        if (entities.isEmpty()) {
+            return;
+        }
+        if (writeBehind) {
+            writeBehindExecutor.execute(() -> insert(entities));
+        } else {
+            insert(entities);
+        }
+    }
+
+    /**
+     * Waits until all search results submitted for writing in the background are saved
+     */
+    public void awaitPendingWrites() {
+        if (!writeBehind) {
+            return;
+        }
+        try {
+            writeBehindExecutor.submit(() -> {
+            }).get(AWAIT_WRITES_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Search results were not saved within {} seconds", AWAIT_WRITES_SECONDS);
+        }
+    }
+
+    /**
+     * @return The number of search result lists waiting to be saved in the background
+     */
+    public int getPendingWrites() {
+        return writeBehindExecutor.getQueue().size();
+    }
+
+    @EventListener
+    public void onShutdown(ShutdownEvent event) {
+        awaitPendingWrites();
+        writeBehindExecutor.shutdown();
+    }
+
+    protected void insert(List<SearchResultEntity> entities) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        int inserted = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (List<SearchResultEntity> batch : Lists.partition(entities, BATCH_SIZE)) {
+                    try {
+                        inserted += insertBatch(connection, batch);
+                    } catch (SQLException e) {
+                        //Most likely another search inserted one of the results at the same time. Those are skipped now
+                        logger.debug("Retrying to save search results after error: {}", e.getMessage());
+                        connection.rollback();
+                        try {
+                            inserted += insertBatch(connection, batch);
+                        } catch (SQLException e2) {
+                            //Resetting the auto commit would otherwise commit the partially written batch
+                            connection.rollback();
+                            throw e2;
+                        }
+                    }
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            logger.error("Unable to save the search results to the database", e);
+        }
+        long millis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+        HydraMetrics.recordPersistedResults(millis);
+        logger.debug(LoggingMarkers.PERFORMANCE, "Saving {} new of {} search results took {}ms", inserted, entities.size(), millis);
+    }
+
+    private int insertBatch(Connection connection, List<SearchResultEntity> batch) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (SearchResultEntity entity : batch) {
+                statement.setLong(1, entity.getId());
+                statement.setInt(2, entity.getIndexer().getId());
+                statement.setString(3, entity.getIndexerGuid());
+                statement.setString(4, entity.getTitle());
+                statement.setString(5, entity.getLink());
+                statement.setString(6, entity.getDetails());
+                statement.setString(7, entity.getDownloadType() == null ? null : entity.getDownloadType().name());
+                statement.setTimestamp(8, Timestamp.from(entity.getFirstFound()));
+                if (entity.getPubDate() == null) {
+                    statement.setNull(9, Types.TIMESTAMP);
+                } else {
+                    statement.setTimestamp(9, Timestamp.from(entity.getPubDate()));
+                }
+                statement.setInt(10, entity.getBucket());
+                statement.addBatch();
+            }
+            int inserted = 0;
+            for (int count : statement.executeBatch()) {
+                inserted += Math.max(0, count);
+            }
+            connection.commit();
+            return inserted;
+        }
+    }
+
+}
@@ -100,6 +100,23 @@ public class SearchResultItem  {
     }
 
 
+    /**
+     * @return A rough estimate of the heap memory used by this item, counting the strings and attributes it references
+     */
+    public long estimateRetainedBytes() {
+        long bytes = 200; //Object header, fields, boxed numbers and instants
+        bytes += estimateStringBytes(commentsLink) + estimateStringBytes(description) + estimateStringBytes(details) + estimateStringBytes(group)
+                + estimateStringBytes(indexerGuid) + estimateStringBytes(link) + estimateStringBytes(originalCategory) + estimateStringBytes(poster) + estimateStringBytes(title);
+        for (Map.Entry<String, String> entry : attributes.entrySet()) {
+            bytes += 32 + estimateStringBytes(entry.getKey()) + estimateStringBytes(entry.getValue());
+        }
+        return bytes;
+    }
+
+    private static long estimateStringBytes(String string) {
+        return string == null ? 0 : 40 + 2L * string.length();
+    }
+
     public static Comparator<SearchResultItem> comparator() {
         return (o1, o2) -> {
             if (o2 == null) {
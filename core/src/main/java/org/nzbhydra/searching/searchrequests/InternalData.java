@@ -1,6 +1,9 @@
 package org.nzbhydra.searching.searchrequests;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.nzbhydra.searching.SearchTimings;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,6 +23,9 @@ public class InternalData {
     private List<String> forbiddenWords = new ArrayList<>();
     private List<String> requiredWords = new ArrayList<>();
     private List<Integer> newznabCategories = new ArrayList<>();
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private SearchTimings timings = new SearchTimings();
 
     public Optional<String> getTitle() {
         return Optional.ofNullable(title);
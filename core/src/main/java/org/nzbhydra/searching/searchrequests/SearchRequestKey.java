@@ -0,0 +1,101 @@
+package org.nzbhydra.searching.searchrequests;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.nzbhydra.mediainfo.InfoProvider.IdType;
+import org.nzbhydra.searching.dtoseventsenums.DownloadType;
+import org.nzbhydra.searching.dtoseventsenums.SearchType;
+import org.nzbhydra.searching.searchrequests.SearchRequest.SearchSource;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of everything in a {@link SearchRequest} that has an influence on the search results. Two requests
+ * with equal keys will result in the same indexers being called with the same parameters and the same results being
+ * accepted. Unlike {@link SearchRequest#hashCode()} this can be used as a map key without risking collisions.
+ */
+@Getter
+@EqualsAndHashCode
+public class SearchRequestKey {
+
+    private final SearchSource source;
+    private final SearchType searchType;
+    private final DownloadType downloadType;
+    private final String category;
+    private final SortedSet<String> indexers;
+    private final Integer offset;
+    private final Integer limit;
+    private final boolean loadAll;
+    private final Integer minsize;
+    private final Integer maxsize;
+    private final Integer minage;
+    private final Integer maxage;
+    private final String query;
+    private final SortedMap<IdType, String> identifiers;
+    private final String title;
+    private final Integer season;
+    private final String episode;
+    private final String author;
+    private final SortedSet<String> forbiddenWords;
+    private final SortedSet<String> requiredWords;
+    private final SortedSet<Integer> newznabCategories;
+
+    public SearchRequestKey(SearchRequest searchRequest) {
+        this(searchRequest, true);
+    }
+
+    /**
+     * @return A key which ignores offset, limit and "load all", i.e. is the same for all pages of a search
+     */
+    public static SearchRequestKey withoutPaging(SearchRequest searchRequest) {
+        return new SearchRequestKey(searchRequest, false);
+    }
+
+    private SearchRequestKey(SearchRequest searchRequest, boolean includePaging) {
+        source = searchRequest.getSource();
+        searchType = searchRequest.getSearchType();
+        downloadType = searchRequest.getDownloadType();
+        category = searchRequest.getCategory() == null ? null : searchRequest.getCategory().getName();
+        indexers = searchRequest.getIndexers().map(SearchRequestKey::toSortedSet).orElse(null);
+        offset = includePaging ? searchRequest.getOffset().orElse(0) : null;
+        limit = includePaging ? searchRequest.getLimit().orElse(null) : null;
+        loadAll = includePaging && searchRequest.isLoadAll();
+        minsize = searchRequest.getMinsize().orElse(null);
+        maxsize = searchRequest.getMaxsize().orElse(null);
+        minage = searchRequest.getMinage().orElse(null);
+        maxage = searchRequest.getMaxage().orElse(null);
+        query = searchRequest.getQuery().map(SearchRequestKey::normalize).orElse(null);
+        identifiers = toSortedMap(searchRequest.getIdentifiers());
+        title = searchRequest.getTitle().map(SearchRequestKey::normalize).orElse(null);
+        season = searchRequest.getSeason().orElse(null);
+        episode = searchRequest.getEpisode().map(SearchRequestKey::normalize).orElse(null);
+        author = searchRequest.getAuthor().map(SearchRequestKey::normalize).orElse(null);
+        forbiddenWords = toSortedSet(searchRequest.getInternalData().getForbiddenWords());
+        requiredWords = toSortedSet(searchRequest.getInternalData().getRequiredWords());
+        //Newznab categories from API searches are passed on to the indexers and may differ while the category is the same
+        newznabCategories = ImmutableSortedSet.copyOf(searchRequest.getInternalData().getNewznabCategories().stream().filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    private static String normalize(String value) {
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static SortedSet<String> toSortedSet(Collection<String> values) {
+        return ImmutableSortedSet.copyOf(values.stream().filter(Objects::nonNull).map(SearchRequestKey::normalize).collect(Collectors.toList()));
+    }
+
+    private static SortedMap<IdType, String> toSortedMap(Map<IdType, String> map) {
+        ImmutableSortedMap.Builder<IdType, String> builder = ImmutableSortedMap.naturalOrder();
+        map.entrySet().stream().filter(x -> x.getValue() != null).forEach(x -> builder.put(x.getKey(), x.getValue().trim()));
+        return builder.build();
+    }
+
+}
@@ -16,6 +16,7 @@
 
 package org.nzbhydra.web;
 
+import org.nzbhydra.searching.db.SearchResultPersister;
 import org.nzbhydra.searching.db.SearchResultRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +33,8 @@ public class NzbDetailsWeb {
 
     @Autowired
     private SearchResultRepository searchResultRepository;
+    @Autowired
+    private SearchResultPersister searchResultPersister;
 
     private static final Logger logger = LoggerFactory.getLogger(NzbDetailsWeb.class);
 
@@ -39,6 +42,7 @@ public class NzbDetailsWeb {
     @RequestMapping(value = "/details/{guid}", method = RequestMethod.GET)
     public RedirectView details(@PathVariable("guid") long guid) {
         RedirectView redirectView = new RedirectView();
+        searchResultPersister.awaitPendingWrites();
         String url = searchResultRepository.findById(guid).get().getDetails();
         redirectView.setUrl(url);
         logger.debug("Redirecting to {} for GUID {}", url, guid);
@@ -0,0 +1,44 @@
+CREATE TABLE STATS_API_ACCESS_HOURLY
+(
+  ID                BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+  TIME              TIMESTAMP NOT NULL,
+  INDEXER_ID        INTEGER,
+  RESULT            VARCHAR(255),
+  ENTRIES           INTEGER NOT NULL,
+  RESPONSE_TIME_SUM BIGINT NOT NULL,
+  RESPONSE_TIMES    INTEGER NOT NULL
+);
+CREATE INDEX STATS_API_ACCESS_HOURLY_TIME_INDEX ON STATS_API_ACCESS_HOURLY (TIME DESC);
+
+CREATE TABLE STATS_SEARCH_HOURLY
+(
+  ID         BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+  TIME       TIMESTAMP NOT NULL,
+  SOURCE     VARCHAR(255),
+  USERNAME   VARCHAR(255),
+  IP         VARCHAR(255),
+  USER_AGENT VARCHAR(4000),
+  ENTRIES    INTEGER NOT NULL
+);
+CREATE INDEX STATS_SEARCH_HOURLY_TIME_INDEX ON STATS_SEARCH_HOURLY (TIME DESC);
+
+CREATE TABLE STATS_DOWNLOAD_HOURLY
+(
+  ID            BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+  TIME          TIMESTAMP NOT NULL,
+  INDEXER_ID    INTEGER,
+  STATUS        VARCHAR(255),
+  ACCESS_SOURCE VARCHAR(255),
+  USERNAME      VARCHAR(255),
+  IP            VARCHAR(255),
+  USER_AGENT    VARCHAR(4000),
+  AGE           INTEGER,
+  ENTRIES       INTEGER NOT NULL
+);
+CREATE INDEX STATS_DOWNLOAD_HOURLY_TIME_INDEX ON STATS_DOWNLOAD_HOURLY (TIME DESC);
+
+CREATE TABLE STATS_ROLLUP_STATE
+(
+  NAME            VARCHAR(255) PRIMARY KEY NOT NULL,
+  ROLLED_UP_UNTIL TIMESTAMP    NOT NULL
+);
@@ -0,0 +1,4 @@
+DROP INDEX SEARCH_TIME_INDEX;
+CREATE INDEX SEARCH_TIME_ID_INDEX ON SEARCH (TIME DESC, ID DESC);
+DROP INDEX INDEXERNZBDOWNLOAD_TIME_INDEX;
+CREATE INDEX INDEXERNZBDOWNLOAD_TIME_ID_INDEX ON INDEXERNZBDOWNLOAD (TIME DESC, ID DESC);
@@ -0,0 +1,30 @@
+CREATE TABLE SEARCH_QUERY_TRIGRAM
+(
+  TRIGRAM  VARCHAR(3) NOT NULL,
+  ENTRY_ID INTEGER    NOT NULL,
+  PRIMARY KEY (TRIGRAM, ENTRY_ID)
+);
+CREATE INDEX SEARCH_QUERY_TRIGRAM_ENTRY_ID_INDEX ON SEARCH_QUERY_TRIGRAM (ENTRY_ID);
+
+CREATE TABLE DOWNLOAD_TITLE_TRIGRAM
+(
+  TRIGRAM  VARCHAR(3) NOT NULL,
+  ENTRY_ID INTEGER    NOT NULL,
+  PRIMARY KEY (TRIGRAM, ENTRY_ID)
+);
+CREATE INDEX DOWNLOAD_TITLE_TRIGRAM_ENTRY_ID_INDEX ON DOWNLOAD_TITLE_TRIGRAM (ENTRY_ID);
+
+CREATE TABLE HISTORY_TRIGRAM_COUNT
+(
+  NAME    VARCHAR(255) NOT NULL,
+  TRIGRAM VARCHAR(3)   NOT NULL,
+  ENTRIES INTEGER      NOT NULL,
+  PRIMARY KEY (NAME, TRIGRAM)
+);
+
+CREATE TABLE HISTORY_TEXT_INDEX_STATE
+(
+  NAME             VARCHAR(255) PRIMARY KEY NOT NULL,
+  INDEXED_UNTIL_ID INTEGER      NOT NULL,
+  INDEXED_ENTRIES  INTEGER      NOT NULL
+);
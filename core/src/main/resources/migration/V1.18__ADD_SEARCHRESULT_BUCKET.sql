@@ -0,0 +1,4 @@
+ALTER TABLE SEARCHRESULT ADD BUCKET INTEGER;
+-- FIRST_FOUND is saved in local time but the bucket is the UTC day (see SearchResultEntity.calculateBucket)
+UPDATE SEARCHRESULT SET BUCKET = DATEDIFF('DAY', DATE '1970-01-01', DATEADD('MINUTE', -EXTRACT(TIMEZONE_HOUR FROM CAST(FIRST_FOUND AS TIMESTAMP WITH TIME ZONE)) * 60 - EXTRACT(TIMEZONE_MINUTE FROM CAST(FIRST_FOUND AS TIMESTAMP WITH TIME ZONE)), FIRST_FOUND)) WHERE FIRST_FOUND IS NOT NULL;
+CREATE INDEX SEARCHRESULT_BUCKET_INDEX ON SEARCHRESULT (BUCKET);
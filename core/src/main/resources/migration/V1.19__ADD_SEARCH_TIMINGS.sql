@@ -0,0 +1 @@
+ALTER TABLE SEARCH ADD TIMINGS VARCHAR2(2000);
@@ -2001,8 +2001,6 @@ function downloadNzbzipButton() {
                 var values = _.map($scope.searchResults, function (value) {
                     return value.searchResultId;
                 });
-                var link = "internalapi/nzbzip";
-
                 var searchTitle;
                 if (angular.isDefined($scope.searchTitle)) {
                     searchTitle = " for " + $scope.searchTitle.replace("[^a-zA-Z0-9.-]", "_");
@@ -2010,22 +2008,22 @@ function downloadNzbzipButton() {
                     searchTitle = "";
                 }
                 var filename = "NZBHydra NZBs" + searchTitle + ".zip";
-                $http({method: "post", url: link, data: values}).then(function (response) {
-                    if (response.data.successful && response.data.zip !== null) {
-                        //FileDownloadService.sendFile($base64.decode(response.zip), filename);
-                        link = "internalapi/nzbzipDownload";
-                        FileDownloadService.downloadFile(link, filename, "POST", response.data.zipFilepath);
-                        if (angular.isDefined($scope.callback)) {
-                            $scope.callback({result: response.data.addedIds});
-                        }
+                //The NZBs are downloaded in parallel and written to a ZIP on the server which is then downloaded
+                $http({method: "post", url: "internalapi/nzbzip", data: values}).then(function (response) {
+                    if (response.data.successful && response.data.zipFilepath !== null) {
+                        FileDownloadService.downloadFile("internalapi/nzbzipDownload", filename, "POST", response.data.zipFilepath).then(function (successful) {
+                            if (successful && angular.isDefined($scope.callback)) {
+                                $scope.callback({result: response.data.addedIds});
+                            }
+                        });
                         if (response.data.missedIds.length > 0) {
-                            growl.error("Unable to add " + response.missedIds.length + " out of " + values.length + " NZBs to ZIP");
+                            growl.error("Unable to add " + response.data.missedIds.length + " out of " + values.length + " NZBs to ZIP");
                         }
                     } else {
                         growl.error(response.data.message);
                     }
-                }, function (data, status, headers, config) {
-                    growl.error(status);
+                }, function (response) {
+                    growl.error(response.status);
                 });
             }
         }
@@ -3083,6 +3081,15 @@ function getIndexerBoxFields(indexerModel, parentModel, isInitial, CategoriesSer
                 help: 'Supercedes the general timeout in "Searching"'
             }
         },
+        {
+            key: 'maxConcurrentSearches',
+            type: 'horizontalInput',
+            templateOptions: {
+                type: 'number',
+                label: 'Max concurrent searches',
+                help: 'Supercedes the general maximum of searches per indexer in "Searching"'
+            }
+        },
         {
             key: 'schedule',
             type: 'horizontalChips',
@@ -5340,6 +5347,26 @@ function ConfigFields($injector) {
                                 }
                             }
                         },
+                        {
+                            key: 'maxConcurrentIndexerSearches',
+                            type: 'horizontalInput',
+                            templateOptions: {
+                                type: 'number',
+                                label: 'Max concurrent searches',
+                                help: 'Maximum number of indexer searches running at the same time (over all searches). Further indexer searches are queued.',
+                                min: 1
+                            }
+                        },
+                        {
+                            key: 'maxConcurrentSearchesPerIndexer',
+                            type: 'horizontalInput',
+                            templateOptions: {
+                                type: 'number',
+                                label: 'Max searches per indexer',
+                                help: 'Maximum number of searches running against a single indexer at the same time. Can be overwritten per indexer.',
+                                min: 1
+                            }
+                        },
                         {
                             key: 'ignoreTemporarilyDisabled',
                             type: 'horizontalSwitch',
@@ -5824,6 +5851,19 @@ function ConfigFields($injector) {
                                 help: 'Show all cached results when searching internally. Might make sorting / filtering slower'
                             }
                         },
+                        {
+                            key: 'searchCacheSizeInMb',
+                            type: 'horizontalInput',
+                            templateOptions: {
+                                type: 'number',
+                                label: 'Search cache size',
+                                addonRight: {
+                                    text: 'MB'
+                                },
+                                help: 'Estimated memory used to cache search results for paging. Oldest results are removed when the limit is reached.',
+                                min: 1
+                            }
+                        },
                         {
                             wrapper: 'fieldset',
                             templateOptions: {
@@ -6880,6 +6920,14 @@ function SystemController($scope, $state, activeTab, $http, growl, RestartServic
         });
     };
 
+    $scope.loadDatabaseSize = function () {
+        $http.get('internalapi/maintenance/databasesize').then(function (response) {
+            $scope.databaseSize = response.data;
+        }, function () {
+            growl.error("Unable to load database size");
+        });
+    };
+
     $scope.executeSqlUpdate = function () {
         $http.post('internalapi/debuginfos/executesqlupdate', $scope.foo.sql).then(function (response) {
             if (response.data.successful) {
@@ -6912,8 +6960,9 @@ function StatsService($http) {
         });
     }
 
-    function getDownloadHistory(pageNumber, limit, filterModel, sortModel) {
-        var params = {page: pageNumber, limit: limit, filterModel: filterModel};
+    function getDownloadHistory(pageNumber, limit, filterModel, sortModel, lastId) {
+        //With the ID of the last entry of the previous page the entries before it don't need to be skipped
+        var params = {page: pageNumber, limit: limit, filterModel: filterModel, lastId: lastId, estimateTotal: true};
         if (angular.isUndefined(pageNumber)) {
             params.page = 1;
         }
@@ -6934,7 +6983,8 @@ function StatsService($http) {
         return $http.post("internalapi/history/downloads", params).then(function (response) {
             return {
                 nzbDownloads: response.data.content,
-                totalDownloads: response.data.totalElements
+                totalDownloads: response.data.totalElements,
+                lastId: response.data.lastId
             };
 
         });
@@ -7451,6 +7501,7 @@ function SearchService($http) {
         var numberOfProcessedResults = response.data.numberOfProcessedResults;
         var rejectedReasonsMap = response.data.rejectedReasonsMap;
         var notPickedIndexersWithReason = response.data.notPickedIndexersWithReason;
+        var timings = response.data.timings;
 
         lastResults = {
             "searchResults": searchResults,
@@ -7460,7 +7511,8 @@ function SearchService($http) {
             "numberOfRejectedResults": numberOfRejectedResults,
             "numberOfProcessedResults": numberOfProcessedResults,
             "rejectedReasonsMap": rejectedReasonsMap,
-            "notPickedIndexersWithReason": notPickedIndexersWithReason
+            "notPickedIndexersWithReason": notPickedIndexersWithReason,
+            "timings": timings
 
         };
         // console.timeEnd("searchonly");
@@ -7940,6 +7992,15 @@ function SearchResultsController($stateParams, $scope, $q, $timeout, $document,
         blockUI.reset();
     }
 
+    $scope.getTimingsTooltip = function (indexerName) {
+        if (!$scope.timings || !$scope.timings.indexerPhases[indexerName]) {
+            return "";
+        }
+        return _.map($scope.timings.indexerPhases[indexerName], function (millis, phase) {
+            return phase + ": " + millis + "ms";
+        }).join(", ");
+    };
+
     function setDataFromSearchResult(data, previousSearchResults) {
         allSearchResults = previousSearchResults.concat(data.searchResults);
         allSearchResults = uniq(allSearchResults);
@@ -7956,6 +8017,7 @@ function SearchResultsController($stateParams, $scope, $q, $timeout, $document,
         $scope.numberOfProcessedResults = data.numberOfProcessedResults;
         $scope.numberOfLoadedResults = allSearchResults.length;
         $scope.indexersearches = data.indexerSearchMetaDatas;
+        $scope.timings = data.timings;
 
         $scope.loadMoreEnabled = ($scope.numberOfLoadedResults + $scope.numberOfRejectedResults < $scope.numberOfAvailableResults) || _.any(data.indexerSearchMetaDatas, function (x) {
             return x.hasMoreResults;
@@ -8178,13 +8240,16 @@ function SearchHistoryService($filter, $http) {
         });
     }
 
-    function getSearchHistory(pageNumber, limit, filterModel, sortModel, distinct, onlyCurrentUser) {
+    function getSearchHistory(pageNumber, limit, filterModel, sortModel, distinct, onlyCurrentUser, lastId) {
+        //With the ID of the last entry of the previous page the entries before it don't need to be skipped
         var params = {
             page: pageNumber,
             limit: limit,
             filterModel: filterModel,
             distinct: distinct,
-            onlyCurrentUser: onlyCurrentUser
+            onlyCurrentUser: onlyCurrentUser,
+            lastId: lastId,
+            estimateTotal: true
         };
         if (angular.isUndefined(pageNumber)) {
             params.page = 1;
@@ -8206,7 +8271,8 @@ function SearchHistoryService($filter, $http) {
         return $http.post("internalapi/history/searches", params).then(function (response) {
             return {
                 searchRequests: response.data.content,
-                totalRequests: response.data.totalElements
+                totalRequests: response.data.totalElements,
+                lastId: response.data.lastId
             }
         });
     }
@@ -8354,6 +8420,7 @@ function SearchHistoryController($scope, $state, SearchHistoryService, ConfigSer
     //Preloaded data
     $scope.searchRequests = history.searchRequests;
     $scope.totalRequests = history.totalRequests;
+    var loadedPage = {number: 1, lastId: history.lastId};
 
     var anyUsername = false;
     var anyIp = false;
@@ -8393,9 +8460,13 @@ function SearchHistoryController($scope, $state, SearchHistoryService, ConfigSer
     }
 
     $scope.update = function () {
-        SearchHistoryService.getSearchHistory($scope.pagination.current, $scope.limit, $scope.filterModel, sortModel).then(function (history) {
+        var pageNumber = $scope.pagination.current;
+        //The last ID is only valid for the following page and if the sorting and filters are unchanged
+        var lastId = pageNumber === loadedPage.number + 1 ? loadedPage.lastId : undefined;
+        SearchHistoryService.getSearchHistory(pageNumber, $scope.limit, $scope.filterModel, sortModel, undefined, undefined, lastId).then(function (history) {
             $scope.searchRequests = history.searchRequests;
             $scope.totalRequests = history.totalRequests;
+            loadedPage = {number: pageNumber, lastId: history.lastId};
         });
     };
 
@@ -9979,8 +10050,10 @@ function FileDownloadService($http, growl) {
             document.body.appendChild(a);
             a.click();
             document.body.removeChild(a);
+            return true;
         }, function (data, status, headers, config) {
             growl.error(status);
+            return false;
         });
 
     }
@@ -10126,6 +10199,7 @@ function DownloadHistoryController($scope, StatsService, downloads, ConfigServic
     //Preloaded data
     $scope.nzbDownloads = downloads.nzbDownloads;
     $scope.totalDownloads = downloads.totalDownloads;
+    var loadedPage = {number: 1, lastId: downloads.lastId};
 
     $scope.columnSizes = {
         time: 10,
@@ -10165,9 +10239,13 @@ function DownloadHistoryController($scope, StatsService, downloads, ConfigServic
 
 
     $scope.update = function () {
-        StatsService.getDownloadHistory($scope.pagination.current, $scope.limit, $scope.filterModel, sortModel).then(function (downloads) {
+        var pageNumber = $scope.pagination.current;
+        //The last ID is only valid for the following page and if the sorting and filters are unchanged
+        var lastId = pageNumber === loadedPage.number + 1 ? loadedPage.lastId : undefined;
+        StatsService.getDownloadHistory(pageNumber, $scope.limit, $scope.filterModel, sortModel, lastId).then(function (downloads) {
             $scope.nzbDownloads = downloads.nzbDownloads;
             $scope.totalDownloads = downloads.totalDownloads;
+            loadedPage = {number: pageNumber, lastId: downloads.lastId};
         });
     };
 
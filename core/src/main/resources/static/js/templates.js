@@ -1,5 +1,5 @@
 angular.module('templates').run(['$templateCache', function($templateCache) {$templateCache.put('static/html/about.html','<div style="text-align: left; margin: auto; width: 800px">\r\n    Written by TheOtherP for the community.<br>\r\n    You can reach me via <a href="mailto:theotherp@gmx.de">mail</a> or <a\r\n        href="{{  \'https://www.reddit.com/user/TheOtherP/\' | dereferer}}">Reddit</a>\r\n    <br><br>\r\n    Sources, bugs, enhancements: <a href="{{ \'https://github.com/theotherp/nzbhydra2/\' | dereferer }}" target="_blank">https://github.com/theotherp/nzbhydra2</a>\r\n    <br><br>\r\n    You\'re welcome to send me:\r\n    <ul>\r\n        <li>Bitcoin via 1LPCUF9eKEXi58nHbxTbJyfxCJkcCXKzvm</li>\r\n        <li>Ether via 0xa6C33b4756D24027227C14285AfAeEE9a9738D42</li>\r\n        <li>Other coins like monero, ltc, etc. Just contact me for an address</li>\r\n    </ul>\r\n\r\n    Thanks to the handful of people who already donated!\r\n\r\n    <br><br>\r\n    Licensed under the Apache License, Version 2.0 (the "License");\r\n    you may not use this file except in compliance with the License.\r\n    You may obtain a copy of the License at\r\n\r\n    <a href="{{ \'http://www.apache.org/licenses/LICENSE-2.0\' | dereferer }}">http://www.apache.org/licenses/LICENSE-2.0</a>\r\n</div>');
-$templateCache.put('static/html/bugreport.html','<div style="text-align: left; margin: auto; width: 800px">\r\n\r\n\r\n    <div class="panel panel-default">\r\n        <div class="panel-heading">\r\n            <h3 class="panel-title">Bugreport / Debug infos</h3>\r\n        </div>\r\n        <div class="panel-body">\r\n            So you found a bug? Ideally <a href="https://github.com/theotherp/nzbhydra2/issues/new" target="_blank">raise\r\n            an issue on github</a>. If you don\'t have an account create one ;-) Otherwise\r\n            <a\r\n                    href="mailto:theotherp@gmx.de">send me a mail</a>.<br>\r\n            <b>But</b> please read this first:<br>\r\n            Don\'t just tell me what the problem is. If you just post an exception from the console or say "x does not\r\n            work" I probably won\'t be willing or able to help. Remember you want something\r\n            from\r\n            me.<br>\r\n            <ul>\r\n                <li>\r\n                    Tell me what you expect to happen and what actually happens\r\n                </li>\r\n                <li>\r\n                    If hydra doesn\'t even start, tell me your OS and how you start it.\r\n                </li>\r\n                <li>\r\n                    If the website looks weird tell me what browser you use. If you use a reverse proxy post your config\r\n                    and your base URL setting.\r\n                </li>\r\n                <li>\r\n                    If the GUI behaves strangely or doesn\'t react as it should check the browser console for errors.\r\n                </li>\r\n            </ul>\r\n            Tell me anything that might help. If you do all that I will do my best to help you and improve NZBHydra.\r\n\r\n            <br><br>\r\n            If possible provide the log and your settings. Here you can get anonymized versions of both to be\r\n            posted:<br>\r\n\r\n            <button class="btn btn-default" ng-click="downloadDebuggingInfos()">Log and settings</button>\r\n        </div>\r\n    </div>\r\n\r\n    <div class="panel panel-default">\r\n        <div class="panel-heading">\r\n            <h3 class="panel-title">Debug SQL execution</h3>\r\n        </div>\r\n        <div class="panel-body">\r\n            You may want to take a look at the settings to make sure there\'s nothing in there you wouldn\'t want me to\r\n            see.\r\n            <br><br><br>\r\n            You can use the input box below to execute any SQL query against the database. You will likely never need\r\n            this but it allows me to ask you to execute a query when I try to solve a bug.\r\n            <br>\r\n            <textarea class="form-control" rows="5" data-ng-model="foo.sql"></textarea>\r\n            <button class="btn btn-default" ng-click="executeSqlQuery()">Query</button>\r\n            <button class="btn btn-default" ng-click="executeSqlUpdate()">Execute</button>\r\n            <textarea class="form-control" rows="10" data-ng-model="foo.csv"></textarea>\r\n        </div>\r\n    </div>\r\n\r\n</div>');
+$templateCache.put('static/html/bugreport.html','<div style="text-align: left; margin: auto; width: 800px">\r\n\r\n\r\n    <div class="panel panel-default">\r\n        <div class="panel-heading">\r\n            <h3 class="panel-title">Bugreport / Debug infos</h3>\r\n        </div>\r\n        <div class="panel-body">\r\n            So you found a bug? Ideally <a href="https://github.com/theotherp/nzbhydra2/issues/new" target="_blank">raise\r\n            an issue on github</a>. If you don\'t have an account create one ;-) Otherwise\r\n            <a\r\n                    href="mailto:theotherp@gmx.de">send me a mail</a>.<br>\r\n            <b>But</b> please read this first:<br>\r\n            Don\'t just tell me what the problem is. If you just post an exception from the console or say "x does not\r\n            work" I probably won\'t be willing or able to help. Remember you want something\r\n            from\r\n            me.<br>\r\n            <ul>\r\n                <li>\r\n                    Tell me what you expect to happen and what actually happens\r\n                </li>\r\n                <li>\r\n                    If hydra doesn\'t even start, tell me your OS and how you start it.\r\n                </li>\r\n                <li>\r\n                    If the website looks weird tell me what browser you use. If you use a reverse proxy post your config\r\n                    and your base URL setting.\r\n                </li>\r\n                <li>\r\n                    If the GUI behaves strangely or doesn\'t react as it should check the browser console for errors.\r\n                </li>\r\n            </ul>\r\n            Tell me anything that might help. If you do all that I will do my best to help you and improve NZBHydra.\r\n\r\n            <br><br>\r\n            If possible provide the log and your settings. Here you can get anonymized versions of both to be\r\n            posted:<br>\r\n\r\n            <button class="btn btn-default" ng-click="downloadDebuggingInfos()">Log and settings</button>\r\n        </div>\r\n    </div>\r\n\r\n    <div class="panel panel-default">\r\n        <div class="panel-heading">\r\n            <h3 class="panel-title">Debug SQL execution</h3>\r\n        </div>\r\n        <div class="panel-body">\r\n            You may want to take a look at the settings to make sure there\'s nothing in there you wouldn\'t want me to\r\n            see.\r\n            <br><br><br>\r\n            You can use the input box below to execute any SQL query against the database. You will likely never need\r\n            this but it allows me to ask you to execute a query when I try to solve a bug.\r\n            <br>\r\n            <textarea class="form-control" rows="5" data-ng-model="foo.sql"></textarea>\r\n            <button class="btn btn-default" ng-click="executeSqlQuery()">Query</button>\r\n            <button class="btn btn-default" ng-click="executeSqlUpdate()">Execute</button>\r\n            <textarea class="form-control" rows="10" data-ng-model="foo.csv"></textarea>\r\n        </div>\r\n    </div>\r\n\r\n    <div class="panel panel-default">\r\n        <div class="panel-heading">\r\n            <h3 class="panel-title">Database size</h3>\r\n        </div>\r\n        <div class="panel-body">\r\n            Shows how much space the tables take in the database file. The sizes are estimated.\r\n            <br>\r\n            <button class="btn btn-default" ng-click="loadDatabaseSize()">Load</button>\r\n            <div ng-if="databaseSize">\r\n                <br>\r\n                File size: {{ databaseSize.fileSizeBytes | bytes }}, {{ databaseSize.fillRate }}% used\r\n                <span ng-if="databaseSize.lastCompaction">. Last compacted from {{ databaseSize.lastCompaction.sizeBeforeBytes | bytes }} to {{ databaseSize.lastCompaction.sizeAfterBytes | bytes }}</span>\r\n                <table class="table table-condensed">\r\n                    <thead>\r\n                    <tr>\r\n                        <th>Table</th>\r\n                        <th style="text-align: right">Rows (approx.)</th>\r\n                        <th style="text-align: right">Size (estimated)</th>\r\n                    </tr>\r\n                    </thead>\r\n                    <tbody>\r\n                    <tr ng-repeat="table in databaseSize.tables">\r\n                        <td>{{ table.name }}</td>\r\n                        <td style="text-align: right">{{ table.rows }}</td>\r\n                        <td style="text-align: right">{{ table.estimatedBytes | bytes }}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n            </div>\r\n        </div>\r\n    </div>\r\n\r\n</div>');
 $templateCache.put('static/html/changelog-modal.html','<div class="modal-header">\r\n    <h3 class="modal-title">Change log</h3>\r\n</div>\r\n<div class="modal-body" style="text-align: left">\r\n    <div class="list-group">\r\n        <li ng-repeat="entry in versionHistory" class="list-group-item"\r\n            style="padding-top: 20px; padding-bottom: 20px;">\r\n            <h3 style="margin-top: 0">{{::entry.version}}</h3>\r\n            <div ng-repeat="change in entry.changes" style="margin-bottom: 5px">\r\n                <span ng-switch="change.type" style="margin-right: 5px">\r\n                    <span class="label label-primary" ng-switch-when="note">Note</span>\r\n                    <span class="label label-warning" ng-switch-when="fix">Fix</span>\r\n                    <span class="label label-success" ng-switch-when="feature">Feature</span>\r\n                </span>\r\n                {{change.text}}\r\n            </div>\r\n        </li>\r\n    </div>\r\n</div>\r\n<div class="modal-footer">\r\n    <button class="btn btn-primary" type="button" ng-click="ok()">Great!</button>\r\n</div>\r\n');
 $templateCache.put('static/html/checker-state.html','<div class="modal-header">\r\n    <h3 class="modal-title">Checking caps... Please wait</h3>\r\n</div>\r\n<div class="modal-body" style="text-align: left;">\r\n    <img src="static/img/spinner.gif" ng-if="!messages"/>\r\n\r\n    <div ng-if="messages" style="text-align: left">\r\n\r\n        <ul style="padding-left: 0">\r\n            <li ng-repeat="message in messages" style="list-style-type: none">\r\n                {{message}}\r\n            </li>\r\n\r\n        </ul>\r\n        <img src="static/img/spinner.gif"/>\r\n\r\n    </div>\r\n\r\n</div>\r\n<div class="modal-footer">\r\n    <span style="float: left; margin-top: 5px">\r\n        This window will close automatically when the caps check is finished\r\n    </span>\r\n</div>\r\n');
 $templateCache.put('static/html/dirPagination.tpl.html','<ul class="pagination" ng-if="1 < pages.length || !autoHide">\r\n    <li ng-if="boundaryLinks" ng-class="{ disabled : pagination.current == 1 }">\r\n        <a href="" ng-click="setCurrent(1)">&laquo;</a>\r\n    </li>\r\n    <li ng-if="directionLinks" ng-class="{ disabled : pagination.current == 1 }">\r\n        <a href="" ng-click="setCurrent(pagination.current - 1)">&lsaquo;</a>\r\n    </li>\r\n    <li ng-repeat="pageNumber in pages track by tracker(pageNumber, $index)"\r\n        ng-class="{ active : pagination.current == pageNumber, disabled : pageNumber == \'...\' }">\r\n        <a href="" ng-click="setCurrent(pageNumber)">{{ pageNumber }}</a>\r\n    </li>\r\n\r\n    <li ng-if="directionLinks" ng-class="{ disabled : pagination.current == pagination.last }">\r\n        <a href="" ng-click="setCurrent(pagination.current + 1)">&rsaquo;</a>\r\n    </li>\r\n    <li ng-if="boundaryLinks" ng-class="{ disabled : pagination.current == pagination.last }">\r\n        <a href="" ng-click="setCurrent(pagination.last)">&raquo;</a>\r\n    </li>\r\n</ul>');
@@ -56,7 +56,7 @@ $templateCache.put('static/html/states/indexer-statuses.html','<table class="tab
 $templateCache.put('static/html/states/login.html','<div class="container-fluid">\n    <div class="row">\n        <div class="center-form panel">\n            <div class="panel-body">\n                <h2 class="text-center">Log in</h2>\n                <form method="post" ng-submit="login()" name="loginForm">\n                    <div class="form-group has-feedback">\n                        <input class="form-control input-lg" type="text" name="username" ng-model="user.username"\n                               placeholder="Username" required autofocus auto-focus>\n                        <span class="ion-at form-control-feedback"></span>\n                    </div>\n                    <div class="form-group has-feedback">\n                        <input class="form-control input-lg" type="password" name="password" ng-model="user.password"\n                               placeholder="Password" required>\n                        <span class="ion-key form-control-feedback"></span>\n                    </div>\n                    <button type="submit" ng-disabled="loginForm.$invalid" class="btn btn-lg  btn-block btn-success">Log\n                        in\n                    </button>\n                    You will be forwarded to the search area.\n                </form>\n            </div>\n        </div>\n    </div>\n</div>\n');
 $templateCache.put('static/html/states/main-stats.html','<pattern id="diagonalHatch" patternUnits="userSpaceOnUse" width="4" height="4">\r\n    <path d="M-1,1 l2,-2\r\n           M0,4 l4,-4\r\n           M3,5 l2,-2"></path>\r\n</pattern>\r\n<div class="row" style="margin-top: 30px; margin-bottom: 30px">\r\n    <div class="col-md-6" style="font-size: x-small; text-align: justify; text-justify: auto">\r\n        Disclaimer: Don\'t read too much into these stats. Which indexer is picked for a download depends on its score\r\n        and some more or less random values like posting time of the NZB.\r\n        Some indexers might have nightly downtime which would influence the percentage of successful accesses.\r\n    </div>\r\n    <div class="col-md-4">\r\n        <p class="input-group">\r\n            <span class="input-group-addon" id="after-addon">After</span>\r\n            <input type="text" class="form-control" uib-datepicker-popup ng-model="afterDate" is-open="after.opened"\r\n                   datepicker-options="dateOptions" ng-required="true" close-text="Close"\r\n                   ng-keypress="onKeypress($event)"/>\r\n            <span class="input-group-btn input-group-btn2">\r\n            <button type="button" class="btn btn-default" ng-click="openAfter()"><i\r\n                    class="glyphicon glyphicon-calendar"></i></button>\r\n          </span>\r\n        </p>\r\n    </div>\r\n    <div class="col-md-4">\r\n        <p class="input-group">\r\n            <span class="input-group-addon" id="before-addon">Before</span>\r\n            <input type="text" class="form-control" uib-datepicker-popup ng-model="beforeDate" is-open="before.opened"\r\n                   datepicker-options="dateOptions" ng-required="true" close-text="Close"\r\n                   ng-keypress="onKeypress($event)"/>\r\n            <span class="input-group-btn input-group-btn2">\r\n            <button type="button" class="btn btn-default" ng-click="openBefore()"><i\r\n                    class="glyphicon glyphicon-calendar"></i></button>\r\n          </span>\r\n        </p>\r\n    </div>\r\n    <div class="col-md-3">\r\n        <label>Show disabled indexers</label>\r\n        <input bs-switch type="checkbox" ng-model="foo.includeDisabledIndexersInStats"\r\n               switch-change="toggleIncludeDisabledIndexers()" switch-size="mini"/>\r\n    </div>\r\n    <div class="col-md-3">\r\n        <button type="button" class="btn btn-info" ng-click="refresh()">Refresh</button>\r\n    </div>\r\n</div>\r\n\r\n\r\n<div cg-busy="{promise:statsLoadingPromise,message:\'Calculating stats\', delay:100}">\r\n    <div class="row">\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                <input bs-switch type="checkbox" ng-model="foo.statsSwichState.avgResponseTimes" switch-size="mini"\r\n                       ng-change="onStatsSwitchToggle(\'avgResponseTimes\')">\r\n                </span>\r\n\r\n\r\n                Avg. response times <span class="glyphicon glyphicon-question-sign" tooltip-placement="auto top"\r\n                                          uib-tooltip="Response time is the time an API request takes, from start to completion of the web call"></span>\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.avgResponseTimes">\r\n                <table class="table">\r\n                    <thead>\r\n                    <tr>\r\n                        <th>Indexer</th>\r\n                        <th>Avg. response time</th>\r\n                        <th>Delta</th>\r\n                    </tr>\r\n                    </thead>\r\n                    <tbody>\r\n                    <tr ng-repeat="avgResponseTime in stats.avgResponseTimes">\r\n                        <td>{{ avgResponseTime.indexer }}</td>\r\n                        <td>{{ avgResponseTime.avgResponseTime }}</td>\r\n                        <td>{{ avgResponseTime.delta }}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n\r\n                <chart>\r\n                    <nvd3 options="avgResponseTimesChart.options" data="avgResponseTimesChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n        </div>\r\n\r\n\r\n        <div class="col-md-10 stat-box">\r\n            Indexer search stats are currently disabled due to performance issues. They will be reenabled in a later\r\n            version.\r\n            <!--\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time" tooltip-placement="auto top">\r\n                <input bs-switch type="checkbox" ng-model="foo.statsSwichState.avgIndexerSearchResultsShares" switch-size="mini" ng-change="onStatsSwitchToggle(\'avgIndexerSearchResultsShares\')">\r\n                </span>\r\n                Average results <span class="glyphicon glyphicon-question-sign" tooltip-placement="auto top"\r\n                                      uib-tooltip="How many results the indexer on average contributed to specific searches (i.e. update queries e.g. for the latest releases in a specific category are ignored)"></span>\r\n                and average unique results <span class="glyphicon glyphicon-question-sign" tooltip-placement="auto top-right"\r\n                                                 uib-tooltip-html="\'How many of the results the indexer contributed to searches were unique (only returned by this indexer). <br>Results from raw search engines are excluded because they would be misleading.\'"></span>\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.avgIndexerSearchResultsShares">\r\n                <table class="table">\r\n                    <thead>\r\n                    <tr>\r\n                        <th>Indexer</th>\r\n                        <th>Avg. results (%)\r\n                        </th>\r\n                        <th>Avg. unique results (%)</th>\r\n                    </tr>\r\n                    </thead>\r\n                    <tbody>\r\n                    <tr ng-repeat="avgIndexerSearchResultsShare in stats.avgIndexerSearchResultsShares">\r\n                        <td>{{ avgIndexerSearchResultsShare.indexerName }}</td>\r\n                        <td>{{ avgIndexerSearchResultsShare.totalShare | number: 1}}</td>\r\n                        <td>{{ avgIndexerSearchResultsShare.uniqueShare | number: 1}}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n                <chart>\r\n                    <nvd3 options="resultsSharesChart.options" data="resultsSharesChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n-->\r\n        </div>\r\n    </div>\r\n\r\n    <div class="row">\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                <input bs-switch type="checkbox" ng-model="foo.statsSwichState.indexerApiAccessStats" switch-size="mini"\r\n                       ng-change="onStatsSwitchToggle(\'indexerApiAccessStats\')">\r\n                </span>\r\n                <caption>Indexer API accesses <span class="glyphicon glyphicon-question-sign" tooltip-placement="top"\r\n                                                    uib-tooltip="An API access is considered failed only when the indexer could not be reached, not if auth was unsuccessful or Hydra had an unexpected error. The average calculation only spans the time since the first search with the indexer."></span>\r\n                </caption>\r\n            </div>\r\n            <table class="table" style="margin-top: 9px" ng-show="foo.statsSwichState.indexerApiAccessStats">\r\n                <thead>\r\n                <tr>\r\n                    <th>Indexer</th>\r\n                    <th>Avg. per day</th>\r\n                    <th>% successful</th>\r\n                    <th>% failed</th>\r\n                </tr>\r\n                </thead>\r\n                <tbody>\r\n                <tr ng-repeat="avgIndexerAccessSuccess in stats.indexerApiAccessStats">\r\n                    <td>{{ avgIndexerAccessSuccess.indexerName }}</td>\r\n                    <td>{{ avgIndexerAccessSuccess.averageAccessesPerDay | number: 0 }}</td>\r\n                    <td>{{ avgIndexerAccessSuccess.percentSuccessful | number: 0}}</td>\r\n                    <td>{{ avgIndexerAccessSuccess.percentConnectionError | number: 0 }}</td>\r\n                </tr>\r\n                </tbody>\r\n            </table>\r\n        </div>\r\n\r\n\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                <input bs-switch type="checkbox" ng-model="foo.statsSwichState.indexerDownloadShares" switch-size="mini"\r\n                       ng-change="onStatsSwitchToggle(\'indexerDownloadShares\')">\r\n                </span>\r\n                NZB downloads per indexer <span class="glyphicon glyphicon-question-sign" tooltip-placement="top"\r\n                                                uib-tooltip="Only downloads by enabled indexers are taken into account and displayed"></span></caption>\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.indexerDownloadShares">\r\n                <table class="table">\r\n                    <thead>\r\n                    <tr>\r\n                        <th>Indexer</th>\r\n                        <th>Total</th>\r\n                        <th>% of all enabled</th>\r\n                    </tr>\r\n                    </thead>\r\n                    <tbody>\r\n                    <tr ng-repeat="indexerDownloads in stats.indexerDownloadShares">\r\n                        <td>{{ indexerDownloads.indexerName }}</td>\r\n                        <td>{{ indexerDownloads.total | number: 0}}</td>\r\n                        <td>{{ indexerDownloads.share | number: 0 }}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n\r\n                <chart>\r\n                    <nvd3 options="indexerDownloadSharesChart.options" data="indexerDownloadSharesChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n\r\n\r\n        </div>\r\n    </div>\r\n\r\n    <div class="row">\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                <input bs-switch type="checkbox" ng-model="foo.statsSwichState.downloadsPerAgeStats" switch-size="mini"\r\n                       ng-change="onStatsSwitchToggle(\'downloadsPerAgeStats\')">\r\n                </span>\r\n                NZB downloads per age (in 100 day steps, all downloads)\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.downloadsPerAgeStats">\r\n                <table class="table">\r\n                    <tbody>\r\n                    <tr>\r\n                        <td>Average age</td>\r\n                        <td>{{ stats.downloadsPerAgeStats.averageAge}}</td>\r\n                    </tr>\r\n                    <tr>\r\n                        <td>% older than 1000 days</td>\r\n                        <td>{{ stats.downloadsPerAgeStats.percentOlder1000 | number : 1}}</td>\r\n                    </tr>\r\n                    <tr>\r\n                        <td>% older than 2000 days</td>\r\n                        <td>{{ stats.downloadsPerAgeStats.percentOlder2000 | number : 1}}</td>\r\n                    </tr>\r\n                    <tr>\r\n                        <td>% older than 3000 days</td>\r\n                        <td>{{ stats.downloadsPerAgeStats.percentOlder3000 | number : 1}}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n\r\n                <chart class="downloadsPerAge">\r\n                    <nvd3 options="downloadsPerAgeChart.options" data="downloadsPerAgeChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n        </div>\r\n\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                <input bs-switch type="checkbox" ng-model="foo.statsSwichState.successfulDownloadsPerIndexer"\r\n                       switch-size="mini" ng-change="onStatsSwitchToggle(\'successfulDownloadsPerIndexer\')">\r\n                    </span>\r\n                Successful downloads per indexer <span class="glyphicon glyphicon-question-sign" tooltip-placement="top"\r\n                                                       uib-tooltip="Only works if user scripts report the actual download result of a NZB\'s content. Shows percentage of successful downloads of all downloads with reported status."></span>\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.successfulDownloadsPerIndexer">\r\n                <table class="table">\r\n                    <thead>\r\n                    <th>Indexer</th>\r\n                    <th>% of successful downloads</th>\r\n                    <th># of all downloads</th>\r\n                    <th># of successful downloads</th>\r\n                    <th># of unsuccessful downloads</th>\r\n                    </thead>\r\n                    <tbody>\r\n                    <tr ng-repeat="stat in stats.successfulDownloadsPerIndexer">\r\n                        <td>{{ stat.indexerName}}</td>\r\n                        <td>{{ stat.percentSuccessful | number : 1}}</td>\r\n                        <td>{{ stat.countAll | number : 0}}</td>\r\n                        <td>{{ stat.countSuccessful | number : 0}}</td>\r\n                        <td>{{ stat.countError | number : 0}}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n\r\n                <chart class="successfulDownloadsPerIndexerChart">\r\n                    <nvd3 options="successfulDownloadsPerIndexerChart.options"\r\n                          data="successfulDownloadsPerIndexerChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n\r\n        </div>\r\n    </div>\r\n\r\n\r\n    <div class="row">\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                    <input bs-switch type="checkbox" ng-model="foo.statsSwichState.searchSharesPerUser"\r\n                           switch-size="mini" ng-change="onStatsSwitchToggle(\'searchSharesPerUser\')">\r\n                    </span>\r\n\r\n                Searches per username\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.searchSharesPerUser">\r\n                <table class="table">\r\n                    <thead>\r\n                    <tr>\r\n                        <th>User</th>\r\n                        <th>Percentage</th>\r\n                        <th>Count</th>\r\n                    </tr>\r\n                    </thead>\r\n                    <tbody>\r\n                    <tr ng-repeat="stat in stats.searchSharesPerUser">\r\n                        <td>{{ stat.key }}</td>\r\n                        <td>{{ stat.percentage | number : 1}}</td>\r\n                        <td>{{ stat.count }}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n\r\n                <chart class="searchSharesPerUserChart">\r\n                    <nvd3 options="searchSharesPerUserChart.options" data="searchSharesPerUserChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n        </div>\r\n\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                    <input bs-switch type="checkbox" ng-model="foo.statsSwichState.downloadSharesPerUser"\r\n                           switch-size="mini" ng-change="onStatsSwitchToggle(\'downloadSharesPerUser\')">\r\n                </span>\r\n                Downloads per username\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.downloadSharesPerUser">\r\n                <table class="table">\r\n                    <thead>\r\n                    <tr>\r\n                        <th>User</th>\r\n                        <th>Percentage</th>\r\n                        <th>Count</th>\r\n                    </tr>\r\n                    </thead>\r\n                    <tbody>\r\n                    <tr ng-repeat="stat in downloadSharesPerUser">\r\n                        <td>{{ stat.user }}</td>\r\n                        <td>{{ stat.percentage | number : 1}}</td>\r\n                        <td>{{ stat.count}}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n\r\n                <chart class="downloadSharesPerUserChart">\r\n                    <nvd3 options="downloadSharesPerUserChart.options" data="downloadSharesPerUserChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n        </div>\r\n    </div>\r\n\r\n    <div class="row">\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                    <input bs-switch type="checkbox" ng-model="foo.statsSwichState.searchSharesPerIp" switch-size="mini"\r\n                           ng-change="onStatsSwitchToggle(\'searchSharesPerIp\')">\r\n                    </span>\r\n\r\n                Searches per IP\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.searchSharesPerIp">\r\n                <table class="table">\r\n                    <thead>\r\n                    <tr>\r\n                        <th>IP</th>\r\n                        <th>Percentage</th>\r\n                        <th>Count</th>\r\n                    </tr>\r\n                    </thead>\r\n                    <tbody>\r\n                    <tr ng-repeat="stat in stats.searchSharesPerIp">\r\n                        <td>{{ stat.key }}</td>\r\n                        <td>{{ stat.percentage | number : 1}}</td>\r\n                        <td>{{ stat.count }}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n\r\n                <chart class="searchSharesPerIpChart">\r\n                    <nvd3 options="searchSharesPerIpChart.options" data="searchSharesPerIpChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n        </div>\r\n\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                    <input bs-switch type="checkbox" ng-model="foo.statsSwichState.downloadSharesPerIp"\r\n                           switch-size="mini" ng-change="onStatsSwitchToggle(\'downloadSharesPerIp\')">\r\n                </span>\r\n                Downloads per IP\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.downloadSharesPerIp">\r\n                <table class="table">\r\n                    <thead>\r\n                    <tr>\r\n                        <th>IP</th>\r\n                        <th>Percentage</th>\r\n                        <th>Count</th>\r\n                    </tr>\r\n                    </thead>\r\n                    <tbody>\r\n                    <tr ng-repeat="stat in downloadSharesPerIp">\r\n                        <td>{{ stat.key }}</td>\r\n                        <td>{{ stat.percentage | number : 1}}</td>\r\n                        <td>{{ stat.count}}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n\r\n                <chart class="downloadSharesPerIpChart">\r\n                    <nvd3 options="downloadSharesPerIpChart.options" data="downloadSharesPerIpChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n        </div>\r\n    </div>\r\n\r\n    <div class="row">\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                    <input bs-switch type="checkbox" ng-model="foo.statsSwichState.userAgentSearchShares"\r\n                           switch-size="mini" ng-change="onStatsSwitchToggle(\'userAgentSearchShares\')">\r\n                </span>\r\n                API Searches per user agent <span class="glyphicon glyphicon-question-sign" tooltip-placement="auto top"\r\n                                                  uib-tooltip="Some tools don\'t use specific user agents. They will most likely show up as \'Mozilla\' or as \'Other\'"></span>\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.userAgentSearchShares">\r\n                <table class="table">\r\n                    <thead>\r\n                    <tr>\r\n                        <th>User agent</th>\r\n                        <th>Percentage</th>\r\n                        <th>Count</th>\r\n                    </tr>\r\n                    </thead>\r\n                    <tbody>\r\n                    <tr ng-repeat="stat in stats.userAgentSearchShares">\r\n                        <td>{{ stat.userAgent }}</td>\r\n                        <td>{{ stat.percentage | number : 1}}</td>\r\n                        <td>{{ stat.count }}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n\r\n                <chart class="userAgentSearchSharesChart">\r\n                    <nvd3 options="userAgentSearchSharesChart.options" data="userAgentSearchSharesChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n        </div>\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                    <input bs-switch type="checkbox" ng-model="foo.statsSwichState.userAgentDownloadShares"\r\n                           switch-size="mini" ng-change="onStatsSwitchToggle(\'userAgentDownloadShares\')">\r\n                </span>\r\n                API downloads per user agent <span class="glyphicon glyphicon-question-sign"\r\n                                                   tooltip-placement="auto top"\r\n                                                   uib-tooltip="Some tools don\'t use specific user agents. They will most likely show up as \'Mozilla\' or as \'Other\'"></span>\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.userAgentDownloadShares">\r\n                <table class="table">\r\n                    <thead>\r\n                    <tr>\r\n                        <th>User agent</th>\r\n                        <th>Percentage</th>\r\n                        <th>Count</th>\r\n                    </tr>\r\n                    </thead>\r\n                    <tbody>\r\n                    <tr ng-repeat="stat in stats.userAgentDownloadShares">\r\n                        <td>{{ stat.userAgent }}</td>\r\n                        <td>{{ stat.percentage | number : 1}}</td>\r\n                        <td>{{ stat.count }}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n\r\n                <chart class="userAgentDownloadSharesChart">\r\n                    <nvd3 options="userAgentDownloadSharesChart.options"\r\n                          data="userAgentDownloadSharesChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n        </div>\r\n\r\n\r\n    </div>\r\n\r\n\r\n    <div class="row">\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                    <input bs-switch type="checkbox" ng-model="foo.statsSwichState.searchesPerDayOfWeek"\r\n                           switch-size="mini" ng-change="onStatsSwitchToggle(\'searchesPerDayOfWeek\')">\r\n                </span>\r\n                Searches per day of week\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.searchesPerDayOfWeek">\r\n                <table class="table">\r\n                    <thead>\r\n                    <tr>\r\n                        <th>Day of the week</th>\r\n                        <th>Searches</th>\r\n                    </tr>\r\n                    </thead>\r\n                    <tbody>\r\n                    <tr ng-repeat="stat in stats.searchesPerDayOfWeek">\r\n                        <td>{{ stat.day }}</td>\r\n                        <td>{{ stat.count }}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n\r\n                <chart class="weeklyChart">\r\n                    <nvd3 options="searchesPerDayOfWeekChart.options" data="searchesPerDayOfWeekChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n        </div>\r\n\r\n\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                    <input bs-switch type="checkbox" ng-model="foo.statsSwichState.searchesPerHourOfDay"\r\n                           switch-size="mini" ng-change="onStatsSwitchToggle(\'searchesPerHourOfDay\')">\r\n                </span>\r\n                Searches per hour of day\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.searchesPerHourOfDay">\r\n                <table>\r\n                    <table class="table">\r\n                        <thead>\r\n                        <tr>\r\n                            <th>Hour of the day</th>\r\n                            <th>Searches</th>\r\n                        </tr>\r\n                        </thead>\r\n                        <tbody>\r\n                        <tr ng-repeat="stat in stats.searchesPerHourOfDay">\r\n                            <td>{{ stat.hour }}</td>\r\n                            <td>{{ stat.count }}</td>\r\n                        </tr>\r\n                        </tbody>\r\n                    </table>\r\n                </table>\r\n\r\n                <chart class="dailyChart">\r\n                    <nvd3 options="searchesPerHourOfDayChart.options" data="searchesPerHourOfDayChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n\r\n        </div>\r\n    </div>\r\n\r\n\r\n    <div class="row">\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                    <input bs-switch type="checkbox" ng-model="foo.statsSwichState.downloadsPerDayOfWeek"\r\n                           switch-size="mini" ng-change="onStatsSwitchToggle(\'downloadsPerDayOfWeek\')">\r\n                </span>\r\n                NZB downloads per day of week\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.downloadsPerDayOfWeek">\r\n                <table class="table">\r\n                    <thead>\r\n                    <tr>\r\n                        <th>Day of the week</th>\r\n                        <th>Downloads</th>\r\n                    </tr>\r\n                    </thead>\r\n                    <tbody>\r\n                    <tr ng-repeat="stat in stats.downloadsPerDayOfWeek">\r\n                        <td>{{ stat.day }}</td>\r\n                        <td>{{ stat.count }}</td>\r\n                    </tr>\r\n                    </tbody>\r\n                </table>\r\n\r\n                <chart class="weeklyChart">\r\n                    <nvd3 options="downloadsPerDayOfWeekChart.options" data="downloadsPerDayOfWeekChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n        </div>\r\n\r\n\r\n        <div class="col-md-10 stat-box">\r\n            <div class="caption">\r\n                <span uib-tooltip="Hiding a stat will disable its calculation and may improve overall loading time"\r\n                      tooltip-placement="auto top">\r\n                    <input bs-switch type="checkbox" ng-model="foo.statsSwichState.downloadsPerHourOfDay"\r\n                           switch-size="mini" ng-change="onStatsSwitchToggle(\'downloadsPerHourOfDay\')">\r\n                </span>\r\n                NZB downloads per hour of day\r\n            </div>\r\n            <tab-or-chart display="chart" ng-show="foo.statsSwichState.downloadsPerHourOfDay">\r\n                <table>\r\n                    <table class="table">\r\n                        <thead>\r\n                        <tr>\r\n                            <th>Hour of the day</th>\r\n                            <th>Downloads</th>\r\n                        </tr>\r\n                        </thead>\r\n                        <tbody>\r\n                        <tr ng-repeat="stat in stats.downloadsPerHourOfDay">\r\n                            <td>{{ stat.hour }}</td>\r\n                            <td>{{ stat.count }}</td>\r\n                        </tr>\r\n                        </tbody>\r\n                    </table>\r\n                </table>\r\n\r\n                <chart class="dailyChart">\r\n                    <nvd3 options="downloadsPerHourOfDayChart.options" data="downloadsPerHourOfDayChart.data"></nvd3>\r\n                </chart>\r\n            </tab-or-chart>\r\n        </div>\r\n    </div>\r\n\r\n\r\n</div>');
 $templateCache.put('static/html/states/search-history.html','<div id="content">\r\n    <div class="row" style="margin-top: 30px; margin-bottom: 20px">\r\n        <div class="col-md-5"></div>\r\n        <div class="col-md-10" style="text-align: center">\r\n            <dir-pagination-controls on-page-change="update()" pagination-id="searches"></dir-pagination-controls>\r\n        </div>\r\n    </div>\r\n    <table class="table">\r\n        <thead>\r\n        <tr>\r\n            <th class="col-md-2" style="width: {{columnSizes.time}}%;">\r\n                <column-sortable column="time" style="width: 10%" reversed="false" start-mode="2">Time\r\n                </column-sortable>\r\n                <column-filter-wrapper>\r\n                    <time-filter column="time" selected="preselectedTimeInterval"/>\r\n                </column-filter-wrapper>\r\n            </th>\r\n            <th class="col-md-8" style="width: {{columnSizes.query}}%">\r\n                <column-sortable column="query" reversed="false" start-mode="1">Query\r\n                </column-sortable>\r\n                <column-filter-wrapper>\r\n                    <freetext-filter column="query"/>\r\n                </column-filter-wrapper>\r\n            </th>\r\n            <th style="width: {{columnSizes.category}}%">\r\n                <column-sortable column="category_name" reversed="false" start-mode="1">Category\r\n                </column-sortable>\r\n                <column-filter-wrapper>\r\n                    <checkboxes-filter column="category_name" entries="categoriesForFiltering" preselect="true"\r\n                                       show-invert="true"/>\r\n                </column-filter-wrapper>\r\n            </th>\r\n            <th style="width: {{columnSizes.additionalParameters}}%">\r\n                Additional parameters\r\n            </th>\r\n            <th class="col-md-1" style="width: {{columnSizes.source}}%">\r\n                <column-sortable column="source" reversed="false" start-mode="1">Source\r\n                </column-sortable>\r\n                <column-filter-wrapper>\r\n                    <boolean-filter column="source" options="accessOptionsForFiltering" preselect="0"/>\r\n                </column-filter-wrapper>\r\n            </th>\r\n            <th class="col-md-2" style="width: {{columnSizes.username}}%" ng-if="columnSizes.username > 0">\r\n                <column-sortable column="username" reversed="false" start-mode="1">User</column-sortable>\r\n                <column-filter-wrapper>\r\n                    <freetext-filter column="username"/>\r\n                </column-filter-wrapper>\r\n            </th>\r\n            <th class="col-md-2" style="width: {{columnSizes.ip}}%" ng-if="columnSizes.ip > 0">\r\n                <column-sortable column="ip" reversed="false" start-mode="1">IP</column-sortable>\r\n                <column-filter-wrapper>\r\n                    <freetext-filter column="ip"/>\r\n                </column-filter-wrapper>\r\n            </th>\r\n            <th>Details</th>\r\n        </tr>\r\n        </thead>\r\n        <tbody>\r\n        <tr dir-paginate="request in searchRequests | itemsPerPage: limit" total-items="totalRequests"\r\n            current-page="pagination.current" pagination-id="searches">\r\n            <td class="narrow-row">{{ request.time | reformatDate }}</td>\r\n            <td class="narrow-row">\r\n                <a href="" ng-click="openSearch(request)"\r\n                   uib-tooltip="Repeat this search with all currently enabled indexers." tooltip-placement="top"\r\n                   tooltip-trigger="mouseenter"\r\n                ><span class="glyphicon glyphicon-search"></span></a>\r\n                <span ng-class="{\'history-title\': request.title != null || (request.query == null && request.identifiers.length === 0 && request.season ==null && request.episode ==null)}">\r\n                    {{ formatQuery(request) }}\r\n                </span>\r\n            </td>\r\n            <td class="narrow-row">{{ ::request.categoryName }}</td>\r\n            <td class="narrow-row" ng-bind-html="formatAdditional(request)"></td>\r\n            <td class="narrow-row">{{ ::request.source === "INTERNAL" ? "Internal" : "API"}}</td>\r\n            <td class="narrow-row" ng-if="columnSizes.username > 0">{{ ::request.username }}</td>\r\n            <td class="narrow-row" ng-if="columnSizes.ip > 0">{{ ::request.ip }}</td>\r\n            <td class="narrow-row"><span ng-click="showDetails(request.id)" class="glyphicon glyphicon-eye-open"></span>\r\n            </td>\r\n        </tr>\r\n        </tbody>\r\n    </table>\r\n    <dir-pagination-controls on-page-change="pageChanged(newPageNumber)"\r\n                             pagination-id="searches"></dir-pagination-controls>\r\n\r\n</div>');
-$templateCache.put('static/html/states/search-results.html','<span ng-show="doShowResults">\n<div class="row" ng-if="indexersearches.length" style="margin-top: 25px">\n\n    <div class="col-md-5"></div>\n    <div class="col-md-10" style="padding-right: 0px">\n        <uib-accordion close-others="oneAtATime" id="search-results-accordion">\n            <div uib-accordion-group panel-class="panel-indexer-statuses" is-open="foo.indexerStatusesExpanded"\n                 is-disabled="true" class="">\n                <uib-accordion-heading>\n                    <span class="indexer-statuses-accordion">\n                        <span ng-click="toggleIndexerStatuses()">Indexer statuses</span><span ng-if="countRejected > 0"> / Rejected results</span> <i\n                            class="pull-right glyphicon"\n                            ng-class="{\'glyphicon-chevron-down\': foo.indexerStatusesExpanded, \'glyphicon-chevron-right\': !foo.indexerStatusesExpanded}"\n                            ng-click="toggleIndexerStatuses()"></i>\n                    </span>\n                </uib-accordion-heading>\n                <table class="table">\n                    <thead>\n                    <tr>\n                        <th class="col-md-6 text-left">\n                            Indexer\n                        </th>\n                        <th class="col-md-2 text-left">\n                            Results\n                        </th>\n                        <th class="col-md-4 text-left">\n                            Response time\n                        </th>\n                        <th class="col-md-9 text-left">\n                            Status\n                        </th>\n                    </tr>\n                    </thead>\n                    <tbody>\n                        <tr ng-repeat-start="ps in indexersearches " ng-if="0"></tr>\n                        <!-- First result in the list, show regularly -->\n                        <tr>\n                            <td class="text-left">\n                                {{ ::ps.indexerName }}\n                            </td>\n                            <td class="text-left">\n                                <span ng-if="::ps.didSearch">\n                                    <span ng-if="::!ps.totalResultsKnown && ps.numberOfAvailableResults > 0">&gt;</span>{{ ::ps.numberOfAvailableResults }}\n                                </span>\n                                    </td>\n                                    <td class="text-left">\n                                <span ng-if="::ps.didSearch">\n                                    {{ ::ps.responseTime }}ms\n                                </span>\n                                    </td>\n                                    <td class="text-left">\n                                <span ng-if="::ps.didSearch">\n                                    <span class="glyphicon"\n                                          ng-class="{\'glyphicon-ok\' : ps.wasSuccessful, \'glyphicon-remove\' : !ps.wasSuccessful}"></span>\n                                    <span ng-if="::!ps.wasSuccessful">{{ ::ps.errorMessage }}</span>\n                                </span>\n\n                                <span ng-if="::!ps.didSearch">Did not search.</span>\n                            </td>\n                        </tr>\n                        <tr ng-repeat-end ng-if="0"></tr>\n\n\n                        <tr ng-repeat-start="ps in ::notPickedIndexersWithReason" ng-if="0"></tr>\n                        <tr>\n                            <td class="text-left">\n                                {{ ::ps.indexer }}\n                            </td>\n                            <td class="text-left">\n                            </td>\n                            <td class="text-left">\n                            </td>\n                            <td class="text-left">\n                                <span class="glyphicon glyphicon-minus"></span>\n                                {{::ps.reason}}\n                            </td>\n                        </tr>\n                        <tr ng-repeat-end ng-if="0"></tr>\n                    </tbody>\n                </table>\n\n                <table class="table" style="margin-bottom: 0px; margin-top: 5px" ng-if="countRejected > 0">\n                    <thead>\n                        <tr>\n                            <th class="col-md-5 text-left">\n                            </th>\n                            <th class="col-md-5 text-left" style="text-align: right">\n                                Reject reason\n                            </th>\n                            <th class="col-md-5 text-left">\n                                Count\n                            </th>\n                            <th class="col-md-5 text-left">\n                            </th>\n                        </tr>\n                    </thead>\n                    <tbody>\n                    <tr ng-repeat="entry in rejected | filter: filterRejectedZero(entry)">\n                        <td>\n                        </td>\n                        <td style="text-align: right">\n                            {{ entry[0] }}\n                        </td>\n                        <td>\n                            {{ entry[1] }}\n                        </td>\n                        <td>\n                        </td>\n                    </tr>\n                    </tbody>\n                </table>\n            </div>\n        </uib-accordion>\n    </div>\n</div>\n\n<div class="row" ng-if="::indexersearches.length == 0" style="margin-top: 50px">\n    <div class="well">\n        <h2>No indexers were picked for this search</h2>\n        <div style="width: 520px; margin: auto;text-align: left;">\n            Reasons:\n            <ul style="padding-left: 15px">\n                <li ng-repeat="tuple in ::notPickedIndexersWithReason">{{::tuple.indexer}}: {{::tuple.reason}}</li>\n            </ul>\n        </div>\n    </div>\n</div>\n\n<div class="row"\n     ng-if="::indexersearches.length > 0 && (numberOfAvailableResults === 0 || numberOfAcceptedResults === 0)"\n     style="margin-top: 50px" id="no-search-results">\n    <div class="well">\n        <h2 ng-if="!anyIndexersSearchedSuccessfully">Unable to search any indexer successfully; no results available</h2>\n        <h2 ng-if="!anyResultsRejected && anyIndexersSearchedSuccessfully">No results were found for this search</h2>\n        <h2 ng-if="anyResultsRejected">No (non-rejected) results were found for this search</h2>\n    </div>\n</div>\n<div class="row" ng-if="::indexersearches.length > 0 && numberOfAvailableResults > 0 && numberOfAcceptedResults > 0"\n     style="margin-top: 10px">\n    <div class="col-md-8" style="text-align: left;">\n        <span id="display-options"\n              multiselect-dropdown options="optionsOptions" selected-model="optionsSelectedModel"\n              settings="optionsExtraSettings" events="optionsEvents"\n        ></span>\n\n        <span selection-button invert-selection="invertSelection" select-all="selectAll" deselect-all="deselectAll"\n              id="search-results-selection-button"></span>\n        <download-nzbs-button search-results="selected" callback="downloadNzbsCallback(result)"></download-nzbs-button>\n        <download-nzbzip-button search-results="selected" search-title="searchTitle"\n                                callback="downloadNzbsCallback(result)"></download-nzbzip-button>\n    </div>\n\n    <div class="col-md-4" style="margin-top: 20px">\n        <dir-pagination-controls auto-hide="false" max-size="5"></dir-pagination-controls>\n    </div>\n    <div class="col-md-8" style="text-align: right;">\n\n\n        <div style="margin-top:20px; margin-bottom:20px;">\n            <span class="badge"\n                  uib-tooltip-html="getRejectedReasonsTooltip()"\n                  tooltip-class="rejected-tooltip"\n                  tooltip-placement="top"\n                  tooltip-trigger="click"\n            >\n                <span ng-if="numberOfLoadedResults <= numberOfAvailableResults">\n                    Loaded {{ numberOfLoadedResults }} of <span ng-if="totalAvailableUnknown">&gt;</span>{{ numberOfAvailableResults }} results (rejected {{ numberOfRejectedResults }})\n                </span>\n                <span ng-if="numberOfLoadedResults > numberOfAvailableResults">\n                Loaded all {{ numberOfLoadedResults }} results (rejected {{ numberOfRejectedResults }})\n                </span>\n            </span>\n\n            <div class="btn-group">\n                <!--Add tooltip div to body to prevent div being insert in btn-group and changing layout because more children are there -->\n                <button class="btn btn-default" ng-click="loadMore(false)" ng-disabled="!loadMoreEnabled"\n                        tooltip-append-to-body="true"\n                        uib-tooltip="Click to load more results from the indexers. May reset some filters"\n                        tooltip-placement="top"\n                        tooltip-trigger="mouseenter"\n                >Load more\n                </button>\n                <button type="button" class="btn btn-default dropdown-toggle" data-toggle="dropdown"\n                        aria-haspopup="true" aria-expanded="false" ng-disabled="!loadMoreEnabled">\n                    <span class="caret"></span>\n                    <span class="sr-only">Toggle Dropdown</span>\n                </button>\n                <ul class="dropdown-menu">\n                    <li><a href="#" ng-click="loadMore(true)"\n                           uib-tooltip="Click to load all of the results from the indexers. May take a while and a lot of API requests..."\n                           tooltip-placement="top"\n                           tooltip-trigger="mouseenter"\n                    >Load all results</a></li>\n                </ul>\n            </div>\n\n        </div>\n    </div>\n\n    <div class="row" ng-if="::(isShowFilterButtons && (isShowFilterButtonsMovie || isShowFilterButtonsTv))">\n        <div class="col-md-5">\n        </div>\n        <div class="col-md-10">\n            <div class="btn-toolbar" role="toolbar" style="margin: auto; display:inline-block">\n                <div class="btn-group btn-group-xs" role="group" ng-if="isShowFilterButtonsMovie">\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.camts" uib-btn-checkbox>CAM /\n                        TS\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.web" uib-btn-checkbox>WEB\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.dvd" uib-btn-checkbox>DVD\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.bluray" uib-btn-checkbox>\n                        Blu-Ray\n                    </button>\n                </div>\n                <div class="btn-group btn-group-xs" role="group" ng-if="isShowFilterButtonsTv">\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.tv" uib-btn-checkbox>TV\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.web" uib-btn-checkbox>WEB\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.dvd" uib-btn-checkbox>DVD\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.bluray" uib-btn-checkbox>\n                        Blu-Ray\n                    </button>\n                </div>\n                <div class="btn-group btn-group-xs" role="group">\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.quality.q480p" uib-btn-checkbox>480p\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.quality.q720p" uib-btn-checkbox>720p\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.quality.q1080p" uib-btn-checkbox>\n                        1080p\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.quality.q2160p" uib-btn-checkbox>\n                        2160p\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.quality.q3d" uib-btn-checkbox>3D\n                    </button>\n                </div>\n            </div>\n        </div>\n    </div>\n\n    <table class="search-results-table table">\n        <thead class="search-results-header">\n        <tr class="search-results-header-row">\n            <th class="col-md-12 cursor-default search-results-cell result-title">\n                <column-sortable column="title" reversed="false" start-mode="1">Title\n                </column-sortable>\n                <column-filter-wrapper inline="true">\n                    <freetext-filter column="title" on-key="true" id="title-filter" placeholder="Filter results"\n                                     tooltip="Filter in title words. Prepend words with ! to exclude them"\n                                     no-focus="true"/>\n                </column-filter-wrapper>\n            </th>\n            <th class="col-md-1 cursor-default search-results-cell result-indexer"\n                style="vertical-align: top; text-align: right">\n                <column-sortable column="indexer" reversed="false" start-mode="1">Indexer\n                </column-sortable>\n                <column-filter-wrapper>\n                    <checkboxes-filter column="indexer" entries="indexersForFiltering" preselect="true"\n                                       show-invert="true" id="indexer-filter"/>\n                </column-filter-wrapper>\n            </th>\n            <th class="col-md-1 cursor-default search-results-cell result-category"\n                style="vertical-align: top; text-align: right">\n                <column-sortable column="category" reversed="false" start-mode="1">Category\n                </column-sortable>\n                <column-filter-wrapper>\n                    <checkboxes-filter column="category" entries="categoriesForFiltering" preselect="true"\n                                       show-invert="true" id="category-filter"/>\n                </column-filter-wrapper>\n            </th>\n            <th class="col-md-1 cursor-default search-results-cell result-size"\n                style="vertical-align: top; text-align: right">\n                <column-sortable column="size" reversed="false" start-mode="2">Size\n                </column-sortable>\n                <column-filter-wrapper>\n                    <number-range-filter column="size" addon="MB" id="size-filter"/>\n                </column-filter-wrapper>\n            </th>\n            <th class="col-md-1 cursor-default search-results-cell result-details"\n                style="vertical-align: top; text-align: right"\n                tooltip-append-to-body="true"\n                uib-tooltip="Displays grabs and for torrents also seeders / peers, with sort and filter effecting seeders if available, otherwise grabs. You can enable that or filtering and sorting the sum of all values is used (see display options)"\n                tooltip-placement="top"\n                tooltip-trigger="mouseenter"\n            >\n                <column-sortable column="grabs" reversed="false" start-mode="2">Details\n                </column-sortable>\n                <column-filter-wrapper>\n                    <number-range-filter column="grabs" id="grabs-filter"/>\n                </column-filter-wrapper>\n            </th>\n            <th class="col-md-1 cursor-default search-results-cell result-age"\n                style="vertical-align: top; text-align: right">\n                <column-sortable column="epoch" reversed="true" start-mode="2">Age\n                </column-sortable>\n                <column-filter-wrapper>\n                    <number-range-filter column="epoch" addon="days" id="age-filter"/>\n                </column-filter-wrapper>\n            </th>\n            <th class="col-md-3 search-results-cell result-links" style="vertical-align: top">\n                Links\n            </th>\n        </tr>\n        </thead>\n\n       <tbody dir-paginate-start="result in filteredResults | itemsPerPage:limitTo track by result.searchResultId"\n              ng-show="0"></tbody>\n        <tbody search-result result="result" on-finish-render class="search-result-tbody"></tbody>\n        <tbody dir-paginate-end ng-show="0"></tbody>\n\n    </table>\n    <dir-pagination-controls auto-hide="false"></dir-pagination-controls>\n</div>\n</span>');
+$templateCache.put('static/html/states/search-results.html','<span ng-show="doShowResults">\n<div class="row" ng-if="indexersearches.length" style="margin-top: 25px">\n\n    <div class="col-md-5"></div>\n    <div class="col-md-10" style="padding-right: 0px">\n        <uib-accordion close-others="oneAtATime" id="search-results-accordion">\n            <div uib-accordion-group panel-class="panel-indexer-statuses" is-open="foo.indexerStatusesExpanded"\n                 is-disabled="true" class="">\n                <uib-accordion-heading>\n                    <span class="indexer-statuses-accordion">\n                        <span ng-click="toggleIndexerStatuses()">Indexer statuses</span><span ng-if="countRejected > 0"> / Rejected results</span> <i\n                            class="pull-right glyphicon"\n                            ng-class="{\'glyphicon-chevron-down\': foo.indexerStatusesExpanded, \'glyphicon-chevron-right\': !foo.indexerStatusesExpanded}"\n                            ng-click="toggleIndexerStatuses()"></i>\n                    </span>\n                </uib-accordion-heading>\n                <table class="table">\n                    <thead>\n                    <tr>\n                        <th class="col-md-6 text-left">\n                            Indexer\n                        </th>\n                        <th class="col-md-2 text-left">\n                            Results\n                        </th>\n                        <th class="col-md-4 text-left">\n                            Response time\n                        </th>\n                        <th class="col-md-9 text-left">\n                            Status\n                        </th>\n                    </tr>\n                    </thead>\n                    <tbody>\n                        <tr ng-repeat-start="ps in indexersearches " ng-if="0"></tr>\n                        <!-- First result in the list, show regularly -->\n                        <tr>\n                            <td class="text-left">\n                                {{ ::ps.indexerName }}\n                            </td>\n                            <td class="text-left">\n                                <span ng-if="::ps.didSearch">\n                                    <span ng-if="::!ps.totalResultsKnown && ps.numberOfAvailableResults > 0">&gt;</span>{{ ::ps.numberOfAvailableResults }}\n                                </span>\n                                    </td>\n                                    <td class="text-left">\n                                <span ng-if="::ps.didSearch" title="{{ getTimingsTooltip(ps.indexerName) }}">\n                                    {{ ::ps.responseTime }}ms\n                                </span>\n                                    </td>\n                                    <td class="text-left">\n                                <span ng-if="::ps.didSearch">\n                                    <span class="glyphicon"\n                                          ng-class="{\'glyphicon-ok\' : ps.wasSuccessful, \'glyphicon-remove\' : !ps.wasSuccessful}"></span>\n                                    <span ng-if="::!ps.wasSuccessful">{{ ::ps.errorMessage }}</span>\n                                </span>\n\n                                <span ng-if="::!ps.didSearch">Did not search.</span>\n                            </td>\n                        </tr>\n                        <tr ng-repeat-end ng-if="0"></tr>\n\n\n                        <tr ng-repeat-start="ps in ::notPickedIndexersWithReason" ng-if="0"></tr>\n                        <tr>\n                            <td class="text-left">\n                                {{ ::ps.indexer }}\n                            </td>\n                            <td class="text-left">\n                            </td>\n                            <td class="text-left">\n                            </td>\n                            <td class="text-left">\n                                <span class="glyphicon glyphicon-minus"></span>\n                                {{::ps.reason}}\n                            </td>\n                        </tr>\n                        <tr ng-repeat-end ng-if="0"></tr>\n                    </tbody>\n                </table>\n\n                <table class="table" style="margin-bottom: 0px; margin-top: 5px" ng-if="countRejected > 0">\n                    <thead>\n                        <tr>\n                            <th class="col-md-5 text-left">\n                            </th>\n                            <th class="col-md-5 text-left" style="text-align: right">\n                                Reject reason\n                            </th>\n                            <th class="col-md-5 text-left">\n                                Count\n                            </th>\n                            <th class="col-md-5 text-left">\n                            </th>\n                        </tr>\n                    </thead>\n                    <tbody>\n                    <tr ng-repeat="entry in rejected | filter: filterRejectedZero(entry)">\n                        <td>\n                        </td>\n                        <td style="text-align: right">\n                            {{ entry[0] }}\n                        </td>\n                        <td>\n                            {{ entry[1] }}\n                        </td>\n                        <td>\n                        </td>\n                    </tr>\n                    </tbody>\n                </table>\n            </div>\n        </uib-accordion>\n    </div>\n</div>\n\n<div class="row" ng-if="::indexersearches.length == 0" style="margin-top: 50px">\n    <div class="well">\n        <h2>No indexers were picked for this search</h2>\n        <div style="width: 520px; margin: auto;text-align: left;">\n            Reasons:\n            <ul style="padding-left: 15px">\n                <li ng-repeat="tuple in ::notPickedIndexersWithReason">{{::tuple.indexer}}: {{::tuple.reason}}</li>\n            </ul>\n        </div>\n    </div>\n</div>\n\n<div class="row"\n     ng-if="::indexersearches.length > 0 && (numberOfAvailableResults === 0 || numberOfAcceptedResults === 0)"\n     style="margin-top: 50px" id="no-search-results">\n    <div class="well">\n        <h2 ng-if="!anyIndexersSearchedSuccessfully">Unable to search any indexer successfully; no results available</h2>\n        <h2 ng-if="!anyResultsRejected && anyIndexersSearchedSuccessfully">No results were found for this search</h2>\n        <h2 ng-if="anyResultsRejected">No (non-rejected) results were found for this search</h2>\n    </div>\n</div>\n<div class="row" ng-if="::indexersearches.length > 0 && numberOfAvailableResults > 0 && numberOfAcceptedResults > 0"\n     style="margin-top: 10px">\n    <div class="col-md-8" style="text-align: left;">\n        <span id="display-options"\n              multiselect-dropdown options="optionsOptions" selected-model="optionsSelectedModel"\n              settings="optionsExtraSettings" events="optionsEvents"\n        ></span>\n\n        <span selection-button invert-selection="invertSelection" select-all="selectAll" deselect-all="deselectAll"\n              id="search-results-selection-button"></span>\n        <download-nzbs-button search-results="selected" callback="downloadNzbsCallback(result)"></download-nzbs-button>\n        <download-nzbzip-button search-results="selected" search-title="searchTitle"\n                                callback="downloadNzbsCallback(result)"></download-nzbzip-button>\n    </div>\n\n    <div class="col-md-4" style="margin-top: 20px">\n        <dir-pagination-controls auto-hide="false" max-size="5"></dir-pagination-controls>\n    </div>\n    <div class="col-md-8" style="text-align: right;">\n\n\n        <div style="margin-top:20px; margin-bottom:20px;">\n            <span class="badge"\n                  uib-tooltip-html="getRejectedReasonsTooltip()"\n                  tooltip-class="rejected-tooltip"\n                  tooltip-placement="top"\n                  tooltip-trigger="click"\n            >\n                <span ng-if="numberOfLoadedResults <= numberOfAvailableResults">\n                    Loaded {{ numberOfLoadedResults }} of <span ng-if="totalAvailableUnknown">&gt;</span>{{ numberOfAvailableResults }} results (rejected {{ numberOfRejectedResults }})\n                </span>\n                <span ng-if="numberOfLoadedResults > numberOfAvailableResults">\n                Loaded all {{ numberOfLoadedResults }} results (rejected {{ numberOfRejectedResults }})\n                </span>\n            </span>\n\n            <div class="btn-group">\n                <!--Add tooltip div to body to prevent div being insert in btn-group and changing layout because more children are there -->\n                <button class="btn btn-default" ng-click="loadMore(false)" ng-disabled="!loadMoreEnabled"\n                        tooltip-append-to-body="true"\n                        uib-tooltip="Click to load more results from the indexers. May reset some filters"\n                        tooltip-placement="top"\n                        tooltip-trigger="mouseenter"\n                >Load more\n                </button>\n                <button type="button" class="btn btn-default dropdown-toggle" data-toggle="dropdown"\n                        aria-haspopup="true" aria-expanded="false" ng-disabled="!loadMoreEnabled">\n                    <span class="caret"></span>\n                    <span class="sr-only">Toggle Dropdown</span>\n                </button>\n                <ul class="dropdown-menu">\n                    <li><a href="#" ng-click="loadMore(true)"\n                           uib-tooltip="Click to load all of the results from the indexers. May take a while and a lot of API requests..."\n                           tooltip-placement="top"\n                           tooltip-trigger="mouseenter"\n                    >Load all results</a></li>\n                </ul>\n            </div>\n\n        </div>\n    </div>\n\n    <div class="row" ng-if="::(isShowFilterButtons && (isShowFilterButtonsMovie || isShowFilterButtonsTv))">\n        <div class="col-md-5">\n        </div>\n        <div class="col-md-10">\n            <div class="btn-toolbar" role="toolbar" style="margin: auto; display:inline-block">\n                <div class="btn-group btn-group-xs" role="group" ng-if="isShowFilterButtonsMovie">\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.camts" uib-btn-checkbox>CAM /\n                        TS\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.web" uib-btn-checkbox>WEB\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.dvd" uib-btn-checkbox>DVD\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.bluray" uib-btn-checkbox>\n                        Blu-Ray\n                    </button>\n                </div>\n                <div class="btn-group btn-group-xs" role="group" ng-if="isShowFilterButtonsTv">\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.tv" uib-btn-checkbox>TV\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.web" uib-btn-checkbox>WEB\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.dvd" uib-btn-checkbox>DVD\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.source.bluray" uib-btn-checkbox>\n                        Blu-Ray\n                    </button>\n                </div>\n                <div class="btn-group btn-group-xs" role="group">\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.quality.q480p" uib-btn-checkbox>480p\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.quality.q720p" uib-btn-checkbox>720p\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.quality.q1080p" uib-btn-checkbox>\n                        1080p\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.quality.q2160p" uib-btn-checkbox>\n                        2160p\n                    </button>\n                    <button type="button" class="btn btn-default filter-button" ng-change="onFilterButtonsModelChange()"\n                            uncheckable ng-model="filterButtonsModel.quality.q3d" uib-btn-checkbox>3D\n                    </button>\n                </div>\n            </div>\n        </div>\n    </div>\n\n    <table class="search-results-table table">\n        <thead class="search-results-header">\n        <tr class="search-results-header-row">\n            <th class="col-md-12 cursor-default search-results-cell result-title">\n                <column-sortable column="title" reversed="false" start-mode="1">Title\n                </column-sortable>\n                <column-filter-wrapper inline="true">\n                    <freetext-filter column="title" on-key="true" id="title-filter" placeholder="Filter results"\n                                     tooltip="Filter in title words. Prepend words with ! to exclude them"\n                                     no-focus="true"/>\n                </column-filter-wrapper>\n            </th>\n            <th class="col-md-1 cursor-default search-results-cell result-indexer"\n                style="vertical-align: top; text-align: right">\n                <column-sortable column="indexer" reversed="false" start-mode="1">Indexer\n                </column-sortable>\n                <column-filter-wrapper>\n                    <checkboxes-filter column="indexer" entries="indexersForFiltering" preselect="true"\n                                       show-invert="true" id="indexer-filter"/>\n                </column-filter-wrapper>\n            </th>\n            <th class="col-md-1 cursor-default search-results-cell result-category"\n                style="vertical-align: top; text-align: right">\n                <column-sortable column="category" reversed="false" start-mode="1">Category\n                </column-sortable>\n                <column-filter-wrapper>\n                    <checkboxes-filter column="category" entries="categoriesForFiltering" preselect="true"\n                                       show-invert="true" id="category-filter"/>\n                </column-filter-wrapper>\n            </th>\n            <th class="col-md-1 cursor-default search-results-cell result-size"\n                style="vertical-align: top; text-align: right">\n                <column-sortable column="size" reversed="false" start-mode="2">Size\n                </column-sortable>\n                <column-filter-wrapper>\n                    <number-range-filter column="size" addon="MB" id="size-filter"/>\n                </column-filter-wrapper>\n            </th>\n            <th class="col-md-1 cursor-default search-results-cell result-details"\n                style="vertical-align: top; text-align: right"\n                tooltip-append-to-body="true"\n                uib-tooltip="Displays grabs and for torrents also seeders / peers, with sort and filter effecting seeders if available, otherwise grabs. You can enable that or filtering and sorting the sum of all values is used (see display options)"\n                tooltip-placement="top"\n                tooltip-trigger="mouseenter"\n            >\n                <column-sortable column="grabs" reversed="false" start-mode="2">Details\n                </column-sortable>\n                <column-filter-wrapper>\n                    <number-range-filter column="grabs" id="grabs-filter"/>\n                </column-filter-wrapper>\n            </th>\n            <th class="col-md-1 cursor-default search-results-cell result-age"\n                style="vertical-align: top; text-align: right">\n                <column-sortable column="epoch" reversed="true" start-mode="2">Age\n                </column-sortable>\n                <column-filter-wrapper>\n                    <number-range-filter column="epoch" addon="days" id="age-filter"/>\n                </column-filter-wrapper>\n            </th>\n            <th class="col-md-3 search-results-cell result-links" style="vertical-align: top">\n                Links\n            </th>\n        </tr>\n        </thead>\n\n       <tbody dir-paginate-start="result in filteredResults | itemsPerPage:limitTo track by result.searchResultId"\n              ng-show="0"></tbody>\n        <tbody search-result result="result" on-finish-render class="search-result-tbody"></tbody>\n        <tbody dir-paginate-end ng-show="0"></tbody>\n\n    </table>\n    <dir-pagination-controls auto-hide="false"></dir-pagination-controls>\n</div>\n</span>');
 $templateCache.put('static/html/states/search.html','<script type="text/ng-template" id="autocompleteTemplate.html">\r\n    <a>\r\n        <img src="{{ match.model.posterUrl }}" ng-if="match.model.posterUrl" style="width: 50px"> {{ match.model.title\r\n        }} <span ng-if="match.model.year">( {{ match.model.year }} )</span>\r\n    </a>\r\n</script>\r\n<div ng-if="::availableIndexers.length == 0">\r\n    <div class="row">\r\n        <div class="col-md-5"></div>\r\n        <div class="col-md-10 alert alert-info" role="alert">\r\n            No indexers are configured or enabled. Please go to the <a ui-sref="root.config.indexers"\r\n                                                                       style="text-decoration: underline">indexer\r\n            configuration</a> and add or enable some.\r\n        </div>\r\n        <div class="col-md-5"></div>\r\n    </div>\r\n</div>\r\n\r\n<div ng-show="::availableIndexers.length > 0">\r\n    <div class="row">\r\n        <div class="col-md-3"></div>\r\n\r\n        <div class="">\r\n            <form class="form-horizontal">\r\n                <div class="form-group">\r\n\r\n                    <label class="col-sm-2 control-label">Search</label>\r\n\r\n                    <div class="col-sm-10">\r\n                        <div class="input-group">\r\n                        <span class="input-group-btn input-group-btn2">\r\n                              <button type="button" class="btn btn-default dropdown-toggle search-category-button"\r\n                                      data-toggle="dropdown" aria-expanded="false" id="searchCategoryDropdownButton"\r\n                                      ng-cloak>\r\n                                  {{ category.name }} <span class="caret"></span>\r\n                              </button>\r\n                                <ul class="dropdown-menu dropdown-menu-right" role="menu"\r\n                                    style="right: auto; top:initial; margin:0px;">\r\n                                    \r\n                                    <li ng-repeat="category in categories">\r\n                                        <a href="" class="searchCategoryButton search-category-option"\r\n                                           ng-click="toggleCategory(category)">{{ category.name }}</a>\r\n                                    </li>\r\n                                </ul>\r\n                              \r\n                            </span>\r\n\r\n                            <span class="input-group-addon by-id-checkbox" ng-if="isAskById"\r\n                                  uib-tooltip="If enabled the search is done using an ID from TheTVDB or IMDB. The ID is retrieved using autocomplete."\r\n                                  tooltip-placement="top"\r\n                                  tooltip-trigger="mouseenter"\r\n                                  style="border-right-width: 0; width: 40px">\r\n                                <input type="checkbox" name="by-id" id="by-id" ng-model="isById.value"\r\n                                       style="margin-top:0;">\r\n                            </span>\r\n\r\n                            <div class="input-group-addon"\r\n                                 style="border-right-style: none; max-width: 250px; overflow: hidden; text-overflow: ellipsis"\r\n                                 ng-show="selectedItem">\r\n                                <button style="position: relative; top: -11px; right:-12px; font-size: xx-small; float: right; z-index: 1000; margin: 0; padding: 0; border: none; background-color: unset"\r\n                                        ng-click="clearAutocomplete()" id="clear-autocomplete-button">\r\n                                    <span class="glyphicon glyphicon-remove" style="font-size: xx-small;"></span>\r\n                                </button>\r\n                                <span id="selected-item-title">\r\n                              {{selectedItem.title}}\r\n                                    </span>\r\n                            </div>\r\n                            <input id="searchfield" type="search" ngtype="search" ng-model="query"\r\n                                   ng-enter="onTypeAheadEnter()" placeholder="Search" typeahead-min-length="2"\r\n                                   typeahead-wait-ms="typeAheadWait" ng-keydown="onTypeAheadKeyDown($event)"\r\n                                   uib-typeahead="item as item.label for item in getAutocomplete($viewValue)"\r\n                                   typeahead-template-url="autocompleteTemplate.html"\r\n                                   ng-class="{\'autocompleteLoading\': (loadingItems && autocompleteActive), \'search-border\': !seriesSelected}"\r\n                                   typeahead-loading="loadingItems"\r\n                                   typeahead-on-select="selectAutocompleteItem($item)" class="form-control"\r\n                                   focus-on="focus-query-box"\r\n                                   uib-tooltip="{{searchBoxTooltip}}"\r\n                                   tooltip-placement="top"\r\n                                   tooltip-trigger="mouseenter"\r\n                            >\r\n                            <span class="input-group-btn" style="width:40px;" ng-show="seriesSelected()">\r\n                              <input type="text" class="form-control season-input" placeholder="S" name="season"\r\n                                     id="seriesSearchS" style="width:40px; " ng-model="season"\r\n                                     ng-enter="initiateSearch()"\r\n                                     uib-tooltip="Enter a season to search for."\r\n                                     tooltip-placement="top"\r\n                                     tooltip-trigger="mouseenter">\r\n                            </span>\r\n                            <span class="input-group-btn" style="width:40px;" ng-show="seriesSelected()">\r\n                              <input type="text" class="form-control episode-input" placeholder="E" name="episode"\r\n                                     id="seriesSearchE" style="width:40px;" ng-model="episode"\r\n                                     ng-enter="initiateSearch()"\r\n                                     uib-tooltip="Enter an episode to search for."\r\n                                     tooltip-placement="top"\r\n                                     tooltip-trigger="mouseenter">\r\n                            </span>\r\n                            <span class="input-group-btn input-group-btn1">\r\n                            <div class="btn-group" uib-dropdown is-open="status.isopen">\r\n                              <button id="history-dropdown-button" type="button" class="btn btn-default"\r\n                                      uib-dropdown-toggle\r\n                                      ng-enter="initiateSearch()"\r\n                                      uib-tooltip="Search history"\r\n                                      tooltip-placement="top"\r\n                                      tooltip-trigger="mouseenter"\r\n                              >\r\n                                <span class="glyphicon glyphicon-time" style="margin-right: 3px"></span><span\r\n                                      class="caret"></span>\r\n                                </button>\r\n                                    <ul class="dropdown-menu" uib-dropdown-menu\r\n                                        template-url="static/html/search-searchhistory-dropdown.html"\r\n                                        aria-labelledby="button-template-url">\r\n                                    </ul>\r\n                                </div>\r\n                            </span>\r\n\r\n                            <span class="input-group-btn input-group-btn2" style="width:51px;">\r\n                                <button class="btn btn-default" type="button" id="startsearch"\r\n                                        ng-click="initiateSearch()">Go!</button>\r\n                            </span>\r\n                        </div>\r\n                    </div>\r\n                </div>\r\n            </form>\r\n\r\n            <span ng-if="::showIndexerSelection">\r\n            <div class="col-md-3"></div>\r\n            <form class="form-horizontal">\r\n                <div class="form-group">\r\n                    <label class="col-sm-2 control-label">Indexers</label>\r\n\r\n                    <div class="col-md-10">\r\n                        <div class="input-group" style="padding-top: 10px;">\r\n                            <span indexer-selection-button available-indexers="availableIndexers"\r\n                                  selected-indexers="selectedIndexers" class="indexer-selection-button">\r\n                            </span>\r\n                            <span style="margin-right: 10px;"></span>\r\n                            <label ng-repeat="indexer in availableIndexers">\r\n                                <input type="checkbox" ng-class="{\'indexer-checkbox\': $index > 0}"\r\n                                       class="indexer-selection-checkbox" data-checklist-model="selectedIndexers"\r\n                                       data-checklist-value="indexer.name" indexer-name="{{indexer.name}}"> {{ indexer.name }}\r\n                            </label>\r\n\r\n                        </div>\r\n                    </div>\r\n                </div>\r\n            </form>\r\n        </span>\r\n\r\n            <div class="col-md-3"></div>\r\n            <form class="form-horizontal">\r\n                <div class="form-group">\r\n                    <label class="col-sm-2 control-label">Age</label>\r\n\r\n                    <div class="col-sm-3" style="width: 11%">\r\n                        <div class="input-group">\r\n                            <span class="input-group-addon">Min</span>\r\n                            <input type="number" class="form-control" id="minage" ng-model="minage" style="width: 90px"\r\n                                   ng-enter="startSearch()"\r\n                                   ng-model-options=\'{ debounce: 500 }\'>\r\n                        </div>\r\n                    </div>\r\n                    <div class="col-sm-3" style="width: 11%">\r\n                        <div class="input-group">\r\n                            <span class="input-group-addon">Max</span>\r\n                            <input type="number" class="form-control" id="maxage" ng-model="maxage" style="width: 90px"\r\n                                   ng-enter="startSearch()"\r\n                                   ng-model-options=\'{ debounce: 500 }\'>\r\n                        </div>\r\n                    </div>\r\n                    <label class="col-sm-5 control-label" style="width:5%">Size</label>\r\n\r\n                    <div class="col-sm-3" style="width: 11%">\r\n                        <div class="input-group">\r\n                            <span class="input-group-addon">Min</span>\r\n                            <input type="number" class="form-control" id="minsize" ng-model="minsize"\r\n                                   style="width: 90px" ng-enter="startSearch()"\r\n                                   ng-model-options=\'{ debounce: 500 }\'>\r\n                        </div>\r\n                    </div>\r\n                    <div class="col-sm-3" style="width: 11%">\r\n                        <div class="input-group">\r\n                            <span class="input-group-addon">Max</span>\r\n                            <input type="number" class="form-control" id="maxsize" ng-model="maxsize"\r\n                                   style="width: 90px" ng-enter="startSearch()"\r\n                                   ng-model-options=\'{ debounce: 500 }\'>\r\n                        </div>\r\n                    </div>\r\n                </div>\r\n            </form>\r\n\r\n        </div>\r\n\r\n        <div class="col-md-3"></div>\r\n    </div>\r\n\r\n    <!-- Search results go here -->\r\n    <div ui-view="results"></div>');
 $templateCache.put('static/html/states/stats.html','<ul class="nav nav-tabs" role="tablist">\r\n    <li role="presentation" ui-sref-active="active"><a ui-sref="root.stats.searches" role="tab">Search history</a></li>\r\n    <li role="presentation" ui-sref-active="active"><a ui-sref="root.stats.downloads" role="tab">Download history</a>\r\n    </li>\r\n    <li role="presentation" ui-sref-active="active"><a ui-sref="root.stats.indexers" role="tab">Indexer statuses</a>\r\n    </li>\r\n    <li role="presentation" ui-sref-active="active"><a ui-sref="root.stats.main" role="tab">Stats</a></li>\r\n</ul>\r\n\r\n<div ui-view="stats"></div>\r\n');
 $templateCache.put('static/html/states/system.html','<ul class="nav nav-tabs" role="tablist">\n    <li ng-repeat="tab in allTabs" ng-class="{\'active\': $index == activeTab}">\n        <a href="" ng-click="goToSystemState($index)">{{ tab.name }}</a>\n    </li>\n</ul>\n\n<div class="tab-content" style="text-align: center">\n\n    <div class="system-tab-content" ng-if="activeTab==0">\n        <button class="btn btn-default" type="button" ng-click="shutdown()">Shutdown</button>\n        <button class="btn btn-default" type="button" ng-click="restart()">Restart</button>\n        <br>\n        <button class="btn btn-info" type="button" ng-click="reloadConfig()" style="margin-top: 20px">Reload config from\n            file\n        </button>\n        <br>\n        <button class="btn btn-info" type="button" ng-click="migrate()" style="margin-top: 20px">Migrate from NZBHydra\n            1\n        </button>\n    </div>\n\n    <div class="system-tab-content" ng-if="activeTab==1">\n        <hydraupdates></hydraupdates>\n    </div>\n\n    <div class="system-tab-content" ng-if="activeTab==2">\n        <hydralog></hydralog>\n    </div>\n\n    <div class="system-tab-content" ng-if="activeTab==3">\n        <hydra-tasks></hydra-tasks>\n    </div>\n\n    <div class="system-tab-content" ng-if="activeTab==4" style="text-align: center">\n        <hydrabackup></hydrabackup>\n    </div>\n\n    <div class="system-tab-content" ng-if="activeTab==5">\n        <ng-include src="\'static/html/bugreport.html\'"></ng-include>\n    </div>\n\n    <div class="system-tab-content" ng-if="activeTab==6" style="text-align: left">\n        <hydra-news></hydra-news>\n    </div>\n\n    <div class="system-tab-content" ng-if="activeTab==7">\n        <ng-include src="\'static/html/about.html\'"></ng-include>\n    </div>\n</div>\n\n');}]);
\ No newline at end of file
@@ -190,6 +190,22 @@ public class ExternalApiTest {
         assertThat(responseEntity.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_XML);
     }
 
+    @Test
+    public void shouldAddTimingsHeaderIfEnabled() throws Exception {
+        when(newznabXmlTransformerMock.getRssRoot(any(), any(), anyInt(), any())).thenReturn(new NewznabXmlRoot());
+        NewznabParameters parameters = new NewznabParameters();
+        parameters.setQ("q1");
+        parameters.setApikey("apikey");
+        parameters.setT(ActionAttribute.SEARCH);
+
+        ResponseEntity<?> responseEntity = testee.api(parameters);
+        assertThat(responseEntity.getHeaders().containsKey(ExternalApi.TIMINGS_HEADER)).isFalse();
+
+        testee.timingsHeader = true;
+        responseEntity = testee.api(parameters);
+        assertThat(responseEntity.getHeaders().getFirst(ExternalApi.TIMINGS_HEADER)).matches("total=\\d+ transformation=\\d+");
+    }
+
 
     protected NewznabParameters getNewznabParameters(String q1) {
         NewznabParameters parameters = new NewznabParameters();
@@ -44,6 +44,26 @@ public class BaseConfigTest {
     private BaseConfig testee = new BaseConfig();
 
 
+    @Test
+    public void shouldOnlySaveWhenRequested() {
+        ConfigReaderWriter configReaderWriterMock = mock(ConfigReaderWriter.class);
+        testee.setConfigReaderWriter(configReaderWriterMock);
+
+        testee.saveIfRequested();
+        verify(configReaderWriterMock, never()).save(any(BaseConfig.class));
+
+        testee.saveLater();
+        testee.saveLater();
+        testee.saveIfRequested();
+        testee.saveIfRequested();
+        verify(configReaderWriterMock, times(1)).save(testee);
+
+        testee.saveLater();
+        testee.save();
+        testee.saveIfRequested();
+        verify(configReaderWriterMock, times(2)).save(testee);
+    }
+
     @Test
     public void shouldRecognizeRestartRequired() {
         MainConfig mainConfig1 = new MainConfig();
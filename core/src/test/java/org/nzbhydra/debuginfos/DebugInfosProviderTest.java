@@ -0,0 +1,83 @@
+package org.nzbhydra.debuginfos;
+
+import com.google.common.io.ByteStreams;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.nzbhydra.config.BaseConfig;
+import org.nzbhydra.config.ConfigProvider;
+import org.nzbhydra.logging.LogAnonymizer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+public class DebugInfosProviderTest {
+
+    @InjectMocks
+    private DebugInfosProvider testee = new DebugInfosProvider();
+    @Mock
+    private LogAnonymizer logAnonymizerMock;
+    @Mock
+    private ConfigProvider configProviderMock;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        BaseConfig baseConfig = new BaseConfig();
+        baseConfig.getMain().setApiKey("secretapikey");
+        when(configProviderMock.getBaseConfig()).thenReturn(baseConfig);
+        doAnswer(invocation -> {
+            ((Writer) invocation.getArgument(0)).write("some log line\n");
+            return null;
+        }).when(logAnonymizerMock).writeAnonymizedLog(any(Writer.class));
+    }
+
+    @Test
+    public void shouldWriteZipWithLogAndConfig() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        testee.writeDebugInfosAsZip(outputStream);
+
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(ByteStreams.toByteArray(zis), StandardCharsets.UTF_8));
+            }
+        }
+        assertThat(entries.get("nzbhydra.log")).isEqualTo("some log line\n");
+        assertThat(entries.get("nzbhydra-config.yaml")).contains("apiKey").doesNotContain("secretapikey");
+    }
+
+    @Test
+    public void shouldExecuteSqlQueryAsCsv() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:debuginfostest;DB_CLOSE_DELAY=-1");
+        testee.dataSource = dataSource;
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE TEST(ID INT, NAME VARCHAR(20))");
+            statement.execute("INSERT INTO TEST VALUES (1, 'one'), (2, 'two')");
+        }
+
+        String csv = testee.executeSqlQuery("select * from TEST order by ID");
+
+        assertThat(csv.split("\\r?\\n")).containsExactly("\"ID\",\"NAME\"", "\"1\",\"one\"", "\"2\",\"two\"");
+    }
+
+}
@@ -0,0 +1,186 @@
+package org.nzbhydra.downloading;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.nzbhydra.config.FileDownloadAccessType;
+import org.nzbhydra.config.IndexerConfig;
+import org.nzbhydra.indexers.Indexer;
+import org.nzbhydra.indexers.IndexerEntity;
+import org.nzbhydra.searching.IndexerSearchExecutor;
+import org.nzbhydra.searching.SearchModuleProvider;
+import org.nzbhydra.searching.db.SearchResultEntity;
+import org.nzbhydra.searching.db.SearchResultPersister;
+import org.nzbhydra.searching.db.SearchResultRepository;
+import org.nzbhydra.searching.dtoseventsenums.SearchResultItem.DownloadType;
+import org.nzbhydra.searching.searchrequests.SearchRequest.SearchSource;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FileHandlerTest {
+
+    private CountDownLatch allDownloadsStarted = new CountDownLatch(0);
+    private int downloads;
+
+    @InjectMocks
+    private FileHandler testee = new FileHandler() {
+        @Override
+        protected InputStream downloadFile(SearchResultEntity result) throws IOException {
+            downloads++;
+            allDownloadsStarted.countDown();
+            try {
+                //Only finishes if all downloads run at the same time
+                if (!allDownloadsStarted.await(5, TimeUnit.SECONDS)) {
+                    throw new IOException("Downloads not run in parallel");
+                }
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            if (result.getTitle().equals("error")) {
+                throw new IOException("Indexer returned code 429");
+            }
+            return new ByteArrayInputStream(("Content of " + result.getTitle()).getBytes(StandardCharsets.UTF_8));
+        }
+    };
+    @Mock
+    private SearchResultRepository searchResultRepositoryMock;
+    @Mock
+    private SearchResultPersister searchResultPersisterMock;
+    @Mock
+    private FileDownloadRepository downloadRepositoryMock;
+    @Mock
+    private SearchModuleProvider searchModuleProviderMock;
+    @Mock
+    private ApplicationEventPublisher eventPublisherMock;
+    @Mock
+    private Indexer indexerMock;
+    @Mock
+    private IndexerConfig indexerConfigMock;
+    @Mock
+    private NzbCache nzbCacheMock;
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private IndexerSearchExecutor indexerSearchExecutor = new IndexerSearchExecutor();
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        testee.indexerSearchExecutor = indexerSearchExecutor;
+        when(searchModuleProviderMock.getIndexerByName("indexer")).thenReturn(indexerMock);
+        when(indexerMock.getName()).thenReturn("indexer");
+        when(indexerMock.getConfig()).thenReturn(indexerConfigMock);
+        when(indexerConfigMock.getMaxConcurrentSearches()).thenReturn(Optional.of(3));
+        when(searchResultRepositoryMock.findAllById(any())).thenReturn(Arrays.asList(
+                createSearchResult(1, "title"),
+                createSearchResult(2, "title"),
+                createSearchResult(3, "error")
+        ));
+    }
+
+    @Test
+    public void shouldDownloadInParallelAndWriteZip() throws Exception {
+        allDownloadsStarted = new CountDownLatch(3);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        FileZipResponse response = testee.writeFilesAsZip(Arrays.asList(1L, 2L, 3L, 4L), outputStream);
+
+        assertThat(response.isSuccessful()).isTrue();
+        assertThat(response.getAddedIds()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(response.getMissedIds()).containsExactlyInAnyOrder(3L, 4L);
+
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(ByteStreams.toByteArray(zis), StandardCharsets.UTF_8));
+            }
+        }
+        assertThat(entries.keySet()).containsExactly("title.nzb", "title (2).nzb", "errors.txt");
+        assertThat(entries.get("title.nzb")).isEqualTo("Content of title");
+        assertThat(entries.get("errors.txt"))
+                .contains("4: Invalid or outdated search result ID")
+                .contains("3 (error from indexer): An error occurred while downloading error from indexer indexer");
+    }
+
+    @Test
+    public void shouldStreamNzbAndLoadItFromCacheWhenDownloadedAgain() throws Exception {
+        NzbCache nzbCache = new NzbCache();
+        nzbCache.cacheFolder = temporaryFolder.getRoot();
+        nzbCache.init();
+        testee.nzbCache = nzbCache;
+        SearchResultEntity searchResult = createSearchResult(1, "title");
+
+        DownloadResult result = testee.handleContentDownload(SearchSource.API, searchResult, "NZB", true);
+        assertThat(result.getContent()).isNull();
+        assertThat(nzbCache.getStats().getEntries()).isEqualTo(0);
+        verify(downloadRepositoryMock, never()).save(any(FileDownloadEntity.class));
+        try (InputStream inputStream = result.getContentStream()) {
+            assertThat(new String(ByteStreams.toByteArray(inputStream), StandardCharsets.UTF_8)).isEqualTo("Content of title");
+        }
+        assertThat(nzbCache.getStats().getEntries()).isEqualTo(1);
+        assertThat(result.getDownloadEntity().getNzbAccessType()).isEqualTo(FileDownloadAccessType.PROXY);
+        assertThat(result.getDownloadEntity().getStatus()).isEqualTo(FileDownloadStatus.NZB_DOWNLOAD_SUCCESSFUL);
+
+        result = testee.handleContentDownload(SearchSource.API, searchResult, "NZB");
+        assertThat(new String(result.getContent(), StandardCharsets.UTF_8)).isEqualTo("Content of title");
+        assertThat(downloads).isEqualTo(1);
+        assertThat(nzbCache.getStats().getHits()).isEqualTo(1);
+        assertThat(result.getDownloadEntity().getNzbAccessType()).isEqualTo(FileDownloadAccessType.CACHE);
+        assertThat(result.getDownloadEntity().getStatus()).isEqualTo(FileDownloadStatus.NZB_DOWNLOAD_SUCCESSFUL);
+        verify(downloadRepositoryMock, times(2)).save(any(FileDownloadEntity.class));
+    }
+
+    @Test
+    public void shouldSaveStreamedDownloadAsFailedWhenNotCompletelyRead() throws Exception {
+        testee.nzbCache = new NzbCache();
+        testee.nzbCache.maxSizeMb = 0;
+        SearchResultEntity searchResult = createSearchResult(1, "title");
+
+        DownloadResult result = testee.handleContentDownload(SearchSource.API, searchResult, "NZB", true);
+        try (InputStream inputStream = result.getContentStream()) {
+            assertThat(inputStream.read()).isEqualTo('C');
+        }
+
+        ArgumentCaptor<FileDownloadEntity> entityCaptor = ArgumentCaptor.forClass(FileDownloadEntity.class);
+        verify(downloadRepositoryMock).save(entityCaptor.capture());
+        assertThat(entityCaptor.getValue().getStatus()).isEqualTo(FileDownloadStatus.NZB_DOWNLOAD_ERROR);
+        assertThat(entityCaptor.getValue().getError()).isEqualTo("Download was aborted after 1 bytes");
+    }
+
+    private SearchResultEntity createSearchResult(long id, String title) {
+        IndexerEntity indexerEntity = new IndexerEntity();
+        indexerEntity.setName("indexer");
+        SearchResultEntity searchResult = new SearchResultEntity(indexerEntity, Instant.now(), title, "guid" + id, "http://127.0.0.1/" + id, null, DownloadType.NZB, Instant.now());
+        searchResult.setId(id);
+        return searchResult;
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.nzbhydra.downloading;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NzbCacheTest {
+
+    private static final int KB = 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private NzbCache testee = new NzbCache();
+
+    @Before
+    public void setUp() throws Exception {
+        testee.maxSizeMb = 1;
+        testee.cacheFolder = temporaryFolder.getRoot();
+        testee.init();
+    }
+
+    @Test
+    public void shouldCacheAndEvictLeastRecentlyUsed() throws Exception {
+        put(1, content(400 * KB, 1));
+        put(2, content(400 * KB, 2));
+        assertThat(read(1)).isEqualTo(content(400 * KB, 1));
+
+        put(3, content(400 * KB, 3));
+
+        assertThat(testee.get(2)).isEmpty();
+        assertThat(read(1)).isEqualTo(content(400 * KB, 1));
+        assertThat(read(3)).isEqualTo(content(400 * KB, 3));
+        NzbCache.NzbCacheStats stats = testee.getStats();
+        assertThat(stats.getEntries()).isEqualTo(2);
+        assertThat(stats.getSizeBytes()).isEqualTo(800 * KB);
+        assertThat(stats.getHits()).isEqualTo(3);
+        assertThat(stats.getMisses()).isEqualTo(1);
+        assertThat(stats.getEvictions()).isEqualTo(1);
+        assertThat(temporaryFolder.getRoot().listFiles()).hasSize(2);
+    }
+
+    @Test
+    public void shouldStoreSameContentOnlyOnce() throws Exception {
+        put(1, content(100, 1));
+        put(2, content(100, 1));
+
+        assertThat(read(1)).isEqualTo(read(2));
+        assertThat(testee.getStats().getEntries()).isEqualTo(2);
+        assertThat(testee.getStats().getFiles()).isEqualTo(1);
+        assertThat(testee.getStats().getSizeBytes()).isEqualTo(100);
+    }
+
+    @Test
+    public void shouldNotCacheAbortedOrTooBigNzbs() throws Exception {
+        NzbCache.Writer writer = testee.newWriter(1);
+        writer.write(content(100, 1), 0, 100);
+        writer.abort();
+
+        put(2, content(2 * 1024 * KB, 2));
+
+        assertThat(testee.get(1)).isEmpty();
+        assertThat(testee.get(2)).isEmpty();
+        assertThat(testee.getStats().getSizeBytes()).isEqualTo(0);
+        assertThat(temporaryFolder.getRoot().listFiles()).isEmpty();
+    }
+
+    private void put(long searchResultId, byte[] content) {
+        NzbCache.Writer writer = testee.newWriter(searchResultId);
+        //Written in chunks like while streaming
+        for (int i = 0; i < content.length; i += 8 * KB) {
+            writer.write(content, i, Math.min(8 * KB, content.length - i));
+        }
+        writer.commit();
+    }
+
+    private byte[] read(long searchResultId) throws Exception {
+        Optional<InputStream> inputStream = testee.get(searchResultId);
+        assertThat(inputStream).isPresent();
+        try (InputStream stream = inputStream.get()) {
+            return ByteStreams.toByteArray(stream);
+        }
+    }
+
+    private static byte[] content(int size, int value) {
+        byte[] content = new byte[size];
+        Arrays.fill(content, (byte) value);
+        return content;
+    }
+
+}
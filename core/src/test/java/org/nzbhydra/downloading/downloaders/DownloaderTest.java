@@ -28,6 +28,7 @@ import org.nzbhydra.downloading.FileHandler;
 import org.nzbhydra.downloading.downloaders.Downloader.DownloaderEntry;
 import org.nzbhydra.downloading.downloaders.Downloader.StatusCheckType;
 import org.nzbhydra.searching.db.SearchResultEntity;
+import org.nzbhydra.searching.db.SearchResultPersister;
 import org.nzbhydra.searching.db.SearchResultRepository;
 
 import java.util.Collections;
@@ -45,6 +46,8 @@ public class DownloaderTest {
     @Mock
     private SearchResultRepository searchResultRepository;
     @Mock
+    private SearchResultPersister searchResultPersister;
+    @Mock
     private FileDownloadEntity downloadEntityMock;
     @Mock
     private SearchResultEntity searchResultEntityMock;
@@ -58,6 +61,7 @@ public class DownloaderTest {
         MockitoAnnotations.initMocks(this);
         testee.nzbHandler = nzbHandler;
         testee.searchResultRepository = searchResultRepository;
+        testee.searchResultPersister = searchResultPersister;
         testee.downloaderConfig = new DownloaderConfig();
 
         when(downloadEntityMock.getSearchResult()).thenReturn(searchResultEntityMock);
@@ -0,0 +1,222 @@
+package org.nzbhydra.historystats;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nzbhydra.NzbHydra;
+import org.nzbhydra.historystats.stats.HistoryRequestData;
+import org.nzbhydra.historystats.textindex.HistoryTextIndex;
+import org.nzbhydra.maintenance.MaintenanceEngine;
+import org.nzbhydra.maintenance.MaintenanceRun;
+import org.nzbhydra.searching.db.SearchEntity;
+import org.nzbhydra.searching.db.SearchRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.*;
+
+@SuppressWarnings("SpringJavaAutowiringInspection")
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = NzbHydra.class)
+@DataJpaTest
+public class HistoryComponentTest {
+
+    @Autowired
+    private SearchRepository searchRepository;
+    @Autowired
+    private History history;
+    @Autowired
+    private HistoryTextIndex historyTextIndex;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private MaintenanceEngine maintenanceEngine;
+
+    @Before
+    public void setUp() {
+        searchRepository.deleteAll();
+        List<SearchEntity> searches = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            SearchEntity search = new SearchEntity();
+            //Several entries with the same time and query to make sure entries with equal sort values are neither skipped nor repeated
+            search.setTime(Instant.ofEpochSecond(1490000000L + (i / 3) * 60));
+            search.setQuery(i % 4 == 0 ? null : "query" + (i % 5));
+            searches.add(search);
+        }
+        searchRepository.saveAll(searches);
+    }
+
+    @Test
+    public void shouldReturnSamePagesUsingLastId() {
+        for (SortModel sortModel : Arrays.asList(null, new SortModel("time", 1), new SortModel("time", 2), new SortModel("query", 1), new SortModel("query", 2))) {
+            HistoryRequestData requestData = new HistoryRequestData();
+            requestData.setLimit(7);
+            requestData.setSortModel(sortModel);
+            for (int page = 1; page <= 4; page++) {
+                requestData.setPage(page);
+                requestData.setLastId(null);
+                HistoryPage<SearchEntity> offsetPage = history.getHistory(requestData, "SEARCH", "SEARCH.ID", SearchEntity.class, SearchEntity::getId);
+                if (page > 1) {
+                    requestData.setPage(page - 1);
+                    HistoryPage<SearchEntity> previousPage = history.getHistory(requestData, "SEARCH", "SEARCH.ID", SearchEntity.class, SearchEntity::getId);
+                    requestData.setPage(page);
+                    requestData.setLastId(previousPage.getLastId());
+                }
+                HistoryPage<SearchEntity> keysetPage = history.getHistory(requestData, "SEARCH", "SEARCH.ID", SearchEntity.class, SearchEntity::getId);
+
+                assertEquals("Wrong page " + page + " for sort model " + sortModel, getIds(offsetPage), getIds(keysetPage));
+                assertThat(keysetPage.getTotalElements(), is(25L));
+            }
+        }
+    }
+
+    @Test
+    public void shouldUsePageNumberIfLastEntryNotFound() {
+        HistoryRequestData requestData = new HistoryRequestData();
+        requestData.setLimit(10);
+        requestData.setPage(2);
+        HistoryPage<SearchEntity> offsetPage = history.getHistory(requestData, "SEARCH", "SEARCH.ID", SearchEntity.class, SearchEntity::getId);
+
+        requestData.setLastId(-1);
+        HistoryPage<SearchEntity> page = history.getHistory(requestData, "SEARCH", "SEARCH.ID", SearchEntity.class, SearchEntity::getId);
+
+        assertThat(page.getContent().size(), is(10));
+        assertEquals(getIds(offsetPage), getIds(page));
+    }
+
+    @Test
+    public void shouldEstimateTotal() {
+        HistoryRequestData requestData = new HistoryRequestData();
+        requestData.setEstimateTotal(true);
+        HistoryPage<SearchEntity> page = history.getHistory(requestData, "SEARCH", "SEARCH.ID", SearchEntity.class, SearchEntity::getId);
+        assertTrue(page.isTotalEstimated());
+        assertThat(page.getContent().size(), is(25));
+
+        requestData.getFilterModel().put("query", new FilterDefinition("query1", "freetext", false));
+        page = history.getHistory(requestData, "SEARCH", "SEARCH.ID", SearchEntity.class, SearchEntity::getId);
+        //Below the limit for counting the number is exact
+        assertFalse(page.isTotalEstimated());
+        assertThat(page.getTotalElements(), is((long) page.getContent().size()));
+    }
+
+    @Test
+    public void shouldFilterUsingTextIndex() {
+        List<SearchEntity> searches = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            SearchEntity search = new SearchEntity();
+            search.setTime(Instant.now());
+            search.setQuery(i == 50 ? "a rare query" : "another search " + i);
+            searches.add(search);
+        }
+        searchRepository.saveAll(searches);
+
+        Map<String, Long> expectedCounts = new HashMap<>();
+        expectedCounts.put("query1", 4L);
+        expectedCounts.put("QUERY2", 4L);
+        expectedCounts.put("ery3", 4L);
+        expectedCounts.put("qu_ry", 19L);
+        expectedCounts.put("y4", 3L);
+        expectedCounts.put("query12", 0L);
+        expectedCounts.put("rare", 1L);
+        expectedCounts.put("a rare q", 1L);
+        expectedCounts.put("search 4", 11L);
+        HistoryRequestData requestData = new HistoryRequestData();
+        for (int i = 0; i < 2; i++) {
+            for (Entry<String, Long> entry : expectedCounts.entrySet()) {
+                requestData.getFilterModel().put("query", new FilterDefinition(entry.getKey(), "freetext", false));
+                HistoryPage<SearchEntity> page = history.getHistory(requestData, "SEARCH", "SEARCH.ID", SearchEntity.class, SearchEntity::getId);
+                assertThat("Wrong count for " + entry.getKey(), page.getTotalElements(), is(entry.getValue()));
+                assertTrue(page.getContent().stream().allMatch(x -> x.getQuery().toLowerCase().matches(".*" + entry.getKey().toLowerCase().replace("_", ".") + ".*")));
+            }
+            //Entries are found both before and after they were indexed
+            historyTextIndex.index();
+        }
+
+        SearchEntity search = new SearchEntity();
+        search.setTime(Instant.now());
+        search.setQuery("another rare query added after indexing");
+        searchRepository.save(search);
+        requestData.getFilterModel().put("query", new FilterDefinition("rare", "freetext", false));
+        assertThat(history.getHistory(requestData, "SEARCH", "SEARCH.ID", SearchEntity.class, SearchEntity::getId).getTotalElements(), is(2L));
+        requestData.getFilterModel().put("query", new FilterDefinition("after index", "freetext", false));
+        assertThat(history.getHistory(requestData, "SEARCH", "SEARCH.ID", SearchEntity.class, SearchEntity::getId).getTotalElements(), is(1L));
+    }
+
+    @Test
+    public void shouldIndexEntriesCommittedAfterEntriesWithHigherIds() {
+        List<SearchEntity> searches = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            SearchEntity search = new SearchEntity();
+            search.setTime(Instant.now());
+            search.setQuery("another search " + i);
+            searches.add(search);
+        }
+        searches = searchRepository.saveAll(searches);
+        int lateId = searches.get(5).getId();
+        searchRepository.delete(searches.get(5));
+        historyTextIndex.index();
+
+        //Simulates an entry whose transaction was committed after the index was updated
+        entityManager.createNativeQuery("INSERT INTO SEARCH (ID, QUERY, TIME) VALUES (" + lateId + ", 'late committed query', CURRENT_TIMESTAMP())").executeUpdate();
+        historyTextIndex.index();
+        historyTextIndex.index();
+
+        HistoryRequestData requestData = new HistoryRequestData();
+        requestData.getFilterModel().put("query", new FilterDefinition("late commit", "freetext", false));
+        assertThat(history.getHistory(requestData, "SEARCH", "SEARCH.ID", SearchEntity.class, SearchEntity::getId).getTotalElements(), is(1L));
+    }
+
+    @Test
+    public void shouldUpdateTrigramCountsWhenDeletingFromTextIndex() {
+        List<SearchEntity> searches = searchRepository.findAll().stream().sorted(Comparator.comparing(SearchEntity::getId)).collect(Collectors.toList());
+        searches.get(1).setQuery("deleted");
+        searchRepository.save(searches.get(1));
+        historyTextIndex.index();
+        historyTextIndex.index();
+        assertThat(getTrigramCount("que"), is(17));
+        assertThat(getTrigramCount("del"), is(1));
+        assertThat(getTrigramCount("ry1"), is(3));
+        assertThat(getIndexedEntries(), is(25));
+
+        int deleteBefore = searches.get(10).getId();
+        try (MaintenanceRun run = maintenanceEngine.start("deleteOldHistory")) {
+            historyTextIndex.deleteSearchQueriesBefore(deleteBefore, run);
+        }
+
+        int remainingQueries = (int) searches.stream().filter(x -> x.getId() >= deleteBefore && x.getQuery() != null).count();
+        assertThat(getTrigramCount("que"), is(remainingQueries));
+        assertThat(getIndexedEntries(), is(15));
+        assertThat(getTrigramCount("ry1"), is(2));
+        //Not contained in any remaining entry
+        assertThat(getTrigramCount("del"), is(nullValue()));
+    }
+
+    private Integer getTrigramCount(String trigram) {
+        List<?> result = entityManager.createNativeQuery("SELECT ENTRIES FROM HISTORY_TRIGRAM_COUNT WHERE NAME = 'SEARCH_QUERY' AND TRIGRAM = '" + trigram + "'").getResultList();
+        return result.isEmpty() ? null : ((Number) result.get(0)).intValue();
+    }
+
+    private int getIndexedEntries() {
+        return ((Number) entityManager.createNativeQuery("SELECT INDEXED_ENTRIES FROM HISTORY_TEXT_INDEX_STATE WHERE NAME = 'SEARCH_QUERY'").getSingleResult()).intValue();
+    }
+
+    private List<Integer> getIds(HistoryPage<SearchEntity> page) {
+        return page.getContent().stream().map(SearchEntity::getId).collect(Collectors.toList());
+    }
+
+}
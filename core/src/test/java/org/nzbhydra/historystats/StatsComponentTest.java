@@ -9,6 +9,8 @@ import org.nzbhydra.config.IndexerConfig;
 import org.nzbhydra.config.SearchModuleType;
 import org.nzbhydra.downloading.FileDownloadEntity;
 import org.nzbhydra.downloading.FileDownloadRepository;
+import org.nzbhydra.downloading.FileDownloadStatus;
+import org.nzbhydra.historystats.rollups.StatsRollups;
 import org.nzbhydra.historystats.stats.*;
 import org.nzbhydra.indexers.*;
 import org.nzbhydra.searching.SearchModuleConfigProvider;
@@ -17,13 +19,17 @@ import org.nzbhydra.searching.db.SearchEntity;
 import org.nzbhydra.searching.db.SearchRepository;
 import org.nzbhydra.searching.db.SearchResultEntity;
 import org.nzbhydra.searching.db.SearchResultRepository;
+import org.nzbhydra.searching.searchrequests.SearchRequest.SearchSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import javax.persistence.EntityManager;
+import java.math.BigInteger;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -60,6 +66,10 @@ public class StatsComponentTest {
 
     @Autowired
     private Stats stats;
+    @Autowired
+    private StatsRollups statsRollups;
+    @Autowired
+    private EntityManager entityManager;
 
     @Before
     public void setUp() {
@@ -234,6 +244,116 @@ public class StatsComponentTest {
         assertThat((int) shares.get(1).getShare(), is(33));
     }
 
+    @Test
+    public void shouldCalculateSameStatsFromRollups() throws Exception {
+        Instant now = Instant.now();
+        List<IndexerApiAccessEntity> oldApiAccesses = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            IndexerApiAccessEntity apiAccess = new IndexerApiAccessEntity(i % 3 == 0 ? indexer2 : indexer1);
+            apiAccess.setTime(i == 0 ? now : now.minus(i, ChronoUnit.DAYS).minus(120 + i * 7, ChronoUnit.MINUTES));
+            apiAccess.setResult(i % 4 == 0 ? IndexerAccessResult.CONNECTION_ERROR : IndexerAccessResult.SUCCESSFUL);
+            apiAccess.setResponseTime(i % 5 == 0 ? null : 100L * i);
+            apiAccessRepository.save(apiAccess);
+            if (i > 2) {
+                oldApiAccesses.add(apiAccess);
+            }
+
+            SearchEntity search = new SearchEntity();
+            search.setTime(apiAccess.getTime());
+            search.setSource(i % 2 == 0 ? SearchSource.API : SearchSource.INTERNAL);
+            search.setUsername(i % 3 == 0 ? null : "user" + i % 2);
+            search.setIp("127.0.0." + i % 4);
+            search.setUserAgent(i % 2 == 0 ? "Sonarr" : "Radarr");
+            searchRepository.save(search);
+
+            SearchResultEntity searchResult = getSearchResultEntity(i % 3 == 0 ? indexer2 : indexer1, "title" + i);
+            searchResultRepository.save(searchResult);
+            FileDownloadEntity download = new FileDownloadEntity();
+            download.setSearchResult(searchResult);
+            download.setTime(apiAccess.getTime());
+            download.setAccessSource(i % 2 == 0 ? SearchSource.API : SearchSource.INTERNAL);
+            download.setStatus(i % 4 == 0 ? FileDownloadStatus.CONTENT_DOWNLOAD_ERROR : FileDownloadStatus.CONTENT_DOWNLOAD_SUCCESSFUL);
+            download.setUsername(i % 3 == 0 ? null : "user" + i % 2);
+            download.setIp("127.0.0." + i % 4);
+            download.setUserAgent(i % 2 == 0 ? "Sonarr" : "Radarr");
+            download.setAge(i % 5 == 0 ? null : i * 500);
+            downloadRepository.save(download);
+        }
+        List<StatsRequest> statsRequests = Arrays.asList(
+                new StatsRequest(now.minus(20, ChronoUnit.DAYS), now.plus(1, ChronoUnit.DAYS), true),
+                new StatsRequest(now.minus(7, ChronoUnit.DAYS).minus(30, ChronoUnit.MINUTES), now.minus(2, ChronoUnit.DAYS).minus(5, ChronoUnit.MINUTES), false),
+                new StatsRequest(null, null, true)
+        );
+
+        List<Object> expected = calculateStats(statsRequests);
+
+        statsRollups.rollUp();
+        assertThat(((BigInteger) entityManager.createNativeQuery("SELECT count(*) FROM STATS_API_ACCESS_HOURLY").getSingleResult()).intValue(), is(11));
+        assertThat(((BigInteger) entityManager.createNativeQuery("SELECT count(*) FROM STATS_SEARCH_HOURLY").getSingleResult()).intValue(), is(11));
+        //Downloads are rolled up after two days
+        assertThat(((BigInteger) entityManager.createNativeQuery("SELECT count(*) FROM STATS_DOWNLOAD_HOURLY").getSingleResult()).intValue(), is(10));
+        assertEquals(expected, calculateStats(statsRequests));
+
+        statsRollups.rebuild();
+        assertEquals(expected, calculateStats(statsRequests));
+
+        //Old entries are only contained in the rollups
+        apiAccessRepository.deleteAll(oldApiAccesses);
+        assertEquals(expected.get(0), stats.averageResponseTimes(statsRequests.get(0)));
+    }
+
+    private List<Object> calculateStats(List<StatsRequest> statsRequests) {
+        List<Object> results = new ArrayList<>();
+        for (StatsRequest statsRequest : statsRequests) {
+            results.add(stats.averageResponseTimes(statsRequest));
+            results.add(stats.indexerApiAccesses(statsRequest));
+            results.add(stats.countPerDayOfWeek("SEARCH", statsRequest));
+            results.add(stats.countPerDayOfWeek("INDEXERNZBDOWNLOAD", statsRequest));
+            results.add(stats.countPerHourOfDay("SEARCH", statsRequest));
+            results.add(stats.countPerHourOfDay("INDEXERNZBDOWNLOAD", statsRequest));
+            results.add(stats.indexerDownloadShares(statsRequest));
+            results.add(stats.successfulDownloadsPerIndexer(statsRequest));
+            results.add(stats.downloadsOrSearchesPerUserOrIp(statsRequest, "SEARCH", "USERNAME"));
+            results.add(stats.downloadsOrSearchesPerUserOrIp(statsRequest, "INDEXERNZBDOWNLOAD", "IP"));
+            results.add(stats.userAgentSearchShares(statsRequest));
+            results.add(stats.userAgentDownloadShares(statsRequest));
+        }
+        results.add(stats.downloadsPerAgeStats());
+        return results;
+    }
+
+    @Test
+    public void shouldCacheStatsUntilInvalidated() throws Exception {
+        stats.invalidateCache();
+        Instant after = Instant.now().minus(10, ChronoUnit.DAYS);
+        Instant before = Instant.now();
+
+        StatsResponse response = stats.getAllStats(createStatsRequestForCaching(after, before));
+        assertThat(response.getCalculationTimes().size(), is(2));
+        assertThat(response.getCalculationTimes().get(0).getStat(), is("avgResponseTimes"));
+        assertFalse(response.getCalculationTimes().get(0).isCached());
+        assertFalse(response.getCalculationTimes().get(1).isCached());
+
+        response = stats.getAllStats(createStatsRequestForCaching(after, before));
+        assertTrue(response.getCalculationTimes().get(0).isCached());
+        assertTrue(response.getCalculationTimes().get(1).isCached());
+        assertThat(response.getSearchesPerDayOfWeek().size(), is(7));
+
+        response = stats.getAllStats(createStatsRequestForCaching(after.minus(1, ChronoUnit.DAYS), before));
+        assertFalse(response.getCalculationTimes().get(0).isCached());
+
+        stats.invalidateCache();
+        response = stats.getAllStats(createStatsRequestForCaching(after, before));
+        assertFalse(response.getCalculationTimes().get(0).isCached());
+    }
+
+    private StatsRequest createStatsRequestForCaching(Instant after, Instant before) {
+        StatsRequest statsRequest = new StatsRequest(after, before, true);
+        statsRequest.setAvgResponseTimes(true);
+        statsRequest.setSearchesPerDayOfWeek(true);
+        return statsRequest;
+    }
+
     protected SearchResultEntity getSearchResultEntity(IndexerEntity indexer1, String title) {
         SearchResultEntity searchResultEntity1 = new SearchResultEntity();
         searchResultEntity1.setIndexer(indexer1);
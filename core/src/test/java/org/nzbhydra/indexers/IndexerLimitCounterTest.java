@@ -0,0 +1,217 @@
+package org.nzbhydra.indexers;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nzbhydra.config.FileDownloadAccessType;
+import org.nzbhydra.downloading.FileDownloadEntity;
+import org.nzbhydra.downloading.FileDownloadEvent;
+import org.nzbhydra.searching.db.SearchResultEntity;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IndexerLimitCounterTest {
+
+    private static final Instant NOW = Instant.ofEpochSecond(1_500_000_000);
+
+    private IndexerLimitCounter testee = new IndexerLimitCounter();
+    private JdbcDataSource dataSource = new JdbcDataSource();
+    private Connection keepAliveConnection;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource.setURL("jdbc:h2:mem:indexerlimitcounter;DB_CLOSE_DELAY=-1");
+        keepAliveConnection = dataSource.getConnection();
+        try (Statement statement = keepAliveConnection.createStatement()) {
+            statement.execute("CREATE TABLE INDEXERAPIACCESS_SHORT (ID INTEGER PRIMARY KEY AUTO_INCREMENT, INDEXER_ID INTEGER NOT NULL, TIME TIMESTAMP, SUCCESSFUL BOOLEAN)");
+            statement.execute("CREATE TABLE SEARCHRESULT (ID BIGINT PRIMARY KEY NOT NULL, INDEXER_ID INTEGER NOT NULL)");
+            statement.execute("CREATE TABLE INDEXERNZBDOWNLOAD (ID INTEGER PRIMARY KEY AUTO_INCREMENT, SEARCH_RESULT_ID BIGINT, TIME TIMESTAMP, NZB_ACCESS_TYPE VARCHAR(255))");
+            statement.execute("INSERT INTO SEARCHRESULT VALUES (100, 1)");
+        }
+        testee.dataSource = dataSource;
+        testee.clock = Clock.fixed(NOW, ZoneId.of("UTC"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Statement statement = keepAliveConnection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        keepAliveConnection.close();
+    }
+
+    @Test
+    public void shouldLoadFromDatabase() throws Exception {
+        insertApiAccess(1, NOW.minus(3, ChronoUnit.DAYS));
+        insertApiAccess(1, NOW.minus(3, ChronoUnit.HOURS));
+        insertApiAccess(1, NOW.minus(1, ChronoUnit.HOURS));
+        insertApiAccess(1, NOW.minus(2, ChronoUnit.HOURS));
+        insertApiAccess(2, NOW.minus(1, ChronoUnit.MINUTES));
+        insertDownload(NOW.minus(5, ChronoUnit.HOURS));
+
+        assertThat(testee.getNthNewestApiAccess(1, 1)).contains(NOW.minus(1, ChronoUnit.HOURS));
+        assertThat(testee.getNthNewestApiAccess(1, 3)).contains(NOW.minus(3, ChronoUnit.HOURS));
+        //The one from three days ago is ignored
+        assertThat(testee.getNthNewestApiAccess(1, 4)).isEmpty();
+        assertThat(testee.getNthNewestApiAccess(2, 1)).contains(NOW.minus(1, ChronoUnit.MINUTES));
+        assertThat(testee.getNthNewestApiAccess(3, 1)).isEmpty();
+        assertThat(testee.getNthNewestDownload(1, 1)).contains(NOW.minus(5, ChronoUnit.HOURS));
+        assertThat(testee.getNthNewestDownload(1, 2)).isEmpty();
+    }
+
+    @Test
+    public void shouldRecordAccessesAndDownloads() throws Exception {
+        int loadedId = insertApiAccess(1, NOW.minus(2, ChronoUnit.HOURS));
+        assertThat(testee.getNthNewestApiAccess(1, 2)).isEmpty();
+
+        testee.recordApiAccess(1, 1000, NOW.minus(1, ChronoUnit.HOURS));
+        //Already loaded from the database, must not be counted twice
+        testee.recordApiAccess(1, loadedId, NOW.minus(2, ChronoUnit.HOURS));
+        testee.onFileDownload(new FileDownloadEvent(createDownload(NOW.minus(10, ChronoUnit.MINUTES))));
+
+        assertThat(testee.getNthNewestApiAccess(1, 2)).contains(NOW.minus(2, ChronoUnit.HOURS));
+        assertThat(testee.getNthNewestApiAccess(1, 3)).isEmpty();
+        assertThat(testee.getNthNewestDownload(1, 1)).contains(NOW.minus(10, ChronoUnit.MINUTES));
+    }
+
+    @Test
+    public void shouldIgnoreDownloadsFromNzbCache() throws Exception {
+        insertDownload(NOW.minus(2, ChronoUnit.HOURS), "CACHE");
+        insertDownload(NOW.minus(3, ChronoUnit.HOURS), "PROXY");
+        assertThat(testee.getNthNewestDownload(1, 1)).contains(NOW.minus(3, ChronoUnit.HOURS));
+
+        FileDownloadEntity cachedDownload = createDownload(NOW.minus(10, ChronoUnit.MINUTES));
+        cachedDownload.setNzbAccessType(FileDownloadAccessType.CACHE);
+        testee.onFileDownload(new FileDownloadEvent(cachedDownload));
+
+        assertThat(testee.getNthNewestDownload(1, 1)).contains(NOW.minus(3, ChronoUnit.HOURS));
+        assertThat(testee.getNthNewestDownload(1, 2)).isEmpty();
+    }
+
+    @Test
+    public void shouldCountAccessesInTheSameMillisecond() throws Exception {
+        insertApiAccess(1, NOW.minus(2, ChronoUnit.HOURS));
+        insertApiAccess(1, NOW.minus(2, ChronoUnit.HOURS));
+        assertThat(testee.getNthNewestApiAccess(1, 2)).contains(NOW.minus(2, ChronoUnit.HOURS));
+
+        testee.recordApiAccess(1, 1000, NOW.minus(1, ChronoUnit.HOURS));
+        testee.recordApiAccess(1, 1001, NOW.minus(1, ChronoUnit.HOURS));
+
+        assertThat(testee.getNthNewestApiAccess(1, 2)).contains(NOW.minus(1, ChronoUnit.HOURS));
+        assertThat(testee.getNthNewestApiAccess(1, 4)).contains(NOW.minus(2, ChronoUnit.HOURS));
+        assertThat(testee.getNthNewestApiAccess(1, 5)).isEmpty();
+    }
+
+    @Test
+    public void shouldForgetOldAccesses() throws Exception {
+        testee.getNthNewestApiAccess(1, 1);
+        testee.recordApiAccess(1, 1000, NOW.minus(1, ChronoUnit.HOURS));
+        assertThat(testee.getNthNewestApiAccess(1, 1)).isPresent();
+
+        testee.clock = Clock.fixed(NOW.plus(2, ChronoUnit.DAYS), ZoneId.of("UTC"));
+
+        assertThat(testee.getNthNewestApiAccess(1, 1)).isEmpty();
+    }
+
+    @Test
+    public void shouldReconcileWithDatabase() throws Exception {
+        testee.getNthNewestApiAccess(1, 1);
+        //Saved to the database but never recorded
+        insertApiAccess(1, NOW.minus(1, ChronoUnit.HOURS));
+        //Recorded but never saved
+        testee.recordApiAccess(2, 1000, NOW.minus(1, ChronoUnit.HOURS));
+
+        testee.reconcile();
+
+        assertThat(testee.getNthNewestApiAccess(1, 1)).contains(NOW.minus(1, ChronoUnit.HOURS));
+        assertThat(testee.getNthNewestApiAccess(2, 1)).isEmpty();
+    }
+
+    @Test
+    public void shouldKeepTimesSorted() {
+        IndexerLimitCounter.TimeWindow window = new IndexerLimitCounter.TimeWindow();
+        for (int i = 0; i < 100; i++) {
+            window.add(i * 2);
+        }
+        window.removeBefore(50);
+        window.add(51);
+        window.add(300);
+        for (int i = 100; i < 200; i++) {
+            window.add(i * 2 + 1000);
+        }
+
+        assertThat(window.size()).isEqualTo(177);
+        assertThat(window.get(0)).isEqualTo(50);
+        assertThat(window.get(1)).isEqualTo(51);
+        assertThat(window.get(2)).isEqualTo(52);
+        assertThat(window.get(window.size() - 1)).isEqualTo(1398);
+        assertThat(window.countFrom(300)).isEqualTo(101);
+        for (int i = 1; i < window.size(); i++) {
+            assertThat(window.get(i)).isGreaterThan(window.get(i - 1));
+        }
+    }
+
+    @Test
+    public void shouldKeepEqualTimes() {
+        IndexerLimitCounter.TimeWindow window = new IndexerLimitCounter.TimeWindow();
+        window.add(10);
+        window.add(20);
+        window.add(20);
+        window.add(30);
+        window.add(20);
+
+        assertThat(window.size()).isEqualTo(5);
+        assertThat(window.countFrom(20)).isEqualTo(4);
+        assertThat(window.countFrom(21)).isEqualTo(1);
+        assertThat(window.get(3)).isEqualTo(20);
+        assertThat(window.get(4)).isEqualTo(30);
+    }
+
+    private FileDownloadEntity createDownload(Instant time) {
+        IndexerEntity indexerEntity = new IndexerEntity();
+        indexerEntity.setId(1);
+        SearchResultEntity searchResultEntity = new SearchResultEntity();
+        searchResultEntity.setIndexer(indexerEntity);
+        FileDownloadEntity downloadEntity = new FileDownloadEntity();
+        downloadEntity.setSearchResult(searchResultEntity);
+        downloadEntity.setTime(time);
+        return downloadEntity;
+    }
+
+    private int insertApiAccess(int indexerId, Instant time) throws SQLException {
+        try (PreparedStatement statement = keepAliveConnection.prepareStatement("INSERT INTO INDEXERAPIACCESS_SHORT (INDEXER_ID, TIME, SUCCESSFUL) VALUES (?, ?, TRUE)", Statement.RETURN_GENERATED_KEYS)) {
+            statement.setInt(1, indexerId);
+            statement.setTimestamp(2, Timestamp.from(time));
+            statement.executeUpdate();
+            try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                generatedKeys.next();
+                return generatedKeys.getInt(1);
+            }
+        }
+    }
+
+    private void insertDownload(Instant time) throws SQLException {
+        insertDownload(time, "PROXY");
+    }
+
+    private void insertDownload(Instant time, String accessType) throws SQLException {
+        try (PreparedStatement statement = keepAliveConnection.prepareStatement("INSERT INTO INDEXERNZBDOWNLOAD (SEARCH_RESULT_ID, TIME, NZB_ACCESS_TYPE) VALUES (100, ?, ?)")) {
+            statement.setTimestamp(1, Timestamp.from(time));
+            statement.setString(2, accessType);
+            statement.executeUpdate();
+        }
+    }
+
+}
@@ -23,7 +23,6 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.nzbhydra.config.BaseConfig;
 import org.nzbhydra.config.ConfigProvider;
-import org.nzbhydra.config.ConfigReaderWriter;
 import org.nzbhydra.config.IndexerConfig;
 
 import java.time.Instant;
@@ -31,6 +30,8 @@ import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class IndexerStatusesCleanupTaskTest {
@@ -39,8 +40,6 @@ public class IndexerStatusesCleanupTaskTest {
     private ConfigProvider configProvider;
     @Mock
     private BaseConfig baseConfig;
-    @Mock
-    private ConfigReaderWriter configReaderWriterMock;
 
     IndexerConfig indexerConfigEnabled = new IndexerConfig();
     IndexerConfig indexerConfigDisabledSystem = new IndexerConfig();
@@ -71,7 +70,6 @@ public class IndexerStatusesCleanupTaskTest {
         indexerConfigDisabledTempOutsideTimeWindow.setDisabledLevel(1);
         when(baseConfig.getIndexers()).thenReturn(Arrays.asList(indexerConfigDisabledSystem, indexerConfigDisabledTempInTimeWindow, indexerConfigDisabledTempOutsideTimeWindow, indexerConfigEnabled, indexerConfigUserDisabled));
         when(configProvider.getBaseConfig()).thenReturn(baseConfig);
-        testee.configReaderWriter = configReaderWriterMock;
     }
 
     @Test
@@ -92,5 +90,17 @@ public class IndexerStatusesCleanupTaskTest {
         assertThat(indexerConfigEnabled.getState()).isEqualTo(IndexerConfig.State.ENABLED);
         assertThat(indexerConfigUserDisabled.getState()).isEqualTo(IndexerConfig.State.DISABLED_USER);
         assertThat(indexerConfigDisabledSystem.getState()).isEqualTo(IndexerConfig.State.DISABLED_SYSTEM);
+
+        verify(baseConfig).saveLater();
+    }
+
+    @Test
+    public void shouldNotSaveWhenNothingChanged() {
+        when(baseConfig.getIndexers()).thenReturn(Arrays.asList(indexerConfigDisabledSystem, indexerConfigDisabledTempInTimeWindow, indexerConfigEnabled));
+
+        testee.cleanup();
+
+        verify(baseConfig, never()).saveLater();
+        verify(baseConfig, never()).save();
     }
 }
\ No newline at end of file
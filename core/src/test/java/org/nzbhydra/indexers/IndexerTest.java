@@ -1,7 +1,6 @@
 package org.nzbhydra.indexers;
 
 import com.google.common.collect.HashMultiset;
-import com.google.common.collect.Sets;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.*;
@@ -21,7 +20,7 @@ import org.nzbhydra.mediainfo.TvInfo;
 import org.nzbhydra.searching.SearchResultAcceptor;
 import org.nzbhydra.searching.SearchResultAcceptor.AcceptorResult;
 import org.nzbhydra.searching.db.SearchResultEntity;
-import org.nzbhydra.searching.db.SearchResultRepository;
+import org.nzbhydra.searching.db.SearchResultPersister;
 import org.nzbhydra.searching.dtoseventsenums.IndexerSearchResult;
 import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
 import org.nzbhydra.searching.dtoseventsenums.SearchType;
@@ -37,6 +36,7 @@ import java.time.Instant;
 import java.util.*;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
@@ -66,9 +66,9 @@ public class IndexerTest {
     @Mock
     private IndexerApiAccessEntityShortRepository shortRepositoryMock;
     @Mock
-    private SearchResultRepository searchResultRepositoryMock;
-    @Captor
-    private ArgumentCaptor<List<SearchResultEntity>> searchResultEntitiesCaptor;
+    private IndexerLimitCounter indexerLimitCounterMock;
+    @Mock
+    private SearchResultPersister searchResultPersisterMock;
     @Captor
     private ArgumentCaptor<String> errorMessageCaptor;
     @Captor
@@ -151,38 +151,17 @@ public class IndexerTest {
     }
 
     @Test
-    public void shouldCreateNewSearchResultEntityWhenNoneIsFound() throws Exception {
+    public void shouldPersistSearchResults() throws Exception {
         SearchResultItem item = new SearchResultItem();
         item.setIndexer(indexerMock);
         item.setTitle("title");
         item.setDetails("details");
         item.setIndexerGuid("guid");
 
-        testee.persistSearchResults(Collections.singletonList(item));
+        List<SearchResultItem> items = testee.persistSearchResults(Collections.singletonList(item));
 
-        verify(searchResultRepositoryMock).saveAll(searchResultEntitiesCaptor.capture());
-
-        List<SearchResultEntity> persistedEntities = searchResultEntitiesCaptor.getValue();
-        assertThat(persistedEntities.size(), is(1));
-        assertThat(persistedEntities.get(0).getTitle(), is("title"));
-        assertThat(persistedEntities.get(0).getDetails(), is("details"));
-        assertThat(persistedEntities.get(0).getIndexerGuid(), is("guid"));
-    }
-
-    @Test
-    public void shouldNotCreateNewSearchResultEntityWhenOneExists() throws Exception {
-        SearchResultItem item = new SearchResultItem();
-        item.setIndexerGuid("guid");
-        item.setIndexer(indexerMock);
-        when(searchResultEntityMock.getIndexerGuid()).thenReturn("guid");
-        when(searchResultRepositoryMock.findAllIdsByIdIn(anyList())).thenReturn(Sets.newHashSet(299225959498991027L));
-
-        testee.persistSearchResults(Collections.singletonList(item));
-
-        verify(searchResultRepositoryMock).saveAll(searchResultEntitiesCaptor.capture());
-
-        List<SearchResultEntity> persistedEntities = searchResultEntitiesCaptor.getValue();
-        assertThat(persistedEntities.size(), is(0));
+        verify(searchResultPersisterMock).persist(indexerEntityMock, Collections.singletonList(item));
+        assertThat(items, contains(item));
     }
 
 
@@ -196,7 +175,8 @@ public class IndexerTest {
 
         assertThat(indexerConfig.getState(), is(IndexerConfig.State.ENABLED));
         assertThat(indexerConfig.getDisabledLevel(), is(0));
-        assertThat(indexerConfig.getDisabledUntil(), is(nullValue()));
+        assertThat(indexerConfig.getDisabledUntil(), is(nullValue()));        verify(indexerLimitCounterMock).recordApiAccess(anyInt(), anyInt(), any());
+
     }
 
     @Test
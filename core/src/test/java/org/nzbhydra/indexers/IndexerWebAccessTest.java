@@ -1,5 +1,9 @@
 package org.nzbhydra.indexers;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -13,6 +17,7 @@ import org.nzbhydra.config.IndexerConfig;
 import org.nzbhydra.config.SearchingConfig;
 import org.nzbhydra.mapping.newznab.xml.NewznabXmlRoot;
 import org.nzbhydra.okhttp.WebAccess;
+import org.nzbhydra.okhttp.WebAccess.ResponseBodyReader;
 import org.springframework.oxm.Unmarshaller;
 
 import java.net.URI;
@@ -22,7 +27,11 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.data.MapEntry.entry;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class IndexerWebAccessTest {
@@ -84,6 +93,20 @@ public class IndexerWebAccessTest {
         assertThat(timeoutCaptor.getValue()).isEqualTo(10);
     }
 
+    @Test
+    public void shouldParseSearchResultsFromStream() throws Exception {
+        String xml = Resources.toString(Resources.getResource(IndexerWebAccessTest.class, "/org/nzbhydra/mapping/newznab_3results.xml"), Charsets.UTF_8);
+        when(webAccessMock.callUrl(anyString(), anyMap(), anyInt(), any())).thenAnswer(invocation -> {
+            ResponseBodyReader reader = invocation.getArgument(3);
+            return reader.read(ResponseBody.create(MediaType.parse("application/xml"), xml));
+        });
+
+        NewznabXmlRoot response = testee.get(new URI("http://127.0.0.1"), indexerConfig, NewznabXmlRoot.class);
+
+        assertThat(response.getRssChannel().getItems()).hasSize(3);
+        verify(unmarshallerMock, never()).unmarshal(any());
+    }
+
     @Test
     public void shouldUseGlobalTimeoutNoIndexerTimeoutIsSet() throws Exception{
         indexerConfig.setTimeout(null);
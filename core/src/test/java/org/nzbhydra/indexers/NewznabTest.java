@@ -26,7 +26,7 @@ import org.nzbhydra.mediainfo.MediaInfo;
 import org.nzbhydra.searching.CategoryProvider;
 import org.nzbhydra.searching.SearchResultAcceptor;
 import org.nzbhydra.searching.SearchResultAcceptor.AcceptorResult;
-import org.nzbhydra.searching.db.SearchResultRepository;
+import org.nzbhydra.searching.db.SearchResultPersister;
 import org.nzbhydra.searching.dtoseventsenums.IndexerSearchResult;
 import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
 import org.nzbhydra.searching.dtoseventsenums.SearchResultItem.DownloadType;
@@ -70,7 +70,9 @@ public class NewznabTest {
     @Mock
     private IndexerApiAccessEntityShortRepository shortRepositoryMock;
     @Mock
-    private SearchResultRepository searchResultRepositoryMock;
+    private IndexerLimitCounter indexerLimitCounterMock;
+    @Mock
+    private SearchResultPersister searchResultPersisterMock;
     @Mock
     private IndexerRepository indexerRepositoryMock;
     @Mock
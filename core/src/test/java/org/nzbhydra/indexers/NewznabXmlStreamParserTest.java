@@ -0,0 +1,74 @@
+package org.nzbhydra.indexers;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import org.junit.Test;
+import org.nzbhydra.indexers.exceptions.IndexerParsingException;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlError;
+import org.nzbhydra.mapping.newznab.xml.NewznabXmlRoot;
+import org.nzbhydra.mapping.newznab.xml.Xml;
+import org.nzbhydra.web.WebConfiguration;
+import org.springframework.oxm.Unmarshaller;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class NewznabXmlStreamParserTest {
+
+    private NewznabXmlStreamParser testee = new NewznabXmlStreamParser();
+    private Unmarshaller unmarshaller = new WebConfiguration().marshaller();
+
+    @Test
+    public void shouldParseSameAsJaxb() throws Exception {
+        String[] files = {"animetosho_direct.xml", "anizbResponse.xml", "btnJackettResponse.xml", "cardigann.xml", "drunkenSlugResponse.xml",
+                "newznab_3results.xml", "newztownResponse.xml", "nfo.xml", "nzbAgResponse.xml", "nzbCatResponse.xml", "nzbFinderResponse.xml",
+                "nzbIndexResponse.xml", "nzbSuResponse.xml", "nzbsOrgResponse.xml", "omgwtfResponse.xml", "tabulaRasaResponse.xml"};
+        for (String file : files) {
+            String xml = Resources.toString(Resources.getResource(NewznabXmlStreamParserTest.class, "/org/nzbhydra/mapping/" + file), Charsets.UTF_8);
+            Xml expected = (Xml) unmarshaller.unmarshal(new StreamSource(new StringReader(xml)));
+
+            Xml actual = testee.parse(new ByteArrayInputStream(xml.getBytes(Charsets.UTF_8)), Long.MAX_VALUE, Integer.MAX_VALUE);
+
+            assertThat(actual).as(file).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void shouldParseError() throws Exception {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<error code=\"100\" description=\"Incorrect user credentials\"/>";
+
+        Xml actual = testee.parse(new ByteArrayInputStream(xml.getBytes(Charsets.UTF_8)), Long.MAX_VALUE, Integer.MAX_VALUE);
+
+        assertThat(actual).isEqualTo(new NewznabXmlError("100", "Incorrect user credentials"));
+    }
+
+    @Test
+    public void shouldAbortWhenTooManyItems() throws Exception {
+        byte[] xml = Resources.toByteArray(Resources.getResource(NewznabXmlStreamParserTest.class, "/org/nzbhydra/mapping/newznab_3results.xml"));
+
+        assertThat(((NewznabXmlRoot) testee.parse(new ByteArrayInputStream(xml), Long.MAX_VALUE, 3)).getRssChannel().getItems()).hasSize(3);
+        try {
+            testee.parse(new ByteArrayInputStream(xml), Long.MAX_VALUE, 2);
+            fail("Expected exception");
+        } catch (IndexerParsingException e) {
+            assertThat(e.getMessage()).contains("maximum of 2 items");
+        }
+    }
+
+    @Test
+    public void shouldAbortWhenTooBig() throws Exception {
+        byte[] xml = Resources.toByteArray(Resources.getResource(NewznabXmlStreamParserTest.class, "/org/nzbhydra/mapping/nzbIndexResponse.xml"));
+
+        try {
+            testee.parse(new ByteArrayInputStream(xml), xml.length / 2, Integer.MAX_VALUE);
+            fail("Expected exception");
+        } catch (IndexerParsingException e) {
+            assertThat(e.getMessage()).contains("maximum size");
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.nzbhydra.logging;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LogLineIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadLinesAndIndexAppendedLines() throws Exception {
+        File file = temporaryFolder.newFile("log.json");
+        append(file, "line0\nline1\r\nline2\nincompl");
+        LogLineIndex testee = new LogLineIndex(file);
+
+        assertThat(testee.update()).isEqualTo(3);
+        assertThat(read(testee, 0, 3)).containsExactly("line0", "line1", "line2");
+        assertThat(read(testee, 2, 10)).containsExactly("line2");
+        assertThat(read(testee, -5, 1)).containsExactly("line0");
+
+        append(file, "ete\nline4\n");
+        assertThat(testee.update()).isEqualTo(5);
+        assertThat(read(testee, 3, 5)).containsExactly("incomplete", "line4");
+    }
+
+    @Test
+    public void shouldRebuildAfterRollover() throws Exception {
+        File file = temporaryFolder.newFile("log.json");
+        append(file, "line0\nline1\nline2\n");
+        LogLineIndex testee = new LogLineIndex(file);
+        assertThat(testee.update()).isEqualTo(3);
+
+        Files.write(file.toPath(), "new0\n".getBytes(StandardCharsets.UTF_8));
+        assertThat(testee.update()).isEqualTo(1);
+        assertThat(read(testee, 0, 1)).containsExactly("new0");
+
+        //Longer than before but the last indexed position is no line end anymore
+        Files.write(file.toPath(), "new line 0\nnew line 1\n".getBytes(StandardCharsets.UTF_8));
+        assertThat(testee.update()).isEqualTo(2);
+        assertThat(read(testee, 0, 2)).containsExactly("new line 0", "new line 1");
+    }
+
+    @Test
+    public void shouldRebuildAfterRolloverWhenOnlyTheContentChanged() throws Exception {
+        File file = temporaryFolder.newFile("log.json");
+        append(file, "line0\nline1\n");
+        LogLineIndex testee = new LogLineIndex(file);
+        assertThat(testee.update()).isEqualTo(2);
+
+        //Same file key and the last indexed position is still a line end, like after a rollover on Windows
+        Files.write(file.toPath(), "lineA\nlineB\nlineC\n".getBytes(StandardCharsets.UTF_8));
+        assertThat(testee.update()).isEqualTo(3);
+        assertThat(read(testee, 0, 3)).containsExactly("lineA", "lineB", "lineC");
+    }
+
+    private static void append(File file, String content) throws Exception {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    private static List<String> read(LogLineIndex index, int from, int to) throws Exception {
+        return index.readLines(from, to).stream().map(x -> new String(x, StandardCharsets.UTF_8)).collect(Collectors.toList());
+    }
+
+}
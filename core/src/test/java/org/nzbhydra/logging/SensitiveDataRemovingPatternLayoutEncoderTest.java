@@ -18,6 +18,9 @@ package org.nzbhydra.logging;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class SensitiveDataRemovingPatternLayoutEncoderTest {
@@ -47,4 +50,23 @@ public class SensitiveDataRemovingPatternLayoutEncoderTest {
         assertThat(result).isEqualTo("https://www.indexer.com/api?t=search&username=<username>&q=abc");
     }
 
+    @Test
+    public void shouldRemoveSensitiveDataLikeRegex() {
+        SensitiveDataRemovingPatternLayoutEncoder encoder = new SensitiveDataRemovingPatternLayoutEncoder();
+        List<String> texts = Arrays.asList(
+                "",
+                "Nothing to see here",
+                "Calling https://www.indexer.com/api?APIKEY=abc&ApiKey:def&q=user name and password",
+                "Login with Username:someuser\tPassword=somepassword\r\n",
+                "password=&apikey= username: apikey",
+                "someapikey=123apikey=456",
+                "Ends with password:"
+        );
+        for (String text : texts) {
+            assertThat(encoder.removeSensitiveData(text)).isEqualTo(text.replaceAll("(?i)(username|apikey|password)[=:]([^&\\s]+)", "$1=<$1>"));
+        }
+        String text = "No sensitive data";
+        assertThat(encoder.removeSensitiveData(text)).isSameAs(text);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package org.nzbhydra.maintenance;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.nzbhydra.maintenance.DatabaseSize.CompactionResult;
+import org.nzbhydra.maintenance.DatabaseSize.TableSize;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+public class DatabaseStorageTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @InjectMocks
+    private DatabaseStorage testee = new DatabaseStorage();
+    @Mock
+    private MaintenanceEngine maintenanceEngineMock;
+    @Mock
+    private MaintenanceThrottle throttleMock;
+
+    private MaintenanceJobStatus jobStatus = new MaintenanceJobStatus("compactDatabase");
+    private JdbcDataSource dataSource = new JdbcDataSource();
+    private Connection keepAliveConnection;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(throttleMock.getPause(anyLong())).thenReturn(0L);
+        when(maintenanceEngineMock.start("compactDatabase")).thenAnswer(x -> new MaintenanceRun(jobStatus, throttleMock));
+        dataSource.setURL("jdbc:h2:file:" + new File(temporaryFolder.getRoot(), "database").getAbsolutePath() + ";RETENTION_TIME=0");
+        testee.dataSource = dataSource;
+        keepAliveConnection = dataSource.getConnection();
+        try (Statement statement = keepAliveConnection.createStatement()) {
+            statement.execute("CREATE TABLE BIG (ID INTEGER PRIMARY KEY, TEXT VARCHAR(1000), NUMBER INTEGER)");
+            statement.execute("CREATE INDEX BIG_NUMBER_INDEX ON BIG (NUMBER)");
+            statement.execute("INSERT INTO BIG SELECT X, REPEAT('text', 25), MOD(X, 1000) FROM SYSTEM_RANGE(1, 40000)");
+            statement.execute("CREATE TABLE SMALL (ID INTEGER PRIMARY KEY, TEXT VARCHAR(1000))");
+            statement.execute("INSERT INTO SMALL SELECT X, REPEAT('text', 50) FROM SYSTEM_RANGE(1, 1000)");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        keepAliveConnection.close();
+    }
+
+    @Test
+    public void shouldReportTableSizes() throws Exception {
+        DatabaseSize databaseSize = testee.getDatabaseSize();
+
+        assertThat(databaseSize.getFileSizeBytes()).isGreaterThan(0);
+        assertThat(databaseSize.getTables()).extracting(TableSize::getName).startsWith("BIG", "SMALL");
+        TableSize big = databaseSize.getTables().get(0);
+        TableSize small = databaseSize.getTables().get(1);
+        assertThat(big.getRows()).isEqualTo(40000);
+        assertThat(small.getRows()).isEqualTo(1000);
+        assertThat(big.getEstimatedBytes()).isGreaterThan(small.getEstimatedBytes() * 10);
+    }
+
+    @Test
+    public void shouldCompactWhileDatabaseIsOpen() throws Exception {
+        try (Statement statement = keepAliveConnection.createStatement()) {
+            statement.execute("DELETE FROM BIG WHERE ID > 1000");
+        }
+
+        CompactionResult result = testee.compact();
+
+        //Chunks are freed right away without retention time, so free space at the end of the file is truncated
+        assertThat(result.getSizeAfterBytes()).isLessThan(result.getSizeBeforeBytes());
+        assertThat(testee.getDatabaseSize().getLastCompaction()).isEqualTo(result);
+        assertThat(jobStatus.getBatches()).isGreaterThan(0);
+        assertThat(jobStatus.getLastDurationMs()).isNotNull();
+        try (Statement statement = keepAliveConnection.createStatement()) {
+            statement.execute("INSERT INTO BIG SELECT X, 'new', 1 FROM SYSTEM_RANGE(1001, 2000)");
+        }
+        assertThat(testee.getDatabaseSize().getTables().get(0).getRows()).isEqualTo(2000);
+    }
+
+}
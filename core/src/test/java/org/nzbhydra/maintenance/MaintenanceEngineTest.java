@@ -0,0 +1,71 @@
+package org.nzbhydra.maintenance;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.nzbhydra.searching.Searcher;
+import org.nzbhydra.searching.Searcher.CoalescingStats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+public class MaintenanceEngineTest {
+
+    @InjectMocks
+    private MaintenanceEngine testee = new MaintenanceEngine();
+    @Mock
+    private MaintenanceThrottle throttleMock;
+    @Mock
+    private Searcher searcherMock;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void shouldReportProgressAndDuration() {
+        when(throttleMock.getPause(5)).thenReturn(20L);
+        MaintenanceJobStatus status;
+        try (MaintenanceRun run = testee.start("job")) {
+            run.setStep("step");
+            run.batchDone(100, 5);
+            run.batchDone(50, 5);
+            status = testee.getJobStatuses().get(0);
+            assertThat(status.isRunning()).isTrue();
+            assertThat(status.getStep()).isEqualTo("step");
+            assertThat(status.getRowsAffected()).isEqualTo(150);
+        }
+        assertThat(status.getName()).isEqualTo("job");
+        assertThat(status.isRunning()).isFalse();
+        assertThat(status.getBatches()).isEqualTo(2);
+        assertThat(status.getPausedMs()).isEqualTo(40);
+        assertThat(status.getLastDurationMs()).isGreaterThanOrEqualTo(40);
+
+        //Progress is reset for the next run
+        try (MaintenanceRun run = testee.start("job")) {
+            assertThat(testee.getJobStatuses()).hasSize(1);
+            assertThat(status.getRowsAffected()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void shouldBackOffWhenSearchesAreRunningOrDatabaseIsSlow() {
+        MaintenanceThrottle throttle = new MaintenanceThrottle();
+        throttle.searcher = searcherMock;
+        when(searcherMock.getCoalescingStats()).thenReturn(new CoalescingStats(0, 0));
+
+        assertThat(throttle.getPause(10)).isEqualTo(100);
+        assertThat(throttle.getPause(500)).isEqualTo(500);
+        assertThat(throttle.getPause(2000)).isEqualTo(8000);
+        assertThat(throttle.getPause(5000)).isEqualTo(10000);
+
+        when(searcherMock.getCoalescingStats()).thenReturn(new CoalescingStats(2, 0));
+        assertThat(throttle.getPause(10)).isEqualTo(400);
+        assertThat(throttle.getPause(500)).isEqualTo(2000);
+        assertThat(throttle.getPause(2000)).isEqualTo(10000);
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.nzbhydra.metrics;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.nzbhydra.api.WrongApiKeyException;
+import org.nzbhydra.config.BaseConfig;
+import org.nzbhydra.config.ConfigProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+public class MetricsWebTest {
+
+    @InjectMocks
+    private MetricsWeb testee = new MetricsWeb();
+    @Mock
+    private ConfigProvider configProviderMock;
+    @Mock
+    private PrometheusMeterRegistry registry;
+
+    private PrometheusMeterRegistry prometheusRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        BaseConfig baseConfig = new BaseConfig();
+        baseConfig.getMain().setApiKey("apikey");
+        when(configProviderMock.getBaseConfig()).thenReturn(baseConfig);
+        when(registry.scrape()).thenAnswer(x -> prometheusRegistry.scrape());
+        Metrics.addRegistry(prometheusRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.removeRegistry(prometheusRegistry);
+    }
+
+    @Test
+    public void shouldExposeRecordedMeters() throws Exception {
+        HydraMetrics.recordIndexerRequest("indexer1", "SEARCH", true, 250);
+        HydraMetrics.recordIndexerRequest("indexer1", "SEARCH", false, 10_000);
+        HydraMetrics.recordIndexerResults("indexer1", 100);
+        Multiset<String> reasonsForRejection = HashMultiset.create();
+        reasonsForRejection.add("Wrong size", 3);
+        reasonsForRejection.add("Forbidden word");
+        HydraMetrics.countRejectedResults(reasonsForRejection);
+        HydraMetrics.recordProxiedDownload("indexer1", 2048, 100);
+
+        String metrics = testee.getPrometheusMetrics("apikey");
+
+        assertThat(metrics).contains("nzbhydra_indexer_requests_seconds_count{indexer=\"indexer1\",outcome=\"success\",type=\"SEARCH\",} 1.0");
+        assertThat(metrics).contains("nzbhydra_indexer_requests_seconds_count{indexer=\"indexer1\",outcome=\"error\",type=\"SEARCH\",} 1.0");
+        assertThat(metrics).contains("nzbhydra_indexer_requests_seconds_bucket{indexer=\"indexer1\",outcome=\"success\",type=\"SEARCH\",le=");
+        assertThat(metrics).contains("nzbhydra_indexer_results_sum{indexer=\"indexer1\",} 100.0");
+        assertThat(metrics).contains("nzbhydra_results_rejected_total{reason=\"Wrong size\",} 3.0");
+        assertThat(metrics).contains("nzbhydra_results_rejected_total{reason=\"Forbidden word\",} 1.0");
+        assertThat(metrics).contains("nzbhydra_downloads_proxied_bytes_sum{indexer=\"indexer1\",} 2048.0");
+    }
+
+    @Test(expected = WrongApiKeyException.class)
+    public void shouldRequireApiKey() throws Exception {
+        testee.getPrometheusMetrics("wrong");
+    }
+
+}
@@ -1,14 +1,20 @@
 package org.nzbhydra.okhttp;
 
+import com.sun.net.httpserver.HttpServer;
 import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.nzbhydra.config.BaseConfig;
+import org.nzbhydra.config.ConfigChangedEvent;
 import org.nzbhydra.config.ConfigProvider;
+import org.nzbhydra.config.IndexerConfig;
 import org.nzbhydra.config.ProxyType;
+import org.nzbhydra.okhttp.HydraOkHttp3ClientHttpRequestFactory.HostConnectionStats;
 import org.nzbhydra.okhttp.HydraOkHttp3ClientHttpRequestFactory.SockProxySocketFactory;
 
 import java.net.InetSocketAddress;
@@ -16,8 +22,11 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
 
+import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.when;
@@ -95,5 +104,60 @@ public class HydraOkHttp3ClientHttpRequestFactoryTest {
         assertThat(((SockProxySocketFactory) client.socketFactory()).password, is("pass"));
     }
 
+    @Test
+    public void shouldReuseClientForSameHostAndSettings() throws URISyntaxException {
+        OkHttpClient client1 = testee.getOkHttpClientBuilder(new URI("http://www.google.de/a")).build();
+        OkHttpClient client2 = testee.getOkHttpClientBuilder(new URI("http://www.google.de/b")).build();
+        OkHttpClient client3 = testee.getOkHttpClientBuilder(new URI("http://www.github.com")).build();
+
+        assertThat(client1.sslSocketFactory(), is(sameInstance(client2.sslSocketFactory())));
+        assertThat(client1.connectionPool(), is(sameInstance(client2.connectionPool())));
+        assertThat(client1.dispatcher(), is(sameInstance(client3.dispatcher())));
+        assertThat(testee.getConnectionStats().getCachedClients(), is(2L));
+
+        testee.handleNewConfig(new ConfigChangedEvent(this, baseConfig, baseConfig));
+        assertThat(testee.getConnectionStats().getCachedClients(), is(0L));
+    }
+
+    @Test
+    public void shouldUseConnectionPoolPerIndexerHost() throws URISyntaxException {
+        IndexerConfig indexerConfig = new IndexerConfig();
+        indexerConfig.setName("indexer");
+        indexerConfig.setHost("https://indexer.com/api");
+        baseConfig.getIndexers().add(indexerConfig);
+
+        OkHttpClient indexerClient = testee.getOkHttpClientBuilder(new URI("https://INDEXER.com/api?t=search")).build();
+        OkHttpClient otherClient = testee.getOkHttpClientBuilder(new URI("https://www.google.de")).build();
+
+        assertThat(indexerClient.connectionPool(), is(not(sameInstance(otherClient.connectionPool()))));
+        assertThat(testee.getConnectionStats().getIndexerPools(), is(1));
+    }
+
+    @Test
+    public void shouldCountReusedConnections() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] response = "ok".getBytes();
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+            for (int i = 0; i < 3; i++) {
+                try (Response response = testee.getOkHttpClientBuilder(new URI(url)).build().newCall(new Request.Builder().url(url).build()).execute()) {
+                    assertThat(response.body().string(), is("ok"));
+                }
+            }
+        } finally {
+            server.stop(0);
+        }
+
+        HostConnectionStats stats = testee.getConnectionStats().getHosts().get(0);
+        assertThat(stats.getRequests(), is(3L));
+        assertThat(stats.getNewConnections(), is(1L));
+        assertThat(stats.getReuseRate(), is(closeTo(0.67, 0.01)));
+    }
 
-}
\ No newline at end of file
+}
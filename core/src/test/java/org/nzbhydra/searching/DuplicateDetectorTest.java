@@ -18,7 +18,15 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
@@ -138,6 +146,94 @@ public class DuplicateDetectorTest {
     }
 
 
+    @Test
+    public void shouldIntegrateNewResultsIntoExistingGroups() throws Exception {
+        SearchResultItem item1 = new SearchResultItem();
+        setValues(item1, "1", "poster", "group", Instant.now());
+        SearchResultItem item2 = new SearchResultItem();
+        setValues(item2, "2", "otherPoster", "group", Instant.now());
+        DuplicateDetectionState state = new DuplicateDetectionState();
+
+        DuplicateDetectionResult result = testee.detectDuplicates(state, Arrays.asList(item1, item2));
+        assertThat(result.getDuplicateGroups().size()).isEqualTo(2);
+
+        SearchResultItem item3 = new SearchResultItem();
+        setValues(item3, "3", "poster", "group", Instant.now());
+        result = testee.detectDuplicates(state, Arrays.asList(item1, item2, item3));
+        assertThat(result.getDuplicateGroups().size()).isEqualTo(2);
+        assertThat(result.getDuplicateGroups().stream().mapToInt(Set::size).sum()).isEqualTo(3);
+        assertThat(item3.getDuplicateIdentifier()).isEqualTo(item1.getDuplicateIdentifier());
+        assertThat(state.getNumberOfKnownItems()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldNotChangeEarlierResultsWhenIntegratingNewResults() throws Exception {
+        SearchResultItem item1 = new SearchResultItem();
+        setValues(item1, "1", "poster", "group", Instant.now());
+        DuplicateDetectionState state = new DuplicateDetectionState();
+        DuplicateDetectionResult firstResult = testee.detectDuplicates(state, Collections.singletonList(item1));
+
+        SearchResultItem item2 = new SearchResultItem();
+        setValues(item2, "2", "poster", "group", Instant.now());
+        testee.detectDuplicates(state, Arrays.asList(item1, item2));
+
+        assertThat(firstResult.getDuplicateGroups()).hasSize(1);
+        assertThat(firstResult.getDuplicateGroups().get(0)).containsExactly(item1);
+    }
+
+    @Test
+    public void shouldFindSameGroupsAsPairwiseComparison() throws Exception {
+        Random random = new Random(0);
+        List<SearchResultItem> items = new ArrayList<>();
+        Instant now = Instant.now();
+        for (int i = 0; i < 500; i++) {
+            SearchResultItem item = new SearchResultItem();
+            setValues(item, String.valueOf(random.nextInt(5)), random.nextBoolean() ? "poster" : null, random.nextBoolean() ? "group" : null, now.minusSeconds(random.nextInt(10 * 60 * 60)));
+            item.setTitle("title" + random.nextInt(3));
+            item.setSize(1_000_000L + random.nextInt(50_000));
+            items.add(item);
+        }
+
+        DuplicateDetectionResult result = testee.detectDuplicates(items);
+
+        Set<Set<SearchResultItem>> expected = detectDuplicatesPairwise(items);
+        assertThat(result.getDuplicateGroups().stream().map(HashSet::new).collect(Collectors.toSet())).isEqualTo(expected);
+    }
+
+    /**
+     * Compares each result with each result in previously found groups like it was done before blocking was introduced
+     */
+    private Set<Set<SearchResultItem>> detectDuplicatesPairwise(List<SearchResultItem> items) {
+        Set<Set<SearchResultItem>> allBuckets = new HashSet<>();
+        Map<String, List<SearchResultItem>> groupedByTitle = items.stream().collect(Collectors.groupingBy(x -> x.getTitle().replaceFirst("[ .\\-_]", "")));
+        for (List<SearchResultItem> titleGroup : groupedByTitle.values()) {
+            titleGroup = titleGroup.stream().sorted(Comparator.comparing(SearchResultItem::getBestDate).reversed()).collect(Collectors.toList());
+            List<Set<SearchResultItem>> buckets = new ArrayList<>();
+            for (SearchResultItem item : titleGroup) {
+                Optional<Set<SearchResultItem>> bucket = buckets.stream()
+                        .filter(x -> x.stream().noneMatch(y -> y.getIndexer().equals(item.getIndexer())))
+                        .filter(x -> x.stream().anyMatch(y -> isSame(item, y)))
+                        .findFirst();
+                if (bucket.isPresent()) {
+                    bucket.get().add(item);
+                } else {
+                    buckets.add(new HashSet<>(Collections.singletonList(item)));
+                }
+            }
+            allBuckets.addAll(buckets);
+        }
+        return allBuckets;
+    }
+
+    private boolean isSame(SearchResultItem item1, SearchResultItem item2) {
+        boolean groupKnown = item1.getGroup().isPresent() && item2.getGroup().isPresent();
+        boolean posterKnown = item1.getPoster().isPresent() && item2.getPoster().isPresent();
+        float factor = (groupKnown && !posterKnown) || (posterKnown && !groupKnown) ? 2 : 1;
+        long hours = Math.abs(item1.getBestDate().getEpochSecond() - item2.getBestDate().getEpochSecond()) / (60 * 60);
+        float sizeDiffPercent = Math.abs(item1.getSize() - item2.getSize()) / ((item1.getSize() + item2.getSize()) / 2F) * 100;
+        return hours <= 2F * factor && sizeDiffPercent < 1F * factor;
+    }
+
     protected void setValues(SearchResultItem item, String indexerName, String poster, String group, Instant pubDate) {
         item.setAgePrecise(true);
         item.setTitle("title");
@@ -8,21 +8,17 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.internal.util.collections.Sets;
 import org.nzbhydra.config.*;
 import org.nzbhydra.config.Category.Subtype;
-import org.nzbhydra.downloading.FileDownloadRepository;
 import org.nzbhydra.indexers.Indexer;
 import org.nzbhydra.indexers.IndexerApiAccessRepository;
 import org.nzbhydra.indexers.IndexerEntity;
+import org.nzbhydra.indexers.IndexerLimitCounter;
 import org.nzbhydra.mediainfo.InfoProvider;
 import org.nzbhydra.mediainfo.InfoProvider.IdType;
 import org.nzbhydra.searching.dtoseventsenums.DownloadType;
 import org.nzbhydra.searching.searchrequests.SearchRequest;
 import org.nzbhydra.searching.searchrequests.SearchRequest.SearchSource;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.data.domain.PageImpl;
 
-import javax.persistence.EntityManager;
-import javax.persistence.Query;
-import java.sql.Timestamp;
 import java.time.*;
 import java.time.temporal.ChronoField;
 import java.time.temporal.ChronoUnit;
@@ -31,7 +27,7 @@ import java.util.*;
 import static junit.framework.TestCase.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 public class IndexerForSearchSelectorTest {
@@ -39,7 +35,7 @@ public class IndexerForSearchSelectorTest {
     @Mock
     private IndexerApiAccessRepository indexerApiAccessRepository;
     @Mock
-    private FileDownloadRepository nzbDownloadRepository;
+    private IndexerLimitCounter indexerLimitCounterMock;
     @Mock
     private SearchModuleProvider searchModuleProviderMock;
     @Mock
@@ -61,10 +57,6 @@ public class IndexerForSearchSelectorTest {
     private ApplicationEventPublisher eventPublisher;
     @Mock
     private Category category;
-    @Mock
-    private EntityManager entityManagerMock;
-    @Mock
-    private Query queryMock;
 
     private Map<Indexer, String> count;
 
@@ -83,7 +75,7 @@ public class IndexerForSearchSelectorTest {
         when(baseConfig.getSearching()).thenReturn(searchingConfig);
         when(category.getName()).thenReturn("category");
         when(category.getSubtype()).thenReturn(Subtype.NONE);
-        when(entityManagerMock.createNativeQuery(anyString())).thenReturn(queryMock);
+        when(indexerEntity.getId()).thenReturn(1);
     }
 
 
@@ -209,35 +201,53 @@ public class IndexerForSearchSelectorTest {
         indexerConfigMock.setHitLimit(null);
         indexerConfigMock.setDownloadLimit(null);
         testee.checkIndexerHitLimit(indexer);
-        verify(nzbDownloadRepository, never()).findBySearchResultIndexerOrderByTimeDesc(any(), any());
+        verify(indexerLimitCounterMock, never()).getNthNewestDownload(anyInt(), anyInt());
+        verify(indexerLimitCounterMock, never()).getNthNewestApiAccess(anyInt(), anyInt());
         verify(indexerApiAccessRepository, never()).findByIndexerOrderByTimeDesc(any(), any());
     }
 
     @Test
     public void shouldIgnoreHitLimitIfNotYetReached() {
         indexerConfigMock.setHitLimit(10);
-        when(queryMock.getResultList()).thenReturn(Collections.emptyList());
+        when(indexerLimitCounterMock.getNthNewestApiAccess(1, 10)).thenReturn(Optional.empty());
         boolean result = testee.checkIndexerHitLimit(indexer);
         assertTrue(result);
-        verify(entityManagerMock).createNativeQuery(anyString());
+        verify(indexerLimitCounterMock).getNthNewestApiAccess(1, 10);
     }
 
     @Test
     public void shouldFollowApiHitLimit() {
         indexerConfigMock.setHitLimit(1);
-        when(queryMock.getResultList()).thenReturn(Arrays.asList(Timestamp.from(Instant.now().minus(10, ChronoUnit.MILLIS))));
+        when(indexerLimitCounterMock.getNthNewestApiAccess(1, 1)).thenReturn(Optional.of(Instant.now().minus(10, ChronoUnit.MILLIS)));
         boolean result = testee.checkIndexerHitLimit(indexer);
         assertFalse(result);
-        verify(entityManagerMock).createNativeQuery(anyString());
+        verify(indexerLimitCounterMock).getNthNewestApiAccess(1, 1);
+    }
+
+    @Test
+    public void shouldIgnoreApiHitsBeforeTimeWindow() {
+        testee.clock = Clock.systemUTC();
+        indexerConfigMock.setHitLimit(1);
+        when(indexerLimitCounterMock.getNthNewestApiAccess(1, 1)).thenReturn(Optional.of(Instant.now().minus(25, ChronoUnit.HOURS)));
+        boolean result = testee.checkIndexerHitLimit(indexer);
+        assertTrue(result);
     }
 
     @Test
     public void shouldIgnoreDownloadLimitIfNotYetReached() {
         indexerConfigMock.setDownloadLimit(10);
-        when(nzbDownloadRepository.findBySearchResultIndexerOrderByTimeDesc(any(), any())).thenReturn(new PageImpl<>(Collections.emptyList()));
+        when(indexerLimitCounterMock.getNthNewestDownload(1, 10)).thenReturn(Optional.empty());
         boolean result = testee.checkIndexerHitLimit(indexer);
         assertTrue(result);
-        verify(nzbDownloadRepository).findBySearchResultIndexerOrderByTimeDesc(any(), any());
+        verify(indexerLimitCounterMock).getNthNewestDownload(1, 10);
+    }
+
+    @Test
+    public void shouldFollowDownloadLimit() {
+        indexerConfigMock.setDownloadLimit(2);
+        when(indexerLimitCounterMock.getNthNewestDownload(1, 2)).thenReturn(Optional.of(Instant.now().minus(1, ChronoUnit.HOURS)));
+        boolean result = testee.checkIndexerHitLimit(indexer);
+        assertFalse(result);
     }
 
     @Test
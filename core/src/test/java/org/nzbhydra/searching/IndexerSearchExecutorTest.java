@@ -0,0 +1,156 @@
+package org.nzbhydra.searching;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.nzbhydra.config.IndexerConfig;
+import org.nzbhydra.config.SearchingConfig;
+import org.nzbhydra.indexers.Indexer;
+import org.nzbhydra.searching.dtoseventsenums.IndexerSearchFinishedEvent;
+import org.nzbhydra.searching.dtoseventsenums.IndexerSearchResult;
+import org.nzbhydra.searching.searchrequests.SearchRequest;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class IndexerSearchExecutorTest {
+
+    @Mock
+    private ApplicationEventPublisher eventPublisherMock;
+    @Mock
+    private Indexer indexerMock;
+    @Mock
+    private IndexerConfig indexerConfigMock;
+    @Mock
+    private Indexer otherIndexerMock;
+    @Mock
+    private IndexerConfig otherIndexerConfigMock;
+    @Mock
+    private SearchRequest searchRequestMock;
+
+    @InjectMocks
+    private IndexerSearchExecutor testee = new IndexerSearchExecutor();
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(indexerMock.getName()).thenReturn("indexer");
+        when(indexerMock.getConfig()).thenReturn(indexerConfigMock);
+        when(indexerConfigMock.getMaxConcurrentSearches()).thenReturn(Optional.of(1));
+        when(otherIndexerMock.getName()).thenReturn("otherIndexer");
+        when(otherIndexerMock.getConfig()).thenReturn(otherIndexerConfigMock);
+        when(otherIndexerConfigMock.getMaxConcurrentSearches()).thenReturn(Optional.of(1));
+        SearchingConfig searchingConfig = new SearchingConfig();
+        searchingConfig.setTimeout(0);
+        testee.configure(searchingConfig);
+    }
+
+    @Test
+    public void shouldExecuteSearch() throws Exception {
+        IndexerSearchResult expected = new IndexerSearchResult(indexerMock, true);
+
+        Future<IndexerSearchResult> future = testee.submit(indexerMock, searchRequestMock, () -> expected);
+
+        assertThat(future.get(5, TimeUnit.SECONDS)).isSameAs(expected);
+        assertThat(testee.getStats().getBulkheads()).hasSize(1);
+        assertThat(testee.getStats().getBulkheads().get(0).getRunning()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotSearchIndexerWhenBulkheadIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IndexerSearchResult expected = new IndexerSearchResult(indexerMock, true);
+
+        Future<IndexerSearchResult> runningSearch = testee.submit(indexerMock, searchRequestMock, () -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return expected;
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        IndexerSearchResult rejected = testee.submit(indexerMock, searchRequestMock, () -> expected).get(5, TimeUnit.SECONDS);
+        assertThat(rejected.isWasSuccessful()).isFalse();
+        assertThat(rejected.isHasMoreResults()).isFalse();
+        assertThat(rejected.getErrorMessage()).contains("Too many searches");
+        verify(eventPublisherMock).publishEvent(any(IndexerSearchFinishedEvent.class));
+        assertThat(testee.getStats().getBulkheads().get(0).getRejected()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(runningSearch.get(5, TimeUnit.SECONDS)).isSameAs(expected);
+    }
+
+    @Test
+    public void shouldLimitOtherIndexerCallsWithSameBulkhead() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IndexerSearchResult expected = new IndexerSearchResult(indexerMock, true);
+
+        Future<IndexerSearchResult> runningSearch = testee.submit(indexerMock, searchRequestMock, () -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return expected;
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            testee.submitIndexerCall(indexerMock, () -> "download").get(5, TimeUnit.SECONDS);
+            fail("Call should've been rejected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(RejectedExecutionException.class);
+        }
+
+        release.countDown();
+        assertThat(runningSearch.get(5, TimeUnit.SECONDS)).isSameAs(expected);
+        assertThat(testee.submitIndexerCall(indexerMock, () -> "download").get(5, TimeUnit.SECONDS)).isEqualTo("download");
+    }
+
+    @Test
+    public void shouldNotDelayOtherIndexersWhileWaitingForBulkhead() throws Exception {
+        SearchingConfig searchingConfig = new SearchingConfig();
+        searchingConfig.setTimeout(10);
+        searchingConfig.setMaxConcurrentIndexerSearches(2);
+        testee.configure(searchingConfig);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> blockedCall = testee.submitIndexerCall(indexerMock, () -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return "blocked";
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        //Wait for the bulkhead without occupying the second thread
+        List<CompletableFuture<String>> waitingCalls = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            waitingCalls.add(testee.submitIndexerCall(indexerMock, () -> "waited"));
+        }
+        assertThat(testee.getStats().getBulkheads().get(0).getWaiting()).isEqualTo(3);
+
+        assertThat(testee.submitIndexerCall(otherIndexerMock, () -> "other").get(2, TimeUnit.SECONDS)).isEqualTo("other");
+        assertThat(blockedCall.isDone()).isFalse();
+
+        release.countDown();
+        assertThat(blockedCall.get(5, TimeUnit.SECONDS)).isEqualTo("blocked");
+        for (CompletableFuture<String> waitingCall : waitingCalls) {
+            assertThat(waitingCall.get(5, TimeUnit.SECONDS)).isEqualTo("waited");
+        }
+        assertThat(testee.getStats().getBulkheads().get(0).getRunning()).isEqualTo(0);
+    }
+
+}
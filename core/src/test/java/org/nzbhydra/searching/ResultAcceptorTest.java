@@ -19,10 +19,12 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 
 public class ResultAcceptorTest {
@@ -304,5 +306,80 @@ public class ResultAcceptorTest {
 
     }
 
+    @Test
+    public void shouldAcceptResultsUsingCompiledRules() {
+        prepareForAcceptResults();
+        when(searchingConfig.getForbiddenWords()).thenReturn(Arrays.asList("cam", "x-264"));
+        when(searchingConfig.getRequiredRegex()).thenReturn(Optional.of("720p|1080p"));
+        category.setRequiredWords(Arrays.asList("show"));
+        internalData.getForbiddenWords().add("german");
+
+        List<SearchResultItem> items = Arrays.asList(
+                acceptorItem("1", "My.Show.s01e01.720p"),
+                acceptorItem("2", "My.Show.s01e01.CAM.720p"),
+                acceptorItem("3", "My.Show.s01e01.camera.720p"),
+                acceptorItem("4", "My.Show.s01e01.x-264.720p"),
+                acceptorItem("5", "My.Show.s01e01.German.720p"),
+                acceptorItem("6", "My.Show.s01e01.SDTV"),
+                acceptorItem("7", "My.Shows.s01e01.720p")
+        );
+        SearchResultAcceptor.AcceptorResult result = testee.acceptResults(items, searchRequest, indexerConfig);
+
+        assertThat(result.getAcceptedResults()).extracting(SearchResultItem::getIndexerGuid).containsExactlyInAnyOrder("1", "3");
+        assertThat(result.getReasonsForRejection().count("Forbidden word")).isEqualTo(3);
+        assertThat(result.getReasonsForRejection().count("Required regex doesn't match")).isEqualTo(1);
+        assertThat(result.getReasonsForRejection().count("No required word found")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRecompileRulesWhenConfigChanges() {
+        prepareForAcceptResults();
+        when(searchingConfig.getForbiddenWords()).thenReturn(Arrays.asList("cam"));
+        List<SearchResultItem> items = Arrays.asList(acceptorItem("1", "My.Show.CAM.720p"));
+        assertThat(testee.acceptResults(items, searchRequest, indexerConfig).getAcceptedResults()).isEmpty();
+
+        when(searchingConfig.getForbiddenWords()).thenReturn(Collections.emptyList());
+        //Still compiled from the old config
+        assertThat(testee.acceptResults(items, searchRequest, indexerConfig).getAcceptedResults()).isEmpty();
+
+        testee.handleNewConfig(new ConfigChangedEvent(this));
+        assertThat(testee.acceptResults(items, searchRequest, indexerConfig).getAcceptedResults()).hasSize(1);
+    }
+
+    @Test
+    public void shouldRejectItemsWithMissingAttributes() {
+        prepareForAcceptResults();
+        SearchResultItem withoutLink = acceptorItem("1", "title");
+        withoutLink.setLink(null);
+
+        SearchResultAcceptor.AcceptorResult result = testee.acceptResults(Arrays.asList(withoutLink), searchRequest, indexerConfig);
+
+        assertThat(result.getAcceptedResults()).isEmpty();
+        assertThat(result.getReasonsForRejection().count("Important data could not be mapped from the indexers returned response")).isEqualTo(1);
+    }
+
+    private void prepareForAcceptResults() {
+        when(searchingConfig.getApplyRestrictions()).thenReturn(SearchSourceRestriction.BOTH);
+        when(searchRequest.getSource()).thenReturn(SearchSource.INTERNAL);
+        when(indexerConfig.getName()).thenReturn("indexer");
+        when(indexerConfig.getEnabledCategories()).thenReturn(Collections.emptyList());
+        category.setName("category");
+        category.setIgnoreResultsFrom(SearchSourceRestriction.NONE);
+        category.setApplyRestrictionsType(SearchSourceRestriction.BOTH);
+    }
+
+    private SearchResultItem acceptorItem(String guid, String title) {
+        Indexer indexer = new Newznab();
+        indexer.initialize(indexerConfig, new IndexerEntity());
+        SearchResultItem item = new SearchResultItem();
+        item.setIndexer(indexer);
+        item.setIndexerGuid(guid);
+        item.setIndexerScore(0);
+        item.setLink("http://127.0.0.1/" + guid);
+        item.setTitle(title);
+        item.setPubDate(Instant.now());
+        item.setCategory(category);
+        return item;
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package org.nzbhydra.searching;
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+import org.nzbhydra.searching.IndexerForSearchSelector.IndexerForSearchSelection;
+import org.nzbhydra.searching.db.SearchEntity;
+import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
+import org.nzbhydra.searching.dtoseventsenums.SearchType;
+import org.nzbhydra.searching.searchrequests.SearchRequest;
+import org.nzbhydra.searching.searchrequests.SearchRequest.SearchSource;
+import org.nzbhydra.searching.searchrequests.SearchRequestKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchCacheTest {
+
+    @Test
+    public void shouldEvictByWeightInsteadOfCount() {
+        SearchCache testee = new SearchCache(100_000);
+
+        SearchRequestKey smallKey1 = key("small1");
+        SearchRequestKey smallKey2 = key("small2");
+        testee.put(smallKey1, entry("small1", 5));
+        testee.put(smallKey2, entry("small2", 5));
+        assertThat(testee.get(smallKey1)).isNotNull();
+        assertThat(testee.get(smallKey2)).isNotNull();
+
+        //One big entry forces the least recently used ones out
+        SearchRequestKey bigKey = key("big");
+        testee.put(bigKey, entry("big", 40));
+        assertThat(testee.get(bigKey)).isNotNull();
+
+        SearchCache.SearchCacheStats stats = testee.getStats();
+        assertThat(stats.getSizeEvictions()).isGreaterThan(0);
+        assertThat(stats.getEstimatedBytes()).isLessThanOrEqualTo(100_000);
+        assertThat(stats.getHits()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldKeepEntriesWhenResized() {
+        SearchCache testee = new SearchCache(100_000);
+        SearchRequestKey key = key("query");
+        testee.put(key, entry("query", 5));
+
+        testee.setMaxBytes(200_000);
+
+        assertThat(testee.get(key)).isNotNull();
+        assertThat(testee.get(key("other"))).isNull();
+        assertThat(testee.getStats().getMisses()).isEqualTo(1);
+        assertThat(testee.getStats().getMaxBytes()).isEqualTo(200_000);
+    }
+
+    private SearchRequestKey key(String query) {
+        return SearchRequestKey.withoutPaging(request(query));
+    }
+
+    private SearchRequest request(String query) {
+        SearchRequest searchRequest = new SearchRequest(SearchSource.API, SearchType.SEARCH, 0, 100);
+        searchRequest.setQuery(query);
+        return searchRequest;
+    }
+
+    private SearchCacheEntry entry(String query, int numberOfItems) {
+        SearchCacheEntry entry = new SearchCacheEntry(request(query), new IndexerForSearchSelection(), new SearchEntity());
+        for (int i = 0; i < numberOfItems; i++) {
+            SearchResultItem item = new SearchResultItem();
+            item.setTitle(Strings.repeat("x", 1000));
+            entry.getSearchResultItems().add(item);
+        }
+        return entry;
+    }
+
+}
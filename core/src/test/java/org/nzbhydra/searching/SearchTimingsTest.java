@@ -0,0 +1,51 @@
+package org.nzbhydra.searching;
+
+import org.junit.Test;
+import org.nzbhydra.searching.SearchTimings.SearchPhase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchTimingsTest {
+
+    @Test
+    public void shouldSumUpPhasesPerIndexer() {
+        SearchTimings testee = new SearchTimings();
+        testee.add(SearchPhase.INDEXER_SEARCHES, 100);
+        testee.add(SearchPhase.INDEXER_SELECTION, 5);
+        testee.add(SearchPhase.INDEXER_SEARCHES, 50);
+        testee.add("indexer 2", SearchPhase.HTTP, 80);
+        testee.add("indexer1", SearchPhase.PARSING, 10);
+        testee.add("indexer1", SearchPhase.HTTP, 90);
+        testee.add("Indexer1", SearchPhase.HTTP, 40);
+        testee.finish();
+
+        assertThat(testee.getPhases()).containsExactly(entry("indexerSelection", 5L), entry("indexerSearches", 150L));
+        assertThat(testee.getIndexerPhases().keySet()).containsExactly("indexer 2", "indexer1");
+        assertThat(testee.getIndexerPhases().get("indexer1")).containsExactly(entry("http", 130L), entry("parsing", 10L));
+        assertThat(testee.toSummary()).matches("total=\\d+ indexerSelection=5 indexerSearches=150 indexer_2\\[http=80] indexer1\\[http=130 parsing=10]");
+    }
+
+    @Test
+    public void shouldOnlyUseAsciiInHeaderValue() {
+        SearchTimings testee = new SearchTimings();
+        testee.add("indexér\n", SearchPhase.HTTP, 80);
+        testee.finish();
+
+        assertThat(testee.toSummary()).contains("indexér\n[http=80]");
+        assertThat(testee.toHeaderValue()).matches("total=\\d+ index_r_\\[http=80]");
+    }
+
+    @Test
+    public void shouldStopTotalWhenFinished() throws Exception {
+        SearchTimings testee = new SearchTimings();
+        testee.finish();
+        long total = testee.getTotalMillis();
+        Thread.sleep(20);
+        assertThat(testee.getTotalMillis()).isEqualTo(total);
+    }
+
+    private static java.util.Map.Entry<String, Long> entry(String key, long value) {
+        return new java.util.AbstractMap.SimpleEntry<>(key, value);
+    }
+
+}
@@ -16,6 +16,7 @@ import org.nzbhydra.indexers.IndexerSearchEntity;
 import org.nzbhydra.indexers.IndexerSearchRepository;
 import org.nzbhydra.mediainfo.InfoProvider;
 import org.nzbhydra.searching.IndexerForSearchSelector.IndexerForSearchSelection;
+import org.nzbhydra.searching.db.SearchEntity;
 import org.nzbhydra.searching.db.SearchRepository;
 import org.nzbhydra.searching.db.SearchResultEntity;
 import org.nzbhydra.searching.dtoseventsenums.DuplicateDetectionResult;
@@ -30,9 +31,14 @@ import org.springframework.context.ApplicationEventPublisher;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Matchers.any;
@@ -82,6 +88,8 @@ public class SearcherUnitTest {
     private IndexerSearchEntity indexerSearchEntityMock;
     @Mock
     private ApplicationEventPublisher applicationEventPublisherMock;
+    @Spy
+    private IndexerSearchExecutor indexerSearchExecutor = new IndexerSearchExecutor();
     private Random random = new Random();
 
 
@@ -104,10 +112,10 @@ public class SearcherUnitTest {
         when(indexerSearchRepository.findByIndexerEntityAndSearchEntity(any(), any())).thenReturn(indexerSearchEntityMock);
 
         when(pickingResultMock.getSelectedIndexers()).thenReturn(Arrays.asList(indexer1));
-        when(duplicateDetector.detectDuplicates(any())).thenAnswer(new Answer<DuplicateDetectionResult>() {
+        when(duplicateDetector.detectDuplicates(any(), any())).thenAnswer(new Answer<DuplicateDetectionResult>() {
             @Override
             public DuplicateDetectionResult answer(InvocationOnMock invocation) throws Throwable {
-                List<SearchResultItem> items = invocation.getArgument(0);
+                List<SearchResultItem> items = invocation.getArgument(1);
                 List<LinkedHashSet<SearchResultItem>> sets = items.stream().map(x -> {
                     return Sets.newLinkedHashSet(Arrays.asList(x));
                 }).collect(Collectors.toList());
@@ -140,6 +148,32 @@ public class SearcherUnitTest {
         verify(indexer1, times(1)).search(any(), anyInt(), any());
     }
 
+    @Test
+    public void shouldSaveTimingsOfSlowSearches() throws Exception {
+        when(indexer1.search(any(), anyInt(), anyInt())).thenReturn(mockIndexerSearchResult(0, 2, false, 2, indexer1));
+        ArgumentCaptor<SearchEntity> searchEntityCaptor = ArgumentCaptor.forClass(SearchEntity.class);
+
+        SearchRequest searchRequest = new SearchRequest(SearchSource.INTERNAL, SearchType.SEARCH, 0, 10);
+        searcher.search(searchRequest);
+        verify(searchRepositoryMock, times(1)).save(searchEntityCaptor.capture());
+        assertThat(searchEntityCaptor.getValue().getTimings(), is(nullValue()));
+        assertThat(searchRequest.getInternalData().getTimings().getPhases().keySet(), hasItems("indexerSelection", "indexerSearches", "duplicateDetection", "database"));
+
+        searcher.slowSearchMillis = 0;
+        searchRequest = new SearchRequest(SearchSource.INTERNAL, SearchType.SEARCH, 0, 10);
+        searcher.search(searchRequest);
+        verify(searchRepositoryMock, times(3)).save(searchEntityCaptor.capture());
+        assertThat(searchEntityCaptor.getValue().getTimings(), startsWith("total="));
+        assertThat(searchEntityCaptor.getValue().getTimings(), containsString("indexerSearches="));
+
+        //Load more
+        searchRequest = new SearchRequest(SearchSource.INTERNAL, SearchType.SEARCH, 10, 10);
+        searcher.search(searchRequest);
+        verify(searchRepositoryMock, atLeast(4)).save(searchEntityCaptor.capture());
+        assertThat(searchEntityCaptor.getValue().getTimings(), startsWith("total="));
+        assertThat(searchEntityCaptor.getValue().getTimings(), containsString(" | offset=10 total="));
+    }
+
     @Test
     public void shouldReturnNewestFirst() throws Exception {
         when(pickingResultMock.getSelectedIndexers()).thenReturn(Arrays.asList(indexer1, indexer2));
@@ -188,6 +222,65 @@ public class SearcherUnitTest {
         verify(indexer1, times(2)).search(any(), anyInt(), any());
     }
 
+    @Test
+    public void shouldCoalesceIdenticalConcurrentSearches() throws Exception {
+        CountDownLatch searchStarted = new CountDownLatch(1);
+        CountDownLatch releaseSearch = new CountDownLatch(1);
+        IndexerSearchResult indexerSearchResult = mockIndexerSearchResult(0, 2, false, 2, indexer1);
+        when(indexer1.search(any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            searchStarted.countDown();
+            releaseSearch.await(10, TimeUnit.SECONDS);
+            return indexerSearchResult;
+        });
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Future<SearchResult> firstSearch = executorService.submit(() -> searcher.search(createCoalescingSearchRequest()));
+        assertThat(searchStarted.await(10, TimeUnit.SECONDS), is(true));
+        Future<SearchResult> secondSearch = executorService.submit(() -> searcher.search(createCoalescingSearchRequest()));
+        for (int i = 0; i < 100 && searcher.getCoalescingStats().getCoalescedSearches() == 0; i++) {
+            Thread.sleep(50);
+        }
+        releaseSearch.countDown();
+
+        assertThat(firstSearch.get(10, TimeUnit.SECONDS).getSearchResultItems().size(), is(2));
+        assertThat(secondSearch.get(10, TimeUnit.SECONDS).getSearchResultItems().size(), is(2));
+        executorService.shutdown();
+
+        verify(indexer1, times(1)).search(any(), anyInt(), any());
+        assertThat(searcher.getCoalescingStats().getCoalescedSearches(), is(1L));
+        assertThat(searcher.getCoalescingStats().getRunningSearches(), is(0));
+    }
+
+    @Test
+    public void shouldNotCoalesceOrCacheSearchesWithDifferentNewznabCategories() throws Exception {
+        CountDownLatch bothSearchesStarted = new CountDownLatch(2);
+        IndexerSearchResult indexerSearchResult = mockIndexerSearchResult(0, 2, false, 2, indexer1);
+        when(indexer1.search(any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            bothSearchesStarted.countDown();
+            //Only finishes right away if the searches weren't merged
+            bothSearchesStarted.await(5, TimeUnit.SECONDS);
+            return indexerSearchResult;
+        });
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Future<SearchResult> firstSearch = executorService.submit(() -> searcher.search(createCoalescingSearchRequest(5030)));
+        Future<SearchResult> secondSearch = executorService.submit(() -> searcher.search(createCoalescingSearchRequest(5040)));
+        firstSearch.get(10, TimeUnit.SECONDS);
+        secondSearch.get(10, TimeUnit.SECONDS);
+        executorService.shutdown();
+
+        verify(indexer1, times(2)).search(any(), anyInt(), any());
+        assertThat(searcher.getCoalescingStats().getCoalescedSearches(), is(0L));
+        assertThat(searcher.getCacheStats().getEntries(), is(2L));
+    }
+
+    private SearchRequest createCoalescingSearchRequest(Integer... newznabCategories) {
+        SearchRequest searchRequest = new SearchRequest(SearchSource.API, SearchType.SEARCH, 0, 100);
+        searchRequest.setQuery("some query");
+        searchRequest.getInternalData().setNewznabCategories(Arrays.asList(newznabCategories));
+        return searchRequest;
+    }
+
     private IndexerSearchResult mockIndexerSearchResult(int offset, int limit, boolean hasMoreResults, int totalAvailableResults, Indexer indexer) {
 
         List<SearchResultItem> items = new ArrayList<>();
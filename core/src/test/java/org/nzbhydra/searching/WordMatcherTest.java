@@ -0,0 +1,39 @@
+package org.nzbhydra.searching;
+
+import org.junit.Test;
+import org.nzbhydra.searching.WordMatcher.Title;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WordMatcherTest {
+
+    @Test
+    public void shouldSplitTitleIntoWords() {
+        assertThat(new Title("My.Show's_Name-S01E01 'quoted' a''b x'").getWords()).containsExactlyInAnyOrder("my", "show's_name", "s01e01", "quoted", "a''b", "x");
+        assertThat(new Title("Ünïcode.Title").getWords()).containsExactlyInAnyOrder("n", "code", "title");
+        assertThat(new Title("...").getWords()).isEmpty();
+    }
+
+    @Test
+    public void shouldFindContainedWords() {
+        WordMatcher testee = WordMatcher.compile(Arrays.asList("CAM", "x-264"));
+
+        assertThat(testee.findContained(new Title("Show.cam.720p"), false)).isEqualTo("cam");
+        assertThat(testee.findContained(new Title("Show.camera.720p"), false)).isNull();
+        assertThat(testee.findContained(new Title("Show.camera.720p"), true)).isEqualTo("cam");
+        assertThat(testee.findContained(new Title("Show.X-264.720p"), false)).isEqualTo("x-264");
+        assertThat(WordMatcher.compile(null).findContained(new Title("Show"), false)).isNull();
+    }
+
+    @Test
+    public void shouldFindMissingWords() {
+        WordMatcher testee = WordMatcher.compile(Arrays.asList("show", "web-dl"));
+
+        assertThat(testee.findMissing(new Title("My.Show.WEB-DL"))).isNull();
+        assertThat(testee.findMissing(new Title("My.Shows.WEB-DL"))).isEqualTo("show");
+        assertThat(testee.findMissing(new Title("My.Show.WEBDL"))).isEqualTo("web-dl");
+    }
+
+}
@@ -0,0 +1,208 @@
+package org.nzbhydra.searching.cleanup;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import org.h2.jdbcx.JdbcDataSource;
+import org.h2.util.DateTimeUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.nzbhydra.config.BaseConfig;
+import org.nzbhydra.config.ConfigProvider;
+import org.nzbhydra.maintenance.MaintenanceEngine;
+import org.nzbhydra.maintenance.MaintenanceJobStatus;
+import org.nzbhydra.maintenance.MaintenanceRun;
+import org.nzbhydra.maintenance.MaintenanceThrottle;
+import org.nzbhydra.searching.db.SearchResultEntity;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+public class OldResultsCleanupTest {
+
+    @InjectMocks
+    private OldResultsCleanup testee = new OldResultsCleanup();
+    @Mock
+    private ConfigProvider configProviderMock;
+    @Mock
+    private MaintenanceEngine maintenanceEngineMock;
+    @Mock
+    private MaintenanceThrottle maintenanceThrottleMock;
+    private MaintenanceJobStatus jobStatus = new MaintenanceJobStatus("deleteOldSearchResults");
+
+    private BaseConfig baseConfig = new BaseConfig();
+    private JdbcDataSource dataSource = new JdbcDataSource();
+    private Connection keepAliveConnection;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(configProviderMock.getBaseConfig()).thenReturn(baseConfig);
+        baseConfig.getSearching().setKeepSearchResultsForDays(3);
+        when(maintenanceEngineMock.start("deleteOldSearchResults")).thenAnswer(x -> new MaintenanceRun(jobStatus, maintenanceThrottleMock));
+        dataSource.setURL("jdbc:h2:mem:oldresultscleanup;DB_CLOSE_DELAY=-1");
+        keepAliveConnection = dataSource.getConnection();
+        try (Statement statement = keepAliveConnection.createStatement()) {
+            statement.execute("CREATE TABLE SEARCHRESULT (ID BIGINT PRIMARY KEY NOT NULL, BUCKET INTEGER)");
+            statement.execute("CREATE INDEX SEARCHRESULT_BUCKET_INDEX ON SEARCHRESULT (BUCKET)");
+            statement.execute("CREATE TABLE INDEXERNZBDOWNLOAD (ID INTEGER PRIMARY KEY AUTO_INCREMENT, SEARCH_RESULT_ID BIGINT)");
+        }
+        testee.dataSource = dataSource;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Statement statement = keepAliveConnection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        keepAliveConnection.close();
+    }
+
+    @Test
+    public void shouldDeleteOldBucketsExceptDownloadedResults() throws Exception {
+        Instant now = Instant.now();
+        int id = 0;
+        for (int daysAgo : new int[]{30, 10, 5, 3, 1, 0}) {
+            int bucket = SearchResultEntity.calculateBucket(now.minus(daysAgo, ChronoUnit.DAYS));
+            //More than one batch for the oldest day
+            for (int i = 0; i < (daysAgo == 30 ? 25000 : 10); i++) {
+                insertSearchResult(++id * 100 + daysAgo, bucket);
+            }
+        }
+        insertDownload(500 + 30);
+        insertDownload(1000 * 100 + 30);
+        insertDownload(25001 * 100 + 10);
+        //Results without a bucket are never deleted
+        insertSearchResult(-1, null);
+
+        testee.deleteOldResults();
+
+        List<Long> remainingIds = getRemainingIds();
+        assertThat(remainingIds).contains(500L + 30, 1000L * 100 + 30, 25001L * 100 + 10, -1L);
+        assertThat(remainingIds.stream().filter(x -> x > 0 && x % 100 == 30)).hasSize(2);
+        assertThat(remainingIds.stream().filter(x -> x > 0 && x % 100 == 10)).hasSize(1);
+        assertThat(remainingIds.stream().filter(x -> x > 0 && x % 100 == 5)).isEmpty();
+        //Results from the day of the cutoff and later are kept
+        assertThat(remainingIds.stream().filter(x -> x > 0 && x % 100 == 3)).hasSize(10);
+        assertThat(remainingIds.stream().filter(x -> x > 0 && x % 100 == 1)).hasSize(10);
+        assertThat(remainingIds.stream().filter(x -> x > 0 && x % 100 == 0)).hasSize(10);
+
+        assertThat(jobStatus.isRunning()).isFalse();
+        assertThat(jobStatus.getRowsAffected()).isEqualTo(25000 - 2 + 10 - 1 + 10);
+        //Three batches for the oldest bucket, one for each of the others
+        assertThat(jobStatus.getBatches()).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldCommitEveryBatch() throws Exception {
+        int bucket = SearchResultEntity.calculateBucket(Instant.now().minus(10, ChronoUnit.DAYS));
+        int total = 2 * OldResultsCleanup.BATCH_SIZE + 500;
+        for (int i = 0; i < total; i++) {
+            insertSearchResult(i, bucket);
+        }
+        //Called after every batch. Only sees rows deleted by committed batches
+        List<Integer> remainingAfterBatch = new ArrayList<>();
+        when(maintenanceThrottleMock.getPause(anyLong())).thenAnswer(x -> {
+            remainingAfterBatch.add(getRemainingIds().size());
+            return 0L;
+        });
+
+        testee.deleteOldResults();
+
+        assertThat(remainingAfterBatch).containsExactly(total - OldResultsCleanup.BATCH_SIZE, total - 2 * OldResultsCleanup.BATCH_SIZE, 0);
+        assertThat(jobStatus.getBatches()).isEqualTo(3);
+        assertThat(jobStatus.getRowsAffected()).isEqualTo(total);
+    }
+
+    @Test
+    public void shouldSetBucketFromFirstFound() {
+        assertThat(SearchResultEntity.calculateBucket(Instant.parse("1970-01-02T00:00:00Z"))).isEqualTo(1);
+        assertThat(SearchResultEntity.calculateBucket(Instant.parse("2017-03-20T23:59:59Z"))).isEqualTo(17245);
+        SearchResultEntity entity = new SearchResultEntity();
+        entity.setFirstFound(Instant.parse("2017-03-21T00:00:00Z"));
+        assertThat(entity.getBucket()).isEqualTo(17246);
+    }
+
+    @Test
+    public void shouldBackfillSameBucketsAsCalculatedForNewResults() throws Exception {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        //Local midnight is a different time than in UTC
+        TimeZone.setDefault(TimeZone.getTimeZone("America/St_Johns"));
+        DateTimeUtils.resetCalendar();
+        try {
+            List<Instant> firstFounds = Arrays.asList(Instant.parse("2018-01-16T02:10:00Z"), Instant.parse("2018-01-16T03:40:00Z"), Instant.parse("2018-07-15T23:50:00Z"), Instant.parse("2018-07-16T02:20:00Z"));
+            try (Statement statement = keepAliveConnection.createStatement()) {
+                statement.execute("DROP TABLE SEARCHRESULT");
+                statement.execute("CREATE TABLE SEARCHRESULT (ID BIGINT PRIMARY KEY NOT NULL, FIRST_FOUND TIMESTAMP)");
+            }
+            try (PreparedStatement statement = keepAliveConnection.prepareStatement("INSERT INTO SEARCHRESULT (ID, FIRST_FOUND) VALUES (?, ?)")) {
+                for (int i = 0; i < firstFounds.size(); i++) {
+                    statement.setLong(1, i);
+                    statement.setTimestamp(2, Timestamp.from(firstFounds.get(i)));
+                    statement.executeUpdate();
+                }
+            }
+
+            String migration = Resources.toString(Resources.getResource("migration/V1.18__ADD_SEARCHRESULT_BUCKET.sql"), Charsets.UTF_8);
+            try (Statement statement = keepAliveConnection.createStatement()) {
+                for (String sql : migration.split(";")) {
+                    if (!sql.trim().isEmpty()) {
+                        statement.execute(sql);
+                    }
+                }
+            }
+
+            try (Statement statement = keepAliveConnection.createStatement(); ResultSet resultSet = statement.executeQuery("SELECT ID, BUCKET FROM SEARCHRESULT ORDER BY ID")) {
+                for (Instant firstFound : firstFounds) {
+                    assertThat(resultSet.next()).isTrue();
+                    assertThat(resultSet.getInt(2)).as("Bucket for " + firstFound).isEqualTo(SearchResultEntity.calculateBucket(firstFound));
+                }
+            }
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+            DateTimeUtils.resetCalendar();
+        }
+    }
+
+    private void insertSearchResult(long id, Integer bucket) throws Exception {
+        try (PreparedStatement statement = keepAliveConnection.prepareStatement("INSERT INTO SEARCHRESULT (ID, BUCKET) VALUES (?, ?)")) {
+            statement.setLong(1, id);
+            statement.setObject(2, bucket);
+            statement.executeUpdate();
+        }
+    }
+
+    private void insertDownload(long searchResultId) throws Exception {
+        try (PreparedStatement statement = keepAliveConnection.prepareStatement("INSERT INTO INDEXERNZBDOWNLOAD (SEARCH_RESULT_ID) VALUES (?)")) {
+            statement.setLong(1, searchResultId);
+            statement.executeUpdate();
+        }
+    }
+
+    private List<Long> getRemainingIds() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        try (Statement statement = keepAliveConnection.createStatement(); ResultSet resultSet = statement.executeQuery("SELECT ID FROM SEARCHRESULT")) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.nzbhydra.searching.db;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nzbhydra.ShutdownEvent;
+import org.nzbhydra.config.IndexerConfig;
+import org.nzbhydra.indexers.Indexer;
+import org.nzbhydra.indexers.IndexerEntity;
+import org.nzbhydra.indexers.Newznab;
+import org.nzbhydra.searching.SearchResultIdCalculator;
+import org.nzbhydra.searching.dtoseventsenums.SearchResultItem;
+import org.nzbhydra.searching.dtoseventsenums.SearchResultItem.DownloadType;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchResultPersisterTest {
+
+    private SearchResultPersister testee = new SearchResultPersister();
+    private JdbcDataSource dataSource = new JdbcDataSource();
+    private Connection keepAliveConnection;
+    private IndexerEntity indexerEntity = new IndexerEntity();
+    private Indexer indexer = new Newznab();
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource.setURL("jdbc:h2:mem:searchresultpersister;DB_CLOSE_DELAY=-1");
+        keepAliveConnection = dataSource.getConnection();
+        try (Statement statement = keepAliveConnection.createStatement()) {
+            statement.execute("CREATE TABLE SEARCHRESULT (ID BIGINT PRIMARY KEY NOT NULL, DETAILS VARCHAR(4000), DOWNLOAD_TYPE VARCHAR(255), FIRST_FOUND TIMESTAMP, " +
+                    "INDEXERGUID VARCHAR(255) NOT NULL, LINK VARCHAR(4000), PUB_DATE TIMESTAMP, TITLE VARCHAR(4000) NOT NULL, INDEXER_ID INTEGER NOT NULL, BUCKET INTEGER)");
+            statement.execute("CREATE INDEX SEARCHRESULT_GUID ON SEARCHRESULT (INDEXER_ID, INDEXERGUID)");
+        }
+        testee.dataSource = dataSource;
+        indexerEntity.setId(1);
+        indexerEntity.setName("indexer");
+        IndexerConfig indexerConfig = new IndexerConfig();
+        indexerConfig.setName("indexer");
+        indexer.initialize(indexerConfig, indexerEntity);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Statement statement = keepAliveConnection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        keepAliveConnection.close();
+    }
+
+    @Test
+    public void shouldInsertNewResultsAndSetIds() throws Exception {
+        SearchResultItem item = createItem("guid1", "title1");
+        item.setPubDate(Instant.ofEpochSecond(1000));
+        item.setDownloadType(DownloadType.NZB);
+
+        testee.persist(indexerEntity, Collections.singletonList(item));
+
+        long expectedId = SearchResultIdCalculator.calculateSearchResultId(item);
+        assertThat(item.getSearchResultId()).isEqualTo(expectedId);
+        assertThat(item.getGuid()).isEqualTo(expectedId);
+        try (ResultSet resultSet = keepAliveConnection.createStatement().executeQuery("select ID, INDEXER_ID, INDEXERGUID, TITLE, DOWNLOAD_TYPE, PUB_DATE from SEARCHRESULT")) {
+            assertThat(resultSet.next()).isTrue();
+            assertThat(resultSet.getLong(1)).isEqualTo(expectedId);
+            assertThat(resultSet.getInt(2)).isEqualTo(1);
+            assertThat(resultSet.getString(3)).isEqualTo("guid1");
+            assertThat(resultSet.getString(4)).isEqualTo("title1");
+            assertThat(resultSet.getString(5)).isEqualTo("NZB");
+            assertThat(resultSet.getTimestamp(6).toInstant()).isEqualTo(Instant.ofEpochSecond(1000));
+            assertThat(resultSet.next()).isFalse();
+        }
+    }
+
+    @Test
+    public void shouldSkipExistingResults() throws Exception {
+        testee.persist(indexerEntity, Arrays.asList(createItem("guid1", "title1"), createItem("guid2", "title2")));
+        try (Statement statement = keepAliveConnection.createStatement()) {
+            statement.execute("update SEARCHRESULT set FIRST_FOUND = TIMESTAMP '2017-01-01 00:00:00'");
+        }
+
+        //Same ID, same GUID with different title (and therefore different ID), duplicate in same page and a new one
+        testee.persist(indexerEntity, Arrays.asList(createItem("guid1", "title1"), createItem("guid2", "otherTitle"), createItem("guid3", "title3"), createItem("guid3", "title3")));
+
+        //The reused GUID is saved with its own ID so that it can be downloaded
+        assertThat(count("select count(*) from SEARCHRESULT")).isEqualTo(4);
+        assertThat(count("select count(*) from SEARCHRESULT where INDEXERGUID = 'guid2'")).isEqualTo(2);
+        assertThat(count("select count(*) from SEARCHRESULT where FIRST_FOUND = TIMESTAMP '2017-01-01 00:00:00'")).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldInsertMoreResultsThanBatchSize() throws Exception {
+        List<SearchResultItem> items = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            items.add(createItem("guid" + i, "title" + i));
+        }
+
+        testee.persist(indexerEntity, items);
+
+        assertThat(count("select count(*) from SEARCHRESULT")).isEqualTo(1200);
+    }
+
+    @Test
+    public void shouldWriteBehindAndAwaitPendingWrites() throws Exception {
+        testee.writeBehind = true;
+        List<SearchResultItem> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(createItem("guid" + i, "title" + i));
+        }
+
+        testee.persist(indexerEntity, items);
+        testee.awaitPendingWrites();
+
+        assertThat(count("select count(*) from SEARCHRESULT")).isEqualTo(1000);
+        testee.onShutdown(new ShutdownEvent());
+    }
+
+    @Test
+    public void shouldNotSavePartOfBatchWhenRetryFails() throws Exception {
+        //The title is mandatory so the batch fails again when retried
+        testee.persist(indexerEntity, Arrays.asList(createItem("guid1", "title1"), createItem("guid2", null)));
+
+        assertThat(count("select count(*) from SEARCHRESULT")).isEqualTo(0);
+    }
+
+    private SearchResultItem createItem(String indexerGuid, String title) {
+        SearchResultItem item = new SearchResultItem();
+        item.setIndexer(indexer);
+        item.setIndexerGuid(indexerGuid);
+        item.setTitle(title);
+        item.setLink("http://127.0.0.1/" + indexerGuid);
+        return item;
+    }
+
+    private int count(String sql) throws SQLException {
+        try (ResultSet resultSet = keepAliveConnection.createStatement().executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+}
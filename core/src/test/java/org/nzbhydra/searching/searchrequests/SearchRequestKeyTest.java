@@ -0,0 +1,53 @@
+package org.nzbhydra.searching.searchrequests;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.nzbhydra.mediainfo.InfoProvider.IdType;
+import org.nzbhydra.searching.dtoseventsenums.SearchType;
+import org.nzbhydra.searching.searchrequests.SearchRequest.SearchSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchRequestKeyTest {
+
+    @Test
+    public void shouldBeEqualForEquivalentRequests() {
+        SearchRequest request1 = new SearchRequest(SearchSource.API, SearchType.TVSEARCH, 0, 100);
+        request1.setQuery("Some  Show ");
+        request1.setIndexers(Sets.newHashSet("indexer1", "indexer2"));
+        request1.getIdentifiers().put(IdType.TVDB, "123");
+        request1.getIdentifiers().put(IdType.IMDB, "tt123");
+
+        SearchRequest request2 = new SearchRequest(SearchSource.API, SearchType.TVSEARCH, 0, 100);
+        request2.setQuery("some show");
+        request2.setIndexers(Sets.newLinkedHashSet(Sets.newHashSet("indexer2", "indexer1")));
+        request2.getIdentifiers().put(IdType.IMDB, "tt123");
+        request2.getIdentifiers().put(IdType.TVDB, "123");
+
+        assertThat(new SearchRequestKey(request1)).isEqualTo(new SearchRequestKey(request2));
+        assertThat(new SearchRequestKey(request1).hashCode()).isEqualTo(new SearchRequestKey(request2).hashCode());
+    }
+
+    @Test
+    public void shouldDifferForResultRelevantProperties() {
+        SearchRequest request1 = new SearchRequest(SearchSource.API, SearchType.SEARCH, 0, 100);
+        request1.setQuery("query");
+        SearchRequest request2 = new SearchRequest(SearchSource.API, SearchType.SEARCH, 0, 100);
+        request2.setQuery("query");
+
+        request2.setIndexers(Sets.newHashSet("indexer1"));
+        assertThat(new SearchRequestKey(request1)).isNotEqualTo(new SearchRequestKey(request2));
+
+        request2.setIndexers(null);
+        request2.setOffset(100);
+        assertThat(new SearchRequestKey(request1)).isNotEqualTo(new SearchRequestKey(request2));
+
+        request2.setOffset(0);
+        request2.getInternalData().getForbiddenWords().add("forbidden");
+        assertThat(new SearchRequestKey(request1)).isNotEqualTo(new SearchRequestKey(request2));
+
+        request2.getInternalData().getForbiddenWords().clear();
+        assertThat(new SearchRequestKey(request1)).isEqualTo(new SearchRequestKey(request2));
+    }
+
+}
@@ -475,6 +475,26 @@ function ConfigFields($injector) {
                                 }
                             }
                         },
+                        {
+                            key: 'maxConcurrentIndexerSearches',
+                            type: 'horizontalInput',
+                            templateOptions: {
+                                type: 'number',
+                                label: 'Max concurrent searches',
+                                help: 'Maximum number of indexer searches running at the same time (over all searches). Further indexer searches are queued.',
+                                min: 1
+                            }
+                        },
+                        {
+                            key: 'maxConcurrentSearchesPerIndexer',
+                            type: 'horizontalInput',
+                            templateOptions: {
+                                type: 'number',
+                                label: 'Max searches per indexer',
+                                help: 'Maximum number of searches running against a single indexer at the same time. Can be overwritten per indexer.',
+                                min: 1
+                            }
+                        },
                         {
                             key: 'ignoreTemporarilyDisabled',
                             type: 'horizontalSwitch',
@@ -959,6 +979,19 @@ function ConfigFields($injector) {
                                 help: 'Show all cached results when searching internally. Might make sorting / filtering slower'
                             }
                         },
+                        {
+                            key: 'searchCacheSizeInMb',
+                            type: 'horizontalInput',
+                            templateOptions: {
+                                type: 'number',
+                                label: 'Search cache size',
+                                addonRight: {
+                                    text: 'MB'
+                                },
+                                help: 'Estimated memory used to cache search results for paging. Oldest results are removed when the limit is reached.',
+                                min: 1
+                            }
+                        },
                         {
                             wrapper: 'fieldset',
                             templateOptions: {
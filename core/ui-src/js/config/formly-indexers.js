@@ -169,6 +169,15 @@ function getIndexerBoxFields(indexerModel, parentModel, isInitial, CategoriesSer
                 help: 'Supercedes the general timeout in "Searching"'
             }
         },
+        {
+            key: 'maxConcurrentSearches',
+            type: 'horizontalInput',
+            templateOptions: {
+                type: 'number',
+                label: 'Max concurrent searches',
+                help: 'Supercedes the general maximum of searches per indexer in "Searching"'
+            }
+        },
         {
             key: 'schedule',
             type: 'horizontalChips',
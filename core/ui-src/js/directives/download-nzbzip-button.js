@@ -22,8 +22,6 @@ function downloadNzbzipButton() {
                 var values = _.map($scope.searchResults, function (value) {
                     return value.searchResultId;
                 });
-                var link = "internalapi/nzbzip";
-
                 var searchTitle;
                 if (angular.isDefined($scope.searchTitle)) {
                     searchTitle = " for " + $scope.searchTitle.replace("[^a-zA-Z0-9.-]", "_");
@@ -31,22 +29,22 @@ function downloadNzbzipButton() {
                     searchTitle = "";
                 }
                 var filename = "NZBHydra NZBs" + searchTitle + ".zip";
-                $http({method: "post", url: link, data: values}).then(function (response) {
-                    if (response.data.successful && response.data.zip !== null) {
-                        //FileDownloadService.sendFile($base64.decode(response.zip), filename);
-                        link = "internalapi/nzbzipDownload";
-                        FileDownloadService.downloadFile(link, filename, "POST", response.data.zipFilepath);
-                        if (angular.isDefined($scope.callback)) {
-                            $scope.callback({result: response.data.addedIds});
-                        }
+                //The NZBs are downloaded in parallel and written to a ZIP on the server which is then downloaded
+                $http({method: "post", url: "internalapi/nzbzip", data: values}).then(function (response) {
+                    if (response.data.successful && response.data.zipFilepath !== null) {
+                        FileDownloadService.downloadFile("internalapi/nzbzipDownload", filename, "POST", response.data.zipFilepath).then(function (successful) {
+                            if (successful && angular.isDefined($scope.callback)) {
+                                $scope.callback({result: response.data.addedIds});
+                            }
+                        });
                         if (response.data.missedIds.length > 0) {
-                            growl.error("Unable to add " + response.missedIds.length + " out of " + values.length + " NZBs to ZIP");
+                            growl.error("Unable to add " + response.data.missedIds.length + " out of " + values.length + " NZBs to ZIP");
                         }
                     } else {
                         growl.error(response.data.message);
                     }
-                }, function (data, status, headers, config) {
-                    growl.error(status);
+                }, function (response) {
+                    growl.error(response.status);
                 });
             }
         }
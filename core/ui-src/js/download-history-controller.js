@@ -45,6 +45,7 @@ function DownloadHistoryController($scope, StatsService, downloads, ConfigServic
     //Preloaded data
     $scope.nzbDownloads = downloads.nzbDownloads;
     $scope.totalDownloads = downloads.totalDownloads;
+    var loadedPage = {number: 1, lastId: downloads.lastId};
 
     $scope.columnSizes = {
         time: 10,
@@ -84,9 +85,13 @@ function DownloadHistoryController($scope, StatsService, downloads, ConfigServic
 
 
     $scope.update = function () {
-        StatsService.getDownloadHistory($scope.pagination.current, $scope.limit, $scope.filterModel, sortModel).then(function (downloads) {
+        var pageNumber = $scope.pagination.current;
+        //The last ID is only valid for the following page and if the sorting and filters are unchanged
+        var lastId = pageNumber === loadedPage.number + 1 ? loadedPage.lastId : undefined;
+        StatsService.getDownloadHistory(pageNumber, $scope.limit, $scope.filterModel, sortModel, lastId).then(function (downloads) {
             $scope.nzbDownloads = downloads.nzbDownloads;
             $scope.totalDownloads = downloads.totalDownloads;
+            loadedPage = {number: pageNumber, lastId: downloads.lastId};
         });
     };
 
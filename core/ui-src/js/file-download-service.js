@@ -25,8 +25,10 @@ function FileDownloadService($http, growl) {
             document.body.appendChild(a);
             a.click();
             document.body.removeChild(a);
+            return true;
         }, function (data, status, headers, config) {
             growl.error(status);
+            return false;
         });
 
     }
@@ -31,6 +31,7 @@ function SearchHistoryController($scope, $state, SearchHistoryService, ConfigSer
     //Preloaded data
     $scope.searchRequests = history.searchRequests;
     $scope.totalRequests = history.totalRequests;
+    var loadedPage = {number: 1, lastId: history.lastId};
 
     var anyUsername = false;
     var anyIp = false;
@@ -70,9 +71,13 @@ function SearchHistoryController($scope, $state, SearchHistoryService, ConfigSer
     }
 
     $scope.update = function () {
-        SearchHistoryService.getSearchHistory($scope.pagination.current, $scope.limit, $scope.filterModel, sortModel).then(function (history) {
+        var pageNumber = $scope.pagination.current;
+        //The last ID is only valid for the following page and if the sorting and filters are unchanged
+        var lastId = pageNumber === loadedPage.number + 1 ? loadedPage.lastId : undefined;
+        SearchHistoryService.getSearchHistory(pageNumber, $scope.limit, $scope.filterModel, sortModel, undefined, undefined, lastId).then(function (history) {
             $scope.searchRequests = history.searchRequests;
             $scope.totalRequests = history.totalRequests;
+            loadedPage = {number: pageNumber, lastId: history.lastId};
         });
     };
 
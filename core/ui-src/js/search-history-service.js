@@ -19,13 +19,16 @@ function SearchHistoryService($filter, $http) {
         });
     }
 
-    function getSearchHistory(pageNumber, limit, filterModel, sortModel, distinct, onlyCurrentUser) {
+    function getSearchHistory(pageNumber, limit, filterModel, sortModel, distinct, onlyCurrentUser, lastId) {
+        //With the ID of the last entry of the previous page the entries before it don't need to be skipped
         var params = {
             page: pageNumber,
             limit: limit,
             filterModel: filterModel,
             distinct: distinct,
-            onlyCurrentUser: onlyCurrentUser
+            onlyCurrentUser: onlyCurrentUser,
+            lastId: lastId,
+            estimateTotal: true
         };
         if (angular.isUndefined(pageNumber)) {
             params.page = 1;
@@ -47,7 +50,8 @@ function SearchHistoryService($filter, $http) {
         return $http.post("internalapi/history/searches", params).then(function (response) {
             return {
                 searchRequests: response.data.content,
-                totalRequests: response.data.totalElements
+                totalRequests: response.data.totalElements,
+                lastId: response.data.lastId
             }
         });
     }
@@ -466,6 +466,15 @@ function SearchResultsController($stateParams, $scope, $q, $timeout, $document,
         blockUI.reset();
     }
 
+    $scope.getTimingsTooltip = function (indexerName) {
+        if (!$scope.timings || !$scope.timings.indexerPhases[indexerName]) {
+            return "";
+        }
+        return _.map($scope.timings.indexerPhases[indexerName], function (millis, phase) {
+            return phase + ": " + millis + "ms";
+        }).join(", ");
+    };
+
     function setDataFromSearchResult(data, previousSearchResults) {
         allSearchResults = previousSearchResults.concat(data.searchResults);
         allSearchResults = uniq(allSearchResults);
@@ -482,6 +491,7 @@ function SearchResultsController($stateParams, $scope, $q, $timeout, $document,
         $scope.numberOfProcessedResults = data.numberOfProcessedResults;
         $scope.numberOfLoadedResults = allSearchResults.length;
         $scope.indexersearches = data.indexerSearchMetaDatas;
+        $scope.timings = data.timings;
 
         $scope.loadMoreEnabled = ($scope.numberOfLoadedResults + $scope.numberOfRejectedResults < $scope.numberOfAvailableResults) || _.any(data.indexerSearchMetaDatas, function (x) {
             return x.hasMoreResults;
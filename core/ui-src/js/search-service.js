@@ -83,6 +83,7 @@ function SearchService($http) {
         var numberOfProcessedResults = response.data.numberOfProcessedResults;
         var rejectedReasonsMap = response.data.rejectedReasonsMap;
         var notPickedIndexersWithReason = response.data.notPickedIndexersWithReason;
+        var timings = response.data.timings;
 
         lastResults = {
             "searchResults": searchResults,
@@ -92,7 +93,8 @@ function SearchService($http) {
             "numberOfRejectedResults": numberOfRejectedResults,
             "numberOfProcessedResults": numberOfProcessedResults,
             "rejectedReasonsMap": rejectedReasonsMap,
-            "notPickedIndexersWithReason": notPickedIndexersWithReason
+            "notPickedIndexersWithReason": notPickedIndexersWithReason,
+            "timings": timings
 
         };
         // console.timeEnd("searchonly");
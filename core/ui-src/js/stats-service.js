@@ -17,8 +17,9 @@ function StatsService($http) {
         });
     }
 
-    function getDownloadHistory(pageNumber, limit, filterModel, sortModel) {
-        var params = {page: pageNumber, limit: limit, filterModel: filterModel};
+    function getDownloadHistory(pageNumber, limit, filterModel, sortModel, lastId) {
+        //With the ID of the last entry of the previous page the entries before it don't need to be skipped
+        var params = {page: pageNumber, limit: limit, filterModel: filterModel, lastId: lastId, estimateTotal: true};
         if (angular.isUndefined(pageNumber)) {
             params.page = 1;
         }
@@ -39,7 +40,8 @@ function StatsService($http) {
         return $http.post("internalapi/history/downloads", params).then(function (response) {
             return {
                 nzbDownloads: response.data.content,
-                totalDownloads: response.data.totalElements
+                totalDownloads: response.data.totalElements,
+                lastId: response.data.lastId
             };
 
         });
@@ -112,6 +112,14 @@ function SystemController($scope, $state, activeTab, $http, growl, RestartServic
         });
     };
 
+    $scope.loadDatabaseSize = function () {
+        $http.get('internalapi/maintenance/databasesize').then(function (response) {
+            $scope.databaseSize = response.data;
+        }, function () {
+            growl.error("Unable to load database size");
+        });
+    };
+
     $scope.executeSqlUpdate = function () {
         $http.post('internalapi/debuginfos/executesqlupdate', $scope.foo.sql).then(function (response) {
             if (response.data.successful) {